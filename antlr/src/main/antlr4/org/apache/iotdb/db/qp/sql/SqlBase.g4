@@ -195,7 +195,17 @@ whereClause
     ;
 
 showWhereClause
-    : WHERE (property | containsExpression)
+    : WHERE tagOrExpression
+    ;
+tagOrExpression
+    : tagAndExpression (OPERATOR_OR tagAndExpression)*
+    ;
+tagAndExpression
+    : tagPredicate (OPERATOR_AND tagPredicate)*
+    ;
+tagPredicate
+    : property
+    | containsExpression
     ;
 containsExpression
     : name=ID OPERATOR_CONTAINS value=propertyValue
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Entry of target/benchmarks.jar. Accepts the usual JMH command line options, runs the selected
+ * suites and finally prints one score (ns/point for the TsFile suites) and bytes/point line per
+ * benchmark and parameter set, the numbers we track release over release.
+ *
+ * <p>Example: java -jar benchmarks.jar EncodingBenchmark -p shape=NOISY -rf json
+ */
+public class BenchmarkRunner {
+
+  private static final String BYTES_COUNTER = "bytes";
+  private static final String POINTS_COUNTER = "points";
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    Collection<RunResult> results = new Runner(new CommandLineOptions(args)).run();
+    System.out.println();
+    System.out.printf(
+        "%-60s %-60s %12s %-12s %12s%n", "Benchmark", "Params", "Score", "Unit", "bytes/point");
+    for (RunResult runResult : results) {
+      Result<?> primary = runResult.getPrimaryResult();
+      Map<String, Result> secondary = runResult.getSecondaryResults();
+      double bytesPerPoint = Double.NaN;
+      if (secondary.containsKey(BYTES_COUNTER) && secondary.containsKey(POINTS_COUNTER)) {
+        double points = secondary.get(POINTS_COUNTER).getScore();
+        if (points > 0) {
+          bytesPerPoint = secondary.get(BYTES_COUNTER).getScore() / points;
+        }
+      }
+      System.out.printf(
+          "%-60s %-60s %12.3f %-12s %12.3f%n",
+          runResult.getParams().getBenchmark(),
+          paramsToString(runResult),
+          primary.getScore(),
+          primary.getScoreUnit(),
+          bytesPerPoint);
+    }
+  }
+
+  private static String paramsToString(RunResult runResult) {
+    StringBuilder builder = new StringBuilder();
+    for (String key : runResult.getParams().getParamsKeys()) {
+      if (builder.length() > 0) {
+        builder.append(',');
+      }
+      builder.append(key).append('=').append(runResult.getParams().getParam(key));
+    }
+    return builder.toString();
+  }
+}
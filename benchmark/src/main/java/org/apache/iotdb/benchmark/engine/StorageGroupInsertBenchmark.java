@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.engine;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionStrategy;
+import org.apache.iotdb.db.engine.flush.FlushManager;
+import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.exception.BatchProcessException;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.exception.StorageGroupProcessorException;
+import org.apache.iotdb.db.exception.TriggerExecutionException;
+import org.apache.iotdb.db.exception.WriteProcessException;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Row throughput of many writers inserting into one storage group, each writer into its own
+ * device, with and without concurrent insert. With few large storage groups this is where the
+ * insertion stops scaling. The number of writers is set by the JMH -t option.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StorageGroupInsertBenchmark {
+
+  static final int TABLET_ROW_NUM = 100;
+
+  private static final String STORAGE_GROUP = "root.benchmark";
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  @Param({"false", "true"})
+  public boolean concurrentInsert;
+
+  @Param({"10"})
+  public int measurementNum;
+
+  private final AtomicInteger deviceNum = new AtomicInteger();
+
+  private File systemDir;
+  private StorageGroupProcessor processor;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, StartupException, StorageGroupProcessorException {
+    config.setEnableConcurrentInsert(concurrentInsert);
+    config.setCompactionStrategy(CompactionStrategy.NO_COMPACTION);
+    FlushManager.getInstance().start();
+    systemDir = Files.createTempDirectory("storage-group-insert-benchmark").toFile();
+    processor =
+        new StorageGroupProcessor(systemDir.getPath(), "0", new DirectFlushPolicy(), STORAGE_GROUP);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    processor.syncDeleteDataFiles();
+    FlushManager.getInstance().stop();
+    FileUtils.deleteDirectory(systemDir);
+  }
+
+  /** one writer, which owns a device of the storage group */
+  @State(Scope.Thread)
+  public static class Writer {
+
+    private long time;
+    private InsertRowPlan rowPlan;
+    private InsertTabletPlan tabletPlan;
+
+    @Setup(Level.Trial)
+    public void setUp(StorageGroupInsertBenchmark benchmark) throws IllegalPathException {
+      String deviceId = STORAGE_GROUP + ".d" + benchmark.deviceNum.getAndIncrement();
+      int measurementNum = benchmark.measurementNum;
+
+      TSRecord record = new TSRecord(0, deviceId);
+      String[] measurements = new String[measurementNum];
+      List<Integer> dataTypes = new ArrayList<>();
+      IMeasurementMNode[] mNodes = new IMeasurementMNode[measurementNum];
+      Object[] columns = new Object[measurementNum];
+      for (int i = 0; i < measurementNum; i++) {
+        measurements[i] = "s" + i;
+        record.addTuple(new DoubleDataPoint(measurements[i], i));
+        dataTypes.add(TSDataType.DOUBLE.ordinal());
+        mNodes[i] =
+            new MeasurementMNode(
+                null,
+                measurements[i],
+                new MeasurementSchema(measurements[i], TSDataType.DOUBLE, TSEncoding.GORILLA),
+                null);
+        double[] column = new double[TABLET_ROW_NUM];
+        for (int j = 0; j < TABLET_ROW_NUM; j++) {
+          column[j] = i + j;
+        }
+        columns[i] = column;
+      }
+      rowPlan = new InsertRowPlan(record);
+
+      tabletPlan = new InsertTabletPlan(new PartialPath(deviceId), measurements, dataTypes);
+      tabletPlan.setMeasurementMNodes(mNodes);
+      tabletPlan.setColumns(columns);
+      tabletPlan.setTimes(new long[TABLET_ROW_NUM]);
+      tabletPlan.setRowCount(TABLET_ROW_NUM);
+    }
+  }
+
+  @Benchmark
+  public void insertRow(Writer writer) throws WriteProcessException, TriggerExecutionException {
+    writer.rowPlan.setTime(writer.time++);
+    processor.insert(writer.rowPlan);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TABLET_ROW_NUM)
+  public void insertTablet(Writer writer) throws BatchProcessException, TriggerExecutionException {
+    long[] times = writer.tabletPlan.getTimes();
+    for (int i = 0; i < TABLET_ROW_NUM; i++) {
+      times[i] = writer.time++;
+    }
+    processor.insertTablet(writer.tabletPlan);
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.tsfile;
+
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.read.reader.page.PageReader;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.page.PageWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode throughput of the read path: {@link ChunkReader} over chunks read back from a real
+ * TsFile (uncompress + decode), and {@link PageReader#getAllSatisfiedPageData} over already
+ * uncompressed pages (decode only).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ChunkReaderBenchmark.POINT_NUM)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkReaderBenchmark {
+
+  static final int POINT_NUM = 100_000;
+
+  private static final int PAGE_POINT_NUM = 10_000;
+
+  private static final String DEVICE = "root.sg.d0";
+
+  private static final String MEASUREMENT = "s0";
+
+  /** encoding:dataType, the combinations the server picks by default plus the common overrides */
+  @Param({
+    "TS_2DIFF:INT32",
+    "TS_2DIFF:INT64",
+    "RLE:INT32",
+    "RLE:INT64",
+    "GORILLA:INT64",
+    "GORILLA:FLOAT",
+    "GORILLA:DOUBLE",
+    "PLAIN:DOUBLE",
+    "PLAIN:TEXT"
+  })
+  public String encodingAndType;
+
+  @Param({"SNAPPY", "LZ4", "UNCOMPRESSED"})
+  public CompressionType compressionType;
+
+  @Param({"MONOTONIC", "NOISY", "REPEATED"})
+  public DataShape shape;
+
+  private TSEncoding encoding;
+  private TSDataType dataType;
+  private File tsFile;
+  private final List<Chunk> chunks = new ArrayList<>();
+  private long chunkBytes;
+  private final List<ByteBuffer> pages = new ArrayList<>();
+  private long pageBytes;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, WriteProcessException {
+    String[] pair = encodingAndType.split(":");
+    encoding = TSEncoding.valueOf(pair[0]);
+    dataType = TSDataType.valueOf(pair[1]);
+    MeasurementSchema schema =
+        new MeasurementSchema(MEASUREMENT, dataType, encoding, compressionType);
+    GeneratedSeries series = GeneratedSeries.generate(shape, POINT_NUM, 0);
+
+    tsFile = Files.createTempFile("chunk-reader-benchmark", ".tsfile").toFile();
+    try (TsFileWriter writer = new TsFileWriter(tsFile)) {
+      writer.registerTimeseries(new Path(DEVICE, MEASUREMENT), schema);
+      for (int i = 0; i < POINT_NUM; i++) {
+        TSRecord record = new TSRecord(series.getTimestamps()[i], DEVICE);
+        record.addTuple(series.getDataPoint(dataType, MEASUREMENT, i));
+        writer.write(record);
+      }
+    }
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getPath())) {
+      for (ChunkMetadata chunkMetadata :
+          reader.getChunkMetadataList(new Path(DEVICE, MEASUREMENT))) {
+        Chunk chunk = reader.readMemChunk(chunkMetadata);
+        chunks.add(chunk);
+        chunkBytes += chunk.getData().remaining();
+      }
+    }
+
+    for (int start = 0; start < POINT_NUM; start += PAGE_POINT_NUM) {
+      PageWriter pageWriter = new PageWriter(schema);
+      for (int i = start; i < start + PAGE_POINT_NUM; i++) {
+        writePoint(pageWriter, series, i);
+      }
+      ByteBuffer page = pageWriter.getUncompressedBytes();
+      pageBytes += page.remaining();
+      pages.add(page);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(tsFile.toPath());
+  }
+
+  @Benchmark
+  public void readChunks(SizeCounters counters, Blackhole blackhole) throws IOException {
+    for (Chunk chunk : chunks) {
+      // the reader consumes the chunk buffer, hand it a fresh view every time
+      Chunk copy =
+          new Chunk(
+              chunk.getHeader(),
+              chunk.getData().duplicate(),
+              chunk.getDeleteIntervalList(),
+              chunk.getChunkStatistic());
+      ChunkReader chunkReader = new ChunkReader(copy, null);
+      while (chunkReader.hasNextSatisfiedPage()) {
+        consume(chunkReader.nextPageData(), blackhole);
+      }
+    }
+    counters.record(chunkBytes, POINT_NUM);
+  }
+
+  @Benchmark
+  public void readPages(SizeCounters counters, Blackhole blackhole) throws IOException {
+    Decoder timeDecoder =
+        Decoder.getDecoderByType(
+            TSEncoding.valueOf(TSFileDescriptor.getInstance().getConfig().getTimeEncoder()),
+            TSDataType.INT64);
+    for (ByteBuffer page : pages) {
+      timeDecoder.reset();
+      PageReader pageReader =
+          new PageReader(
+              page.duplicate(),
+              dataType,
+              Decoder.getDecoderByType(encoding, dataType),
+              timeDecoder,
+              null);
+      consume(pageReader.getAllSatisfiedPageData(), blackhole);
+    }
+    counters.record(pageBytes, POINT_NUM);
+  }
+
+  private void consume(BatchData batchData, Blackhole blackhole) {
+    while (batchData.hasCurrent()) {
+      blackhole.consume(batchData.currentTime());
+      switch (dataType) {
+        case INT32:
+          blackhole.consume(batchData.getInt());
+          break;
+        case INT64:
+          blackhole.consume(batchData.getLong());
+          break;
+        case FLOAT:
+          blackhole.consume(batchData.getFloat());
+          break;
+        case DOUBLE:
+          blackhole.consume(batchData.getDouble());
+          break;
+        case TEXT:
+          blackhole.consume(batchData.getBinary());
+          break;
+        default:
+          throw new UnSupportedDataTypeException(dataType.toString());
+      }
+      batchData.next();
+    }
+  }
+
+  private void writePoint(PageWriter pageWriter, GeneratedSeries series, int index) {
+    long time = series.getTimestamps()[index];
+    switch (dataType) {
+      case INT32:
+        pageWriter.write(time, series.getInts()[index]);
+        break;
+      case INT64:
+        pageWriter.write(time, series.getLongs()[index]);
+        break;
+      case FLOAT:
+        pageWriter.write(time, series.getFloats()[index]);
+        break;
+      case DOUBLE:
+        pageWriter.write(time, series.getDoubles()[index]);
+        break;
+      case TEXT:
+        pageWriter.write(time, series.getTexts()[index]);
+        break;
+      default:
+        throw new UnSupportedDataTypeException(dataType.toString());
+    }
+  }
+}
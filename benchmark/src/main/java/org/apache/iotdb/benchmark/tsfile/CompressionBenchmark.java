@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.tsfile;
+
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.page.PageWriter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compress and uncompress throughput of the {@link ICompressor} and {@link IUnCompressor}
+ * implementations over one encoded page, the unit the chunk writer and reader hand to them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(CompressionBenchmark.POINT_NUM)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+  /** roughly what fits into the default 64KB page for plain doubles */
+  static final int POINT_NUM = 8_000;
+
+  @Param({"UNCOMPRESSED", "SNAPPY", "LZ4", "GZIP"})
+  public CompressionType compressionType;
+
+  @Param({"PLAIN", "GORILLA"})
+  public TSEncoding valueEncoding;
+
+  @Param({"MONOTONIC", "NOISY", "REPEATED"})
+  public DataShape shape;
+
+  private ICompressor compressor;
+  private IUnCompressor unCompressor;
+  private byte[] uncompressed;
+  private byte[] compressed;
+  private int compressedSize;
+  private byte[] uncompressOutput;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    GeneratedSeries series = GeneratedSeries.generate(shape, POINT_NUM, 0);
+    PageWriter pageWriter =
+        new PageWriter(
+            new MeasurementSchema("s0", TSDataType.DOUBLE, valueEncoding, compressionType));
+    pageWriter.write(series.getTimestamps(), series.getDoubles(), POINT_NUM);
+    ByteBuffer page = pageWriter.getUncompressedBytes();
+    uncompressed = new byte[page.remaining()];
+    page.get(uncompressed);
+
+    compressor = ICompressor.getCompressor(compressionType);
+    unCompressor = IUnCompressor.getUnCompressor(compressionType);
+    compressed = new byte[compressor.getMaxBytesForCompression(uncompressed.length)];
+    compressedSize = compressInto(compressed);
+    uncompressOutput = new byte[uncompressed.length];
+  }
+
+  @Benchmark
+  public int compress(SizeCounters counters) throws IOException {
+    int size = compressInto(compressed);
+    counters.record(size, POINT_NUM);
+    return size;
+  }
+
+  @Benchmark
+  public int uncompress(SizeCounters counters) throws IOException {
+    int size = unCompressor.uncompress(compressed, 0, compressedSize, uncompressOutput, 0);
+    counters.record(compressedSize, POINT_NUM);
+    return size;
+  }
+
+  private int compressInto(byte[] output) throws IOException {
+    if (compressionType == CompressionType.UNCOMPRESSED) {
+      // the chunk writer skips the compressor entirely in this case, so does the benchmark
+      System.arraycopy(uncompressed, 0, output, 0, uncompressed.length);
+      return uncompressed.length;
+    }
+    return compressor.compress(uncompressed, 0, uncompressed.length, output);
+  }
+}
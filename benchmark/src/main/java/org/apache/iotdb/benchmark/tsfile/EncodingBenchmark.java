@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.tsfile;
+
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode throughput of every {@link TSEncoding} x {@link TSDataType} pair supported by
+ * {@link TSEncodingBuilder}. Scores are ns/point, the size counters give bytes/point.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(EncodingBenchmark.POINT_NUM)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+  static final int POINT_NUM = 100_000;
+
+  /** encoding:dataType, only the pairs that TSEncodingBuilder and Decoder accept */
+  @Param({
+    "PLAIN:BOOLEAN",
+    "PLAIN:INT32",
+    "PLAIN:INT64",
+    "PLAIN:FLOAT",
+    "PLAIN:DOUBLE",
+    "PLAIN:TEXT",
+    "RLE:BOOLEAN",
+    "RLE:INT32",
+    "RLE:INT64",
+    "RLE:FLOAT",
+    "RLE:DOUBLE",
+    "TS_2DIFF:INT32",
+    "TS_2DIFF:INT64",
+    "TS_2DIFF:FLOAT",
+    "TS_2DIFF:DOUBLE",
+    "GORILLA_V1:FLOAT",
+    "GORILLA_V1:DOUBLE",
+    "REGULAR:INT32",
+    "REGULAR:INT64",
+    "GORILLA:INT32",
+    "GORILLA:INT64",
+    "GORILLA:FLOAT",
+    "GORILLA:DOUBLE",
+    "DICTIONARY:TEXT"
+  })
+  public String encodingAndType;
+
+  @Param({"MONOTONIC", "NOISY", "REPEATED"})
+  public DataShape shape;
+
+  private TSEncoding encoding;
+  private TSDataType dataType;
+  private GeneratedSeries series;
+  private PublicBAOS out;
+  private byte[] encoded;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    String[] pair = encodingAndType.split(":");
+    encoding = TSEncoding.valueOf(pair[0]);
+    dataType = TSDataType.valueOf(pair[1]);
+    series = GeneratedSeries.generate(shape, POINT_NUM, 0);
+    out = new PublicBAOS();
+    encodeSeries();
+    encoded = out.toByteArray();
+  }
+
+  @Benchmark
+  public int encode(SizeCounters counters) throws IOException {
+    int size = encodeSeries();
+    counters.record(size, POINT_NUM);
+    return size;
+  }
+
+  @Benchmark
+  public void decode(SizeCounters counters, Blackhole blackhole) throws IOException {
+    Decoder decoder = Decoder.getDecoderByType(encoding, dataType);
+    ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    switch (dataType) {
+      case BOOLEAN:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readBoolean(buffer));
+        }
+        break;
+      case INT32:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readInt(buffer));
+        }
+        break;
+      case INT64:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readLong(buffer));
+        }
+        break;
+      case FLOAT:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readFloat(buffer));
+        }
+        break;
+      case DOUBLE:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readDouble(buffer));
+        }
+        break;
+      case TEXT:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readBinary(buffer));
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(dataType.toString());
+    }
+    counters.record(encoded.length, POINT_NUM);
+  }
+
+  /** @return the encoded size in bytes */
+  private int encodeSeries() throws IOException {
+    Encoder encoder = TSEncodingBuilder.getEncodingBuilder(encoding).getEncoder(dataType);
+    out.reset();
+    switch (dataType) {
+      case BOOLEAN:
+        for (boolean value : series.getBooleans()) {
+          encoder.encode(value, out);
+        }
+        break;
+      case INT32:
+        for (int value : series.getInts()) {
+          encoder.encode(value, out);
+        }
+        break;
+      case INT64:
+        for (long value : series.getLongs()) {
+          encoder.encode(value, out);
+        }
+        break;
+      case FLOAT:
+        for (float value : series.getFloats()) {
+          encoder.encode(value, out);
+        }
+        break;
+      case DOUBLE:
+        for (double value : series.getDoubles()) {
+          encoder.encode(value, out);
+        }
+        break;
+      case TEXT:
+        for (Binary value : series.getTexts()) {
+          encoder.encode(value, out);
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(dataType.toString());
+    }
+    encoder.flush(out);
+    return out.size();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.tsfile;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
+
+import java.util.Random;
+
+/**
+ * A deterministic series of generated sensor points. Values of every data type are derived from
+ * the same underlying signal so that the numbers of different suites stay comparable.
+ */
+public class GeneratedSeries {
+
+  /** one sample per second, as most of our collectors report */
+  private static final long SAMPLE_INTERVAL_MS = 1000L;
+
+  private static final long START_TIME = 1_600_000_000_000L;
+
+  private final long[] timestamps;
+  private final boolean[] booleans;
+  private final int[] ints;
+  private final long[] longs;
+  private final float[] floats;
+  private final double[] doubles;
+  private final Binary[] texts;
+
+  private GeneratedSeries(int size) {
+    timestamps = new long[size];
+    booleans = new boolean[size];
+    ints = new int[size];
+    longs = new long[size];
+    floats = new float[size];
+    doubles = new double[size];
+    texts = new Binary[size];
+  }
+
+  public static GeneratedSeries generate(DataShape shape, int size, long seed) {
+    GeneratedSeries series = new GeneratedSeries(size);
+    Random random = new Random(seed);
+    long time = START_TIME;
+    double signal = 0;
+    for (int i = 0; i < size; i++) {
+      // collectors are not perfectly periodic, a few ms of jitter is typical
+      time += SAMPLE_INTERVAL_MS + (random.nextInt(5) == 0 ? random.nextInt(20) - 10 : 0);
+      series.timestamps[i] = time;
+      signal = nextSignal(shape, random, signal, i);
+      series.doubles[i] = signal;
+      series.floats[i] = (float) signal;
+      series.longs[i] = (long) signal;
+      series.ints[i] = (int) signal;
+      series.booleans[i] = ((long) signal & 1) == 1;
+      series.texts[i] = new Binary("s" + (long) signal);
+    }
+    return series;
+  }
+
+  private static double nextSignal(DataShape shape, Random random, double previous, int index) {
+    switch (shape) {
+      case MONOTONIC:
+        return previous + 1 + random.nextInt(3);
+      case NOISY:
+        // two decimals is the precision most sensors actually report
+        double value = 50 + 20 * Math.sin(index / 600.0) + random.nextGaussian();
+        return Math.round(value * 100) / 100.0;
+      case REPEATED:
+        return random.nextInt(200) == 0 ? random.nextInt(16) : previous;
+      default:
+        throw new IllegalArgumentException(shape.toString());
+    }
+  }
+
+  public int size() {
+    return timestamps.length;
+  }
+
+  public long[] getTimestamps() {
+    return timestamps;
+  }
+
+  public boolean[] getBooleans() {
+    return booleans;
+  }
+
+  public int[] getInts() {
+    return ints;
+  }
+
+  public long[] getLongs() {
+    return longs;
+  }
+
+  public float[] getFloats() {
+    return floats;
+  }
+
+  public double[] getDoubles() {
+    return doubles;
+  }
+
+  public Binary[] getTexts() {
+    return texts;
+  }
+
+  public DataPoint getDataPoint(TSDataType dataType, String measurementId, int index) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new BooleanDataPoint(measurementId, booleans[index]);
+      case INT32:
+        return new IntDataPoint(measurementId, ints[index]);
+      case INT64:
+        return new LongDataPoint(measurementId, longs[index]);
+      case FLOAT:
+        return new FloatDataPoint(measurementId, floats[index]);
+      case DOUBLE:
+        return new DoubleDataPoint(measurementId, doubles[index]);
+      case TEXT:
+        return new StringDataPoint(measurementId, texts[index]);
+      default:
+        throw new UnSupportedDataTypeException(dataType.toString());
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.tsfile;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH counters of the tsfile suites. The primary score of every suite is already
+ * normalized to ns/point, these counters carry the encoded size so that {@link
+ * org.apache.iotdb.benchmark.BenchmarkRunner} can report bytes/point next to it.
+ */
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class SizeCounters {
+
+  /** encoded (or compressed) bytes produced or consumed during the iteration */
+  public long bytes;
+
+  /** points that were encoded or decoded during the iteration */
+  public long points;
+
+  @Setup(Level.Iteration)
+  public void clean() {
+    bytes = 0;
+    points = 0;
+  }
+
+  void record(long byteNum, long pointNum) {
+    bytes += byteNum;
+    points += pointNum;
+  }
+}
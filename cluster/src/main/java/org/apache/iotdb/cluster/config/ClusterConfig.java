@@ -70,6 +70,25 @@ public class ClusterConfig {
 
   private boolean useBatchInLogCatchUp = true;
 
+  /**
+   * When set to true, LogDispatcher sends the logs to a follower with at most
+   * maxInFlightAppendEntriesPerNode AppendEntriesRequests in flight, instead of waiting for the
+   * response of one request before sending the next one.
+   */
+  private boolean enablePipelinedReplication = false;
+
+  /** max number of unacknowledged AppendEntriesRequests to one follower in pipelined replication */
+  private int maxInFlightAppendEntriesPerNode = 4;
+
+  /** max number of logs in one AppendEntriesRequest in pipelined replication */
+  private int maxLogNumInBatch = 100;
+
+  /**
+   * max total size of the logs in one AppendEntriesRequest in pipelined replication, default 4M. It
+   * is further bounded by the thrift frame size.
+   */
+  private long maxLogBatchSizeInByte = 4 * 1024 * 1024L;
+
   /** max number of committed logs to be saved */
   private int minNumOfLogsInMem = 1000;
 
@@ -173,6 +192,42 @@ public class ClusterConfig {
    */
   private long maxReadLogLag = 1000L;
 
+  /**
+   * When set to true, a leader holding a lease renewed by the heartbeats acknowledged by a quorum
+   * serves strong and mid consistency reads without contacting the followers, and the followers
+   * share the read index fetched from the leader among concurrent reads.
+   */
+  private boolean enableLeaseRead = false;
+
+  /**
+   * The fraction of the election timeout that the lease of a leader is shortened by, to tolerate
+   * the clock rate differences between the nodes.
+   */
+  private double leaseClockDriftBound = 0.1;
+
+  /**
+   * The max number of batches that a remote series reader fetches ahead of their consumption, 0
+   * disables prefetching.
+   */
+  private int remoteReaderPrefetchDepth = 0;
+
+  /**
+   * The max number of threads that forward the sub-plans of a partitioned plan to their data groups
+   * concurrently, 1 forwards them one after another.
+   */
+  private int forwardPlanParallelism = Runtime.getRuntime().availableProcessors();
+
+  /** The size of the chunk that a file in a snapshot is pulled by in each request. */
+  private int pullFileFetchSizeInByte = 1024 * 1024;
+
+  /** The max number of files in snapshots that are pulled concurrently by this node. */
+  private int maxConcurrentPullFiles = 4;
+
+  /**
+   * The max throughput of pulling the files in snapshots by this node, in MB/s, 0 means no limit.
+   */
+  private int pullSnapshotThroughputMbPerSec = 0;
+
   /**
    * When a follower tries to sync log with the leader, sync will fail if the log Lag exceeds
    * maxSyncLogLag.
@@ -216,6 +271,38 @@ public class ClusterConfig {
     this.useBatchInLogCatchUp = useBatchInLogCatchUp;
   }
 
+  public boolean isEnablePipelinedReplication() {
+    return enablePipelinedReplication;
+  }
+
+  public void setEnablePipelinedReplication(boolean enablePipelinedReplication) {
+    this.enablePipelinedReplication = enablePipelinedReplication;
+  }
+
+  public int getMaxInFlightAppendEntriesPerNode() {
+    return maxInFlightAppendEntriesPerNode;
+  }
+
+  public void setMaxInFlightAppendEntriesPerNode(int maxInFlightAppendEntriesPerNode) {
+    this.maxInFlightAppendEntriesPerNode = maxInFlightAppendEntriesPerNode;
+  }
+
+  public int getMaxLogNumInBatch() {
+    return maxLogNumInBatch;
+  }
+
+  public void setMaxLogNumInBatch(int maxLogNumInBatch) {
+    this.maxLogNumInBatch = maxLogNumInBatch;
+  }
+
+  public long getMaxLogBatchSizeInByte() {
+    return maxLogBatchSizeInByte;
+  }
+
+  public void setMaxLogBatchSizeInByte(long maxLogBatchSizeInByte) {
+    this.maxLogBatchSizeInByte = maxLogBatchSizeInByte;
+  }
+
   public int getInternalMetaPort() {
     return internalMetaPort;
   }
@@ -484,6 +571,62 @@ public class ClusterConfig {
     this.maxReadLogLag = maxReadLogLag;
   }
 
+  public boolean isEnableLeaseRead() {
+    return enableLeaseRead;
+  }
+
+  public void setEnableLeaseRead(boolean enableLeaseRead) {
+    this.enableLeaseRead = enableLeaseRead;
+  }
+
+  public double getLeaseClockDriftBound() {
+    return leaseClockDriftBound;
+  }
+
+  public void setLeaseClockDriftBound(double leaseClockDriftBound) {
+    this.leaseClockDriftBound = leaseClockDriftBound;
+  }
+
+  public int getRemoteReaderPrefetchDepth() {
+    return remoteReaderPrefetchDepth;
+  }
+
+  public void setRemoteReaderPrefetchDepth(int remoteReaderPrefetchDepth) {
+    this.remoteReaderPrefetchDepth = remoteReaderPrefetchDepth;
+  }
+
+  public int getForwardPlanParallelism() {
+    return forwardPlanParallelism;
+  }
+
+  public void setForwardPlanParallelism(int forwardPlanParallelism) {
+    this.forwardPlanParallelism = forwardPlanParallelism;
+  }
+
+  public int getPullFileFetchSizeInByte() {
+    return pullFileFetchSizeInByte;
+  }
+
+  public void setPullFileFetchSizeInByte(int pullFileFetchSizeInByte) {
+    this.pullFileFetchSizeInByte = pullFileFetchSizeInByte;
+  }
+
+  public int getMaxConcurrentPullFiles() {
+    return maxConcurrentPullFiles;
+  }
+
+  public void setMaxConcurrentPullFiles(int maxConcurrentPullFiles) {
+    this.maxConcurrentPullFiles = maxConcurrentPullFiles;
+  }
+
+  public int getPullSnapshotThroughputMbPerSec() {
+    return pullSnapshotThroughputMbPerSec;
+  }
+
+  public void setPullSnapshotThroughputMbPerSec(int pullSnapshotThroughputMbPerSec) {
+    this.pullSnapshotThroughputMbPerSec = pullSnapshotThroughputMbPerSec;
+  }
+
   public long getMaxSyncLogLag() {
     return maxSyncLogLag;
   }
@@ -210,6 +210,28 @@ public class ClusterDescriptor {
             properties.getProperty(
                 "use_batch_in_catch_up", String.valueOf(config.isUseBatchInLogCatchUp()))));
 
+    config.setEnablePipelinedReplication(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_pipelined_replication",
+                String.valueOf(config.isEnablePipelinedReplication()))));
+
+    config.setMaxInFlightAppendEntriesPerNode(
+        Integer.parseInt(
+            properties.getProperty(
+                "max_in_flight_append_entries_per_node",
+                String.valueOf(config.getMaxInFlightAppendEntriesPerNode()))));
+
+    config.setMaxLogNumInBatch(
+        Integer.parseInt(
+            properties.getProperty(
+                "max_log_num_in_batch", String.valueOf(config.getMaxLogNumInBatch()))));
+
+    config.setMaxLogBatchSizeInByte(
+        Long.parseLong(
+            properties.getProperty(
+                "max_log_batch_size_in_byte", String.valueOf(config.getMaxLogBatchSizeInByte()))));
+
     config.setMinNumOfLogsInMem(
         Integer.parseInt(
             properties.getProperty(
@@ -308,6 +330,44 @@ public class ClusterDescriptor {
         Long.parseLong(
             properties.getProperty("max_read_log_lag", String.valueOf(config.getMaxReadLogLag()))));
 
+    config.setEnableLeaseRead(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_lease_read", String.valueOf(config.isEnableLeaseRead()))));
+
+    config.setLeaseClockDriftBound(
+        Double.parseDouble(
+            properties.getProperty(
+                "lease_clock_drift_bound", String.valueOf(config.getLeaseClockDriftBound()))));
+
+    config.setRemoteReaderPrefetchDepth(
+        Integer.parseInt(
+            properties.getProperty(
+                "remote_reader_prefetch_depth",
+                String.valueOf(config.getRemoteReaderPrefetchDepth()))));
+
+    config.setForwardPlanParallelism(
+        Integer.parseInt(
+            properties.getProperty(
+                "forward_plan_parallelism", String.valueOf(config.getForwardPlanParallelism()))));
+
+    config.setPullFileFetchSizeInByte(
+        Integer.parseInt(
+            properties.getProperty(
+                "pull_file_fetch_size_in_byte",
+                String.valueOf(config.getPullFileFetchSizeInByte()))));
+
+    config.setMaxConcurrentPullFiles(
+        Integer.parseInt(
+            properties.getProperty(
+                "max_concurrent_pull_files", String.valueOf(config.getMaxConcurrentPullFiles()))));
+
+    config.setPullSnapshotThroughputMbPerSec(
+        Integer.parseInt(
+            properties.getProperty(
+                "pull_snapshot_throughput_mb_per_sec",
+                String.valueOf(config.getPullSnapshotThroughputMbPerSec()))));
+
     config.setMaxSyncLogLag(
         Long.parseLong(
             properties.getProperty("max_sync_log_lag", String.valueOf(config.getMaxSyncLogLag()))));
@@ -39,6 +39,8 @@ import org.apache.iotdb.cluster.server.member.MetaGroupMember;
 import org.apache.iotdb.cluster.server.monitor.Timer;
 import org.apache.iotdb.cluster.utils.PartitionUtils;
 import org.apache.iotdb.cluster.utils.StatusUtils;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -73,8 +75,16 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** Coordinator of client non-query request */
 public class Coordinator {
@@ -92,6 +102,20 @@ public class Coordinator {
       "The following errors occurred when executing "
           + "the query, please retry or contact the DBA: ";
 
+  /**
+   * forwards the sub-plans of a partitioned plan to their data groups concurrently, created on the
+   * first plan of several groups
+   */
+  private ExecutorService forwardPlanPool;
+
+  /**
+   * whether the current thread is a thread of a forwardPlanPool, which forwards the plans of its
+   * own (e.g., the timeseries auto-created for a sub-plan executed locally) one by one, so that the
+   * threads of the pool never wait for each other
+   */
+  private static final ThreadLocal<Boolean> isForwardPlanThread =
+      ThreadLocal.withInitial(() -> false);
+
   public Coordinator(MetaGroupMember metaGroupMember) {
     this.metaGroupMember = metaGroupMember;
     this.name = metaGroupMember.getName();
@@ -110,6 +134,24 @@ public class Coordinator {
     this.router = router;
   }
 
+  private synchronized ExecutorService getForwardPlanPool() {
+    if (forwardPlanPool == null) {
+      forwardPlanPool =
+          IoTDBThreadPoolFactory.newFixedThreadPool(
+              ClusterDescriptor.getInstance().getConfig().getForwardPlanParallelism(),
+              ThreadName.CLUSTER_FORWARD_PLAN.getName());
+    }
+    return forwardPlanPool;
+  }
+
+  /** stop forwarding sub-plans concurrently, the waiting plans will time out */
+  public synchronized void close() {
+    if (forwardPlanPool != null) {
+      forwardPlanPool.shutdownNow();
+      forwardPlanPool = null;
+    }
+  }
+
   /**
    * Execute a non-query plan. According to the type of the plan, the plan will be executed on all
    * nodes (like timeseries deletion) or the nodes that belong to certain groups (like data
@@ -500,6 +542,121 @@ public class Coordinator {
     return result;
   }
 
+  /**
+   * Forward each sub-plan to its data group and return the statuses in the order of the entries.
+   * When there are several groups, the sub-plans are forwarded concurrently (the first one by the
+   * calling thread), so that the plan only waits for the slowest group instead of all of them one
+   * after another. The calling thread also forwards the sub-plans that no thread of the pool has
+   * picked up when it gets to them, so a saturated pool does not make them time out. A group that
+   * does not answer in time after its sub-plan is started gets a TIME_OUT.
+   */
+  private List<TSStatus> forwardToGroups(List<Map.Entry<PhysicalPlan, PartitionGroup>> entries) {
+    List<TSStatus> statuses = new ArrayList<>(entries.size());
+    if (entries.size() == 1
+        || ClusterDescriptor.getInstance().getConfig().getForwardPlanParallelism() <= 1
+        || isForwardPlanThread.get()) {
+      for (Map.Entry<PhysicalPlan, PartitionGroup> entry : entries) {
+        statuses.add(forwardToSingleGroup(entry));
+      }
+      return statuses;
+    }
+
+    ExecutorService pool = getForwardPlanPool();
+    List<ForwardTask> tasks = new ArrayList<>(entries.size() - 1);
+    for (Map.Entry<PhysicalPlan, PartitionGroup> entry : entries.subList(1, entries.size())) {
+      ForwardTask task = new ForwardTask(entry);
+      tasks.add(task);
+      try {
+        task.poolFuture = pool.submit(task);
+      } catch (RejectedExecutionException e) {
+        // the coordinator is closed, the task is forwarded by the calling thread below
+      }
+    }
+    statuses.add(forwardToSingleGroup(entries.get(0)));
+    for (ForwardTask task : tasks) {
+      statuses.add(task.tryStart() ? forwardToSingleGroup(task.entry) : getForwardResult(task));
+    }
+    return statuses;
+  }
+
+  /** A sub-plan forwarded by either a thread of the pool or the calling thread, whichever first. */
+  private class ForwardTask implements Runnable {
+
+    private final Map.Entry<PhysicalPlan, PartitionGroup> entry;
+    private final CompletableFuture<TSStatus> result = new CompletableFuture<>();
+    /** when the sub-plan starts to be forwarded, 0 if it has not started */
+    private final AtomicLong startTime = new AtomicLong();
+    private volatile Future<?> poolFuture;
+
+    private ForwardTask(Map.Entry<PhysicalPlan, PartitionGroup> entry) {
+      this.entry = entry;
+    }
+
+    private boolean tryStart() {
+      return startTime.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    @Override
+    public void run() {
+      if (!tryStart()) {
+        return;
+      }
+      isForwardPlanThread.set(true);
+      try {
+        result.complete(forwardToSingleGroup(entry));
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    }
+  }
+
+  /**
+   * A sub-plan is forwarded to the nodes of its group one after another, each of which may take up
+   * to the write operation timeout.
+   */
+  private static long getForwardTimeoutMs() {
+    return (long) RaftServer.getWriteOperationTimeoutMS()
+        * Math.max(1, ClusterDescriptor.getInstance().getConfig().getReplicationNum());
+  }
+
+  /** wait for a sub-plan started by the pool for up to the forward timeout since its start */
+  private TSStatus getForwardResult(ForwardTask task) {
+    Map.Entry<PhysicalPlan, PartitionGroup> entry = task.entry;
+    long deadline = task.startTime.get() + getForwardTimeoutMs();
+    try {
+      return task.result.get(
+          Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel(task);
+      logger.warn(
+          "{}: interrupted when forwarding {} to {}",
+          name,
+          entry.getKey(),
+          entry.getValue().getHeader());
+      return StatusUtils.TIME_OUT;
+    } catch (TimeoutException e) {
+      cancel(task);
+      logger.warn(
+          "{}: timed out when forwarding {} to {}",
+          name,
+          entry.getKey(),
+          entry.getValue().getHeader());
+      return StatusUtils.TIME_OUT;
+    } catch (ExecutionException e) {
+      logger.error(
+          "{}: cannot forward {} to {}", name, entry.getKey(), entry.getValue().getHeader(), e);
+      return StatusUtils.getStatus(StatusUtils.INTERNAL_ERROR, e.getCause().getMessage());
+    }
+  }
+
+  private void cancel(ForwardTask task) {
+    Future<?> poolFuture = task.poolFuture;
+    if (poolFuture != null) {
+      poolFuture.cancel(true);
+    }
+  }
+
   /**
    * forward each sub-plan to its corresponding data group, if some groups goes wrong, the error
    * messages from each group will be compacted into one string.
@@ -511,8 +668,12 @@ public class Coordinator {
     TSStatus tmpStatus;
     boolean allRedirect = true;
     EndPoint endPoint = null;
-    for (Map.Entry<PhysicalPlan, PartitionGroup> entry : planGroupMap.entrySet()) {
-      tmpStatus = forwardToSingleGroup(entry);
+    List<Map.Entry<PhysicalPlan, PartitionGroup>> entries =
+        new ArrayList<>(planGroupMap.entrySet());
+    List<TSStatus> statuses = forwardToGroups(entries);
+    for (int i = 0; i < entries.size(); i++) {
+      Map.Entry<PhysicalPlan, PartitionGroup> entry = entries.get(i);
+      tmpStatus = statuses.get(i);
       if (tmpStatus.isSetRedirectNode()) {
         endPoint = tmpStatus.getRedirectNode();
       } else {
@@ -557,8 +718,12 @@ public class Coordinator {
     EndPoint endPoint = null;
     int totalRowNum = parentPlan.getPaths().size();
     // send sub-plans to each belonging data group and collect results
-    for (Map.Entry<PhysicalPlan, PartitionGroup> entry : planGroupMap.entrySet()) {
-      tmpStatus = forwardToSingleGroup(entry);
+    List<Map.Entry<PhysicalPlan, PartitionGroup>> entries =
+        new ArrayList<>(planGroupMap.entrySet());
+    List<TSStatus> statuses = forwardToGroups(entries);
+    for (int groupIndex = 0; groupIndex < entries.size(); groupIndex++) {
+      Map.Entry<PhysicalPlan, PartitionGroup> entry = entries.get(groupIndex);
+      tmpStatus = statuses.get(groupIndex);
       logger.debug("{}: from {},{},{}", name, entry.getKey(), entry.getValue(), tmpStatus);
       noFailure = (tmpStatus.getCode() == TSStatusCode.SUCCESS_STATUS.getStatusCode()) && noFailure;
       isBatchFailure =
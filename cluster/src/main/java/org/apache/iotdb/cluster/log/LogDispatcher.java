@@ -48,6 +48,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -59,6 +60,12 @@ import java.util.concurrent.atomic.AtomicLong;
  * logs for too long. For example: if the leader send 3 logs, log1, log2, log3, concurrently to
  * follower A, the actual reach order may be log3, log2, and log1. According to the protocol, log3
  * and log2 must halt until log1 reaches, as a result, the total delay may increase significantly.
+ *
+ * <p>By default, the logs to a follower are sent one request after another. When pipelined
+ * replication is enabled, up to maxInFlightAppendEntriesPerNode requests can be sent to a follower
+ * before their responses arrive, so the throughput is no longer bounded by the round-trip time. A
+ * follower still appends the logs in order as it waits for the previous log of each request, and
+ * the logs of a request that fails are sent again by a catch-up.
  */
 public class LogDispatcher {
 
@@ -66,6 +73,8 @@ public class LogDispatcher {
   private RaftMember member;
   private boolean useBatchInLogCatchUp =
       ClusterDescriptor.getInstance().getConfig().isUseBatchInLogCatchUp();
+  private boolean enablePipelinedReplication =
+      ClusterDescriptor.getInstance().getConfig().isEnablePipelinedReplication();
   private List<BlockingQueue<SendLogRequest>> nodeLogQueues = new ArrayList<>();
   private ExecutorService executorService;
   private static ExecutorService serializationService =
@@ -129,6 +138,19 @@ public class LogDispatcher {
     }
   }
 
+  private static int getMaxInFlightAppendEntriesPerNode() {
+    return Math.max(
+        1, ClusterDescriptor.getInstance().getConfig().getMaxInFlightAppendEntriesPerNode());
+  }
+
+  private static int getMaxLogNumInBatch() {
+    return Math.max(1, ClusterDescriptor.getInstance().getConfig().getMaxLogNumInBatch());
+  }
+
+  private static long getMaxLogBatchSizeInByte() {
+    return ClusterDescriptor.getInstance().getConfig().getMaxLogBatchSizeInByte();
+  }
+
   private BlockingQueue<SendLogRequest> createQueueAndBindingThread(Node node) {
     BlockingQueue<SendLogRequest> logBlockingQueue =
         new ArrayBlockingQueue<>(
@@ -223,6 +245,9 @@ public class LogDispatcher {
     private BlockingQueue<SendLogRequest> logBlockingDeque;
     private List<SendLogRequest> currBatch = new ArrayList<>();
     private Peer peer;
+    // permits of the requests that can be sent to the receiver before their responses arrive,
+    // only used in pipelined replication
+    private Semaphore inFlightWindow;
 
     DispatcherThread(Node receiver, BlockingQueue<SendLogRequest> logBlockingDeque) {
       this.receiver = receiver;
@@ -231,6 +256,9 @@ public class LogDispatcher {
           member
               .getPeerMap()
               .computeIfAbsent(receiver, r -> new Peer(member.getLogManager().getLastLogIndex()));
+      if (enablePipelinedReplication) {
+        this.inFlightWindow = new Semaphore(getMaxInFlightAppendEntriesPerNode());
+      }
     }
 
     @Override
@@ -240,14 +268,25 @@ public class LogDispatcher {
         while (!Thread.interrupted()) {
           SendLogRequest poll = logBlockingDeque.take();
           currBatch.add(poll);
-          logBlockingDeque.drainTo(currBatch);
+          if (enablePipelinedReplication) {
+            // wait for a free slot before draining the queue, so that the logs queued while all
+            // requests are in flight are sent together and the batches grow with the load
+            inFlightWindow.acquire();
+            logBlockingDeque.drainTo(currBatch, getMaxLogNumInBatch() - 1);
+          } else {
+            logBlockingDeque.drainTo(currBatch);
+          }
           if (logger.isDebugEnabled()) {
             logger.debug("Sending {} logs to {}", currBatch.size(), receiver);
           }
           for (SendLogRequest request : currBatch) {
             request.getAppendEntryRequest().entry = request.serializedLogFuture.get();
           }
-          sendBatchLogs(currBatch);
+          if (enablePipelinedReplication) {
+            sendLogsPipelined(currBatch);
+          } else {
+            sendBatchLogs(currBatch);
+          }
           currBatch.clear();
         }
       } catch (InterruptedException e) {
@@ -272,6 +311,41 @@ public class LogDispatcher {
       }
     }
 
+    /**
+     * Send the logs without waiting for the response. The slot of the request in the in-flight
+     * window is released when the response arrives.
+     */
+    private void appendEntriesPipelined(
+        List<ByteBuffer> logList, AppendEntriesRequest request, List<SendLogRequest> currBatch) {
+      if (!ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
+        executorService.submit(
+            () -> {
+              try {
+                appendEntriesSync(logList, request, currBatch);
+              } finally {
+                inFlightWindow.release();
+              }
+            });
+        return;
+      }
+
+      AsyncClient client = member.getSendLogAsyncClient(receiver);
+      if (client == null) {
+        inFlightWindow.release();
+        return;
+      }
+      AsyncMethodCallback<Long> handler = new AppendEntriesHandler(currBatch, inFlightWindow);
+      if (logger.isDebugEnabled()) {
+        logger.debug(
+            "{}: append entries {} with {} logs", member.getName(), receiver, logList.size());
+      }
+      try {
+        client.appendEntries(request, handler);
+      } catch (TException e) {
+        handler.onError(e);
+      }
+    }
+
     private void appendEntriesSync(
         List<ByteBuffer> logList, AppendEntriesRequest request, List<SendLogRequest> currBatch) {
 
@@ -374,6 +448,52 @@ public class LogDispatcher {
       }
     }
 
+    /**
+     * Send the logs in requests limited by both the number and the total size of the logs. The
+     * caller has acquired the slot of the first request, and the slot of each following request is
+     * acquired before it is sent.
+     */
+    private void sendLogsPipelined(List<SendLogRequest> currBatch) throws InterruptedException {
+      long maxBatchSize =
+          Math.min(
+              getMaxLogBatchSizeInByte(),
+              (long) IoTDBDescriptor.getInstance().getConfig().getThriftMaxFrameSize()
+                  - IoTDBConstant.LEFT_SIZE_IN_REQUEST);
+      int logIndex = 0;
+      boolean slotAcquired = true;
+      while (logIndex < currBatch.size()) {
+        if (!slotAcquired) {
+          inFlightWindow.acquire();
+        }
+        slotAcquired = false;
+
+        List<ByteBuffer> logList = new ArrayList<>();
+        long batchSize = 0;
+        int prevIndex = logIndex;
+        for (; logIndex < currBatch.size(); logIndex++) {
+          ByteBuffer entry = currBatch.get(logIndex).getAppendEntryRequest().entry;
+          long curSize = entry.array().length;
+          // a log larger than the limit is sent alone
+          if (!logList.isEmpty() && batchSize + curSize > maxBatchSize) {
+            break;
+          }
+          batchSize += curSize;
+          Timer.Statistic.LOG_DISPATCHER_LOG_IN_QUEUE.calOperationCostTimeFromStart(
+              currBatch.get(logIndex).getLog().getCreateTime());
+          logList.add(entry);
+        }
+
+        AppendEntriesRequest appendEntriesRequest = prepareRequest(logList, currBatch, prevIndex);
+        // currBatch is reused after this method returns, but the requests are still in flight
+        appendEntriesPipelined(
+            logList, appendEntriesRequest, new ArrayList<>(currBatch.subList(prevIndex, logIndex)));
+        for (; prevIndex < logIndex; prevIndex++) {
+          Timer.Statistic.LOG_DISPATCHER_FROM_CREATE_TO_END.calOperationCostTimeFromStart(
+              currBatch.get(prevIndex).getLog().getCreateTime());
+        }
+      }
+    }
+
     private void sendBatchLogs(List<SendLogRequest> currBatch) throws TException {
       if (currBatch.size() > 1) {
         if (useBatchInLogCatchUp) {
@@ -405,8 +525,15 @@ public class LogDispatcher {
     class AppendEntriesHandler implements AsyncMethodCallback<Long> {
 
       private final List<AsyncMethodCallback<Long>> singleEntryHandlers;
+      // the in-flight window to be released when the response arrives, may be null
+      private final Semaphore window;
 
       private AppendEntriesHandler(List<SendLogRequest> batch) {
+        this(batch, null);
+      }
+
+      private AppendEntriesHandler(List<SendLogRequest> batch, Semaphore window) {
+        this.window = window;
         singleEntryHandlers = new ArrayList<>(batch.size());
         for (SendLogRequest sendLogRequest : batch) {
           AppendNodeEntryHandler handler =
@@ -423,6 +550,7 @@ public class LogDispatcher {
 
       @Override
       public void onComplete(Long aLong) {
+        releaseWindow();
         for (AsyncMethodCallback<Long> singleEntryHandler : singleEntryHandlers) {
           singleEntryHandler.onComplete(aLong);
         }
@@ -430,11 +558,18 @@ public class LogDispatcher {
 
       @Override
       public void onError(Exception e) {
+        releaseWindow();
         for (AsyncMethodCallback<Long> singleEntryHandler : singleEntryHandlers) {
           singleEntryHandler.onError(e);
         }
       }
 
+      private void releaseWindow() {
+        if (window != null) {
+          window.release();
+        }
+      }
+
       private AppendNodeEntryHandler getAppendNodeEntryHandler(
           Log log,
           AtomicInteger voteCounter,
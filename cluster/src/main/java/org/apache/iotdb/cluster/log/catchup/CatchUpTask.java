@@ -375,7 +375,8 @@ public class CatchUpTask implements Runnable {
               !logs.isEmpty()
                   ? logs.get(logs.size() - 1).getCurrLogIndex()
                   : snapshot.getLastLogIndex();
-          peer.setMatchIndex(lastIndex);
+          // pipelined AppendEntriesRequests may have moved the match index further
+          peer.updateMatchIndex(lastIndex);
         }
         if (logger.isInfoEnabled()) {
           logger.info(
@@ -33,6 +33,7 @@ import org.apache.iotdb.cluster.server.RaftServer;
 import org.apache.iotdb.cluster.server.handlers.caller.LogCatchUpHandler;
 import org.apache.iotdb.cluster.server.handlers.caller.LogCatchUpInBatchHandler;
 import org.apache.iotdb.cluster.server.member.RaftMember;
+import org.apache.iotdb.cluster.server.monitor.Peer;
 import org.apache.iotdb.cluster.utils.ClientUtils;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -45,6 +46,7 @@ import org.slf4j.LoggerFactory;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -93,6 +95,9 @@ public class LogCatchUpTask implements Callable<Boolean> {
 
     for (int i = 0; i < logs.size() && !abort; i++) {
       Log log = logs.get(i);
+      if (isMatched(log)) {
+        continue;
+      }
       synchronized (raftMember.getTerm()) {
         // make sure this node is still a leader
         if (raftMember.getCharacter() != NodeCharacter.LEADER) {
@@ -119,6 +124,17 @@ public class LogCatchUpTask implements Callable<Boolean> {
     }
   }
 
+  /**
+   * Whether the log is known to be appended by the node. The logs that are concurrently sent by
+   * LogDispatcher may be acknowledged during the catch-up, possibly out of order, and such logs
+   * need not to be sent again.
+   */
+  private boolean isMatched(Log log) {
+    Map<Node, Peer> peerMap = raftMember.getPeerMap();
+    Peer peer = peerMap != null ? peerMap.get(node) : null;
+    return peer != null && peer.getMatchIndex() >= log.getCurrLogIndex();
+  }
+
   private boolean appendEntryAsync(Log log, AppendEntryRequest request)
       throws TException, InterruptedException {
     LogCatchUpHandler handler = getCatchUpHandler(log, request);
@@ -210,6 +226,11 @@ public class LogCatchUpTask implements Callable<Boolean> {
     boolean batchFull;
 
     for (int i = 0; i < logs.size() && !abort; i++) {
+      if (logList.isEmpty() && isMatched(logs.get(i))) {
+        // only skip the head of a batch so that the logs in a batch remain continuous
+        firstLogPos = i + 1;
+        continue;
+      }
 
       ByteBuffer logData = logs.get(i).serialize();
       int logSize = logData.array().length;
@@ -34,6 +34,8 @@ import org.apache.iotdb.cluster.server.handlers.caller.GenericHandler;
 import org.apache.iotdb.cluster.server.member.DataGroupMember;
 import org.apache.iotdb.cluster.server.member.RaftMember;
 import org.apache.iotdb.cluster.utils.ClientUtils;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
@@ -44,28 +46,33 @@ import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.utils.FilePathUtils;
 import org.apache.iotdb.db.utils.SchemaUtils;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.TimeseriesSchema;
 
+import com.google.common.util.concurrent.RateLimiter;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * FileSnapshot records the data files in a slot and their md5 (or other verification). When the
@@ -183,6 +190,16 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
         IoTDBDescriptor.getInstance().getConfig().getSystemDir() + File.separator + "remote";
 
     private static final Logger logger = LoggerFactory.getLogger(Installer.class);
+
+    /**
+     * pulls the files of the snapshots being installed by all members of this node, created on
+     * demand and shut down when the node stops
+     */
+    private static ExecutorService pullFilePool;
+
+    /** limits the bytes pulled per second by all pulls of this node */
+    private static final RateLimiter pullFileRateLimiter = RateLimiter.create(Double.MAX_VALUE);
+
     private DataGroupMember dataGroupMember;
     private SlotManager slotManager;
     private String name;
@@ -208,7 +225,8 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
             logger.debug("{}: slot {} is now pulling writable", name, slot);
           }
         }
-        installFileSnapshotFiles(snapshot, slot, isDataMigration);
+        installFileSnapshotFiles(
+            snapshot, slot, isDataMigration, pullFiles(snapshot, isDataMigration));
       } catch (PullFileException e) {
         throw new SnapshotInstallationException(e);
       }
@@ -248,14 +266,24 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
         slotManager.save();
       }
 
-      for (Entry<Integer, FileSnapshot> integerSnapshotEntry : snapshotMap.entrySet()) {
-        Integer slot = integerSnapshotEntry.getKey();
-        FileSnapshot snapshot = integerSnapshotEntry.getValue();
-        try {
-          installFileSnapshotFiles(snapshot, slot, isDataMigration);
-        } catch (PullFileException e) {
-          throw new SnapshotInstallationException(e);
+      // the files of all slots are pulled concurrently, but they are loaded slot by slot
+      Map<Integer, List<Future<File>>> slotPulls = new HashMap<>();
+      try {
+        for (Entry<Integer, FileSnapshot> integerSnapshotEntry : snapshotMap.entrySet()) {
+          slotPulls.put(
+              integerSnapshotEntry.getKey(),
+              pullFiles(integerSnapshotEntry.getValue(), isDataMigration));
+        }
+        for (Entry<Integer, FileSnapshot> integerSnapshotEntry : snapshotMap.entrySet()) {
+          Integer slot = integerSnapshotEntry.getKey();
+          FileSnapshot snapshot = integerSnapshotEntry.getValue();
+          installFileSnapshotFiles(snapshot, slot, isDataMigration, slotPulls.get(slot));
         }
+      } catch (PullFileException e) {
+        for (List<Future<File>> pulls : slotPulls.values()) {
+          cancelPulls(pulls);
+        }
+        throw new SnapshotInstallationException(e);
       }
       slotManager.save();
     }
@@ -268,16 +296,75 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       }
     }
 
-    private void installFileSnapshotFiles(FileSnapshot snapshot, int slot, boolean isDataMigration)
+    /**
+     * Start pulling the files in the snapshot that are not present locally. The pulls run in a
+     * pool shared by all installers, so at most max_concurrent_pull_files files are pulled at the
+     * same time.
+     *
+     * @return the pulls of the files in the order of the snapshot, a pull is null if the file does
+     *     not need to be pulled
+     */
+    private List<Future<File>> pullFiles(FileSnapshot snapshot, boolean isDataMigration)
+        throws PullFileException {
+      List<Future<File>> pulls = new ArrayList<>();
+      for (RemoteTsFileResource resource : snapshot.getDataFiles()) {
+        try {
+          if (!isDataMigration && isFileAlreadyPulled(resource)) {
+            pulls.add(null);
+            continue;
+          }
+        } catch (IllegalPathException e) {
+          cancelPulls(pulls);
+          throw new PullFileException(resource.getTsFilePath(), resource.getSource(), e);
+        }
+        dataGroupMember.getPullSnapshotProgress().onFileScheduled();
+        pulls.add(getPullFilePool().submit(() -> pullRemoteFile(resource, resource.getSource())));
+      }
+      return pulls;
+    }
+
+    private static synchronized ExecutorService getPullFilePool() {
+      if (pullFilePool == null) {
+        pullFilePool =
+            IoTDBThreadPoolFactory.newFixedThreadPool(
+                Math.max(
+                    1, ClusterDescriptor.getInstance().getConfig().getMaxConcurrentPullFiles()),
+                ThreadName.CLUSTER_PULL_FILE.getName());
+      }
+      return pullFilePool;
+    }
+
+    /** Interrupt the pulls of all members, a later pull creates the pool again. */
+    public static synchronized void shutdownPullFilePool() {
+      if (pullFilePool != null) {
+        pullFilePool.shutdownNow();
+        pullFilePool = null;
+      }
+    }
+
+    /**
+     * Cancel the pulls and delete the temporary files of those already finished. A pull that is
+     * interrupted deletes its partial files itself.
+     */
+    private void cancelPulls(List<Future<File>> pulls) {
+      for (Future<File> pull : pulls) {
+        if (pull != null && !pull.cancel(true) && !pull.isCancelled()) {
+          discardPulledFile(pull);
+        }
+      }
+    }
+
+    private void installFileSnapshotFiles(
+        FileSnapshot snapshot, int slot, boolean isDataMigration, List<Future<File>> pulls)
         throws PullFileException {
       List<RemoteTsFileResource> remoteTsFileResources = snapshot.getDataFiles();
-      // pull file
+      // load the files in order as their pulls finish
       for (int i = 0, remoteTsFileResourcesSize = remoteTsFileResources.size();
           i < remoteTsFileResourcesSize;
           i++) {
         RemoteTsFileResource resource = remoteTsFileResources.get(i);
         logger.info(
-            "Pulling {}/{} files, current: {}", i + 1, remoteTsFileResources.size(), resource);
+            "Loading {}/{} files, current: {}", i + 1, remoteTsFileResources.size(), resource);
         try {
           if (isDataMigration) {
             // This means that the minimum plan index and maximum plan index of some files are the
@@ -285,17 +372,23 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
             // so the logic of judging index coincidence needs to remove the case of equal
             resource.setMinPlanIndex(dataGroupMember.getLogManager().getLastLogIndex());
             resource.setMaxPlanIndex(dataGroupMember.getLogManager().getLastLogIndex());
-            loadRemoteFile(resource);
+            loadRemoteFile(resource, pulls.get(i));
           } else {
-            if (!isFileAlreadyPulled(resource)) {
-              loadRemoteFile(resource);
+            // the files loaded before may also contain the data of this file
+            if (pulls.get(i) != null && !isFileAlreadyPulled(resource)) {
+              loadRemoteFile(resource, pulls.get(i));
             } else {
+              discardPulledFile(pulls.get(i));
               // notify the snapshot provider to remove the hardlink
               removeRemoteHardLink(resource);
             }
           }
         } catch (IllegalPathException e) {
+          cancelPulls(pulls.subList(i, pulls.size()));
           throw new PullFileException(resource.getTsFilePath(), resource.getSource(), e);
+        } catch (PullFileException e) {
+          cancelPulls(pulls.subList(i, pulls.size()));
+          throw e;
         }
       }
 
@@ -304,6 +397,24 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       logger.info("{}: slot {} is ready", name, slot);
     }
 
+    private void discardPulledFile(Future<File> pull) {
+      if (pull == null) {
+        return;
+      }
+      try {
+        File pulledFile = pull.get();
+        if (pulledFile != null) {
+          Files.deleteIfExists(pulledFile.toPath());
+          Files.deleteIfExists(
+              new File(pulledFile.getPath() + ModificationFile.FILE_SUFFIX).toPath());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException | IOException e) {
+        logger.warn("{}: Cannot discard a pulled file", name, e);
+      }
+    }
+
     /**
      * Check if the file "resource" is a duplication of some local files. As all data file close is
      * controlled by the data group leader, the files with the same version should contain identical
@@ -367,14 +478,19 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
      * from the header currently.
      *
      * @param resource
+     * @param pull the pull of the file started by pullFiles()
      */
-    private void loadRemoteFile(RemoteTsFileResource resource) throws PullFileException {
+    private void loadRemoteFile(RemoteTsFileResource resource, Future<File> pull)
+        throws PullFileException {
       Node sourceNode = resource.getSource();
-      // pull the file to a temporary directory
+      // wait for the file to be pulled to a temporary directory
       File tempFile;
       try {
-        tempFile = pullRemoteFile(resource, sourceNode);
-      } catch (IOException e) {
+        tempFile = pull.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PullFileException(resource.toString(), sourceNode, e);
+      } catch (ExecutionException e) {
         throw new PullFileException(resource.toString(), sourceNode, e);
       }
       if (tempFile != null) {
@@ -430,7 +546,7 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
      *
      * @param resource the TsFile to be downloaded
      * @param node where to download the file
-     * @return the downloaded file or null if the file cannot be downloaded or its MD5 is not right
+     * @return the downloaded file or null if the file cannot be downloaded or it is incomplete
      * @throws IOException
      */
     private File pullRemoteFile(RemoteTsFileResource resource, Node node) throws IOException {
@@ -452,22 +568,54 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
               + File.separator
               + tempFileName;
       File tempFile = new File(REMOTE_FILE_TEMP_DIR, tempFilePath);
+      File tempModFile =
+          new File(REMOTE_FILE_TEMP_DIR, tempFilePath + ModificationFile.FILE_SUFFIX);
       tempFile.getParentFile().mkdirs();
-      if (pullRemoteFile(resource.getTsFile().getAbsolutePath(), node, tempFile)) {
-        // TODO-Cluster#353: implement file examination, may be replaced with other algorithm
-        if (resource.isWithModification()) {
-          File tempModFile =
-              new File(REMOTE_FILE_TEMP_DIR, tempFilePath + ModificationFile.FILE_SUFFIX);
-          pullRemoteFile(resource.getModFile().getFilePath(), node, tempModFile);
+      boolean pulled = false;
+      try {
+        if (!pullRemoteFile(resource.getTsFile().getAbsolutePath(), node, tempFile)) {
+          return null;
         }
+        // the snapshot only contains closed files, so an incomplete one is broken in the transfer
+        if (!isTsFileComplete(tempFile)) {
+          logger.error("{}: pulled file {} from {} is incomplete", name, tempFile, node);
+          return null;
+        }
+        if (resource.isWithModification()
+            && !pullRemoteFile(resource.getModFile().getFilePath(), node, tempModFile)) {
+          return null;
+        }
+        dataGroupMember.getPullSnapshotProgress().onFilePulled();
+        pulled = true;
         return tempFile;
+      } finally {
+        if (!pulled) {
+          // the pull failed or is cancelled, do not leave the partial files behind
+          deleteTempFile(tempFile);
+          deleteTempFile(tempModFile);
+        }
+      }
+    }
+
+    private void deleteTempFile(File file) {
+      try {
+        Files.deleteIfExists(file.toPath());
+      } catch (IOException e) {
+        logger.warn("{}: Cannot delete temporary file {}", name, file, e);
+      }
+    }
+
+    private boolean isTsFileComplete(File file) throws IOException {
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath(), false)) {
+        return reader.isComplete();
       }
-      return null;
     }
 
     /**
-     * Download the file "remotePath" from "node" and store it to "dest" using up to 64KB chunks. If
-     * the network is bad, this method will retry upto 5 times before returning a failure.
+     * Download the file "remotePath" from "node" and store it to "dest" in chunks of
+     * pull_file_fetch_size_in_byte. If the network is bad, this method will retry up to 5 times
+     * before returning a failure, and each retry resumes from the bytes already stored in "dest",
+     * as the remote file is only removed after its end is requested.
      *
      * @param remotePath the file to be downloaded
      * @param node where to download the file
@@ -477,14 +625,12 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
      */
     private boolean pullRemoteFile(String remotePath, Node node, File dest) throws IOException {
       int pullFileRetry = 5;
+      // the bytes left by an earlier installation may not match the current remote file
+      Files.deleteIfExists(dest.toPath());
       for (int i = 0; i < pullFileRetry; i++) {
-        try (BufferedOutputStream bufferedOutputStream =
-            new BufferedOutputStream(new FileOutputStream(dest))) {
-          if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
-            downloadFileAsync(node, remotePath, bufferedOutputStream);
-          } else {
-            downloadFileSync(node, remotePath, bufferedOutputStream);
-          }
+        try (FileChannel channel =
+            FileChannel.open(dest.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+          downloadFile(node, remotePath, channel);
 
           if (logger.isInfoEnabled()) {
             logger.info(
@@ -497,7 +643,7 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
           return true;
         } catch (TException e) {
           logger.warn(
-              "{}: Cannot pull file {} from {}, wait 5s to retry", name, remotePath, node, e);
+              "{}: Cannot pull file {} from {}, wait 5s to resume", name, remotePath, node, e);
         } catch (InterruptedException e) {
           Thread.currentThread().interrupt();
           logger.warn("{}: Pulling file {} from {} interrupted", name, remotePath, node, e);
@@ -505,10 +651,7 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
         }
 
         try {
-          Files.delete(dest.toPath());
           Thread.sleep(PULL_FILE_RETRY_INTERVAL_MS);
-        } catch (IOException e) {
-          logger.warn("Cannot delete file when pulling {} from {} failed", remotePath, node);
         } catch (InterruptedException ex) {
           Thread.currentThread().interrupt();
           logger.warn("{}: Pulling file {} from {} interrupted", name, remotePath, node, ex);
@@ -519,68 +662,74 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       return false;
     }
 
-    private void downloadFileAsync(Node node, String remotePath, OutputStream dest)
+    /** Append the chunks of "remotePath" after the bytes in "dest" until the remote file ends. */
+    private void downloadFile(Node node, String remotePath, FileChannel dest)
         throws IOException, TException, InterruptedException {
-      long offset = 0;
-      // TODO-Cluster: use elaborate downloading techniques
-      int fetchSize = 64 * 1024;
+      long offset = dest.size();
+      dest.position(offset);
+      int fetchSize = ClusterDescriptor.getInstance().getConfig().getPullFileFetchSizeInByte();
+      RateLimiter rateLimiter = getPullFileRateLimiter();
 
       while (true) {
-        AsyncDataClient client = (AsyncDataClient) dataGroupMember.getAsyncClient(node);
-        if (client == null) {
-          throw new IOException("No available client for " + node.toString());
-        }
-        ByteBuffer buffer = SyncClientAdaptor.readFile(client, remotePath, offset, fetchSize);
-        int len = writeBuffer(buffer, dest);
+        ByteBuffer buffer = readRemoteFile(node, remotePath, offset, fetchSize);
+        // notice: the buffer returned by thrift is a slice of a larger buffer which contains
+        // the whole response, so buffer.position() is not 0 initially
+        int len = buffer.remaining();
         if (len == 0) {
           break;
         }
+        rateLimiter.acquire(len);
+        while (buffer.hasRemaining()) {
+          dest.write(buffer);
+        }
         offset += len;
+        dataGroupMember.getPullSnapshotProgress().onBytesPulled(len);
       }
-      dest.flush();
     }
 
-    private int writeBuffer(ByteBuffer buffer, OutputStream dest) throws IOException {
-      if (buffer == null || buffer.limit() - buffer.position() == 0) {
-        return 0;
+    private ByteBuffer readRemoteFile(Node node, String remotePath, long offset, int fetchSize)
+        throws IOException, TException, InterruptedException {
+      ByteBuffer buffer;
+      if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
+        AsyncDataClient client = (AsyncDataClient) dataGroupMember.getAsyncClient(node);
+        if (client == null) {
+          throw new IOException("No available client for " + node.toString());
+        }
+        buffer = SyncClientAdaptor.readFile(client, remotePath, offset, fetchSize);
+      } else {
+        SyncDataClient client = (SyncDataClient) dataGroupMember.getSyncClient(node);
+        if (client == null) {
+          throw new IOException("No available client for " + node.toString());
+        }
+        try {
+          buffer = client.readFile(remotePath, offset, fetchSize);
+        } catch (TException e) {
+          client.getInputProtocol().getTransport().close();
+          throw e;
+        } finally {
+          ClientUtils.putBackSyncClient(client);
+        }
       }
-
-      // notice: the buffer returned by thrift is a slice of a larger buffer which contains
-      // the whole response, so buffer.position() is not 0 initially and buffer.limit() is
-      // not the size of the downloaded chunk
-      dest.write(
-          buffer.array(),
-          buffer.position() + buffer.arrayOffset(),
-          buffer.limit() - buffer.position());
-      return buffer.limit() - buffer.position();
+      if (buffer == null) {
+        // an empty buffer means the end of the file, so a timeout must not be taken as one
+        throw new TException(String.format("Reading %s at %d timed out", remotePath, offset));
+      }
+      return buffer;
     }
 
-    private void downloadFileSync(Node node, String remotePath, OutputStream dest)
-        throws IOException {
-      SyncDataClient client = (SyncDataClient) dataGroupMember.getSyncClient(node);
-      if (client == null) {
-        throw new IOException("No available client for " + node.toString());
+    private static RateLimiter getPullFileRateLimiter() {
+      double throughput =
+          ClusterDescriptor.getInstance().getConfig().getPullSnapshotThroughputMbPerSec()
+              * 1024.0
+              * 1024.0;
+      // if throughput = 0, disable rate limiting
+      if (throughput == 0) {
+        throughput = Double.MAX_VALUE;
       }
-
-      long offset = 0;
-      // TODO-Cluster: use elaborate downloading techniques
-      int fetchSize = 64 * 1024;
-
-      try {
-        while (true) {
-          ByteBuffer buffer = client.readFile(remotePath, offset, fetchSize);
-          int len = writeBuffer(buffer, dest);
-          if (len == 0) {
-            break;
-          }
-          offset += len;
-        }
-      } catch (TException e) {
-        client.getInputProtocol().getTransport().close();
-      } finally {
-        ClientUtils.putBackSyncClient(client);
+      if (pullFileRateLimiter.getRate() != throughput) {
+        pullFileRateLimiter.setRate(throughput);
       }
-      dest.flush();
+      return pullFileRateLimiter;
     }
   }
 
@@ -187,6 +187,7 @@ public class PullSnapshotTask<T extends Snapshot> implements Callable<Void> {
     request.setRequireReadOnly(descriptor.isRequireReadOnly());
 
     logger.info("{}: data migration starts.", newMember.getName());
+    newMember.getPullSnapshotProgress().onTaskStart();
     boolean finished = false;
     int nodeIndex = ((PartitionGroup) newMember.getAllNodes()).indexOf(newMember.getThisNode()) - 1;
     while (!finished) {
@@ -225,6 +226,7 @@ public class PullSnapshotTask<T extends Snapshot> implements Callable<Void> {
         }
       }
     }
+    newMember.getPullSnapshotProgress().onTaskEnd();
     removeTask();
     return null;
   }
@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.cluster.query;
 
+import org.apache.iotdb.cluster.query.reader.RemoteBatchPrefetcher;
 import org.apache.iotdb.cluster.rpc.thrift.Node;
 import org.apache.iotdb.cluster.rpc.thrift.RaftNode;
 import org.apache.iotdb.db.query.context.QueryContext;
@@ -26,7 +27,9 @@ import org.apache.iotdb.db.query.context.QueryContext;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListSet;
 
 public class RemoteQueryContext extends QueryContext {
@@ -38,6 +41,9 @@ public class RemoteQueryContext extends QueryContext {
   /** The readers constructed locally to respond a remote query. */
   private Set<Long> localGroupByExecutorIds = new ConcurrentSkipListSet<>();
 
+  /** The prefetchers of the remote readers, which should be closed when the query ends. */
+  private Queue<RemoteBatchPrefetcher<?>> prefetchers = new ConcurrentLinkedQueue<>();
+
   public RemoteQueryContext(long jobId) {
     super(jobId);
   }
@@ -58,6 +64,18 @@ public class RemoteQueryContext extends QueryContext {
     localGroupByExecutorIds.add(executorId);
   }
 
+  public void registerPrefetcher(RemoteBatchPrefetcher<?> prefetcher) {
+    prefetchers.add(prefetcher);
+  }
+
+  /** Stop the prefetching of the remote readers and release the prefetched batches. */
+  public void closePrefetchers() {
+    RemoteBatchPrefetcher<?> prefetcher;
+    while ((prefetcher = prefetchers.poll()) != null) {
+      prefetcher.close();
+    }
+  }
+
   public Set<Long> getLocalReaderIds() {
     return localReaderIds;
   }
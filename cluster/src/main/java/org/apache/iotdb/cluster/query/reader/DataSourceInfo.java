@@ -198,6 +198,10 @@ public class DataSourceInfo {
     return partitionGroup.getHeader();
   }
 
+  RemoteQueryContext getContext() {
+    return context;
+  }
+
   Node getCurrentNode() {
     return this.curSource;
   }
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.query.reader;
+
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.TestOnly;
+
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * RemoteBatchPrefetcher fetches the batches of a remote reader in the background before they are
+ * consumed, so that the network transfer overlaps with the local processing of the previous
+ * batches. As a remote reader must be read sequentially, at most one fetch is in progress and at
+ * most "depth" fetched batches are waiting to be consumed. The waiting batches of all prefetchers
+ * are limited by the memory for the read process besides cache, when it is used up, a prefetcher
+ * only fetches when its consumer is waiting for a batch.
+ *
+ * <p>If a fetch fails, no more batches are fetched and take() throws the exception after the
+ * batches fetched before are consumed, so the consumer knows exactly where to resume.
+ */
+public class RemoteBatchPrefetcher<T> {
+
+  private static final Logger logger = LoggerFactory.getLogger(RemoteBatchPrefetcher.class);
+
+  /** runs the fetches of all prefetchers, created on demand and shut down with the client server */
+  private static ExecutorService prefetchPool;
+
+  /** the total estimated size of the batches fetched but not consumed of all prefetchers */
+  private static final AtomicLong usedMemory = new AtomicLong();
+
+  private final BatchFetcher<T> fetcher;
+  private final ToLongFunction<T> sizeEstimator;
+  private final Predicate<T> lastBatchChecker;
+  private final int depth;
+
+  private final Deque<T> fetchedBatches = new ArrayDeque<>();
+  private final Deque<Long> fetchedBatchSizes = new ArrayDeque<>();
+  private boolean fetching;
+  // a batch that is null or checked to be the last one has been fetched
+  private boolean finished;
+  private Exception fetchException;
+  private boolean closed;
+
+  /**
+   * @param fetcher fetches the next batch from the remote reader
+   * @param sizeEstimator estimates the memory size of a fetched batch
+   * @param lastBatchChecker checks if a fetched batch is the last one of the remote reader
+   * @param depth the max number of fetched batches waiting to be consumed
+   */
+  public RemoteBatchPrefetcher(
+      BatchFetcher<T> fetcher,
+      ToLongFunction<T> sizeEstimator,
+      Predicate<T> lastBatchChecker,
+      int depth) {
+    this.fetcher = fetcher;
+    this.sizeEstimator = sizeEstimator;
+    this.lastBatchChecker = lastBatchChecker;
+    this.depth = depth;
+  }
+
+  /**
+   * Get the next batch, fetch it if it has not been fetched.
+   *
+   * @return the next batch or null if there are no more batches
+   * @throws TException if the fetch of the next batch failed
+   * @throws IOException if the fetch of the next batch failed
+   */
+  public synchronized T take() throws TException, IOException {
+    while (fetchedBatches.isEmpty()) {
+      if (fetchException != null) {
+        throwFetchException();
+      }
+      if (finished || closed) {
+        return null;
+      }
+      if (!fetching) {
+        // the consumer is waiting, fetch regardless of the memory, which fails if the pool is shut
+        // down
+        startFetch();
+        continue;
+      }
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("Interrupted when waiting for a prefetched batch");
+        return null;
+      }
+    }
+
+    T batch = fetchedBatches.poll();
+    usedMemory.addAndGet(-fetchedBatchSizes.poll());
+    prefetch();
+    return batch;
+  }
+
+  /** Stop prefetching and release the fetched batches. Calling it more than once is harmless. */
+  public synchronized void close() {
+    closed = true;
+    for (Long size : fetchedBatchSizes) {
+      usedMemory.addAndGet(-size);
+    }
+    fetchedBatches.clear();
+    fetchedBatchSizes.clear();
+  }
+
+  private void throwFetchException() throws TException, IOException {
+    if (fetchException instanceof TException) {
+      throw (TException) fetchException;
+    }
+    if (fetchException instanceof IOException) {
+      throw (IOException) fetchException;
+    }
+    throw new IOException(fetchException);
+  }
+
+  private void prefetch() {
+    if (!fetching
+        && !finished
+        && !closed
+        && fetchException == null
+        && fetchedBatches.size() < depth
+        && usedMemory.get()
+            < IoTDBDescriptor.getInstance().getConfig().getAllocateMemoryForReadWithoutCache()) {
+      startFetch();
+    }
+  }
+
+  private void startFetch() {
+    try {
+      getPrefetchPool().execute(new FetchTask());
+      fetching = true;
+    } catch (RejectedExecutionException e) {
+      fetchException = new IOException("The prefetch pool is shut down", e);
+    }
+  }
+
+  private static synchronized ExecutorService getPrefetchPool() {
+    if (prefetchPool == null) {
+      prefetchPool =
+          IoTDBThreadPoolFactory.newFixedThreadPool(
+              Math.max(1, IoTDBDescriptor.getInstance().getConfig().getConcurrentQueryThread()),
+              ThreadName.CLUSTER_REMOTE_PREFETCH.getName());
+    }
+    return prefetchPool;
+  }
+
+  /**
+   * Stop the fetches of all prefetchers, the fetches not started yet fail and those in progress are
+   * interrupted. A later fetch creates the pool again.
+   */
+  public static synchronized void shutdownPrefetchPool() {
+    if (prefetchPool != null) {
+      for (Runnable task : prefetchPool.shutdownNow()) {
+        if (task instanceof RemoteBatchPrefetcher.FetchTask) {
+          ((RemoteBatchPrefetcher<?>.FetchTask) task).abort();
+        }
+      }
+      prefetchPool = null;
+    }
+  }
+
+  private void fetch() {
+    T batch = null;
+    Exception exception = null;
+    try {
+      batch = fetcher.fetch();
+    } catch (Exception e) {
+      exception = e;
+    }
+
+    synchronized (this) {
+      fetching = false;
+      if (!closed) {
+        if (exception != null) {
+          fetchException = exception;
+        } else if (batch == null) {
+          finished = true;
+        } else {
+          long size = sizeEstimator.applyAsLong(batch);
+          fetchedBatches.add(batch);
+          fetchedBatchSizes.add(size);
+          usedMemory.addAndGet(size);
+          finished = lastBatchChecker.test(batch);
+          prefetch();
+        }
+      }
+      notifyAll();
+    }
+  }
+
+  private class FetchTask implements Runnable {
+
+    @Override
+    public void run() {
+      fetch();
+    }
+
+    private void abort() {
+      synchronized (RemoteBatchPrefetcher.this) {
+        fetching = false;
+        fetchException = new IOException("The prefetch pool is shut down");
+        RemoteBatchPrefetcher.this.notifyAll();
+      }
+    }
+  }
+
+  @TestOnly
+  public static long getUsedMemory() {
+    return usedMemory.get();
+  }
+
+  @FunctionalInterface
+  public interface BatchFetcher<T> {
+
+    /**
+     * Fetch the next batch of a remote reader.
+     *
+     * @return the next batch or null if there are no more batches
+     */
+    T fetch() throws TException, IOException;
+  }
+}
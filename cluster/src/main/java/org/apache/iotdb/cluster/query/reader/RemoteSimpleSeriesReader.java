@@ -53,10 +53,16 @@ public class RemoteSimpleSeriesReader implements IPointReader {
   private AtomicReference<ByteBuffer> fetchResult = new AtomicReference<>();
   private GenericHandler<ByteBuffer> handler;
 
+  // fetches the batches in the background, null if prefetching is disabled
+  private RemoteBatchPrefetcher<ByteBuffer> prefetcher;
+
   public RemoteSimpleSeriesReader(DataSourceInfo sourceInfo) {
     this.sourceInfo = sourceInfo;
     handler = new GenericHandler<>(sourceInfo.getCurrentNode(), fetchResult);
     lastTimestamp = Long.MIN_VALUE;
+    if (ClusterDescriptor.getInstance().getConfig().getRemoteReaderPrefetchDepth() > 0) {
+      prefetcher = createPrefetcher();
+    }
   }
 
   @Override
@@ -94,7 +100,10 @@ public class RemoteSimpleSeriesReader implements IPointReader {
 
   @Override
   public void close() {
-    // closed by Resource manager
+    // the remote reader is closed by Resource manager
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
   }
 
   private void fetchBatch() throws IOException {
@@ -104,7 +113,9 @@ public class RemoteSimpleSeriesReader implements IPointReader {
     }
 
     ByteBuffer result;
-    if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
+    if (prefetcher != null) {
+      result = takePrefetchedResult();
+    } else if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
       result = fetchResultAsync();
     } else {
       result = fetchResultSync();
@@ -119,6 +130,62 @@ public class RemoteSimpleSeriesReader implements IPointReader {
     }
   }
 
+  private RemoteBatchPrefetcher<ByteBuffer> createPrefetcher() {
+    RemoteBatchPrefetcher<ByteBuffer> newPrefetcher =
+        new RemoteBatchPrefetcher<>(
+            this::fetchResultOnce,
+            ByteBuffer::remaining,
+            result -> !result.hasRemaining(),
+            ClusterDescriptor.getInstance().getConfig().getRemoteReaderPrefetchDepth());
+    sourceInfo.getContext().registerPrefetcher(newPrefetcher);
+    return newPrefetcher;
+  }
+
+  private ByteBuffer takePrefetchedResult() throws IOException {
+    while (true) {
+      try {
+        return prefetcher.take();
+      } catch (TException e) {
+        // the batches fetched before the failure are all consumed, so the new node can continue
+        // from lastTimestamp
+        prefetcher.close();
+        if (!sourceInfo.switchNode(false, lastTimestamp)) {
+          return null;
+        }
+        prefetcher = createPrefetcher();
+      }
+    }
+  }
+
+  /** Fetch a batch from the current node without retrying, called by the prefetcher. */
+  private ByteBuffer fetchResultOnce() throws TException, IOException {
+    if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
+      GenericHandler<ByteBuffer> fetchHandler =
+          new GenericHandler<>(sourceInfo.getCurrentNode(), new AtomicReference<>());
+      sourceInfo
+          .getCurAsyncClient(RaftServer.getReadOperationTimeoutMS())
+          .fetchSingleSeries(sourceInfo.getHeader(), sourceInfo.getReaderId(), fetchHandler);
+      try {
+        return fetchHandler.getResult(RaftServer.getReadOperationTimeoutMS());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("Query {} interrupted", sourceInfo);
+        return null;
+      }
+    }
+
+    SyncDataClient curSyncClient =
+        sourceInfo.getCurSyncClient(RaftServer.getReadOperationTimeoutMS());
+    try {
+      return curSyncClient.fetchSingleSeries(sourceInfo.getHeader(), sourceInfo.getReaderId());
+    } catch (TException e) {
+      curSyncClient.getInputProtocol().getTransport().close();
+      throw e;
+    } finally {
+      ClientUtils.putBackSyncClient(curSyncClient);
+    }
+  }
+
   @SuppressWarnings("java:S2274") // enable timeout
   private ByteBuffer fetchResultAsync() throws IOException {
     synchronized (fetchResult) {
@@ -213,6 +213,10 @@ public class MultDataSourceInfo {
     return partitionGroup.getHeader();
   }
 
+  RemoteQueryContext getContext() {
+    return context;
+  }
+
   AsyncDataClient getCurAsyncClient(int timeout) throws IOException {
     return isNoClient
         ? null
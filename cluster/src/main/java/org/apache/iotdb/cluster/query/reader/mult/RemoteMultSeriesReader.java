@@ -21,6 +21,7 @@ package org.apache.iotdb.cluster.query.reader.mult;
 
 import org.apache.iotdb.cluster.client.sync.SyncDataClient;
 import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.cluster.query.reader.RemoteBatchPrefetcher;
 import org.apache.iotdb.cluster.server.RaftServer;
 import org.apache.iotdb.cluster.server.handlers.caller.GenericHandler;
 import org.apache.iotdb.db.utils.SerializeUtils;
@@ -37,6 +38,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -64,6 +66,9 @@ public class RemoteMultSeriesReader extends AbstractMultPointReader {
 
   private Map<String, TSDataType> pathToDataType;
 
+  // fetches the batches in the background, null if prefetching is disabled
+  private RemoteBatchPrefetcher<Map<String, ByteBuffer>> prefetcher;
+
   public RemoteMultSeriesReader(MultDataSourceInfo sourceInfo) {
     this.sourceInfo = sourceInfo;
     this.handler = new GenericHandler<>(sourceInfo.getCurrentNode(), fetchResult);
@@ -77,6 +82,17 @@ public class RemoteMultSeriesReader extends AbstractMultPointReader {
       this.cachedBatchs.put(fullPath, new ConcurrentLinkedQueue<>());
       this.pathToDataType.put(fullPath, sourceInfo.getDataTypes().get(i));
     }
+
+    int prefetchDepth = ClusterDescriptor.getInstance().getConfig().getRemoteReaderPrefetchDepth();
+    if (prefetchDepth > 0) {
+      this.prefetcher =
+          new RemoteBatchPrefetcher<>(
+              this::fetchSelectedPaths,
+              RemoteMultSeriesReader::estimateSize,
+              result -> false,
+              prefetchDepth);
+      sourceInfo.getContext().registerPrefetcher(prefetcher);
+    }
   }
 
   @Override
@@ -86,9 +102,21 @@ public class RemoteMultSeriesReader extends AbstractMultPointReader {
       return true;
     }
     fetchBatch();
+    if (prefetcher != null) {
+      // a prefetched result may not contain the path, as the path had enough cached batches when
+      // the result was requested
+      while (!checkPathBatchData(fullPath) && !isPathFinished(fullPath) && fetchBatch()) {
+        // fetch until the path has data or finishes
+      }
+    }
     return checkPathBatchData(fullPath);
   }
 
+  private boolean isPathFinished(String fullPath) {
+    BatchData batchData = cachedBatchs.get(fullPath).peek();
+    return batchData != null && batchData.isEmpty();
+  }
+
   private boolean checkPathBatchData(String fullPath) {
     BatchData batchData = cachedBatchs.get(fullPath).peek();
     if (batchData != null && !batchData.isEmpty()) {
@@ -122,26 +150,40 @@ public class RemoteMultSeriesReader extends AbstractMultPointReader {
     return cachedBatchs.keySet();
   }
 
-  /** query resource deal close there is not dealing. */
+  /** query resource deal close there is not dealing, only the prefetching is stopped. */
   @Override
-  public void close() {}
+  public void close() {
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
+  }
 
-  private void fetchBatch() throws IOException {
+  /** @return true if a result is fetched */
+  private boolean fetchBatch() throws IOException {
     if (!sourceInfo.checkCurClient()) {
       cachedBatchs = null;
-      return;
+      return false;
     }
-    List<String> paths = batchStrategy.selectBatchPaths(this.cachedBatchs);
-    if (paths.isEmpty()) return;
 
     Map<String, ByteBuffer> result;
-    if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
-      result = fetchResultAsync(paths);
+    if (prefetcher != null) {
+      try {
+        result = prefetcher.take();
+      } catch (TException e) {
+        throw new IOException(e);
+      }
     } else {
-      result = fetchResultSync(paths);
+      List<String> paths = batchStrategy.selectBatchPaths(this.cachedBatchs);
+      if (paths.isEmpty()) return false;
+
+      if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
+        result = fetchResultAsync(paths);
+      } else {
+        result = fetchResultSync(paths);
+      }
     }
 
-    if (result == null) return;
+    if (result == null) return false;
 
     for (String path : result.keySet()) {
 
@@ -161,6 +203,27 @@ public class RemoteMultSeriesReader extends AbstractMultPointReader {
           .computeIfAbsent(path, n -> new ConcurrentLinkedQueue<BatchData>())
           .add(batchData);
     }
+    return true;
+  }
+
+  /** Fetch the paths that need more batches, called by the prefetcher. */
+  private Map<String, ByteBuffer> fetchSelectedPaths() throws IOException {
+    List<String> paths = batchStrategy.selectBatchPaths(this.cachedBatchs);
+    if (paths.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
+      return fetchResultAsync(paths);
+    }
+    return fetchResultSync(paths);
+  }
+
+  private static long estimateSize(Map<String, ByteBuffer> result) {
+    long size = 0;
+    for (ByteBuffer buffer : result.values()) {
+      size += buffer.remaining();
+    }
+    return size;
   }
 
   @SuppressWarnings("java:S2274") // enable timeout
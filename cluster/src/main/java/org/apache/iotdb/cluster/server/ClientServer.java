@@ -27,6 +27,7 @@ import org.apache.iotdb.cluster.coordinator.Coordinator;
 import org.apache.iotdb.cluster.query.ClusterPlanExecutor;
 import org.apache.iotdb.cluster.query.ClusterPlanner;
 import org.apache.iotdb.cluster.query.RemoteQueryContext;
+import org.apache.iotdb.cluster.query.reader.RemoteBatchPrefetcher;
 import org.apache.iotdb.cluster.rpc.thrift.Node;
 import org.apache.iotdb.cluster.rpc.thrift.RaftNode;
 import org.apache.iotdb.cluster.server.handlers.caller.GenericHandler;
@@ -193,6 +194,7 @@ public class ClientServer extends TSServiceImpl {
     poolServer.stop();
     serverService.shutdownNow();
     serverTransport.close();
+    RemoteBatchPrefetcher.shutdownPrefetchPool();
   }
 
   /**
@@ -273,6 +275,8 @@ public class ClientServer extends TSServiceImpl {
     // release resources remotely
     RemoteQueryContext context = queryContextMap.remove(queryId);
     if (context != null) {
+      // stop prefetching before the remote readers are released
+      context.closePrefetchers();
       // release the resources in every queried node
       for (Entry<RaftNode, Set<Node>> headerEntry : context.getQueriedNodesMap().entrySet()) {
         RaftNode header = headerEntry.getKey();
@@ -21,6 +21,7 @@ package org.apache.iotdb.cluster.server.handlers.caller;
 
 import org.apache.iotdb.cluster.rpc.thrift.HeartBeatResponse;
 import org.apache.iotdb.cluster.rpc.thrift.Node;
+import org.apache.iotdb.cluster.server.heartbeat.LeaderLease;
 import org.apache.iotdb.cluster.server.member.RaftMember;
 import org.apache.iotdb.cluster.server.monitor.Peer;
 
@@ -43,11 +44,18 @@ public class HeartbeatHandler implements AsyncMethodCallback<HeartBeatResponse>
   private RaftMember localMember;
   private String memberName;
   private Node receiver;
+  /** the lease round of the heartbeat, null if lease read is disabled */
+  private LeaderLease.Round leaseRound;
 
   public HeartbeatHandler(RaftMember localMember, Node receiver) {
+    this(localMember, receiver, null);
+  }
+
+  public HeartbeatHandler(RaftMember localMember, Node receiver, LeaderLease.Round leaseRound) {
     this.localMember = localMember;
     this.receiver = receiver;
     this.memberName = localMember.getName();
+    this.leaseRound = leaseRound;
   }
 
   @Override
@@ -58,6 +66,9 @@ public class HeartbeatHandler implements AsyncMethodCallback<HeartBeatResponse>
     }
     if (followerTerm == RESPONSE_AGREE) {
       // current leadership is still valid
+      if (leaseRound != null) {
+        leaseRound.onAck();
+      }
       handleNormalHeartbeatResponse(resp);
     } else {
       // current leadership is invalid because the follower has a larger term
@@ -134,7 +145,7 @@ public class HeartbeatHandler implements AsyncMethodCallback<HeartBeatResponse>
       }
     } else {
       // the follower is up-to-date
-      peer.setMatchIndex(Math.max(peer.getMatchIndex(), lastLogIdx));
+      peer.updateMatchIndex(lastLogIdx);
       peer.resetInconsistentHeartbeatNum();
     }
     peer.setLastHeartBeatIndex(lastLogIdx);
@@ -57,6 +57,8 @@ public class HeartbeatThread implements Runnable {
   private String memberName;
   HeartBeatRequest request = new HeartBeatRequest();
   ElectionRequest electionRequest = new ElectionRequest();
+  /** the heartbeat round being sent, whose acknowledgements renew the leader lease */
+  private LeaderLease.Round leaseRound;
 
   private Random random = new Random();
   boolean hasHadLeader = false;
@@ -148,6 +150,12 @@ public class HeartbeatThread implements Runnable {
       request.setLeader(localMember.getThisNode());
       request.setCommitLogIndex(localMember.getLogManager().getCommitLogIndex());
       request.setCommitLogTerm(localMember.getLogManager().getCommitLogTerm());
+      if (ClusterDescriptor.getInstance().getConfig().isEnableLeaseRead()) {
+        leaseRound =
+            localMember
+                .getLeaderLease()
+                .startRound(request.getTerm(), localMember.getAllNodes().size() / 2);
+      }
 
       sendHeartbeats(localMember.getAllNodes());
     }
@@ -200,7 +208,7 @@ public class HeartbeatThread implements Runnable {
       // connecting to the local node results in a null
       try {
         logger.debug("{}: Sending heartbeat to {}", memberName, node);
-        client.sendHeartbeat(request, new HeartbeatHandler(localMember, node));
+        client.sendHeartbeat(request, new HeartbeatHandler(localMember, node, leaseRound));
       } catch (Exception e) {
         logger.warn("{}: Cannot send heart beat to node {}", memberName, node, e);
       }
@@ -208,7 +216,7 @@ public class HeartbeatThread implements Runnable {
   }
 
   void sendHeartbeatSync(Node node) {
-    HeartbeatHandler heartbeatHandler = new HeartbeatHandler(localMember, node);
+    HeartbeatHandler heartbeatHandler = new HeartbeatHandler(localMember, node, leaseRound);
     HeartBeatRequest req = new HeartBeatRequest();
     req.setCommitLogTerm(request.commitLogTerm);
     req.setCommitLogIndex(request.commitLogIndex);
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.server.heartbeat;
+
+import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.cluster.server.RaftServer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LeaderLease is the time during which a leader is sure that no other node of its group can become
+ * a leader, so that it can serve linearizable reads from its local data without contacting the
+ * followers.
+ *
+ * <p>A lease is granted by a heartbeat round once a quorum of the group (including the leader)
+ * acknowledges it. It starts when the heartbeats of the round are sent rather than when they are
+ * acknowledged, and lasts for the election timeout shortened by the clock drift bound, because a
+ * follower refuses to vote for another node within the election timeout after it hears from its
+ * leader. Only the monotonic clock of the leader is used.
+ */
+public class LeaderLease {
+
+  /** the term of the latest granted lease, a lease is only valid in the term it is granted */
+  private long term = -1;
+  /** in System.nanoTime() */
+  private long expireTime = Long.MIN_VALUE;
+
+  public static long getLeaseDurationNs() {
+    double driftBound = ClusterDescriptor.getInstance().getConfig().getLeaseClockDriftBound();
+    return (long)
+        (TimeUnit.MILLISECONDS.toNanos(RaftServer.getElectionTimeoutMs()) * (1 - driftBound));
+  }
+
+  /**
+   * Start a heartbeat round. Call it before any heartbeat of the round is sent.
+   *
+   * @param term the term of the heartbeats
+   * @param requiredAckNum the number of followers that must acknowledge the heartbeats to make a
+   *     quorum together with the leader
+   */
+  public Round startRound(long term, int requiredAckNum) {
+    Round round = new Round(term, requiredAckNum);
+    if (requiredAckNum <= 0) {
+      // a single-node group is a quorum by itself
+      extend(term, round.startTime);
+    }
+    return round;
+  }
+
+  private synchronized void extend(long term, long roundStartTime) {
+    long newExpireTime = roundStartTime + getLeaseDurationNs();
+    if (term > this.term || (term == this.term && newExpireTime - expireTime > 0)) {
+      this.term = term;
+      this.expireTime = newExpireTime;
+      notifyAll();
+    }
+  }
+
+  /** @return whether the lease granted in "term" is still valid */
+  public synchronized boolean isValid(long term) {
+    return this.term == term && expireTime - System.nanoTime() > 0;
+  }
+
+  /**
+   * Wait until the lease of "term" becomes valid or the timeout elapses.
+   *
+   * @return whether the lease is valid
+   */
+  public synchronized boolean waitValid(long term, long timeoutMs) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    while (!isValid(term)) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    return true;
+  }
+
+  /** Give up the lease, e.g., when the leader steps down. */
+  public synchronized void invalidate() {
+    expireTime = Long.MIN_VALUE;
+  }
+
+  /** The acknowledgements of the heartbeats sent together. */
+  public class Round {
+
+    private final long term;
+    private final long startTime = System.nanoTime();
+    private final AtomicInteger remainingAckNum;
+
+    private Round(long term, int requiredAckNum) {
+      this.term = term;
+      this.remainingAckNum = new AtomicInteger(requiredAckNum);
+    }
+
+    /** Called when a follower accepts the heartbeat of this round. */
+    public void onAck() {
+      if (remainingAckNum.decrementAndGet() == 0) {
+        extend(term, startTime);
+      }
+    }
+  }
+}
@@ -72,6 +72,7 @@ import org.apache.iotdb.cluster.server.heartbeat.DataHeartbeatThread;
 import org.apache.iotdb.cluster.server.monitor.NodeReport.DataMemberReport;
 import org.apache.iotdb.cluster.server.monitor.NodeStatusManager;
 import org.apache.iotdb.cluster.server.monitor.Peer;
+import org.apache.iotdb.cluster.server.monitor.PullSnapshotProgress;
 import org.apache.iotdb.cluster.server.monitor.Timer;
 import org.apache.iotdb.cluster.server.monitor.Timer.Statistic;
 import org.apache.iotdb.cluster.utils.IOUtils;
@@ -159,6 +160,9 @@ public class DataGroupMember extends RaftMember {
    */
   protected SlotManager slotManager;
 
+  /** how far this member is in pulling snapshots from the previous holders of its slots */
+  private PullSnapshotProgress pullSnapshotProgress = new PullSnapshotProgress();
+
   private LocalQueryExecutor localQueryExecutor;
 
   LogApplier dataLogApplier;
@@ -983,7 +987,8 @@ public class DataGroupMember extends RaftMember {
         NodeStatusManager.getINSTANCE().getLastResponseLatency(getHeader().getNode()),
         lastHeartbeatReceivedTime,
         prevLastLogIndex,
-        logManager.getMaxHaveAppliedCommitIndex());
+        logManager.getMaxHaveAppliedCommitIndex(),
+        pullSnapshotProgress);
   }
 
   @TestOnly
@@ -1006,6 +1011,10 @@ public class DataGroupMember extends RaftMember {
     return slotManager;
   }
 
+  public PullSnapshotProgress getPullSnapshotProgress() {
+    return pullSnapshotProgress;
+  }
+
   public boolean onSnapshotInstalled(List<Integer> slots) {
     if (getMetaGroupMember().getPartitionTable().getAllNodes().contains(thisNode)) {
       getMetaGroupMember()
@@ -55,6 +55,7 @@ import org.apache.iotdb.cluster.server.RaftServer;
 import org.apache.iotdb.cluster.server.Response;
 import org.apache.iotdb.cluster.server.handlers.caller.AppendNodeEntryHandler;
 import org.apache.iotdb.cluster.server.handlers.caller.GenericHandler;
+import org.apache.iotdb.cluster.server.heartbeat.LeaderLease;
 import org.apache.iotdb.cluster.server.monitor.Peer;
 import org.apache.iotdb.cluster.server.monitor.Timer;
 import org.apache.iotdb.cluster.server.monitor.Timer.Statistic;
@@ -173,6 +174,11 @@ public abstract class RaftMember {
    * offline.
    */
   volatile long lastHeartbeatReceivedTime;
+  /**
+   * the System.nanoTime() of lastHeartbeatReceivedTime. Unlike the wall clock it is not affected by
+   * clock adjustments, so it decides whether the leader may still hold a lease.
+   */
+  private volatile long lastHeartbeatReceivedNanos;
   /** the raft logs are all stored and maintained in the log manager */
   RaftLogManager logManager;
   /**
@@ -239,6 +245,20 @@ public abstract class RaftMember {
   /** If this node can not be the leader, this parameter will be set true. */
   private volatile boolean skipElection = false;
 
+  /** the lease of this node as a leader, renewed by the heartbeats acknowledged by a quorum */
+  private final LeaderLease leaderLease = new LeaderLease();
+
+  /**
+   * when lease read is enabled, a follower shares the read index fetched from the leader among the
+   * concurrent reads, so there is at most one ongoing read index request per member.
+   */
+  private final Object readIndexLock = new Object();
+
+  private boolean readIndexRequesting = false;
+  private RequestCommitIndexResponse lastReadIndex;
+  /** in System.nanoTime(), when the request of lastReadIndex was sent */
+  private long lastReadIndexRequestTime;
+
   /**
    * localExecutor is used to directly execute plans like load configuration in the underlying IoTDB
    */
@@ -480,6 +500,14 @@ public abstract class RaftMember {
           "{}: start to handle request from elector {}", name, electionRequest.getElector());
     }
     synchronized (term) {
+      if (isLeaderStillOnline(electionRequest.getElector())) {
+        logger.info(
+            "{} rejects the elector {} because the leader {} is still online",
+            name,
+            electionRequest.getElector(),
+            leader.get());
+        return Response.RESPONSE_LEADER_STILL_ONLINE;
+      }
       long currentTerm = term.get();
       long response =
           checkElectorTerm(currentTerm, electionRequest.getTerm(), electionRequest.getElector());
@@ -495,6 +523,28 @@ public abstract class RaftMember {
     }
   }
 
+  /**
+   * With lease read, the lease of a leader is only safe if no other node can be elected before it
+   * expires, so a node does not vote for another node within an election timeout after it hears
+   * from its leader, nor while it holds a lease itself. The leader is also not forced to step down
+   * by the larger term of the elector.
+   */
+  private boolean isLeaderStillOnline(Node elector) {
+    if (!config.isEnableLeaseRead()) {
+      return false;
+    }
+    if (character == NodeCharacter.LEADER) {
+      return leaderLease.isValid(term.get());
+    }
+    Node currLeader = leader.get();
+    return character == NodeCharacter.FOLLOWER
+        && currLeader != null
+        && !ClusterConstant.EMPTY_NODE.equals(currLeader)
+        && !currLeader.equals(elector)
+        && System.nanoTime() - lastHeartbeatReceivedNanos
+            < TimeUnit.MILLISECONDS.toNanos(RaftServer.getElectionTimeoutMs());
+  }
+
   private long checkElectorTerm(long currentTerm, long electorTerm, Node elector) {
     if (electorTerm < currentTerm) {
       // the elector has a smaller term thus the request is invalid
@@ -656,16 +706,32 @@ public abstract class RaftMember {
   public void setCharacter(NodeCharacter character) {
     if (!Objects.equals(character, this.character)) {
       logger.info("{} has become a {}", name, character);
+      if (this.character == NodeCharacter.LEADER) {
+        leaderLease.invalidate();
+      }
       this.character = character;
     }
   }
 
+  public LeaderLease getLeaderLease() {
+    return leaderLease;
+  }
+
   public long getLastHeartbeatReceivedTime() {
     return lastHeartbeatReceivedTime;
   }
 
   public void setLastHeartbeatReceivedTime(long lastHeartbeatReceivedTime) {
     this.lastHeartbeatReceivedTime = lastHeartbeatReceivedTime;
+    this.lastHeartbeatReceivedNanos =
+        System.nanoTime()
+            - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - lastHeartbeatReceivedTime);
+  }
+
+  /** record that the leader has just been heard from, e.g., by a heartbeat or an append */
+  private void onHeartbeatReceived() {
+    lastHeartbeatReceivedTime = System.currentTimeMillis();
+    lastHeartbeatReceivedNanos = System.nanoTime();
   }
 
   public Node getLeader() {
@@ -872,7 +938,7 @@ public abstract class RaftMember {
    */
   public boolean syncLeader(CheckConsistency checkConsistency) throws CheckConsistencyException {
     if (character == NodeCharacter.LEADER) {
-      return true;
+      return !config.isEnableLeaseRead() || checkLeaderLease(checkConsistency);
     }
     waitLeader();
     if (leader.get() == null || ClusterConstant.EMPTY_NODE.equals(leader.get())) {
@@ -887,6 +953,40 @@ public abstract class RaftMember {
     return waitUntilCatchUp(checkConsistency);
   }
 
+  /**
+   * Check that this leader still holds a lease so that no other node can have committed newer
+   * logs, and wait until the local data catches up with the commit index. A leader that has not
+   * committed a log in its term does not know the latest commit index yet, and reads its local data
+   * as without lease read.
+   *
+   * @return true if the lease is valid and the local data has caught up, false otherwise
+   */
+  private boolean checkLeaderLease(CheckConsistency checkConsistency)
+      throws CheckConsistencyException {
+    long currTerm = term.get();
+    if (logManager.getCommitLogTerm() != currTerm) {
+      return true;
+    }
+    long readIndex = Long.MIN_VALUE;
+    try {
+      // the lease may have just expired between two heartbeats, so wait for the next renewal
+      if (leaderLease.waitValid(currTerm, RaftServer.getElectionTimeoutMs())
+          && character == NodeCharacter.LEADER) {
+        readIndex = logManager.getCommitLogIndex();
+        return syncLocalApply(readIndex, false);
+      }
+      logger.warn("{}: the leader lease of term {} cannot be renewed", name, currTerm);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("{}: Unexpected interruption when waiting for the leader lease", name, e);
+    } finally {
+      if (checkConsistency != null) {
+        checkConsistency.postCheckConsistency(readIndex, logManager.getMaxHaveAppliedCommitIndex());
+      }
+    }
+    return false;
+  }
+
   /** Wait until the leader of this node becomes known or time out. */
   public void waitLeader() {
     long startTime = System.currentTimeMillis();
@@ -921,7 +1021,10 @@ public abstract class RaftMember {
     long leaderCommitId = Long.MIN_VALUE;
     RequestCommitIndexResponse response;
     try {
-      response = config.isUseAsyncServer() ? requestCommitIdAsync() : requestCommitIdSync();
+      response =
+          config.isEnableLeaseRead()
+              ? requestReadIndex(checkConsistency instanceof MidCheckConsistency)
+              : requestCommitId();
       leaderCommitId = response.getCommitLogIndex();
 
       tryUpdateCommitIndex(
@@ -1162,6 +1265,57 @@ public abstract class RaftMember {
   }
 
   @SuppressWarnings("java:S2274") // enable timeout
+  private RequestCommitIndexResponse requestCommitId() throws TException, InterruptedException {
+    return config.isUseAsyncServer() ? requestCommitIdAsync() : requestCommitIdSync();
+  }
+
+  /**
+   * Get the commit index of the leader as a read index, sharing one request among the concurrent
+   * reads. A read may only use the response of a request that is sent after the read starts,
+   * unless it tolerates staleness, in which case the response of a request sent within a leader
+   * lease is also used.
+   *
+   * @param allowStale whether the read tolerates a read index that may be slightly stale
+   */
+  private RequestCommitIndexResponse requestReadIndex(boolean allowStale)
+      throws TException, InterruptedException {
+    long readStartTime = System.nanoTime();
+    synchronized (readIndexLock) {
+      while (true) {
+        if (lastReadIndex != null
+            && (lastReadIndexRequestTime - readStartTime >= 0
+                || (allowStale
+                    && System.nanoTime() - lastReadIndexRequestTime
+                        < LeaderLease.getLeaseDurationNs()))) {
+          return lastReadIndex;
+        }
+        if (!readIndexRequesting) {
+          break;
+        }
+        // the ongoing request may be sent before this read starts, wait for it and send another
+        readIndexLock.wait();
+      }
+      readIndexRequesting = true;
+    }
+
+    RequestCommitIndexResponse response = null;
+    long requestTime = System.nanoTime();
+    try {
+      response = requestCommitId();
+      return response;
+    } finally {
+      synchronized (readIndexLock) {
+        // do not share a timed out response
+        if (response != null && response.getCommitLogIndex() != Long.MAX_VALUE) {
+          lastReadIndex = response;
+          lastReadIndexRequestTime = requestTime;
+        }
+        readIndexRequesting = false;
+        readIndexLock.notifyAll();
+      }
+    }
+  }
+
   protected RequestCommitIndexResponse requestCommitIdAsync()
       throws TException, InterruptedException {
     // use Long.MAX_VALUE to indicate a timeout
@@ -1286,7 +1440,7 @@ public abstract class RaftMember {
           thatLastLogTerm,
           logManager.getLastLogTerm());
       setCharacter(NodeCharacter.FOLLOWER);
-      lastHeartbeatReceivedTime = System.currentTimeMillis();
+      onHeartbeatReceived();
       setVoteFor(elector);
       updateHardState(thatTerm, getVoteFor());
     } else {
@@ -1349,7 +1503,7 @@ public abstract class RaftMember {
         && (leader.get() != null)
         && leader.get().equals(node)) {
       // leader is down, trigger a new election by resetting heartbeat
-      lastHeartbeatReceivedTime = -1;
+      setLastHeartbeatReceivedTime(-1);
       leader.set(null);
       waitLeader();
     }
@@ -1647,7 +1801,7 @@ public abstract class RaftMember {
         // only when the request is from a leader should we update lastHeartbeatReceivedTime,
         // otherwise the node may be stuck in FOLLOWER state by a stale node.
         setCharacter(NodeCharacter.FOLLOWER);
-        lastHeartbeatReceivedTime = System.currentTimeMillis();
+        onHeartbeatReceived();
       }
     }
   }
@@ -2057,7 +2211,7 @@ public abstract class RaftMember {
         if (leaderTerm > localTerm) {
           stepDown(leaderTerm, true);
         } else {
-          lastHeartbeatReceivedTime = System.currentTimeMillis();
+          onHeartbeatReceived();
         }
         setLeader(leader);
         if (character != NodeCharacter.FOLLOWER) {
@@ -198,6 +198,7 @@ public class NodeReport {
   public static class DataMemberReport extends RaftMemberReport {
     RaftNode header;
     long headerLatency;
+    PullSnapshotProgress pullSnapshotProgress;
 
     public DataMemberReport(
         NodeCharacter character,
@@ -212,7 +213,8 @@ public class NodeReport {
         long headerLatency,
         long lastHeartbeatReceivedTime,
         long prevLastLogIndex,
-        long maxAppliedLogIndex) {
+        long maxAppliedLogIndex,
+        PullSnapshotProgress pullSnapshotProgress) {
       super(
           character,
           leader,
@@ -227,6 +229,7 @@ public class NodeReport {
           maxAppliedLogIndex);
       this.header = header;
       this.headerLatency = headerLatency;
+      this.pullSnapshotProgress = pullSnapshotProgress;
     }
 
     @Override
@@ -262,6 +265,8 @@ public class NodeReport {
           + "ms ago"
           + ", logIncrement="
           + (lastLogIndex - prevLastLogIndex)
+          + ", pullSnapshot="
+          + pullSnapshotProgress
           + '}';
     }
   }
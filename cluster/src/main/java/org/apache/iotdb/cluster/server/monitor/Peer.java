@@ -52,6 +52,16 @@ public class Peer {
     this.notifyAll();
   }
 
+  /**
+   * Set the match index only if it increases, as the responses of the requests sent to a peer may
+   * arrive out of order.
+   */
+  public synchronized void updateMatchIndex(long matchIndex) {
+    if (matchIndex > this.matchIndex) {
+      setMatchIndex(matchIndex);
+    }
+  }
+
   public int incInconsistentHeartbeatNum() {
     return inconsistentHeartbeatNum.incrementAndGet();
   }
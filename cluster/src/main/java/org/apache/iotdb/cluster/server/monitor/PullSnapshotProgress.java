@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.server.monitor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PullSnapshotProgress records how far a data group member is in pulling snapshots from other
+ * nodes, i.e., the running PullSnapshotTasks, and the files and bytes pulled by the snapshot
+ * installers. It is shown in the DataMemberReport so that a long data migration can be followed.
+ */
+public class PullSnapshotProgress {
+
+  private final AtomicInteger runningTasks = new AtomicInteger();
+  private final AtomicInteger scheduledFiles = new AtomicInteger();
+  private final AtomicInteger pulledFiles = new AtomicInteger();
+  private final AtomicLong pulledBytes = new AtomicLong();
+
+  public void onTaskStart() {
+    runningTasks.incrementAndGet();
+  }
+
+  public void onTaskEnd() {
+    runningTasks.decrementAndGet();
+  }
+
+  public void onFileScheduled() {
+    scheduledFiles.incrementAndGet();
+  }
+
+  public void onFilePulled() {
+    pulledFiles.incrementAndGet();
+  }
+
+  public void onBytesPulled(long bytes) {
+    pulledBytes.addAndGet(bytes);
+  }
+
+  public int getRunningTasks() {
+    return runningTasks.get();
+  }
+
+  public int getScheduledFiles() {
+    return scheduledFiles.get();
+  }
+
+  public int getPulledFiles() {
+    return pulledFiles.get();
+  }
+
+  public long getPulledBytes() {
+    return pulledBytes.get();
+  }
+
+  @Override
+  public String toString() {
+    return "PullSnapshotProgress{"
+        + "runningTasks="
+        + runningTasks
+        + ", files="
+        + pulledFiles
+        + "/"
+        + scheduledFiles
+        + ", bytes="
+        + pulledBytes
+        + '}';
+  }
+}
@@ -22,13 +22,12 @@ package org.apache.iotdb.cluster.utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 @SuppressWarnings("java:S1135")
 public class IOUtils {
@@ -41,7 +40,9 @@ public class IOUtils {
 
   /**
    * An interface that is used for a node to pull chunks of files like TsFiles. The file should be a
-   * temporary hard link, and once the file is totally read, it will be removed.
+   * temporary hard link, and once a chunk is requested from its end, which means that the puller
+   * has stored all previous chunks, it will be removed. So a pull that is interrupted can always
+   * be resumed from where it stopped.
    */
   public static ByteBuffer readFile(String filePath, long offset, int length) throws IOException {
     // TODO-Cluster: hold if the file is an unclosed TsFile
@@ -51,18 +52,19 @@ public class IOUtils {
     }
 
     ByteBuffer result;
-    boolean fileExhausted;
-    try (BufferedInputStream bufferedInputStream =
-        new BufferedInputStream(new FileInputStream(file))) {
-      skipExactly(bufferedInputStream, offset);
-      byte[] bytes = new byte[length];
-      result = ByteBuffer.wrap(bytes);
-      int len = bufferedInputStream.read(bytes);
-      result.limit(Math.max(len, 0));
-      fileExhausted = bufferedInputStream.available() <= 0;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      result = ByteBuffer.allocate((int) Math.min(length, Math.max(fileSize - offset, 0)));
+      // positional reads neither go through the bytes before the offset nor copy the chunk twice
+      while (result.hasRemaining()) {
+        if (channel.read(result, offset + result.position()) < 0) {
+          break;
+        }
+      }
+      result.flip();
     }
 
-    if (fileExhausted) {
+    if (!result.hasRemaining()) {
       try {
         Files.delete(file.toPath());
       } catch (IOException e) {
@@ -72,12 +74,6 @@ public class IOUtils {
     return result;
   }
 
-  private static void skipExactly(InputStream stream, long byteToSkip) throws IOException {
-    while (byteToSkip > 0) {
-      byteToSkip -= stream.skip(byteToSkip);
-    }
-  }
-
   public static Throwable getRootCause(Throwable e) {
     Throwable curr = e;
     while (curr.getCause() != null) {
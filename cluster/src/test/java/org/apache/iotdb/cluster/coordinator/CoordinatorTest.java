@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.coordinator;
+
+import org.apache.iotdb.cluster.common.TestDataGroupMember;
+import org.apache.iotdb.cluster.common.TestMetaGroupMember;
+import org.apache.iotdb.cluster.common.TestUtils;
+import org.apache.iotdb.cluster.config.ClusterConfig;
+import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.cluster.exception.UnsupportedPlanException;
+import org.apache.iotdb.cluster.partition.PartitionGroup;
+import org.apache.iotdb.cluster.partition.PartitionTable;
+import org.apache.iotdb.cluster.partition.slot.SlotPartitionTable;
+import org.apache.iotdb.cluster.query.ClusterPlanRouter;
+import org.apache.iotdb.cluster.rpc.thrift.Node;
+import org.apache.iotdb.cluster.rpc.thrift.RaftNode;
+import org.apache.iotdb.cluster.server.RaftServer;
+import org.apache.iotdb.cluster.server.member.DataGroupMember;
+import org.apache.iotdb.cluster.utils.StatusUtils;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateMultiTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.EndPoint;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoordinatorTest {
+
+  private static final int GROUP_NUM = 3;
+
+  private final ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+  private int prevForwardPlanParallelism;
+
+  private final Node thisNode = TestUtils.getNode(0);
+  private final List<PartitionGroup> groups = new ArrayList<>();
+  private final Map<RaftNode, DataGroupMember> dataMembers = new HashMap<>();
+  /** parent plan -> sub-plan -> data group, returned by the router */
+  private final Map<PhysicalPlan, Map<PhysicalPlan, PartitionGroup>> routes =
+      Collections.synchronizedMap(new IdentityHashMap<>());
+  /** executes a sub-plan in a data group */
+  private volatile BiFunction<PartitionGroup, PhysicalPlan, TSStatus> executor;
+  private Coordinator coordinator;
+
+  @Before
+  public void setUp() {
+    prevForwardPlanParallelism = config.getForwardPlanParallelism();
+    config.setForwardPlanParallelism(2);
+
+    PartitionGroup allNodes = new PartitionGroup();
+    for (int i = 0; i < 10; i++) {
+      allNodes.add(TestUtils.getNode(i));
+    }
+    PartitionTable partitionTable = new SlotPartitionTable(allNodes, thisNode);
+    for (int i = 1; i <= GROUP_NUM; i++) {
+      // the local node is in every group, so each sub-plan is executed by a local data member
+      PartitionGroup group = new PartitionGroup(0, TestUtils.getNode(i), thisNode);
+      groups.add(group);
+      dataMembers.put(
+          group.getHeader(),
+          new TestDataGroupMember(thisNode, group) {
+            @Override
+            public TSStatus executeNonQueryPlan(PhysicalPlan plan) {
+              return executor.apply(group, plan);
+            }
+          });
+    }
+
+    TestMetaGroupMember metaGroupMember =
+        new TestMetaGroupMember() {
+          @Override
+          public DataGroupMember getLocalDataMember(RaftNode header) {
+            return dataMembers.get(header);
+          }
+
+          @Override
+          public PartitionTable getPartitionTable() {
+            return partitionTable;
+          }
+        };
+    coordinator = new Coordinator(metaGroupMember);
+    coordinator.setRouter(
+        new ClusterPlanRouter(partitionTable) {
+          @Override
+          public Map<PhysicalPlan, PartitionGroup> splitAndRoutePlan(PhysicalPlan plan) {
+            return routes.get(plan);
+          }
+        });
+  }
+
+  @After
+  public void tearDown() {
+    coordinator.close();
+    config.setForwardPlanParallelism(prevForwardPlanParallelism);
+  }
+
+  @Test
+  public void testSubStatusOrder() throws Exception {
+    CreateMultiTimeSeriesPlan parentPlan = newMultiPlan(0, 1, 2, 3, 4, 5);
+    Map<PhysicalPlan, PartitionGroup> subPlans = new LinkedHashMap<>();
+    for (int i = 0; i < GROUP_NUM; i++) {
+      subPlans.put(newMultiPlan(i, i + GROUP_NUM), groups.get(i));
+    }
+    routes.put(parentPlan, subPlans);
+    // the first group answers last, and only the timeseries 4 fails
+    executor =
+        (group, plan) -> {
+          if (group == groups.get(0)) {
+            sleep(200);
+          }
+          List<Integer> indexes = ((CreateMultiTimeSeriesPlan) plan).getIndexes();
+          if (!indexes.contains(4)) {
+            return StatusUtils.OK;
+          }
+          List<TSStatus> subStatus = new ArrayList<>();
+          for (int index : indexes) {
+            subStatus.add(
+                index == 4
+                    ? StatusUtils.getStatus(StatusUtils.EXECUTE_STATEMENT_ERROR, "failed")
+                    : StatusUtils.OK);
+          }
+          return RpcUtils.getStatus(subStatus);
+        };
+
+    TSStatus status = coordinator.processPartitionedPlan(parentPlan);
+    assertEquals(TSStatusCode.MULTIPLE_ERROR.getStatusCode(), status.getCode());
+    assertEquals(6, status.getSubStatus().size());
+    for (int i = 0; i < 6; i++) {
+      assertEquals(
+          i == 4
+              ? TSStatusCode.EXECUTE_STATEMENT_ERROR.getStatusCode()
+              : TSStatusCode.SUCCESS_STATUS.getStatusCode(),
+          status.getSubStatus().get(i).getCode());
+    }
+  }
+
+  @Test
+  public void testErrorAggregation() throws Exception {
+    PhysicalPlan parentPlan = routeToAllGroups(0);
+    // the errors are listed in the order of the groups instead of the order they are answered in
+    executor =
+        (group, plan) -> {
+          int groupIndex = groups.indexOf(group);
+          sleep(100L * (GROUP_NUM - groupIndex));
+          return groupIndex == 0
+              ? StatusUtils.OK
+              : StatusUtils.getStatus(StatusUtils.EXECUTE_STATEMENT_ERROR, "error" + groupIndex);
+        };
+
+    TSStatus status = coordinator.processPartitionedPlan(parentPlan);
+    assertEquals(TSStatusCode.EXECUTE_STATEMENT_ERROR.getStatusCode(), status.getCode());
+    List<String> errors = new ArrayList<>();
+    for (int i = 1; i < GROUP_NUM; i++) {
+      errors.add(
+          String.format(
+              "[%s@%s:%s]",
+              TSStatusCode.EXECUTE_STATEMENT_ERROR.getStatusCode(),
+              groups.get(i).getHeader(),
+              "error" + i));
+    }
+    assertTrue(status.getMessage(), status.getMessage().endsWith(errors.toString()));
+  }
+
+  @Test
+  public void testRedirect() throws Exception {
+    // the redirect hint of the last group is returned when all groups give one
+    executor =
+        (group, plan) -> {
+          int groupIndex = groups.indexOf(group);
+          sleep(100L * (GROUP_NUM - groupIndex));
+          return StatusUtils.getStatus(StatusUtils.OK, getEndPoint(groupIndex));
+        };
+    TSStatus status = coordinator.processPartitionedPlan(routeToAllGroups(0));
+    assertEquals(TSStatusCode.NEED_REDIRECTION.getStatusCode(), status.getCode());
+    assertEquals(getEndPoint(GROUP_NUM - 1), status.getRedirectNode());
+
+    // no redirect hint if any group gives none
+    executor =
+        (group, plan) -> {
+          int groupIndex = groups.indexOf(group);
+          return groupIndex == 0
+              ? StatusUtils.OK
+              : StatusUtils.getStatus(StatusUtils.OK, getEndPoint(groupIndex));
+        };
+    status = coordinator.processPartitionedPlan(routeToAllGroups(GROUP_NUM));
+    assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(), status.getCode());
+    assertFalse(status.isSetRedirectNode());
+  }
+
+  @Test
+  public void testNestedForwarding() throws Exception {
+    // like creating the timeseries of a failed insertion, a sub-plan executed locally forwards a
+    // new plan of several groups, possibly on a thread of the forwarding pool
+    int planNum = 4;
+    Set<PhysicalPlan> outerSubPlans = Collections.newSetFromMap(new IdentityHashMap<>());
+    Map<PhysicalPlan, PhysicalPlan> nestedPlans = new IdentityHashMap<>();
+    List<PhysicalPlan> outerPlans = new ArrayList<>();
+    for (int i = 0; i < planNum; i++) {
+      PhysicalPlan outerPlan = routeToAllGroups(i * GROUP_NUM * 2);
+      outerPlans.add(outerPlan);
+      PhysicalPlan nestedPlan = routeToAllGroups(i * GROUP_NUM * 2 + GROUP_NUM);
+      for (PhysicalPlan subPlan : routes.get(outerPlan).keySet()) {
+        outerSubPlans.add(subPlan);
+        nestedPlans.put(subPlan, nestedPlan);
+      }
+    }
+    executor =
+        (group, plan) -> {
+          if (!outerSubPlans.contains(plan)) {
+            sleep(50);
+            return StatusUtils.OK;
+          }
+          try {
+            return coordinator.processPartitionedPlan(nestedPlans.get(plan));
+          } catch (UnsupportedPlanException e) {
+            return StatusUtils.getStatus(StatusUtils.INTERNAL_ERROR, e.getMessage());
+          }
+        };
+
+    ExecutorService clients = Executors.newFixedThreadPool(planNum);
+    try {
+      List<Future<TSStatus>> futures = new ArrayList<>();
+      for (PhysicalPlan outerPlan : outerPlans) {
+        futures.add(clients.submit(() -> coordinator.processPartitionedPlan(outerPlan)));
+      }
+      for (Future<TSStatus> future : futures) {
+        TSStatus status = future.get(30, TimeUnit.SECONDS);
+        assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(), status.getCode());
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSaturatedPool() throws Exception {
+    // each sub-plan fits in the forward timeout, but waiting for the pool does not
+    int prevWriteOperationTimeout = RaftServer.getWriteOperationTimeoutMS();
+    int prevReplicationNum = config.getReplicationNum();
+    RaftServer.setWriteOperationTimeoutMS(500);
+    config.setReplicationNum(1);
+    int planNum = 6;
+    executor =
+        (group, plan) -> {
+          sleep(200);
+          return StatusUtils.OK;
+        };
+
+    ExecutorService clients = Executors.newFixedThreadPool(planNum);
+    try {
+      List<Future<TSStatus>> futures = new ArrayList<>();
+      for (int i = 0; i < planNum; i++) {
+        PhysicalPlan plan = routeToAllGroups(i * GROUP_NUM);
+        futures.add(clients.submit(() -> coordinator.processPartitionedPlan(plan)));
+      }
+      for (Future<TSStatus> future : futures) {
+        TSStatus status = future.get(30, TimeUnit.SECONDS);
+        assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(), status.getCode());
+      }
+    } finally {
+      clients.shutdownNow();
+      RaftServer.setWriteOperationTimeoutMS(prevWriteOperationTimeout);
+      config.setReplicationNum(prevReplicationNum);
+    }
+  }
+
+  /** @return a plan whose sub-plans go to each group */
+  private PhysicalPlan routeToAllGroups(int firstSeries) throws IllegalPathException {
+    PhysicalPlan parentPlan = newPlan(firstSeries);
+    Map<PhysicalPlan, PartitionGroup> subPlans = new LinkedHashMap<>();
+    for (int i = 0; i < GROUP_NUM; i++) {
+      subPlans.put(newPlan(firstSeries + i), groups.get(i));
+    }
+    routes.put(parentPlan, subPlans);
+    return parentPlan;
+  }
+
+  private PhysicalPlan newPlan(int series) throws IllegalPathException {
+    return new CreateTimeSeriesPlan(
+        new PartialPath(TestUtils.getTestSeries(0, series)),
+        TSDataType.INT64,
+        TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED,
+        null,
+        null,
+        null,
+        null);
+  }
+
+  private CreateMultiTimeSeriesPlan newMultiPlan(Integer... indexes) throws IllegalPathException {
+    CreateMultiTimeSeriesPlan plan = new CreateMultiTimeSeriesPlan();
+    List<PartialPath> paths = new ArrayList<>();
+    for (int index : indexes) {
+      paths.add(new PartialPath(TestUtils.getTestSeries(0, index)));
+    }
+    plan.setPaths(paths);
+    plan.setIndexes(new ArrayList<>(Arrays.asList(indexes)));
+    return plan;
+  }
+
+  private EndPoint getEndPoint(int groupIndex) {
+    return new EndPoint("127.0.0.1", 6667 + groupIndex);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.log;
+
+import org.apache.iotdb.cluster.common.TestAsyncClient;
+import org.apache.iotdb.cluster.common.TestMetaGroupMember;
+import org.apache.iotdb.cluster.common.TestSyncClient;
+import org.apache.iotdb.cluster.common.TestUtils;
+import org.apache.iotdb.cluster.config.ClusterConfig;
+import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.cluster.log.LogDispatcher.SendLogRequest;
+import org.apache.iotdb.cluster.partition.PartitionGroup;
+import org.apache.iotdb.cluster.rpc.thrift.AppendEntriesRequest;
+import org.apache.iotdb.cluster.rpc.thrift.Node;
+import org.apache.iotdb.cluster.rpc.thrift.RaftService.AsyncClient;
+import org.apache.iotdb.cluster.rpc.thrift.RaftService.Client;
+import org.apache.iotdb.cluster.server.NodeCharacter;
+import org.apache.iotdb.cluster.server.Response;
+import org.apache.iotdb.cluster.server.member.RaftMember;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.async.AsyncMethodCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local benchmark that measures how many logs per second a leader commits through LogDispatcher
+ * with and without pipelined replication. The followers are simulated in the same process: each of
+ * them appends the logs in order like a real follower, and every request and response is delayed
+ * to simulate the network.
+ *
+ * <p>Usage: LogDispatcherBenchmark [nodeNum] [logNum] [delayMs] [useAsyncServer]
+ */
+public class LogDispatcherBenchmark {
+
+  private static final long WAIT_COMMIT_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+  public static void main(String[] args) throws Exception {
+    int nodeNum = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+    int logNum = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+    long delayMs = args.length > 2 ? Long.parseLong(args[2]) : 1;
+    boolean useAsyncServer = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+    ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+    boolean prevUseAsyncServer = config.isUseAsyncServer();
+    boolean prevEnablePipelinedReplication = config.isEnablePipelinedReplication();
+    config.setUseAsyncServer(useAsyncServer);
+    try {
+      for (boolean pipelined : new boolean[] {false, true}) {
+        config.setEnablePipelinedReplication(pipelined);
+        double throughput = run(nodeNum, logNum, delayMs);
+        System.out.printf(
+            "nodes: %d, logs: %d, delay: %dms, async: %b, pipelined: %b, "
+                + "committed writes/s: %.1f%n",
+            nodeNum, logNum, delayMs, useAsyncServer, pipelined, throughput);
+      }
+    } finally {
+      config.setUseAsyncServer(prevUseAsyncServer);
+      config.setEnablePipelinedReplication(prevEnablePipelinedReplication);
+      EnvironmentUtils.cleanAllDir();
+    }
+  }
+
+  /** @return the number of logs committed by the quorum per second */
+  private static double run(int nodeNum, int logNum, long delayMs) throws Exception {
+    Map<Node, SimulatedFollower> followers = new HashMap<>();
+    PartitionGroup allNodes = new PartitionGroup();
+    for (int i = 0; i < nodeNum; i++) {
+      allNodes.add(TestUtils.getNode(i));
+      if (i > 0) {
+        followers.put(TestUtils.getNode(i), new SimulatedFollower(delayMs));
+      }
+    }
+    RaftMember leader = createLeader(followers);
+    leader.setAllNodes(allNodes);
+    leader.setCharacter(NodeCharacter.LEADER);
+
+    LogDispatcher dispatcher = new LogDispatcher(leader);
+    try {
+      List<Log> logs = TestUtils.prepareTestLogs(logNum);
+      List<AtomicInteger> voteCounters = new ArrayList<>(logNum);
+      long startTime = System.nanoTime();
+      for (Log log : logs) {
+        log.setCreateTime(System.nanoTime());
+        SendLogRequest request = leader.buildSendLogRequest(log);
+        voteCounters.add(request.getVoteCounter());
+        dispatcher.offer(request);
+      }
+      for (AtomicInteger voteCounter : voteCounters) {
+        waitCommitted(voteCounter);
+      }
+      long elapsedNs = System.nanoTime() - startTime;
+      return logNum * 1.0e9 / elapsedNs;
+    } finally {
+      dispatcher.close();
+      leader.stop();
+      leader.closeLogManager();
+    }
+  }
+
+  private static void waitCommitted(AtomicInteger voteCounter) throws InterruptedException {
+    long waitStart = System.currentTimeMillis();
+    synchronized (voteCounter) {
+      while (voteCounter.get() > 0) {
+        if (System.currentTimeMillis() - waitStart > WAIT_COMMIT_TIMEOUT_MS) {
+          throw new IllegalStateException("A log is not committed within the timeout");
+        }
+        voteCounter.wait(10);
+      }
+    }
+    if (voteCounter.get() == Integer.MAX_VALUE) {
+      throw new IllegalStateException("A log is rejected by the quorum");
+    }
+  }
+
+  private static RaftMember createLeader(Map<Node, SimulatedFollower> followers) {
+    return new TestMetaGroupMember() {
+      @Override
+      public AsyncClient getSendLogAsyncClient(Node node) {
+        SimulatedFollower follower = followers.get(node);
+        return new TestAsyncClient() {
+          @Override
+          public void appendEntries(
+              AppendEntriesRequest request, AsyncMethodCallback<Long> resultHandler) {
+            new Thread(
+                    () -> {
+                      try {
+                        resultHandler.onComplete(follower.appendEntries(request));
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        resultHandler.onError(e);
+                      }
+                    })
+                .start();
+          }
+        };
+      }
+
+      @Override
+      public Client getSyncClient(Node node) {
+        SimulatedFollower follower = followers.get(node);
+        return new TestSyncClient() {
+          @Override
+          public long appendEntries(AppendEntriesRequest request) throws TException {
+            try {
+              return follower.appendEntries(request);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new TException(e);
+            }
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * A follower that only keeps the index of its last log. Like RaftMember, it waits for the
+   * previous log of a request to arrive before appending the logs in the request, and reports a
+   * mismatch if the previous log does not arrive in time.
+   */
+  private static class SimulatedFollower {
+
+    private static final long WAIT_PREV_LOG_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final long delayMs;
+    private long lastLogIndex = -1;
+
+    private SimulatedFollower(long delayMs) {
+      this.delayMs = delayMs;
+    }
+
+    private long appendEntries(AppendEntriesRequest request) throws InterruptedException {
+      // the delay of the request
+      Thread.sleep(delayMs);
+      long response;
+      synchronized (this) {
+        long waitStart = System.currentTimeMillis();
+        long remaining = WAIT_PREV_LOG_MS;
+        while (lastLogIndex < request.getPrevLogIndex() && remaining > 0) {
+          wait(remaining);
+          remaining = WAIT_PREV_LOG_MS - (System.currentTimeMillis() - waitStart);
+        }
+        if (lastLogIndex < request.getPrevLogIndex()) {
+          response = Response.RESPONSE_LOG_MISMATCH;
+        } else {
+          lastLogIndex =
+              Math.max(lastLogIndex, request.getPrevLogIndex() + request.getEntriesSize());
+          notifyAll();
+          response = Response.RESPONSE_AGREE;
+        }
+      }
+      // the delay of the response
+      Thread.sleep(delayMs);
+      return response;
+    }
+  }
+}
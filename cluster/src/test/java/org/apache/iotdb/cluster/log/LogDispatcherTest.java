@@ -23,6 +23,7 @@ import org.apache.iotdb.cluster.common.TestAsyncClient;
 import org.apache.iotdb.cluster.common.TestMetaGroupMember;
 import org.apache.iotdb.cluster.common.TestSyncClient;
 import org.apache.iotdb.cluster.common.TestUtils;
+import org.apache.iotdb.cluster.config.ClusterConfig;
 import org.apache.iotdb.cluster.config.ClusterDescriptor;
 import org.apache.iotdb.cluster.exception.UnknownLogTypeException;
 import org.apache.iotdb.cluster.log.LogDispatcher.SendLogRequest;
@@ -42,6 +43,7 @@ import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.thrift.TException;
 import org.apache.thrift.async.AsyncMethodCallback;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -59,11 +61,13 @@ public class LogDispatcherTest {
   private RaftMember raftMember;
   private Map<Log, AtomicInteger> appendedEntries;
   private Set<Node> downNode;
+  private AtomicInteger maxEntriesInRequest;
 
   @Before
   public void setUp() {
     appendedEntries = new ConcurrentSkipListMap<>();
     downNode = new HashSet<>();
+    maxEntriesInRequest = new AtomicInteger();
     raftMember =
         new TestMetaGroupMember() {
           @Override
@@ -149,6 +153,7 @@ public class LogDispatcherTest {
 
   private long mockedAppendEntries(AppendEntriesRequest request) throws UnknownLogTypeException {
     List<ByteBuffer> entries = request.getEntries();
+    maxEntriesInRequest.accumulateAndGet(entries.size(), Math::max);
     List<Log> logs = new ArrayList<>();
     for (ByteBuffer entry : entries) {
       LogParser logParser = LogParser.getINSTANCE();
@@ -244,6 +249,46 @@ public class LogDispatcherTest {
     }
   }
 
+  @Test
+  public void testPipelinedAsync() throws InterruptedException {
+    testPipelined(true);
+  }
+
+  @Test
+  public void testPipelinedSync() throws InterruptedException {
+    testPipelined(false);
+  }
+
+  private void testPipelined(boolean useAsyncServer) throws InterruptedException {
+    ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+    boolean prevUseAsyncServer = config.isUseAsyncServer();
+    boolean prevEnablePipelinedReplication = config.isEnablePipelinedReplication();
+    int prevMaxInFlight = config.getMaxInFlightAppendEntriesPerNode();
+    int prevMaxLogNumInBatch = config.getMaxLogNumInBatch();
+    config.setUseAsyncServer(useAsyncServer);
+    config.setEnablePipelinedReplication(true);
+    config.setMaxInFlightAppendEntriesPerNode(2);
+    config.setMaxLogNumInBatch(3);
+    LogDispatcher dispatcher = new LogDispatcher(raftMember);
+    try {
+      List<Log> logs = TestUtils.prepareTestLogs(20);
+      for (Log log : logs) {
+        SendLogRequest request = raftMember.buildSendLogRequest(log);
+        dispatcher.offer(request);
+      }
+      while (!checkResult(logs, 9)) {
+        // wait
+      }
+      Assert.assertTrue(maxEntriesInRequest.get() <= 3);
+    } finally {
+      dispatcher.close();
+      config.setUseAsyncServer(prevUseAsyncServer);
+      config.setEnablePipelinedReplication(prevEnablePipelinedReplication);
+      config.setMaxInFlightAppendEntriesPerNode(prevMaxInFlight);
+      config.setMaxLogNumInBatch(prevMaxLogNumInBatch);
+    }
+  }
+
   @SuppressWarnings("java:S2925")
   public boolean checkResult(List<Log> logs, int requestedSuccess) throws InterruptedException {
     for (Log log : logs) {
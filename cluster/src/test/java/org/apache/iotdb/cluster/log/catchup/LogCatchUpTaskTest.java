@@ -37,6 +37,7 @@ import org.apache.iotdb.cluster.rpc.thrift.RaftService.Client;
 import org.apache.iotdb.cluster.server.NodeCharacter;
 import org.apache.iotdb.cluster.server.Response;
 import org.apache.iotdb.cluster.server.member.RaftMember;
+import org.apache.iotdb.cluster.server.monitor.Peer;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
@@ -199,6 +200,26 @@ public class LogCatchUpTaskTest {
     assertEquals(logList, receivedLogs);
   }
 
+  @Test
+  public void testSkipMatchedLogs()
+      throws InterruptedException, TException, LeaderUnknownException {
+    for (boolean useBatch : new boolean[] {false, true}) {
+      receivedLogs.clear();
+      List<Log> logList = TestUtils.prepareTestLogs(10);
+      Node receiver = new Node();
+      sender.setCharacter(NodeCharacter.LEADER);
+      sender.initPeerMap();
+      // the first 5 logs are acknowledged by the receiver during the catch-up
+      Peer peer = new Peer(5);
+      peer.setMatchIndex(4);
+      sender.getPeerMap().put(receiver, peer);
+      LogCatchUpTask task = new LogCatchUpTask(logList, receiver, 0, sender, useBatch);
+      task.call();
+
+      assertEquals(logList.subList(5, 10), receivedLogs);
+    }
+  }
+
   @Test
   public void testCatchUpSync() throws InterruptedException, TException, LeaderUnknownException {
     boolean useAsyncServer = ClusterDescriptor.getInstance().getConfig().isUseAsyncServer();
@@ -258,6 +258,10 @@ public class FileSnapshotTest extends DataSnapshotTest {
       }
       assertEquals(0, processor.getUnSequenceFileList().size());
     }
+    // the files of all slots are pulled, and the progress is recorded
+    assertEquals(100, dataGroupMember.getPullSnapshotProgress().getScheduledFiles());
+    assertEquals(100, dataGroupMember.getPullSnapshotProgress().getPulledFiles());
+    assertTrue(dataGroupMember.getPullSnapshotProgress().getPulledBytes() > 0);
   }
 
   @Test
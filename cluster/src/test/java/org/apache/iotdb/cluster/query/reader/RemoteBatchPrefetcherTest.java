@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.query.reader;
+
+import org.apache.thrift.TException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class RemoteBatchPrefetcherTest {
+
+  @Test
+  public void testInOrder() throws TException, IOException {
+    AtomicInteger fetchCount = new AtomicInteger();
+    RemoteBatchPrefetcher<Integer> prefetcher =
+        new RemoteBatchPrefetcher<>(
+            () -> {
+              int batch = fetchCount.getAndIncrement();
+              return batch < 10 ? batch : null;
+            },
+            batch -> 1L,
+            batch -> false,
+            3);
+    try {
+      for (int i = 0; i < 10; i++) {
+        assertEquals(i, (int) prefetcher.take());
+      }
+      assertNull(prefetcher.take());
+      assertNull(prefetcher.take());
+      assertEquals(11, fetchCount.get());
+    } finally {
+      prefetcher.close();
+    }
+  }
+
+  @Test
+  public void testDepth() throws TException, IOException, InterruptedException {
+    AtomicInteger fetchCount = new AtomicInteger();
+    RemoteBatchPrefetcher<Integer> prefetcher =
+        new RemoteBatchPrefetcher<>(fetchCount::getAndIncrement, batch -> 1L, batch -> false, 3);
+    try {
+      assertEquals(0, (int) prefetcher.take());
+      // the taken batch and 3 prefetched batches
+      waitFetchCount(fetchCount, 4);
+      Thread.sleep(100);
+      assertEquals(4, fetchCount.get());
+
+      assertEquals(1, (int) prefetcher.take());
+      waitFetchCount(fetchCount, 5);
+    } finally {
+      prefetcher.close();
+    }
+  }
+
+  @Test
+  public void testShutdownPrefetchPool() throws TException, IOException {
+    AtomicInteger fetchCount = new AtomicInteger();
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    RemoteBatchPrefetcher<Integer> prefetcher =
+        new RemoteBatchPrefetcher<>(
+            () -> {
+              int batch = fetchCount.getAndIncrement();
+              if (batch > 0) {
+                try {
+                  neverReleased.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  throw new IOException(e);
+                }
+              }
+              return batch;
+            },
+            batch -> 1L,
+            batch -> false,
+            1);
+    try {
+      assertEquals(0, (int) prefetcher.take());
+      // the prefetch of the next batch is either waiting for the pool or interrupted
+      RemoteBatchPrefetcher.shutdownPrefetchPool();
+      try {
+        prefetcher.take();
+        fail();
+      } catch (IOException e) {
+        // expected
+      }
+    } finally {
+      prefetcher.close();
+    }
+
+    // the pool is created again for new prefetchers
+    AtomicInteger newFetchCount = new AtomicInteger();
+    RemoteBatchPrefetcher<Integer> newPrefetcher =
+        new RemoteBatchPrefetcher<>(newFetchCount::getAndIncrement, batch -> 1L, batch -> false, 1);
+    try {
+      assertEquals(0, (int) newPrefetcher.take());
+      assertEquals(1, (int) newPrefetcher.take());
+    } finally {
+      newPrefetcher.close();
+    }
+  }
+
+  @Test
+  public void testLastBatch() throws TException, IOException {
+    AtomicInteger fetchCount = new AtomicInteger();
+    RemoteBatchPrefetcher<Integer> prefetcher =
+        new RemoteBatchPrefetcher<>(
+            fetchCount::getAndIncrement, batch -> 1L, batch -> batch == 2, 3);
+    try {
+      for (int i = 0; i < 3; i++) {
+        assertEquals(i, (int) prefetcher.take());
+      }
+      assertNull(prefetcher.take());
+      assertEquals(3, fetchCount.get());
+    } finally {
+      prefetcher.close();
+    }
+  }
+
+  @Test
+  public void testFailure() throws TException, IOException {
+    AtomicInteger fetchCount = new AtomicInteger();
+    RemoteBatchPrefetcher<Integer> prefetcher =
+        new RemoteBatchPrefetcher<>(
+            () -> {
+              int batch = fetchCount.getAndIncrement();
+              if (batch == 2) {
+                throw new TException("Node down.");
+              }
+              return batch;
+            },
+            batch -> 1L,
+            batch -> false,
+            3);
+    try {
+      // the batches fetched before the failure are still available
+      assertEquals(0, (int) prefetcher.take());
+      assertEquals(1, (int) prefetcher.take());
+      try {
+        prefetcher.take();
+        fail();
+      } catch (TException e) {
+        assertEquals("Node down.", e.getMessage());
+      }
+      assertEquals(3, fetchCount.get());
+    } finally {
+      prefetcher.close();
+    }
+  }
+
+  @Test
+  public void testClose() throws TException, IOException, InterruptedException {
+    long prevUsedMemory = RemoteBatchPrefetcher.getUsedMemory();
+    AtomicInteger fetchCount = new AtomicInteger();
+    RemoteBatchPrefetcher<Integer> prefetcher =
+        new RemoteBatchPrefetcher<>(fetchCount::getAndIncrement, batch -> 100L, batch -> false, 3);
+    assertEquals(0, (int) prefetcher.take());
+    waitFetchCount(fetchCount, 4);
+    // the last fetched batch may be not accounted yet
+    long waitStart = System.currentTimeMillis();
+    while (RemoteBatchPrefetcher.getUsedMemory() < prevUsedMemory + 300
+        && System.currentTimeMillis() - waitStart < 10_000) {
+      Thread.sleep(10);
+    }
+    assertEquals(prevUsedMemory + 300, RemoteBatchPrefetcher.getUsedMemory());
+
+    prefetcher.close();
+    assertEquals(prevUsedMemory, RemoteBatchPrefetcher.getUsedMemory());
+    assertNull(prefetcher.take());
+  }
+
+  private void waitFetchCount(AtomicInteger fetchCount, int expected) throws InterruptedException {
+    long waitStart = System.currentTimeMillis();
+    while (fetchCount.get() < expected && System.currentTimeMillis() - waitStart < 10_000) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, fetchCount.get());
+  }
+}
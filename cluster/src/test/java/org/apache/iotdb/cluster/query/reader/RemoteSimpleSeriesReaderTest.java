@@ -155,6 +155,40 @@ public class RemoteSimpleSeriesReaderTest {
     }
   }
 
+  @Test
+  public void testPrefetch() throws IOException, StorageEngineException {
+    int prevPrefetchDepth =
+        ClusterDescriptor.getInstance().getConfig().getRemoteReaderPrefetchDepth();
+    ClusterDescriptor.getInstance().getConfig().setRemoteReaderPrefetchDepth(2);
+    PartitionGroup group = new PartitionGroup();
+    group.add(TestUtils.getNode(0));
+    group.add(TestUtils.getNode(1));
+    group.add(TestUtils.getNode(2));
+
+    SingleSeriesQueryRequest request = new SingleSeriesQueryRequest();
+    RemoteQueryContext context = new RemoteQueryContext(1);
+
+    try {
+      DataSourceInfo sourceInfo =
+          new DataSourceInfo(group, TSDataType.DOUBLE, request, context, metaGroupMember, group);
+      sourceInfo.hasNextDataClient(false, Long.MIN_VALUE);
+
+      reader = new RemoteSimpleSeriesReader(sourceInfo);
+
+      for (int i = 0; i < 100; i++) {
+        assertTrue(reader.hasNextTimeValuePair());
+        TimeValuePair pair = reader.nextTimeValuePair();
+        assertEquals(i, pair.getTimestamp());
+        assertEquals(i * 1.0, pair.getValue().getDouble(), 0.00001);
+      }
+      assertFalse(reader.hasNextTimeValuePair());
+    } finally {
+      context.closePrefetchers();
+      QueryResourceManager.getInstance().endQuery(context.getQueryId());
+      ClusterDescriptor.getInstance().getConfig().setRemoteReaderPrefetchDepth(prevPrefetchDepth);
+    }
+  }
+
   @Test
   public void testFailedNode() throws IOException, StorageEngineException {
     System.out.println("Start testFailedNode()");
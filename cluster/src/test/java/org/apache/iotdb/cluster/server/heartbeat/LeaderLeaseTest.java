@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.server.heartbeat;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LeaderLeaseTest {
+
+  @Test
+  public void testQuorumAck() {
+    LeaderLease lease = new LeaderLease();
+    LeaderLease.Round round = lease.startRound(1, 2);
+    assertFalse(lease.isValid(1));
+    round.onAck();
+    assertFalse(lease.isValid(1));
+    round.onAck();
+    assertTrue(lease.isValid(1));
+    // a lease is only valid in the term it is granted
+    assertFalse(lease.isValid(2));
+
+    lease.invalidate();
+    assertFalse(lease.isValid(1));
+  }
+
+  @Test
+  public void testStaleTerm() {
+    LeaderLease lease = new LeaderLease();
+    LeaderLease.Round staleRound = lease.startRound(1, 1);
+    lease.startRound(2, 1).onAck();
+    assertTrue(lease.isValid(2));
+
+    // late acknowledgements of a previous term do not take the lease back to that term
+    staleRound.onAck();
+    assertFalse(lease.isValid(1));
+    assertTrue(lease.isValid(2));
+  }
+
+  @Test
+  public void testSingleNode() throws InterruptedException {
+    LeaderLease lease = new LeaderLease();
+    lease.startRound(3, 0);
+    assertTrue(lease.waitValid(3, 0));
+    assertFalse(lease.waitValid(4, 10));
+  }
+}
@@ -27,11 +27,13 @@ import org.apache.iotdb.cluster.config.ConsistencyLevel;
 import org.apache.iotdb.cluster.exception.CheckConsistencyException;
 import org.apache.iotdb.cluster.log.manage.PartitionedSnapshotLogManager;
 import org.apache.iotdb.cluster.rpc.thrift.AppendEntryRequest;
+import org.apache.iotdb.cluster.rpc.thrift.ElectionRequest;
 import org.apache.iotdb.cluster.rpc.thrift.Node;
 import org.apache.iotdb.cluster.rpc.thrift.RaftNode;
 import org.apache.iotdb.cluster.rpc.thrift.RaftService;
 import org.apache.iotdb.cluster.rpc.thrift.RequestCommitIndexResponse;
 import org.apache.iotdb.cluster.server.NodeCharacter;
+import org.apache.iotdb.cluster.server.RaftServer;
 import org.apache.iotdb.cluster.server.Response;
 
 import org.junit.Assert;
@@ -39,6 +41,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RaftMemberTest extends BaseMember {
   @Test
@@ -170,6 +173,68 @@ public class RaftMemberTest extends BaseMember {
     }
   }
 
+  @Test
+  public void testLeaseReadShareReadIndex() throws CheckConsistencyException {
+    ClusterDescriptor.getInstance().getConfig().setEnableLeaseRead(true);
+    AtomicInteger requestNum = new AtomicInteger();
+    try {
+      DataGroupMember follower =
+          new TestDataGroupMember(
+              TestUtils.getNode(10),
+              partitionTable.getHeaderGroup(new RaftNode(TestUtils.getNode(0), 0))) {
+            @Override
+            protected RequestCommitIndexResponse requestCommitIdAsync() {
+              requestNum.incrementAndGet();
+              return new RequestCommitIndexResponse(1000, 1000, 1000);
+            }
+          };
+      follower.setLeader(TestUtils.getNode(0));
+      follower.setCharacter(NodeCharacter.FOLLOWER);
+      PartitionedSnapshotLogManager logManager = Mockito.mock(PartitionedSnapshotLogManager.class);
+      Mockito.when(logManager.getMaxHaveAppliedCommitIndex()).thenReturn(1000L);
+      follower.setLogManager(logManager);
+
+      // a strong consistency read never uses a read index requested before it starts
+      Assert.assertTrue(follower.waitUntilCatchUp(new RaftMember.StrongCheckConsistency()));
+      Assert.assertTrue(follower.waitUntilCatchUp(new RaftMember.StrongCheckConsistency()));
+      Assert.assertEquals(2, requestNum.get());
+      // a mid consistency read reuses the read index requested within a lease
+      Assert.assertTrue(follower.waitUntilCatchUp(new RaftMember.MidCheckConsistency()));
+      Assert.assertEquals(2, requestNum.get());
+    } finally {
+      ClusterDescriptor.getInstance().getConfig().setEnableLeaseRead(false);
+    }
+  }
+
+  @Test
+  public void testLeaseReadRejectElection() {
+    ClusterDescriptor.getInstance().getConfig().setEnableLeaseRead(true);
+    try {
+      DataGroupMember follower =
+          new TestDataGroupMember(
+              TestUtils.getNode(10),
+              partitionTable.getHeaderGroup(new RaftNode(TestUtils.getNode(0), 0)));
+      follower.setLogManager(new TestPartitionedLogManager());
+      follower.setLeader(TestUtils.getNode(0));
+      follower.setCharacter(NodeCharacter.FOLLOWER);
+      follower.setLastHeartbeatReceivedTime(System.currentTimeMillis());
+
+      ElectionRequest electionRequest = new ElectionRequest();
+      electionRequest.setTerm(follower.getTerm().get() + 1);
+      electionRequest.setElector(TestUtils.getNode(20));
+      Assert.assertEquals(
+          Response.RESPONSE_LEADER_STILL_ONLINE, follower.processElectionRequest(electionRequest));
+
+      // the leader is not heard from for an election timeout
+      follower.setLastHeartbeatReceivedTime(
+          System.currentTimeMillis() - RaftServer.getElectionTimeoutMs());
+      Assert.assertNotEquals(
+          Response.RESPONSE_LEADER_STILL_ONLINE, follower.processElectionRequest(electionRequest));
+    } finally {
+      ClusterDescriptor.getInstance().getConfig().setEnableLeaseRead(false);
+    }
+  }
+
   private DataGroupMember newDataGroupMemberWithSyncLeaderFalse(Node node, boolean syncLeader) {
     DataGroupMember newMember =
         new TestDataGroupMember(node, partitionTable.getHeaderGroup(new RaftNode(node, 0))) {
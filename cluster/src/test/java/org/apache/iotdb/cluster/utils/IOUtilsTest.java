@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IOUtilsTest {
+
+  private File file;
+  private byte[] content;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("IOUtilsTest", ".tsfile");
+    content = new byte[10];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    Files.write(file.toPath(), content);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Test
+  public void testReadFileInChunks() throws IOException {
+    byte[] read = new byte[content.length];
+    int offset = 0;
+    while (true) {
+      ByteBuffer buffer = IOUtils.readFile(file.getPath(), offset, 4);
+      if (!buffer.hasRemaining()) {
+        break;
+      }
+      int len = buffer.remaining();
+      buffer.get(read, offset, len);
+      offset += len;
+      // the file is kept until its end is requested, so that a pull can be resumed
+      assertTrue(file.exists());
+    }
+    assertEquals(content.length, offset);
+    assertArrayEquals(content, read);
+    assertFalse(file.exists());
+  }
+
+  @Test
+  public void testResume() throws IOException {
+    // the chunk of the last request is lost, and the puller requests it again
+    IOUtils.readFile(file.getPath(), 0, 4);
+    IOUtils.readFile(file.getPath(), 4, 8);
+    ByteBuffer buffer = IOUtils.readFile(file.getPath(), 4, 8);
+    assertEquals(6, buffer.remaining());
+    assertEquals(4, buffer.get());
+    assertTrue(file.exists());
+
+    assertEquals(0, IOUtils.readFile(file.getPath(), content.length, 8).remaining());
+    assertFalse(file.exists());
+  }
+}
@@ -18,7 +18,11 @@
  */
 package org.apache.iotdb.jdbc;
 
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.tsfile.utils.Binary;
 
 import org.apache.thrift.TException;
@@ -69,6 +73,13 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
   /** save the SQL parameters as (paramLoc,paramValue) pairs. */
   private final Map<Integer, String> parameters = new LinkedHashMap<>();
 
+  /** whether the statement has been tried to be prepared on the server. */
+  private boolean isPrepareTried = false;
+  /** the id of the statement prepared on the server, -1 if the server does not prepare it. */
+  private long preparedStatementId = -1;
+  /** the parameters sent to the server, only set while the statement is executed. */
+  private List<String> boundParameters;
+
   IoTDBPreparedStatement(
       IoTDBConnection connection, Iface client, Long sessionId, String sql, ZoneId zoneId)
       throws SQLException {
@@ -88,17 +99,102 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
 
   @Override
   public boolean execute() throws SQLException {
-    return super.execute(createCompleteSql(sql, parameters));
+    if (!prepareOnServer()) {
+      return super.execute(createCompleteSql(sql, parameters));
+    }
+    boundParameters = getParameterList();
+    try {
+      return super.execute(sql);
+    } finally {
+      boundParameters = null;
+    }
   }
 
   @Override
   public ResultSet executeQuery() throws SQLException {
-    return super.executeQuery(createCompleteSql(sql, parameters));
+    if (!prepareOnServer()) {
+      return super.executeQuery(createCompleteSql(sql, parameters));
+    }
+    boundParameters = getParameterList();
+    try {
+      return super.executeQuery(sql);
+    } finally {
+      boundParameters = null;
+    }
   }
 
   @Override
   public int executeUpdate() throws SQLException {
-    return super.executeUpdate(createCompleteSql(sql, parameters));
+    if (!prepareOnServer()) {
+      return super.executeUpdate(createCompleteSql(sql, parameters));
+    }
+    boundParameters = getParameterList();
+    try {
+      return super.executeUpdate(sql);
+    } finally {
+      boundParameters = null;
+    }
+  }
+
+  @Override
+  TSExecuteStatementReq createExecuteReq(String statement) {
+    TSExecuteStatementReq execReq = super.createExecuteReq(statement);
+    if (boundParameters != null) {
+      execReq.setPreparedStatementId(preparedStatementId);
+      execReq.setParameters(boundParameters);
+    }
+    return execReq;
+  }
+
+  /**
+   * Prepare the statement on the server, so that the server binds the parameters and reuses the
+   * parsing of the statement. If the server cannot prepare it, e.g., the server is of an old
+   * version, the parameters are substituted on the client instead.
+   *
+   * @return whether the statement is prepared on the server
+   */
+  private boolean prepareOnServer() {
+    if (!isPrepareTried) {
+      isPrepareTried = true;
+      try {
+        TSPrepareStatementResp resp =
+            client.prepareStatement(new TSPrepareStatementReq(getSessionId(), sql));
+        if (resp != null
+            && resp.getStatus() != null
+            && resp.getStatus().getCode() == TSStatusCode.SUCCESS_STATUS.getStatusCode()
+            && resp.getParameterCount() == splitSqlStatement(sql).size() - 1) {
+          preparedStatementId = resp.getPreparedStatementId();
+        }
+      } catch (TException e) {
+        logger.debug("Cannot prepare {} on the server, substitute parameters on client", sql, e);
+      }
+    }
+    return preparedStatementId != -1;
+  }
+
+  private List<String> getParameterList() throws SQLException {
+    int parameterCount = splitSqlStatement(sql).size() - 1;
+    List<String> parameterList = new ArrayList<>(parameterCount);
+    for (int i = 1; i <= parameterCount; i++) {
+      if (!parameters.containsKey(i)) {
+        throw new SQLException("Parameter #" + i + " is unset");
+      }
+      parameterList.add(parameters.get(i));
+    }
+    return parameterList;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (preparedStatementId != -1) {
+      try {
+        client.closePreparedStatement(getSessionId(), preparedStatementId);
+      } catch (TException e) {
+        logger.debug("Cannot close prepared statement {} on the server", sql, e);
+      }
+      preparedStatementId = -1;
+    }
+    super.close();
   }
 
   @Override
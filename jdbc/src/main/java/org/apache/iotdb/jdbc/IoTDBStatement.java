@@ -250,7 +250,7 @@ public class IoTDBStatement implements Statement {
    */
   private boolean executeSQL(String sql) throws TException, SQLException {
     isCancelled = false;
-    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
+    TSExecuteStatementReq execReq = createExecuteReq(sql);
     int rows = fetchSize;
     if (maxRows != 0 && fetchSize > maxRows) {
       rows = maxRows;
@@ -398,7 +398,7 @@ public class IoTDBStatement implements Statement {
 
   private ResultSet executeQuerySQL(String sql, long timeoutInMS) throws TException, SQLException {
     isCancelled = false;
-    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
+    TSExecuteStatementReq execReq = createExecuteReq(sql);
     int rows = fetchSize;
     if (maxRows != 0 && fetchSize > maxRows) {
       rows = maxRows;
@@ -554,7 +554,7 @@ public class IoTDBStatement implements Statement {
   }
 
   private int executeUpdateSQL(String sql) throws TException, IoTDBSQLException {
-    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
+    TSExecuteStatementReq execReq = createExecuteReq(sql);
     TSExecuteStatementResp execResp = client.executeUpdateStatement(execReq);
     if (execResp.isSetQueryId()) {
       queryId = execResp.getQueryId();
@@ -745,6 +745,11 @@ public class IoTDBStatement implements Statement {
     }
   }
 
+  /** Create the request to execute the sql, subclasses may set more fields of it. */
+  TSExecuteStatementReq createExecuteReq(String sql) {
+    return new TSExecuteStatementReq(sessionId, sql, stmtId);
+  }
+
   private boolean reConnect() {
     boolean flag = connection.reconnect();
     reInit();
@@ -32,6 +32,7 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.ZoneId;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
@@ -370,4 +371,28 @@ public class IoTDBPreparedStatementTest {
         "INSERT INTO root.ln.wf01.wt02(time,a,b,c,d,e,f) VALUES(2020-01-01T10:10:10,false,123,123234345,123.423,-1323.0,\"abc\")",
         argument.getValue().getStatement());
   }
+
+  @SuppressWarnings("resource")
+  @Test
+  public void preparedOnServer() throws Exception {
+    TSPrepareStatementResp prepareResp =
+        new TSPrepareStatementResp(new TSStatus(TSStatusCode.SUCCESS_STATUS.getStatusCode()));
+    prepareResp.setPreparedStatementId(1L);
+    prepareResp.setParameterCount(2);
+    when(client.prepareStatement(any(TSPrepareStatementReq.class))).thenReturn(prepareResp);
+
+    String sql = "SELECT status FROM root.ln.wf01.wt01 WHERE temperature < ? and time > ?";
+    IoTDBPreparedStatement ps =
+        new IoTDBPreparedStatement(connection, client, sessionId, sql, zoneId);
+    ps.setInt(1, 123);
+    ps.setLong(2, 1000L);
+    ps.execute();
+
+    ArgumentCaptor<TSExecuteStatementReq> argument =
+        ArgumentCaptor.forClass(TSExecuteStatementReq.class);
+    verify(client).executeStatement(argument.capture());
+    assertEquals(sql, argument.getValue().getStatement());
+    assertEquals(1L, argument.getValue().getPreparedStatementId());
+    assertEquals(Arrays.asList("123", "1000"), argument.getValue().getParameters());
+  }
 }
@@ -35,8 +35,11 @@ public enum ThreadName {
   FLUSH_SERVICE("Flush"),
   FLUSH_SUB_TASK_SERVICE("Flush-SubTask"),
   COMPACTION_SERVICE("Compaction"),
+  COMPACTION_SUB_SERVICE("Compaction-SubTask"),
   WAL_DAEMON("WAL-Sync"),
   WAL_FORCE_DAEMON("WAL-Force"),
+  WAL_GROUP_COMMIT("WAL-Group-Commit"),
+  WAL_GROUP_COMMIT_FORCE("WAL-Group-Commit-Force"),
   INDEX_SERVICE("Index"),
   SYNC_CLIENT("Sync-Client"),
   SYNC_SERVER("Sync"),
@@ -46,7 +49,10 @@ public enum ThreadName {
   QUERY_SERVICE("Query"),
   WINDOW_EVALUATION_SERVICE("WindowEvaluationTaskPoolManager"),
   CONTINUOUS_QUERY_SERVICE("ContinuousQueryTaskPoolManager"),
-  CLUSTER_INFO_SERVICE("ClusterInfoClient");
+  CLUSTER_INFO_SERVICE("ClusterInfoClient"),
+  CLUSTER_FORWARD_PLAN("ForwardPlan"),
+  CLUSTER_REMOTE_PREFETCH("RemoteReaderPrefetch"),
+  CLUSTER_PULL_FILE("PullFile");
 
   private final String name;
 
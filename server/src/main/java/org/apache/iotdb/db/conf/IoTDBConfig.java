@@ -162,6 +162,30 @@ public class IoTDBConfig {
    */
   private long forceWalPeriodInMs = 100;
 
+  /**
+   * Whether all WAL nodes hand their buffers to one shared flusher thread, which writes them in
+   * batches and forces every touched file once per batch, instead of one flush thread per node.
+   */
+  private boolean enableWalGroupCommit = false;
+
+  /** A group commit batch is written once it holds this many bytes. Unit: byte */
+  private int walGroupCommitMaxBatchBytes = 4 * 1024 * 1024;
+
+  /**
+   * How long the group commit flusher waits for more buffers after the first one of a batch
+   * arrives. Unit: microsecond
+   */
+  private long walGroupCommitMaxWaitMicros = 1000;
+
+  /**
+   * Whether WAL files are written through memory mapped segments preallocated on disk and read
+   * back through mappings during recovery, instead of FileChannel writes and stream reads.
+   */
+  private boolean enableMmapWal = false;
+
+  /** The size of each memory mapped WAL segment. Unit: byte */
+  private int walSegmentSize = 8 * 1024 * 1024;
+
   /**
    * The size of the log buffer in each log node (in bytes). Due to the double buffer mechanism, if
    * WAL is enabled and the size of the inserted plan is greater than one-half of this parameter,
@@ -251,6 +275,12 @@ public class IoTDBConfig {
   /** How many threads can concurrently query. When <= 0, use CPU core number. */
   private int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many series of one aggregation or group by query can be read concurrently. When <= 0, use
+   * CPU core number. Set it to 1 to read the series one after another.
+   */
+  private int maxSeriesParallelismPerQuery = Runtime.getRuntime().availableProcessors();
+
   /** How many threads can concurrently evaluate windows. When <= 0, use CPU core number. */
   private int concurrentWindowEvaluationThread = Runtime.getRuntime().availableProcessors();
 
@@ -405,6 +435,28 @@ public class IoTDBConfig {
   /** Memory allocated for chunk cache in read process */
   private long allocateMemoryForChunkCache = allocateMemoryForRead / 10;
 
+  /**
+   * Once a query has read more chunk data than this ratio of the chunk cache memory, it is treated
+   * as a scan: its chunk cache misses are read from disk without being cached, so that it cannot
+   * evict the chunks of other queries.
+   */
+  private double chunkCacheAdmissionRatioPerQuery = 1.0;
+
+  /**
+   * Off-heap memory for the CompressedChunkCache, which keeps the still-compressed bytes of chunks
+   * evicted from (or never admitted to) the ChunkCache. 0 disables it.
+   */
+  private long compressedChunkCacheCapacity = 0;
+
+  /**
+   * Whether to keep the bloom filter of each sealed TsFile off-heap after it is first read, so that
+   * queries skip the files without the queried series before opening them.
+   */
+  private boolean bloomFilterCacheEnable = true;
+
+  /** Off-heap memory in byte for the bloom filters kept by the BloomFilterCache. */
+  private long bloomFilterCacheCapacity = 64 * 1024 * 1024L;
+
   /** Whether to enable Last cache */
   private boolean lastCacheEnable = true;
 
@@ -448,6 +500,12 @@ public class IoTDBConfig {
   /** the max executing time of query in ms. Unit: millisecond */
   private int queryTimeoutThreshold = 60000;
 
+  /**
+   * The max number of parse trees of SQL statements kept for reuse. Statements that differ only in
+   * their literals share one entry. 0 disables the cache.
+   */
+  private int parseTreeCacheSize = 1000;
+
   /** the max time to live of a session in ms. Unit: millisecond */
   private int sessionTimeoutThreshold = 0;
 
@@ -568,12 +626,51 @@ public class IoTDBConfig {
   /** The limit of compaction merge can reach per second */
   private int mergeWriteThroughputMbPerSec = 8;
 
+  /** The limit of read throughput compaction and merge can reach per second, 0 means no limit. */
+  private int mergeReadThroughputMbPerSec = 0;
+
+  /**
+   * Whether the bytes written by flush are paid from the write throughput of compaction and merge.
+   * Flush never waits for the throughput, compaction and merge slow down instead.
+   */
+  private boolean shareMergeWriteThroughputWithFlush = false;
+
   /**
    * How many thread will be set up to perform compaction, 10 by default. Set to 1 when less than or
    * equal to 0.
    */
   private int compactionThreadNum = 10;
 
+  /**
+   * How many time partitions of one storage group can be compacted at the same time. Set to 1 when
+   * less than or equal to 0.
+   */
+  private int maxCompactionPartitionNumInEachStorageGroup = 2;
+
+  /**
+   * How many devices of one compaction can be read and merged at the same time, 1 means the devices
+   * are merged one by one in the compaction thread. Set to 1 when less than or equal to 0.
+   */
+  private int compactionDeviceSubThreadNum = 1;
+
+  /**
+   * Memory in byte for the merged chunks buffered by the device sub-tasks of one compaction. A
+   * device that does not fit is merged again and written directly to the target file.
+   */
+  private long compactionDeviceSubThreadMemoryBudget = 64 * 1024 * 1024L;
+
+  /**
+   * Whether to maintain downsampling rollups of sequence TsFiles at flush and compaction time, so
+   * that aligned group by queries can be answered without reading raw data.
+   */
+  private boolean enableRollup = false;
+
+  /**
+   * The bucket widths of the rollups, in the unit of the timestamp precision. A group by window
+   * can be answered from a rollup when its start time and length are multiples of a bucket width.
+   */
+  private long[] rollupIntervals = {3_600_000L, 86_400_000L};
+
   /*
    * How many thread will be set up to perform continuous queries. When <= 0, use max(1, CPU core number / 2).
    */
@@ -660,6 +757,18 @@ public class IoTDBConfig {
   /** The default value of primitive array size in array pool */
   private int primitiveArraySize = 32;
 
+  /**
+   * Whether the time and value arrays of fixed-width TVLists live in pooled direct memory instead
+   * of the java heap. They are still accounted as write memory.
+   */
+  private boolean enableOffHeapMemTable = false;
+
+  /**
+   * Idle direct memory kept pooled for off-heap memtable arrays. Slabs whose arrays are all
+   * released beyond it are freed.
+   */
+  private long offHeapMemTablePoolSize = 64L * 1024 * 1024;
+
   /** whether enable data partition. If disabled, all data belongs to partition 0 */
   private boolean enablePartition = false;
 
@@ -675,6 +784,15 @@ public class IoTDBConfig {
    */
   private int mtreeSnapshotThresholdTime = 3600;
 
+  /**
+   * whether to keep the measurement nodes of the MTree in a schema file, and only cache the
+   * recently used ones in memory
+   */
+  private boolean enableSchemaFile = false;
+
+  /** max number of measurement nodes cached in memory when the schema file is enabled */
+  private long schemaFileCacheSize = 10_000_000L;
+
   /**
    * Time range for partitioning data inside each storage group, the unit is second. Default time is
    * a week.
@@ -687,6 +805,12 @@ public class IoTDBConfig {
    */
   private TimeIndexLevel timeIndexLevel = TimeIndexLevel.DEVICE_TIME_INDEX;
 
+  /**
+   * Whether to index the time ranges of the devices in sealed TsFiles with interval trees, so that
+   * a query does not check every TsFile of the storage group. Only works with DEVICE_TIME_INDEX.
+   */
+  private boolean enableTsFileResourceIndex = true;
+
   // just for test
   // wait for 60 second by default.
   private int thriftServerAwaitTimeForStopService = 60;
@@ -700,6 +824,12 @@ public class IoTDBConfig {
   // if enable partial insert, one measurement failure will not impact other measurements
   private boolean enablePartialInsert = true;
 
+  /**
+   * Whether insertions into one storage group run concurrently. If enabled, an insertion only locks
+   * its device and flushes or closes still lock the whole storage group.
+   */
+  private boolean enableConcurrentInsert = false;
+
   // Open ID Secret
   private String openIdProviderUrl = "";
 
@@ -751,6 +881,12 @@ public class IoTDBConfig {
   /** the size of ioTaskQueue */
   private int ioTaskQueueSizeForFlushing = 10;
 
+  /**
+   * the number of workers encoding the series of one memtable in parallel when it is flushed. The
+   * encoded chunks are still written to disk by one io task in device/measurement order.
+   */
+  private int encodingThreadNumForFlushing = 1;
+
   /** the number of virtual storage groups per user-defined storage group */
   private int virtualStorageGroupNum = 1;
 
@@ -851,6 +987,22 @@ public class IoTDBConfig {
     this.mtreeSnapshotThresholdTime = mtreeSnapshotThresholdTime;
   }
 
+  public boolean isEnableSchemaFile() {
+    return enableSchemaFile;
+  }
+
+  public void setEnableSchemaFile(boolean enableSchemaFile) {
+    this.enableSchemaFile = enableSchemaFile;
+  }
+
+  public long getSchemaFileCacheSize() {
+    return schemaFileCacheSize;
+  }
+
+  public void setSchemaFileCacheSize(long schemaFileCacheSize) {
+    this.schemaFileCacheSize = schemaFileCacheSize;
+  }
+
   public long getPartitionInterval() {
     return partitionInterval;
   }
@@ -867,6 +1019,14 @@ public class IoTDBConfig {
     this.timeIndexLevel = TimeIndexLevel.valueOf(timeIndexLevel);
   }
 
+  public boolean isEnableTsFileResourceIndex() {
+    return enableTsFileResourceIndex;
+  }
+
+  public void setEnableTsFileResourceIndex(boolean enableTsFileResourceIndex) {
+    this.enableTsFileResourceIndex = enableTsFileResourceIndex;
+  }
+
   void updatePath() {
     formulateFolders();
     confirmMultiDirStrategy();
@@ -1043,6 +1203,46 @@ public class IoTDBConfig {
     this.forceWalPeriodInMs = forceWalPeriodInMs;
   }
 
+  public boolean isEnableWalGroupCommit() {
+    return enableWalGroupCommit;
+  }
+
+  public void setEnableWalGroupCommit(boolean enableWalGroupCommit) {
+    this.enableWalGroupCommit = enableWalGroupCommit;
+  }
+
+  public int getWalGroupCommitMaxBatchBytes() {
+    return walGroupCommitMaxBatchBytes;
+  }
+
+  public void setWalGroupCommitMaxBatchBytes(int walGroupCommitMaxBatchBytes) {
+    this.walGroupCommitMaxBatchBytes = walGroupCommitMaxBatchBytes;
+  }
+
+  public long getWalGroupCommitMaxWaitMicros() {
+    return walGroupCommitMaxWaitMicros;
+  }
+
+  public void setWalGroupCommitMaxWaitMicros(long walGroupCommitMaxWaitMicros) {
+    this.walGroupCommitMaxWaitMicros = walGroupCommitMaxWaitMicros;
+  }
+
+  public boolean isEnableMmapWal() {
+    return enableMmapWal;
+  }
+
+  public void setEnableMmapWal(boolean enableMmapWal) {
+    this.enableMmapWal = enableMmapWal;
+  }
+
+  public int getWalSegmentSize() {
+    return walSegmentSize;
+  }
+
+  public void setWalSegmentSize(int walSegmentSize) {
+    this.walSegmentSize = walSegmentSize;
+  }
+
   public String getSystemDir() {
     return systemDir;
   }
@@ -1155,6 +1355,14 @@ public class IoTDBConfig {
     this.concurrentQueryThread = concurrentQueryThread;
   }
 
+  public int getMaxSeriesParallelismPerQuery() {
+    return maxSeriesParallelismPerQuery;
+  }
+
+  public void setMaxSeriesParallelismPerQuery(int maxSeriesParallelismPerQuery) {
+    this.maxSeriesParallelismPerQuery = maxSeriesParallelismPerQuery;
+  }
+
   public int getConcurrentWindowEvaluationThread() {
     return concurrentWindowEvaluationThread;
   }
@@ -1275,6 +1483,14 @@ public class IoTDBConfig {
     this.queryTimeoutThreshold = queryTimeoutThreshold;
   }
 
+  public int getParseTreeCacheSize() {
+    return parseTreeCacheSize;
+  }
+
+  public void setParseTreeCacheSize(int parseTreeCacheSize) {
+    this.parseTreeCacheSize = parseTreeCacheSize;
+  }
+
   public int getSessionTimeoutThreshold() {
     return sessionTimeoutThreshold;
   }
@@ -1491,6 +1707,14 @@ public class IoTDBConfig {
     this.enablePartialInsert = enablePartialInsert;
   }
 
+  public boolean isEnableConcurrentInsert() {
+    return enableConcurrentInsert;
+  }
+
+  public void setEnableConcurrentInsert(boolean enableConcurrentInsert) {
+    this.enableConcurrentInsert = enableConcurrentInsert;
+  }
+
   public boolean isForceFullMerge() {
     return forceFullMerge;
   }
@@ -1507,6 +1731,47 @@ public class IoTDBConfig {
     this.compactionThreadNum = compactionThreadNum;
   }
 
+  public int getMaxCompactionPartitionNumInEachStorageGroup() {
+    return maxCompactionPartitionNumInEachStorageGroup;
+  }
+
+  public void setMaxCompactionPartitionNumInEachStorageGroup(
+      int maxCompactionPartitionNumInEachStorageGroup) {
+    this.maxCompactionPartitionNumInEachStorageGroup = maxCompactionPartitionNumInEachStorageGroup;
+  }
+
+  public int getCompactionDeviceSubThreadNum() {
+    return compactionDeviceSubThreadNum;
+  }
+
+  public void setCompactionDeviceSubThreadNum(int compactionDeviceSubThreadNum) {
+    this.compactionDeviceSubThreadNum = compactionDeviceSubThreadNum;
+  }
+
+  public long getCompactionDeviceSubThreadMemoryBudget() {
+    return compactionDeviceSubThreadMemoryBudget;
+  }
+
+  public void setCompactionDeviceSubThreadMemoryBudget(long compactionDeviceSubThreadMemoryBudget) {
+    this.compactionDeviceSubThreadMemoryBudget = compactionDeviceSubThreadMemoryBudget;
+  }
+
+  public boolean isEnableRollup() {
+    return enableRollup;
+  }
+
+  public void setEnableRollup(boolean enableRollup) {
+    this.enableRollup = enableRollup;
+  }
+
+  public long[] getRollupIntervals() {
+    return rollupIntervals;
+  }
+
+  public void setRollupIntervals(long[] rollupIntervals) {
+    this.rollupIntervals = rollupIntervals;
+  }
+
   public int getContinuousQueryThreadNum() {
     return continuousQueryThreadNum;
   }
@@ -1547,6 +1812,22 @@ public class IoTDBConfig {
     this.mergeWriteThroughputMbPerSec = mergeWriteThroughputMbPerSec;
   }
 
+  public int getMergeReadThroughputMbPerSec() {
+    return mergeReadThroughputMbPerSec;
+  }
+
+  public void setMergeReadThroughputMbPerSec(int mergeReadThroughputMbPerSec) {
+    this.mergeReadThroughputMbPerSec = mergeReadThroughputMbPerSec;
+  }
+
+  public boolean isShareMergeWriteThroughputWithFlush() {
+    return shareMergeWriteThroughputWithFlush;
+  }
+
+  public void setShareMergeWriteThroughputWithFlush(boolean shareMergeWriteThroughputWithFlush) {
+    this.shareMergeWriteThroughputWithFlush = shareMergeWriteThroughputWithFlush;
+  }
+
   public boolean isEnableMemControl() {
     return enableMemControl;
   }
@@ -1780,6 +2061,38 @@ public class IoTDBConfig {
     this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
   }
 
+  public double getChunkCacheAdmissionRatioPerQuery() {
+    return chunkCacheAdmissionRatioPerQuery;
+  }
+
+  public void setChunkCacheAdmissionRatioPerQuery(double chunkCacheAdmissionRatioPerQuery) {
+    this.chunkCacheAdmissionRatioPerQuery = chunkCacheAdmissionRatioPerQuery;
+  }
+
+  public long getCompressedChunkCacheCapacity() {
+    return compressedChunkCacheCapacity;
+  }
+
+  public void setCompressedChunkCacheCapacity(long compressedChunkCacheCapacity) {
+    this.compressedChunkCacheCapacity = compressedChunkCacheCapacity;
+  }
+
+  public boolean isBloomFilterCacheEnable() {
+    return bloomFilterCacheEnable;
+  }
+
+  public void setBloomFilterCacheEnable(boolean bloomFilterCacheEnable) {
+    this.bloomFilterCacheEnable = bloomFilterCacheEnable;
+  }
+
+  public long getBloomFilterCacheCapacity() {
+    return bloomFilterCacheCapacity;
+  }
+
+  public void setBloomFilterCacheCapacity(long bloomFilterCacheCapacity) {
+    this.bloomFilterCacheCapacity = bloomFilterCacheCapacity;
+  }
+
   public boolean isLastCacheEnabled() {
     return lastCacheEnable;
   }
@@ -2193,6 +2506,22 @@ public class IoTDBConfig {
     this.primitiveArraySize = primitiveArraySize;
   }
 
+  public boolean isEnableOffHeapMemTable() {
+    return enableOffHeapMemTable;
+  }
+
+  public void setEnableOffHeapMemTable(boolean enableOffHeapMemTable) {
+    this.enableOffHeapMemTable = enableOffHeapMemTable;
+  }
+
+  public long getOffHeapMemTablePoolSize() {
+    return offHeapMemTablePoolSize;
+  }
+
+  public void setOffHeapMemTablePoolSize(long offHeapMemTablePoolSize) {
+    this.offHeapMemTablePoolSize = offHeapMemTablePoolSize;
+  }
+
   public String getOpenIdProviderUrl() {
     return openIdProviderUrl;
   }
@@ -2360,6 +2689,14 @@ public class IoTDBConfig {
     this.ioTaskQueueSizeForFlushing = ioTaskQueueSizeForFlushing;
   }
 
+  public int getEncodingThreadNumForFlushing() {
+    return encodingThreadNumForFlushing;
+  }
+
+  public void setEncodingThreadNumForFlushing(int encodingThreadNumForFlushing) {
+    this.encodingThreadNumForFlushing = encodingThreadNumForFlushing;
+  }
+
   public String getAdminName() {
     return adminName;
   }
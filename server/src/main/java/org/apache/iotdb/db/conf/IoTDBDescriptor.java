@@ -41,6 +41,7 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Properties;
 
 public class IoTDBDescriptor {
@@ -196,6 +197,30 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "meta_data_cache_enable", Boolean.toString(conf.isMetaDataCacheEnable()))));
 
+      conf.setChunkCacheAdmissionRatioPerQuery(
+          Double.parseDouble(
+              properties.getProperty(
+                  "chunk_cache_admission_ratio_per_query",
+                  Double.toString(conf.getChunkCacheAdmissionRatioPerQuery()))));
+
+      conf.setCompressedChunkCacheCapacity(
+          Long.parseLong(
+              properties.getProperty(
+                  "compressed_chunk_cache_capacity",
+                  Long.toString(conf.getCompressedChunkCacheCapacity()))));
+
+      conf.setBloomFilterCacheEnable(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "bloom_filter_cache_enable",
+                  Boolean.toString(conf.isBloomFilterCacheEnable()))));
+
+      conf.setBloomFilterCacheCapacity(
+          Long.parseLong(
+              properties.getProperty(
+                  "bloom_filter_cache_capacity",
+                  Long.toString(conf.getBloomFilterCacheCapacity()))));
+
       conf.setEnableLastCache(
           Boolean.parseBoolean(
               properties.getProperty(
@@ -309,6 +334,15 @@ public class IoTDBDescriptor {
                   "io_task_queue_size_for_flushing",
                   Integer.toString(conf.getIoTaskQueueSizeForFlushing()))));
 
+      conf.setEncodingThreadNumForFlushing(
+          Integer.parseInt(
+              properties.getProperty(
+                  "encoding_thread_num_for_flushing",
+                  Integer.toString(conf.getEncodingThreadNumForFlushing()))));
+      if (conf.getEncodingThreadNumForFlushing() <= 0) {
+        conf.setEncodingThreadNumForFlushing(1);
+      }
+
       conf.setMergeChunkPointNumberThreshold(
           Integer.parseInt(
               properties.getProperty(
@@ -369,6 +403,11 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "query_timeout_threshold", Integer.toString(conf.getQueryTimeoutThreshold()))));
 
+      conf.setParseTreeCacheSize(
+          Integer.parseInt(
+              properties.getProperty(
+                  "parse_tree_cache_size", Integer.toString(conf.getParseTreeCacheSize()))));
+
       conf.setSessionTimeoutThreshold(
           Integer.parseInt(
               properties.getProperty(
@@ -433,6 +472,16 @@ public class IoTDBDescriptor {
         conf.setConcurrentQueryThread(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setMaxSeriesParallelismPerQuery(
+          Integer.parseInt(
+              properties.getProperty(
+                  "max_series_parallelism_per_query",
+                  Integer.toString(conf.getMaxSeriesParallelismPerQuery()))));
+
+      if (conf.getMaxSeriesParallelismPerQuery() <= 0) {
+        conf.setMaxSeriesParallelismPerQuery(Runtime.getRuntime().availableProcessors());
+      }
+
       conf.setmManagerCacheSize(
           Integer.parseInt(
               properties
@@ -503,18 +552,56 @@ public class IoTDBDescriptor {
           Integer.parseInt(
               properties.getProperty(
                   "compaction_thread_num", Integer.toString(conf.getCompactionThreadNum()))));
+      conf.setMaxCompactionPartitionNumInEachStorageGroup(
+          Integer.parseInt(
+              properties.getProperty(
+                  "max_compaction_partition_num_in_each_storage_group",
+                  Integer.toString(conf.getMaxCompactionPartitionNumInEachStorageGroup()))));
+      conf.setCompactionDeviceSubThreadNum(
+          Integer.parseInt(
+              properties.getProperty(
+                  "compaction_device_subthread_num",
+                  Integer.toString(conf.getCompactionDeviceSubThreadNum()))));
+      conf.setCompactionDeviceSubThreadMemoryBudget(
+          Long.parseLong(
+              properties.getProperty(
+                  "compaction_device_subthread_memory_budget",
+                  Long.toString(conf.getCompactionDeviceSubThreadMemoryBudget()))));
 
       conf.setMergeWriteThroughputMbPerSec(
           Integer.parseInt(
               properties.getProperty(
                   "merge_write_throughput_mb_per_sec",
                   Integer.toString(conf.getMergeWriteThroughputMbPerSec()))));
+      conf.setMergeReadThroughputMbPerSec(
+          Integer.parseInt(
+              properties.getProperty(
+                  "merge_read_throughput_mb_per_sec",
+                  Integer.toString(conf.getMergeReadThroughputMbPerSec()))));
+      conf.setShareMergeWriteThroughputWithFlush(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "share_merge_write_throughput_with_flush",
+                  Boolean.toString(conf.isShareMergeWriteThroughputWithFlush()))));
+
+      conf.setEnableRollup(
+          Boolean.parseBoolean(
+              properties.getProperty("enable_rollup", Boolean.toString(conf.isEnableRollup()))));
+      String rollupIntervals = properties.getProperty("rollup_intervals");
+      if (rollupIntervals != null) {
+        conf.setRollupIntervals(parseRollupIntervals(rollupIntervals));
+      }
 
       conf.setEnablePartialInsert(
           Boolean.parseBoolean(
               properties.getProperty(
                   "enable_partial_insert", String.valueOf(conf.isEnablePartialInsert()))));
 
+      conf.setEnableConcurrentInsert(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_concurrent_insert", String.valueOf(conf.isEnableConcurrentInsert()))));
+
       conf.setEnableMTreeSnapshot(
           Boolean.parseBoolean(
               properties.getProperty(
@@ -528,6 +615,14 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "mtree_snapshot_threshold_time",
                   Integer.toString(conf.getMtreeSnapshotThresholdTime()))));
+      conf.setEnableSchemaFile(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_schema_file", Boolean.toString(conf.isEnableSchemaFile()))));
+      conf.setSchemaFileCacheSize(
+          Long.parseLong(
+              properties.getProperty(
+                  "schema_file_cache_size", Long.toString(conf.getSchemaFileCacheSize()))));
 
       conf.setEnablePerformanceStat(
           Boolean.parseBoolean(
@@ -623,6 +718,12 @@ public class IoTDBDescriptor {
       conf.setTimeIndexLevel(
           properties.getProperty("time_index_level", String.valueOf(conf.getTimeIndexLevel())));
 
+      conf.setEnableTsFileResourceIndex(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_tsfile_resource_index",
+                  String.valueOf(conf.isEnableTsFileResourceIndex()))));
+
       // the default fill interval in LinearFill and PreviousFill
       conf.setDefaultFillInterval(
           Integer.parseInt(
@@ -638,6 +739,18 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "primitive_array_size", String.valueOf(conf.getPrimitiveArraySize())))));
 
+      conf.setEnableOffHeapMemTable(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_off_heap_memtable",
+                  Boolean.toString(conf.isEnableOffHeapMemTable()))));
+
+      conf.setOffHeapMemTablePoolSize(
+          Long.parseLong(
+              properties.getProperty(
+                  "off_heap_memtable_pool_size",
+                  Long.toString(conf.getOffHeapMemTablePoolSize()))));
+
       conf.setThriftMaxFrameSize(
           Integer.parseInt(
               properties.getProperty(
@@ -842,6 +955,34 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "force_wal_period_in_ms", Long.toString(conf.getForceWalPeriodInMs()))));
 
+    conf.setEnableWalGroupCommit(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_wal_group_commit", Boolean.toString(conf.isEnableWalGroupCommit()))));
+
+    conf.setWalGroupCommitMaxBatchBytes(
+        Integer.parseInt(
+            properties.getProperty(
+                "wal_group_commit_max_batch_bytes",
+                Integer.toString(conf.getWalGroupCommitMaxBatchBytes()))));
+
+    conf.setWalGroupCommitMaxWaitMicros(
+        Long.parseLong(
+            properties.getProperty(
+                "wal_group_commit_max_wait_micros",
+                Long.toString(conf.getWalGroupCommitMaxWaitMicros()))));
+
+    conf.setEnableMmapWal(
+        Boolean.parseBoolean(
+            properties.getProperty("enable_mmap_wal", Boolean.toString(conf.isEnableMmapWal()))));
+
+    int walSegmentSize =
+        Integer.parseInt(
+            properties.getProperty("wal_segment_size", Integer.toString(conf.getWalSegmentSize())));
+    if (walSegmentSize > 0) {
+      conf.setWalSegmentSize(walSegmentSize);
+    }
+
     conf.setEnableDiscardOutOfOrderData(
         Boolean.parseBoolean(
             properties.getProperty(
@@ -1177,6 +1318,12 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "merge_write_throughput_mb_per_sec",
                   Integer.toString(conf.getMergeWriteThroughputMbPerSec()))));
+      // update merge_read_throughput_mb_per_sec
+      conf.setMergeReadThroughputMbPerSec(
+          Integer.parseInt(
+              properties.getProperty(
+                  "merge_read_throughput_mb_per_sec",
+                  Integer.toString(conf.getMergeReadThroughputMbPerSec()))));
 
       // update insert-tablet-plan's row limit for select-into
       conf.setSelectIntoInsertTabletPlanRowLimit(
@@ -1345,6 +1492,18 @@ public class IoTDBDescriptor {
             conf.getTimestampPrecision()));
   }
 
+  /** parse the bucket widths of rollups, ignoring the ones that are not positive */
+  private long[] parseRollupIntervals(String rollupIntervals) {
+    return Arrays.stream(rollupIntervals.split(","))
+        .map(String::trim)
+        .filter(interval -> !interval.isEmpty())
+        .mapToLong(Long::parseLong)
+        .filter(interval -> interval > 0)
+        .distinct()
+        .sorted()
+        .toArray();
+  }
+
   /** Get default encode algorithm by data type */
   public TSEncoding getDefaultEncodingByType(TSDataType dataType) {
     switch (dataType) {
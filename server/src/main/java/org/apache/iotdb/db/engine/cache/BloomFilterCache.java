@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.utils.BloomFilter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps the series bloom filter of each sealed TsFile in direct memory, attached to its
+ * {@link TsFileResource}, so that a query can find out that a TsFile does not contain a series
+ * without opening the file and reading its metadata. The bloom filter of a TsFile is read from its
+ * footer only once, by the first query that looks into the file.
+ *
+ * <p>The direct buffers of the bloom filters take at most bloom_filter_cache_capacity bytes. When
+ * there are more, the bloom filters are dropped in the CLOCK order: a bloom filter used since it
+ * was last checked gets a second chance. A dropped bloom filter is read again by the next query
+ * that looks into the file. The bloom filter of a TsFile is also dropped when the TsFile is
+ * replaced, e.g. by a merge. Queries may still be reading a dropped buffer, so it is freed by the
+ * GC rather than explicitly.
+ */
+public class BloomFilterCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(BloomFilterCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final boolean CACHE_ENABLE = config.isBloomFilterCacheEnable();
+
+  /** placeholder of the TsFiles without a bloom filter, which may contain any series */
+  private static final SeriesBloomFilter NO_BLOOM_FILTER = new SeriesBloomFilter(null, 0, 0);
+
+  private final AtomicLong lookupCount = new AtomicLong();
+  private final AtomicLong negativeLookupAvoidedCount = new AtomicLong();
+  private final AtomicLong loadCount = new AtomicLong();
+  private final AtomicLong usedMemory = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /** the attached bloom filters in the order of the CLOCK hand, guarded by itself */
+  private final Deque<SeriesBloomFilter> loadedBloomFilters = new ArrayDeque<>();
+  /** number of the bloom filters in loadedBloomFilters that are dropped already */
+  private int droppedNum = 0;
+
+  private BloomFilterCache() {
+    if (CACHE_ENABLE) {
+      logger.info("BloomFilterCache is enabled");
+    }
+  }
+
+  public static BloomFilterCache getInstance() {
+    return BloomFilterCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnable() {
+    return CACHE_ENABLE;
+  }
+
+  /**
+   * @return false if the sealed TsFile definitely does not contain the series, in which case
+   *     neither the file nor its metadata needs to be read; true if it may contain the series or if
+   *     the TsFile is unsealed
+   */
+  public boolean mayContain(TsFileResource resource, String device, String measurement)
+      throws IOException {
+    if (!CACHE_ENABLE || !resource.isClosed()) {
+      return true;
+    }
+    SeriesBloomFilter bloomFilter = resource.getBloomFilter();
+    if (bloomFilter == null) {
+      bloomFilter = load(resource);
+    } else {
+      bloomFilter.touch();
+    }
+    lookupCount.incrementAndGet();
+    if (bloomFilter.contains(device + IoTDBConstant.PATH_SEPARATOR + measurement)) {
+      return true;
+    }
+    negativeLookupAvoidedCount.incrementAndGet();
+    return false;
+  }
+
+  private SeriesBloomFilter load(TsFileResource resource) throws IOException {
+    File file = resource.getTsFile();
+    TsFileSequenceReader reader = FileReaderManager.getInstance().get(file.getPath(), true);
+    BloomFilter bloomFilter = reader.readBloomFilter();
+    SeriesBloomFilter seriesBloomFilter =
+        bloomFilter == null ? NO_BLOOM_FILTER : SeriesBloomFilter.of(bloomFilter);
+    loadCount.incrementAndGet();
+    synchronized (resource) {
+      if (resource.getBloomFilter() != null) {
+        return resource.getBloomFilter();
+      }
+      // the TsFile is replaced while reading its bloom filter, e.g. by a merge
+      if (resource.getTsFile() != file) {
+        return seriesBloomFilter;
+      }
+      resource.setBloomFilter(seriesBloomFilter);
+      usedMemory.addAndGet(seriesBloomFilter.getRamSize());
+    }
+    if (seriesBloomFilter.getRamSize() > 0) {
+      seriesBloomFilter.resource = resource;
+      synchronized (loadedBloomFilters) {
+        loadedBloomFilters.add(seriesBloomFilter);
+      }
+      evictIfFull();
+    }
+    return seriesBloomFilter;
+  }
+
+  /** drop the bloom filters not used recently until they fit in bloom_filter_cache_capacity */
+  private void evictIfFull() {
+    synchronized (loadedBloomFilters) {
+      // each bloom filter is checked at most twice, the first check may only clear its access mark
+      int checkNum = 2 * loadedBloomFilters.size();
+      while (usedMemory.get() > config.getBloomFilterCacheCapacity() && checkNum-- > 0) {
+        SeriesBloomFilter bloomFilter = loadedBloomFilters.poll();
+        if (bloomFilter == null) {
+          return;
+        }
+        if (bloomFilter.dropped) {
+          droppedNum--;
+        } else if (bloomFilter.accessed) {
+          bloomFilter.accessed = false;
+          loadedBloomFilters.add(bloomFilter);
+        } else {
+          bloomFilter.dropped = true;
+          detach(bloomFilter.resource, bloomFilter);
+          evictionCount.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  /** drop the bloom filter of the TsFile, called when the TsFile is replaced or removed. */
+  public void invalidate(TsFileResource resource) {
+    SeriesBloomFilter bloomFilter = resource.getBloomFilter();
+    if (bloomFilter == null || !detach(resource, bloomFilter) || bloomFilter.getRamSize() == 0) {
+      return;
+    }
+    synchronized (loadedBloomFilters) {
+      if (bloomFilter.dropped) {
+        return;
+      }
+      bloomFilter.dropped = true;
+      droppedNum++;
+      // the dropped ones are removed lazily, unless they are more than the others
+      if (droppedNum > loadedBloomFilters.size() / 2) {
+        loadedBloomFilters.removeIf(f -> f.dropped);
+        droppedNum = 0;
+      }
+    }
+  }
+
+  /** @return whether the bloom filter is attached to the TsFile before */
+  private boolean detach(TsFileResource resource, SeriesBloomFilter bloomFilter) {
+    synchronized (resource) {
+      if (resource.getBloomFilter() != bloomFilter) {
+        return false;
+      }
+      resource.setBloomFilter(null);
+      usedMemory.addAndGet(-bloomFilter.getRamSize());
+      return true;
+    }
+  }
+
+  public long getLookupCount() {
+    return lookupCount.get();
+  }
+
+  public long getNegativeLookupAvoidedCount() {
+    return negativeLookupAvoidedCount.get();
+  }
+
+  public long getLoadCount() {
+    return loadCount.get();
+  }
+
+  public long getUsedMemory() {
+    return usedMemory.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  @TestOnly
+  public void resetCounters() {
+    lookupCount.set(0);
+    negativeLookupAvoidedCount.set(0);
+    loadCount.set(0);
+    evictionCount.set(0);
+  }
+
+  /** The bits of a TsFile bloom filter in a read-only direct buffer. */
+  public static class SeriesBloomFilter {
+
+    private final ByteBuffer bits;
+    private final int size;
+    private final int hashFunctionSize;
+
+    /** the TsFile it is attached to */
+    private TsFileResource resource;
+    /** whether it is used since it was last checked for eviction */
+    private volatile boolean accessed;
+    /** whether it is detached from the TsFile, guarded by loadedBloomFilters */
+    private boolean dropped;
+
+    private SeriesBloomFilter(ByteBuffer bits, int size, int hashFunctionSize) {
+      this.bits = bits;
+      this.size = size;
+      this.hashFunctionSize = hashFunctionSize;
+    }
+
+    private static SeriesBloomFilter of(BloomFilter bloomFilter) {
+      byte[] bytes = bloomFilter.serialize();
+      ByteBuffer bits = ByteBuffer.allocateDirect(bytes.length);
+      bits.put(bytes);
+      bits.flip();
+      return new SeriesBloomFilter(
+          bits.asReadOnlyBuffer(), bloomFilter.getSize(), bloomFilter.getHashFunctionSize());
+    }
+
+    private void touch() {
+      if (!accessed) {
+        accessed = true;
+      }
+    }
+
+    private boolean contains(String path) {
+      return bits == null || BloomFilter.contains(bits, size, hashFunctionSize, path);
+    }
+
+    private long getRamSize() {
+      return bits == null ? 0 : bits.capacity();
+    }
+  }
+
+  /** singleton pattern. */
+  private static class BloomFilterCacheHolder {
+
+    private static final BloomFilterCache INSTANCE = new BloomFilterCache();
+  }
+}
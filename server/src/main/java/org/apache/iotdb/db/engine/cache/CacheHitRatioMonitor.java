@@ -30,6 +30,8 @@ import org.apache.iotdb.db.service.ServiceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IService {
 
   private static Logger logger = LoggerFactory.getLogger(CacheHitRatioMonitor.class);
@@ -80,6 +82,46 @@ public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IServic
     return ChunkCache.getInstance().getAverageSize();
   }
 
+  @Override
+  public Map<String, Long> getChunkCacheHitCountPerStorageGroup() {
+    return ChunkCache.getInstance().getHitCountPerStorageGroup();
+  }
+
+  @Override
+  public Map<String, Long> getChunkCacheMissCountPerStorageGroup() {
+    return ChunkCache.getInstance().getMissCountPerStorageGroup();
+  }
+
+  @Override
+  public Map<String, Long> getChunkCacheEvictionCountPerStorageGroup() {
+    return ChunkCache.getInstance().getEvictionCountPerStorageGroup();
+  }
+
+  @Override
+  public long getCompressedChunkCacheHitCount() {
+    return CompressedChunkCache.getInstance().getHitCount();
+  }
+
+  @Override
+  public long getCompressedChunkCacheMissCount() {
+    return CompressedChunkCache.getInstance().getMissCount();
+  }
+
+  @Override
+  public long getCompressedChunkCacheEvictionCount() {
+    return CompressedChunkCache.getInstance().getEvictionCount();
+  }
+
+  @Override
+  public long getCompressedChunkCacheUsedMemory() {
+    return CompressedChunkCache.getInstance().getUsedMemory();
+  }
+
+  @Override
+  public long getCompressedChunkCacheMaxMemory() {
+    return CompressedChunkCache.getInstance().getMaxMemory();
+  }
+
   @Override
   public double getTimeSeriesMetadataHitRatio() {
     return TimeSeriesMetadataCache.getInstance().calculateTimeSeriesMetadataHitRatio();
@@ -105,6 +147,31 @@ public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IServic
     return TimeSeriesMetadataCache.getInstance().getAverageSize();
   }
 
+  @Override
+  public long getBloomFilterCacheLookupCount() {
+    return BloomFilterCache.getInstance().getLookupCount();
+  }
+
+  @Override
+  public long getBloomFilterCacheNegativeLookupAvoidedCount() {
+    return BloomFilterCache.getInstance().getNegativeLookupAvoidedCount();
+  }
+
+  @Override
+  public long getBloomFilterCacheLoadCount() {
+    return BloomFilterCache.getInstance().getLoadCount();
+  }
+
+  @Override
+  public long getBloomFilterCacheUsedMemory() {
+    return BloomFilterCache.getInstance().getUsedMemory();
+  }
+
+  @Override
+  public long getBloomFilterCacheEvictionCount() {
+    return BloomFilterCache.getInstance().getEvictionCount();
+  }
+
   public static CacheHitRatioMonitor getInstance() {
     return instance;
   }
@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.db.engine.cache;
 
+import java.util.Map;
+
 public interface CacheHitRatioMonitorMXBean {
 
   double getChunkHitRatio();
@@ -30,6 +32,22 @@ public interface CacheHitRatioMonitorMXBean {
 
   long getChunkCacheAverageSize();
 
+  Map<String, Long> getChunkCacheHitCountPerStorageGroup();
+
+  Map<String, Long> getChunkCacheMissCountPerStorageGroup();
+
+  Map<String, Long> getChunkCacheEvictionCountPerStorageGroup();
+
+  long getCompressedChunkCacheHitCount();
+
+  long getCompressedChunkCacheMissCount();
+
+  long getCompressedChunkCacheEvictionCount();
+
+  long getCompressedChunkCacheUsedMemory();
+
+  long getCompressedChunkCacheMaxMemory();
+
   double getTimeSeriesMetadataHitRatio();
 
   long getTimeSeriesMetadataCacheEvictionCount();
@@ -40,6 +58,18 @@ public interface CacheHitRatioMonitorMXBean {
 
   long getTimeSeriesMetaDataCacheAverageSize();
 
+  long getBloomFilterCacheLookupCount();
+
+  /** number of lookups answered by a cached bloom filter without reading the TsFile */
+  long getBloomFilterCacheNegativeLookupAvoidedCount();
+
+  long getBloomFilterCacheLoadCount();
+
+  long getBloomFilterCacheUsedMemory();
+
+  /** number of bloom filters dropped to keep them in bloom_filter_cache_capacity */
+  long getBloomFilterCacheEvictionCount();
+
   long getTotalMemTableSize();
 
   double getFlushThershold();
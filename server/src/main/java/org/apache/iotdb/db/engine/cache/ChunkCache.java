@@ -21,25 +21,36 @@ package org.apache.iotdb.db.engine.cache;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
-import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.utils.FilePathUtils;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
-import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalListener;
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
- * This class is used to cache <code>Chunk</code> of <code>ChunkMetaData</code> in IoTDB. The
- * caching strategy is LRU.
+ * This class is used to cache <code>Chunk</code> of <code>ChunkMetaData</code> in IoTDB. Entries
+ * are weighed by their exact memory footprint and evicted by Caffeine's W-TinyLFU policy, whose
+ * frequency-based admission keeps chunks that are read only once from displacing hot chunks. A
+ * query that has read more than {@link IoTDBConfig#getChunkCacheAdmissionRatioPerQuery()} of the
+ * cache is treated as a scan and does not put the chunks it misses into the cache at all. Misses
+ * are loaded through the off-heap {@link CompressedChunkCache} if it is enabled.
  */
 public class ChunkCache {
 
@@ -48,11 +59,23 @@ public class ChunkCache {
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private static final long MEMORY_THRESHOLD_IN_CHUNK_CACHE =
       config.getAllocateMemoryForChunkCache();
+  private static final long MAX_ADMITTED_CHUNK_SIZE_PER_QUERY =
+      (long) (MEMORY_THRESHOLD_IN_CHUNK_CACHE * config.getChunkCacheAdmissionRatioPerQuery());
   private static final boolean CACHE_ENABLE = config.isMetaDataCacheEnable();
 
   private final LoadingCache<ChunkMetadata, Chunk> lruCache;
 
-  private final AtomicLong entryAverageSize = new AtomicLong(0);
+  /** hit/miss/eviction counters of each storage group */
+  private final Map<String, StorageGroupCacheStats> storageGroupStats = new ConcurrentHashMap<>();
+
+  /** the stats of the storage group of each TsFile, so that a file path is only parsed once */
+  private final Map<String, StorageGroupCacheStats> fileStats = new ConcurrentHashMap<>();
+
+  /** the cached chunks of each TsFile, so that removing a file does not scan the whole cache */
+  private final Map<String, Set<ChunkMetadata>> fileChunks = new ConcurrentHashMap<>();
+
+  /** placeholder in fileStats for the files whose storage group cannot be told from the path */
+  private static final StorageGroupCacheStats NO_STORAGE_GROUP = new StorageGroupCacheStats();
 
   private ChunkCache() {
     if (CACHE_ENABLE) {
@@ -66,36 +89,97 @@ public class ChunkCache {
                     (chunkMetadata, chunk) ->
                         (int)
                             (RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                                + chunkMetadata.calculateRamSize()
                                 + RamUsageEstimator.sizeOf(chunk)))
+            // called atomically with the eviction, explicit removals unindex the chunks themselves
+            .evictionListener(
+                (RemovalListener<ChunkMetadata, Chunk>)
+                    (chunkMetadata, chunk, cause) -> {
+                      if (chunkMetadata != null) {
+                        unindexChunk(chunkMetadata);
+                      }
+                    })
+            .removalListener(
+                (RemovalListener<ChunkMetadata, Chunk>)
+                    (chunkMetadata, chunk, cause) -> {
+                      if (cause.wasEvicted() && chunkMetadata != null) {
+                        StorageGroupCacheStats stats = getStorageGroupStats(chunkMetadata);
+                        if (stats != null) {
+                          stats.evictionCount.increment();
+                        }
+                      }
+                    })
             .recordStats()
-            .build(
-                chunkMetadata -> {
-                  try {
-                    TsFileSequenceReader reader =
-                        FileReaderManager.getInstance()
-                            .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
-                    return reader.readMemChunk(chunkMetadata);
-                  } catch (IOException e) {
-                    logger.error("Something wrong happened in reading {}", chunkMetadata, e);
-                    throw e;
-                  }
-                });
+            .build(this::loadCachedChunk);
   }
 
   public static ChunkCache getInstance() {
     return ChunkCacheHolder.INSTANCE;
   }
 
+  private Chunk loadChunk(ChunkMetadata chunkMetadata) throws IOException {
+    StorageGroupCacheStats stats = getStorageGroupStats(chunkMetadata);
+    if (stats != null) {
+      stats.missCount.increment();
+    }
+    try {
+      return CompressedChunkCache.getInstance().get(chunkMetadata);
+    } catch (IOException e) {
+      logger.error("Something wrong happened in reading {}", chunkMetadata, e);
+      throw e;
+    }
+  }
+
+  /** load a chunk that is put into the cache, called atomically with the insertion */
+  private Chunk loadCachedChunk(ChunkMetadata chunkMetadata) throws IOException {
+    Chunk chunk = loadChunk(chunkMetadata);
+    String filePath = chunkMetadata.getFilePath();
+    if (filePath != null) {
+      fileChunks.compute(
+          filePath,
+          (path, chunks) -> {
+            Set<ChunkMetadata> result = chunks == null ? new HashSet<>() : chunks;
+            result.add(chunkMetadata);
+            return result;
+          });
+    }
+    return chunk;
+  }
+
+  private void unindexChunk(ChunkMetadata chunkMetadata) {
+    String filePath = chunkMetadata.getFilePath();
+    if (filePath != null) {
+      fileChunks.computeIfPresent(
+          filePath,
+          (path, chunks) -> {
+            chunks.remove(chunkMetadata);
+            return chunks.isEmpty() ? null : chunks;
+          });
+    }
+  }
+
   public Chunk get(ChunkMetadata chunkMetaData) throws IOException {
-    return get(chunkMetaData, false);
+    return get(chunkMetaData, false, true);
+  }
+
+  /**
+   * Get the chunk for a query, which stops admitting the chunks it misses into the cache once it
+   * has read more than the per-query admission limit.
+   */
+  public Chunk get(ChunkMetadata chunkMetaData, QueryContext context) throws IOException {
+    boolean admit = context.getReadChunkSize() <= MAX_ADMITTED_CHUNK_SIZE_PER_QUERY;
+    Chunk chunk = get(chunkMetaData, context.isDebug(), admit);
+    context.addReadChunkSize(chunk.getData().remaining());
+    return chunk;
   }
 
-  public Chunk get(ChunkMetadata chunkMetaData, boolean debug) throws IOException {
+  /**
+   * @param admit false if a missed chunk should be read from disk without being put into the
+   *     cache, chunks already in the cache are returned either way
+   */
+  public Chunk get(ChunkMetadata chunkMetaData, boolean debug, boolean admit) throws IOException {
     if (!CACHE_ENABLE) {
-      TsFileSequenceReader reader =
-          FileReaderManager.getInstance()
-              .get(chunkMetaData.getFilePath(), chunkMetaData.isClosed());
-      Chunk chunk = reader.readMemChunk(chunkMetaData);
+      Chunk chunk = CompressedChunkCache.getInstance().get(chunkMetaData);
       return new Chunk(
           chunk.getHeader(),
           chunk.getData().duplicate(),
@@ -103,7 +187,20 @@ public class ChunkCache {
           chunkMetaData.getStatistics());
     }
 
-    Chunk chunk = lruCache.get(chunkMetaData);
+    StorageGroupCacheStats stats = getStorageGroupStats(chunkMetaData);
+    if (stats != null) {
+      stats.requestCount.increment();
+    }
+
+    Chunk chunk;
+    if (admit) {
+      chunk = lruCache.get(chunkMetaData);
+    } else {
+      chunk = lruCache.getIfPresent(chunkMetaData);
+      if (chunk == null) {
+        chunk = loadChunk(chunkMetaData);
+      }
+    }
 
     if (debug) {
       DEBUG_LOGGER.info("get chunk from cache whose meta data is: " + chunkMetaData);
@@ -116,6 +213,25 @@ public class ChunkCache {
         chunkMetaData.getStatistics());
   }
 
+  private StorageGroupCacheStats getStorageGroupStats(ChunkMetadata chunkMetadata) {
+    String filePath = chunkMetadata.getFilePath();
+    if (filePath == null) {
+      return null;
+    }
+    StorageGroupCacheStats stats = fileStats.get(filePath);
+    if (stats == null) {
+      stats = fileStats.computeIfAbsent(filePath, this::resolveStorageGroupStats);
+    }
+    return stats == NO_STORAGE_GROUP ? null : stats;
+  }
+
+  private StorageGroupCacheStats resolveStorageGroupStats(String filePath) {
+    String storageGroup = FilePathUtils.getLogicalStorageGroupName(filePath);
+    return storageGroup == null
+        ? NO_STORAGE_GROUP
+        : storageGroupStats.computeIfAbsent(storageGroup, k -> new StorageGroupCacheStats());
+  }
+
   public double calculateChunkHitRatio() {
     return lruCache.stats().hitRate();
   }
@@ -132,18 +248,63 @@ public class ChunkCache {
     return lruCache.stats().averageLoadPenalty();
   }
 
+  /** @return the exact average weight of the cached entries */
   public long getAverageSize() {
-    return entryAverageSize.get();
+    long entryNum = lruCache.estimatedSize();
+    if (entryNum == 0) {
+      return 0;
+    }
+    long weightedSize =
+        lruCache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+    return weightedSize / entryNum;
+  }
+
+  public Map<String, Long> getHitCountPerStorageGroup() {
+    return collectStorageGroupStats(s -> s.requestCount.sum() - s.missCount.sum());
+  }
+
+  public Map<String, Long> getMissCountPerStorageGroup() {
+    return collectStorageGroupStats(s -> s.missCount.sum());
+  }
+
+  public Map<String, Long> getEvictionCountPerStorageGroup() {
+    return collectStorageGroupStats(s -> s.evictionCount.sum());
+  }
+
+  private Map<String, Long> collectStorageGroupStats(
+      Function<StorageGroupCacheStats, Long> counter) {
+    Map<String, Long> result = new HashMap<>();
+    storageGroupStats.forEach(
+        (storageGroup, stats) -> result.put(storageGroup, counter.apply(stats)));
+    return result;
   }
 
   /** clear LRUCache. */
   public void clear() {
     lruCache.invalidateAll();
     lruCache.cleanUp();
+    fileChunks.clear();
+    fileStats.clear();
   }
 
   public void remove(ChunkMetadata chunkMetaData) {
-    lruCache.invalidate(chunkMetaData);
+    lruCache
+        .asMap()
+        .computeIfPresent(
+            chunkMetaData,
+            (key, chunk) -> {
+              unindexChunk(key);
+              return null;
+            });
+  }
+
+  /** remove all the cached chunks of a TsFile, e.g., when it is deleted by compaction. */
+  public void removeFile(String tsFilePath) {
+    Set<ChunkMetadata> chunks = fileChunks.remove(tsFilePath);
+    if (chunks != null) {
+      lruCache.invalidateAll(chunks);
+    }
+    fileStats.remove(tsFilePath);
   }
 
   @TestOnly
@@ -151,6 +312,13 @@ public class ChunkCache {
     return lruCache.asMap().isEmpty();
   }
 
+  private static class StorageGroupCacheStats {
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+  }
+
   /** singleton pattern. */
   private static class ChunkCacheHolder {
 
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.MmapUtil;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The second tier below {@link ChunkCache}. It keeps the compressed data of chunks in direct
+ * memory, keyed by the TsFile path and the offset of the chunk, so that a chunk evicted from the
+ * heap-bounded ChunkCache is copied back from memory instead of being read from disk. The
+ * eviction policy is W-TinyLFU, weighed by the off-heap size of each chunk.
+ *
+ * <p>The direct buffer of a chunk is freed as soon as the chunk is removed from the cache and no
+ * reader is copying from it, so the off-heap memory is bounded by the capacity instead of waiting
+ * for the GC.
+ */
+public class CompressedChunkCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(CompressedChunkCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private final long capacity;
+  private final boolean cacheEnable;
+
+  private final Cache<CompressedChunkKey, CompressedChunk> cache;
+
+  /** the cached chunks of each TsFile, so that removing a file does not scan the whole cache */
+  private final Map<String, Set<CompressedChunkKey>> fileChunks = new ConcurrentHashMap<>();
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong usedMemory = new AtomicLong();
+
+  CompressedChunkCache(long capacity) {
+    this.capacity = capacity;
+    this.cacheEnable = capacity > 0;
+    if (cacheEnable) {
+      logger.info("CompressedChunkCache size = {}", capacity);
+    }
+    cache =
+        Caffeine.newBuilder()
+            .maximumWeight(capacity)
+            .weigher(
+                (Weigher<CompressedChunkKey, CompressedChunk>)
+                    (key, compressedChunk) -> compressedChunk.data.capacity())
+            // free the memory of removed chunks right away instead of in the common pool
+            .executor(Runnable::run)
+            // called atomically with the eviction, explicit removals unindex the chunks themselves
+            .evictionListener(
+                (RemovalListener<CompressedChunkKey, CompressedChunk>)
+                    (key, compressedChunk, cause) -> {
+                      if (key != null) {
+                        unindexChunk(key);
+                      }
+                    })
+            .removalListener(
+                (RemovalListener<CompressedChunkKey, CompressedChunk>)
+                    (key, compressedChunk, cause) -> {
+                      if (compressedChunk != null) {
+                        usedMemory.addAndGet(-compressedChunk.data.capacity());
+                        compressedChunk.release();
+                      }
+                      if (cause.wasEvicted()) {
+                        evictionCount.incrementAndGet();
+                      }
+                    })
+            .build();
+  }
+
+  public static CompressedChunkCache getInstance() {
+    return CompressedChunkCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnable() {
+    return cacheEnable;
+  }
+
+  /**
+   * Get the chunk of the metadata, from the off-heap copy if there is one, otherwise from the
+   * TsFile, in which case the compressed data of the chunk is copied off-heap for later reads.
+   */
+  public Chunk get(ChunkMetadata chunkMetadata) throws IOException {
+    if (!cacheEnable) {
+      return readChunk(chunkMetadata);
+    }
+
+    CompressedChunkKey key =
+        new CompressedChunkKey(chunkMetadata.getFilePath(), chunkMetadata.getOffsetOfChunkHeader());
+    CompressedChunk compressedChunk = cache.getIfPresent(key);
+    // the chunk may be removed and freed concurrently, in which case it is read again
+    if (compressedChunk != null && compressedChunk.retain()) {
+      hitCount.incrementAndGet();
+      ByteBuffer data = ByteBuffer.allocate(compressedChunk.data.capacity());
+      try {
+        data.put(compressedChunk.data.duplicate());
+      } finally {
+        compressedChunk.release();
+      }
+      data.flip();
+      return new Chunk(
+          compressedChunk.header,
+          data,
+          chunkMetadata.getDeleteIntervalList(),
+          chunkMetadata.getStatistics());
+    }
+
+    missCount.incrementAndGet();
+    Chunk chunk = readChunk(chunkMetadata);
+    ByteBuffer data = ByteBuffer.allocateDirect(chunk.getData().remaining());
+    data.put(chunk.getData().duplicate());
+    data.flip();
+    usedMemory.addAndGet(data.capacity());
+    CompressedChunk newChunk = new CompressedChunk(chunk.getHeader(), data);
+    // a chunk loaded concurrently is replaced and freed by the removal listener
+    cache
+        .asMap()
+        .compute(
+            key,
+            (k, oldChunk) -> {
+              indexChunk(k);
+              return newChunk;
+            });
+    return chunk;
+  }
+
+  private void indexChunk(CompressedChunkKey key) {
+    fileChunks.compute(
+        key.tsFilePath,
+        (path, keys) -> {
+          Set<CompressedChunkKey> result = keys == null ? new HashSet<>() : keys;
+          result.add(key);
+          return result;
+        });
+  }
+
+  private void unindexChunk(CompressedChunkKey key) {
+    fileChunks.computeIfPresent(
+        key.tsFilePath,
+        (path, keys) -> {
+          keys.remove(key);
+          return keys.isEmpty() ? null : keys;
+        });
+  }
+
+  private Chunk readChunk(ChunkMetadata chunkMetadata) throws IOException {
+    TsFileSequenceReader reader =
+        FileReaderManager.getInstance().get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
+    return reader.readMemChunk(chunkMetadata);
+  }
+
+  /**
+   * remove all the chunks of a TsFile and free their direct memory, called when its reader is
+   * closed and removed.
+   */
+  public void removeFile(String tsFilePath) {
+    if (cacheEnable) {
+      Set<CompressedChunkKey> keys = fileChunks.remove(tsFilePath);
+      if (keys != null) {
+        cache.invalidateAll(keys);
+      }
+    }
+  }
+
+  public void clear() {
+    cache.invalidateAll();
+    cache.cleanUp();
+    fileChunks.clear();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  public long getUsedMemory() {
+    return usedMemory.get();
+  }
+
+  public long getMaxMemory() {
+    return capacity;
+  }
+
+  @TestOnly
+  public long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  private static class CompressedChunkKey {
+
+    private final String tsFilePath;
+    private final long offset;
+
+    private CompressedChunkKey(String tsFilePath, long offset) {
+      this.tsFilePath = tsFilePath;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CompressedChunkKey that = (CompressedChunkKey) o;
+      return offset == that.offset && Objects.equals(tsFilePath, that.tsFilePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(tsFilePath, offset);
+    }
+  }
+
+  private static class CompressedChunk {
+
+    private final ChunkHeader header;
+    /** the compressed page data of the chunk, in direct memory */
+    private final ByteBuffer data;
+    /** the cache holds one reference, and each reader copying the data holds one more */
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    private CompressedChunk(ChunkHeader header, ByteBuffer data) {
+      this.header = header;
+      this.data = data;
+    }
+
+    /** @return false if the data is already freed, otherwise it is kept until release() */
+    private boolean retain() {
+      int count;
+      do {
+        count = refCount.get();
+        if (count == 0) {
+          return false;
+        }
+      } while (!refCount.compareAndSet(count, count + 1));
+      return true;
+    }
+
+    /** free the direct memory once the cache and all readers have released the chunk */
+    private void release() {
+      if (refCount.decrementAndGet() == 0) {
+        MmapUtil.clean((MappedByteBuffer) data);
+      }
+    }
+  }
+
+  private static class CompressedChunkCacheHolder {
+
+    private static final CompressedChunkCache INSTANCE =
+        new CompressedChunkCache(config.getCompressedChunkCacheCapacity());
+  }
+}
@@ -116,9 +116,7 @@ public class TimeSeriesMetadataCache {
     if (!CACHE_ENABLE) {
       // bloom filter part
       TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-      BloomFilter bloomFilter = reader.readBloomFilter();
-      if (bloomFilter != null
-          && !bloomFilter.contains(key.device + IoTDBConstant.PATH_SEPARATOR + key.measurement)) {
+      if (!mayContain(reader, key.device + IoTDBConstant.PATH_SEPARATOR + key.measurement)) {
         return null;
       }
       return reader.readTimeseriesMetadata(new Path(key.device, key.measurement), false);
@@ -141,8 +139,7 @@ public class TimeSeriesMetadataCache {
           Path path = new Path(key.device, key.measurement);
           // bloom filter part
           TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-          BloomFilter bloomFilter = reader.readBloomFilter();
-          if (bloomFilter != null && !bloomFilter.contains(path.getFullPath())) {
+          if (!mayContain(reader, path.getFullPath())) {
             if (debug) {
               DEBUG_LOGGER.info("TimeSeries meta data {} is filter by bloomFilter!", key);
             }
@@ -181,6 +178,22 @@ public class TimeSeriesMetadataCache {
     }
   }
 
+  /**
+   * Check the bloom filter in the file footer. When the BloomFilterCache is enabled, the series has
+   * been checked against the cached bloom filter before the metadata is read (see {@link
+   * org.apache.iotdb.db.utils.FileLoaderUtils}), so the footer is not read again.
+   *
+   * @return false if the file does not contain the series
+   */
+  private static boolean mayContain(TsFileSequenceReader reader, String seriesPath)
+      throws IOException {
+    if (BloomFilterCache.getInstance().isEnable()) {
+      return true;
+    }
+    BloomFilter bloomFilter = reader.readBloomFilter();
+    return bloomFilter == null || bloomFilter.contains(seriesPath);
+  }
+
   /**
    * Support for vector. allSensors > subSensors
    *
@@ -208,9 +221,7 @@ public class TimeSeriesMetadataCache {
     if (!CACHE_ENABLE) {
       // bloom filter part
       TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-      BloomFilter bloomFilter = reader.readBloomFilter();
-      if (bloomFilter != null
-          && !bloomFilter.contains(key.device + IoTDBConstant.PATH_SEPARATOR + key.measurement)) {
+      if (!mayContain(reader, key.device + IoTDBConstant.PATH_SEPARATOR + key.measurement)) {
         return Collections.emptyList();
       }
       return readTimeseriesMetadataForVector(reader, key, subSensorList, allSensors);
@@ -235,8 +246,7 @@ public class TimeSeriesMetadataCache {
           Path path = new Path(key.device, key.measurement);
           // bloom filter part
           TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-          BloomFilter bloomFilter = reader.readBloomFilter();
-          if (bloomFilter != null && !bloomFilter.contains(path.getFullPath())) {
+          if (!mayContain(reader, path.getFullPath())) {
             if (debug) {
               DEBUG_LOGGER.info("TimeSeries meta data {} is filter by bloomFilter!", key);
             }
@@ -388,6 +398,11 @@ public class TimeSeriesMetadataCache {
     lruCache.invalidate(key);
   }
 
+  /** remove all the cached TimeseriesMetadata of a TsFile, e.g., when compaction deletes it. */
+  public void removeFile(String tsFilePath) {
+    lruCache.asMap().keySet().removeIf(key -> tsFilePath.equals(key.filePath));
+  }
+
   @TestOnly
   public boolean isEmpty() {
     return lruCache.asMap().isEmpty();
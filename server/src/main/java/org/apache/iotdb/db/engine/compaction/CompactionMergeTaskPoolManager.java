@@ -21,8 +21,10 @@ package org.apache.iotdb.db.engine.compaction;
 
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.db.utils.FilePathUtils;
 import org.apache.iotdb.db.utils.TestOnly;
@@ -42,18 +44,27 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import static org.apache.iotdb.db.engine.compaction.utils.CompactionLogger.COMPACTION_LOG_NAME;
 
-/** CompactionMergeTaskPoolManager provides a ThreadPool to queue and run all compaction tasks. */
-public class CompactionMergeTaskPoolManager implements IService {
+/**
+ * CompactionMergeTaskPoolManager provides a ThreadPool to queue and run all compaction tasks, and a
+ * sub-task ThreadPool to merge the devices of a compaction task in parallel.
+ */
+public class CompactionMergeTaskPoolManager
+    implements IService, CompactionMergeTaskPoolManagerMBean {
 
   private static final Logger logger =
       LoggerFactory.getLogger(CompactionMergeTaskPoolManager.class);
   private static final CompactionMergeTaskPoolManager INSTANCE =
       new CompactionMergeTaskPoolManager();
+  private final String mbeanName =
+      String.format(
+          "%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE, getID().getJmxName());
   private ExecutorService pool;
+  private ExecutorService subTaskPool;
   private Map<String, Set<Future<Void>>> storageGroupTasks = new ConcurrentHashMap<>();
 
   public static CompactionMergeTaskPoolManager getInstance() {
@@ -62,11 +73,19 @@ public class CompactionMergeTaskPoolManager implements IService {
 
   @Override
   public void start() {
+    JMXService.registerMBean(this, mbeanName);
     if (pool == null) {
+      int threadNum = IoTDBDescriptor.getInstance().getConfig().getCompactionThreadNum();
       this.pool =
           IoTDBThreadPoolFactory.newScheduledThreadPool(
-              IoTDBDescriptor.getInstance().getConfig().getCompactionThreadNum(),
-              ThreadName.COMPACTION_SERVICE.getName());
+              threadNum, ThreadName.COMPACTION_SERVICE.getName());
+      int subThreadNum =
+          IoTDBDescriptor.getInstance().getConfig().getCompactionDeviceSubThreadNum();
+      if (subThreadNum > 1) {
+        this.subTaskPool =
+            IoTDBThreadPoolFactory.newFixedThreadPool(
+                threadNum * subThreadNum, ThreadName.COMPACTION_SUB_SERVICE.getName());
+      }
     }
     logger.info("Compaction task manager started.");
   }
@@ -75,20 +94,28 @@ public class CompactionMergeTaskPoolManager implements IService {
   public void stop() {
     if (pool != null) {
       pool.shutdownNow();
+      if (subTaskPool != null) {
+        subTaskPool.shutdownNow();
+      }
       logger.info("Waiting for task pool to shut down");
       waitTermination();
       storageGroupTasks.clear();
     }
+    JMXService.deregisterMBean(mbeanName);
   }
 
   @Override
   public void waitAndStop(long milliseconds) {
     if (pool != null) {
       awaitTermination(pool, milliseconds);
+      if (subTaskPool != null) {
+        awaitTermination(subTaskPool, milliseconds);
+      }
       logger.info("Waiting for task pool to shut down");
       waitTermination();
       storageGroupTasks.clear();
     }
+    JMXService.deregisterMBean(mbeanName);
   }
 
   @TestOnly
@@ -103,13 +130,8 @@ public class CompactionMergeTaskPoolManager implements IService {
       File[] subDirList = sgDir.listFiles();
       if (subDirList != null) {
         for (File subDir : subDirList) {
-          while (FSFactoryProducer.getFSFactory()
-              .getFile(
-                  subDir.getAbsoluteFile()
-                      + File.separator
-                      + subDir.getName()
-                      + COMPACTION_LOG_NAME)
-              .exists()) {
+          // the storage group log and the logs of each time partition
+          while (hasCompactionLog(subDir)) {
             // wait
           }
         }
@@ -119,9 +141,17 @@ public class CompactionMergeTaskPoolManager implements IService {
     }
   }
 
+  private boolean hasCompactionLog(File storageGroupDir) {
+    File[] logFiles =
+        storageGroupDir.listFiles(
+            (dir, name) ->
+                name.startsWith(storageGroupDir.getName()) && name.endsWith(COMPACTION_LOG_NAME));
+    return logFiles != null && logFiles.length > 0;
+  }
+
   private void waitTermination() {
     long startTime = System.currentTimeMillis();
-    while (!pool.isTerminated()) {
+    while (!pool.isTerminated() || subTaskPool != null && !subTaskPool.isTerminated()) {
       int timeMillis = 0;
       try {
         Thread.sleep(200);
@@ -139,6 +169,7 @@ public class CompactionMergeTaskPoolManager implements IService {
       }
     }
     pool = null;
+    subTaskPool = null;
     storageGroupTasks.clear();
     logger.info("CompactionManager stopped");
   }
@@ -172,6 +203,24 @@ public class CompactionMergeTaskPoolManager implements IService {
     }
   }
 
+  /**
+   * Submit a sub-task of a running compaction task, e.g., merging one device.
+   *
+   * @return the future of the sub-task, or null if sub-tasks are disabled or the pool is stopped,
+   *     in which case the caller should run the sub-task by itself
+   */
+  public <T> Future<T> submitSubTask(Callable<T> subTask) {
+    ExecutorService currentSubTaskPool = subTaskPool;
+    if (currentSubTaskPool == null || currentSubTaskPool.isShutdown()) {
+      return null;
+    }
+    try {
+      return currentSubTaskPool.submit(subTask);
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+  }
+
   /**
    * Abort all compactions of a storage group. The caller must acquire the write lock of the
    * corresponding storage group.
@@ -192,4 +241,35 @@ public class CompactionMergeTaskPoolManager implements IService {
   public boolean isTerminated() {
     return pool == null || pool.isTerminated();
   }
+
+  @Override
+  public int getRunningTaskNum() {
+    return pool == null ? 0 : ((ThreadPoolExecutor) pool).getActiveCount();
+  }
+
+  @Override
+  public int getWaitingTaskNum() {
+    return pool == null ? 0 : ((ThreadPoolExecutor) pool).getQueue().size();
+  }
+
+  @Override
+  public long getCompletedTaskNum() {
+    return pool == null ? 0 : ((ThreadPoolExecutor) pool).getCompletedTaskCount();
+  }
+
+  @Override
+  public int getRunningSubTaskNum() {
+    ExecutorService currentSubTaskPool = subTaskPool;
+    return currentSubTaskPool == null
+        ? 0
+        : ((ThreadPoolExecutor) currentSubTaskPool).getActiveCount();
+  }
+
+  @Override
+  public int getWaitingSubTaskNum() {
+    ExecutorService currentSubTaskPool = subTaskPool;
+    return currentSubTaskPool == null
+        ? 0
+        : ((ThreadPoolExecutor) currentSubTaskPool).getQueue().size();
+  }
 }
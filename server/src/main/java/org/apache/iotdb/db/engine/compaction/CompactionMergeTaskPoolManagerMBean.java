@@ -17,31 +17,20 @@
  * under the License.
  */
 
-package org.apache.iotdb.db.metadata.lastCache.container.value;
+package org.apache.iotdb.db.engine.compaction;
 
-import org.apache.iotdb.tsfile.read.TimeValuePair;
-import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+public interface CompactionMergeTaskPoolManagerMBean {
 
-// this interface declares the simplest storage operation of lastCacheValue
-public interface ILastCacheValue {
+  /** the number of compaction tasks that are running */
+  int getRunningTaskNum();
 
-  long getTimestamp();
+  /** the number of compaction tasks waiting for a thread, i.e., the compaction backlog */
+  int getWaitingTaskNum();
 
-  void setTimestamp(long timestamp);
+  long getCompletedTaskNum();
 
-  void setValue(TsPrimitiveType value);
+  /** the number of devices being merged by the sub-task threads */
+  int getRunningSubTaskNum();
 
-  TimeValuePair getTimeValuePair();
-
-  int getSize();
-
-  long getTimestamp(int index);
-
-  void setTimestamp(int index, long timestamp);
-
-  TsPrimitiveType getValue(int index);
-
-  void setValue(int index, TsPrimitiveType value);
-
-  TimeValuePair getTimeValuePair(int index);
+  int getWaitingSubTaskNum();
 }
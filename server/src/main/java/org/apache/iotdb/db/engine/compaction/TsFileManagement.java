@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.engine.compaction;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
@@ -33,8 +34,13 @@ import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.CloseCompactionMergeCallBack;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceIndex;
+import org.apache.iotdb.db.engine.storagegroup.timeindex.TimeIndexLevel;
 import org.apache.iotdb.db.exception.MergeException;
+import org.apache.iotdb.db.utils.TimeValuePairUtils;
+import org.apache.iotdb.db.utils.TimeValuePairUtils.Intervals;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,9 +48,12 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -63,7 +72,8 @@ public abstract class TsFileManagement {
   private final ReadWriteLock compactionMergeLock = new ReentrantReadWriteLock();
 
   public volatile boolean isUnseqMerging = false;
-  public volatile boolean isSeqMerging = false;
+  /** the number of the time partitions doing level compaction */
+  private final AtomicInteger seqMergingCount = new AtomicInteger();
   /**
    * This is the modification file of the result of the current merge. Because the merged file may
    * be invisible at this moment, without this, deletion/update during merge could be lost.
@@ -72,16 +82,27 @@ public abstract class TsFileManagement {
 
   private long mergeStartTime;
 
-  /** whether execute merge chunk in this task */
-  protected boolean isMergeExecutedInCurrentTask = false;
-
   protected boolean isForceFullMerge = IoTDBDescriptor.getInstance().getConfig().isForceFullMerge();
   private final int maxOpenFileNumInEachUnseqCompaction =
       IoTDBDescriptor.getInstance().getConfig().getMaxOpenFileNumInEachUnseqCompaction();
 
+  /** indexes of the sequence and unsequence files by device, null if disabled */
+  private final TsFileResourceIndex sequenceFileIndex;
+
+  private final TsFileResourceIndex unSequenceFileIndex;
+
   public TsFileManagement(String storageGroupName, String storageGroupDir) {
     this.storageGroupName = storageGroupName;
     this.storageGroupDir = storageGroupDir;
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    if (config.isEnableTsFileResourceIndex()
+        && config.getTimeIndexLevel() == TimeIndexLevel.DEVICE_TIME_INDEX) {
+      sequenceFileIndex = new TsFileResourceIndex();
+      unSequenceFileIndex = new TsFileResourceIndex();
+    } else {
+      sequenceFileIndex = null;
+      unSequenceFileIndex = null;
+    }
   }
 
   public void setForceFullMerge(boolean forceFullMerge) {
@@ -99,6 +120,57 @@ public abstract class TsFileManagement {
   public abstract List<TsFileResource> getTsFileListByTimePartition(
       boolean sequence, long timePartition);
 
+  /**
+   * get the TsFiles that may contain data of the device satisfying the time filter, in the time
+   * order of the device if they are found by the index. The caller still has to check each file.
+   */
+  public List<TsFileResource> getTsFileListForQuery(
+      String deviceId, Filter timeFilter, boolean sequence) {
+    TsFileResourceIndex index = sequence ? sequenceFileIndex : unSequenceFileIndex;
+    if (index == null) {
+      return getTsFileList(sequence);
+    }
+    Intervals intervals = TimeValuePairUtils.extractTimeInterval(timeFilter);
+    if (intervals.getIntervalSize() == 0) {
+      return Collections.emptyList();
+    }
+    List<TsFileResource> result =
+        index.query(
+            deviceId,
+            intervals.getLowerBound(0),
+            intervals.getUpperBound(intervals.getIntervalSize() - 1));
+    return result != null ? result : getTsFileList(sequence);
+  }
+
+  /** add the TsFile to the index, or re-index it after its time ranges are changed */
+  protected void addToIndex(TsFileResource tsFileResource, boolean sequence) {
+    TsFileResourceIndex index = sequence ? sequenceFileIndex : unSequenceFileIndex;
+    if (index != null) {
+      index.add(tsFileResource);
+    }
+  }
+
+  protected void removeFromIndex(TsFileResource tsFileResource, boolean sequence) {
+    TsFileResourceIndex index = sequence ? sequenceFileIndex : unSequenceFileIndex;
+    if (index != null) {
+      index.remove(tsFileResource);
+    }
+  }
+
+  protected void removeFromIndex(Collection<TsFileResource> tsFileResources, boolean sequence) {
+    TsFileResourceIndex index = sequence ? sequenceFileIndex : unSequenceFileIndex;
+    if (index != null) {
+      index.removeAll(tsFileResources);
+    }
+  }
+
+  protected void clearIndex() {
+    if (sequenceFileIndex != null) {
+      sequenceFileIndex.clear();
+      unSequenceFileIndex.clear();
+    }
+  }
+
   /** get the TsFile list iterator in sequence */
   public abstract Iterator<TsFileResource> getIterator(boolean sequence);
 
@@ -155,23 +227,65 @@ public abstract class TsFileManagement {
     return compactionMergeLock.writeLock().tryLock();
   }
 
-  protected abstract void merge(long timePartition);
+  /**
+   * compact the files of the time partition forked by forkCurrentFileList, compactions of different
+   * time partitions may run at the same time
+   *
+   * @param fullMerge whether the unseq merge of this task, if any, rewrites whole files
+   * @return whether a merge is executed in this task
+   */
+  protected abstract boolean merge(long timePartition, boolean fullMerge);
+
+  public boolean isSeqMerging() {
+    return seqMergingCount.get() > 0;
+  }
+
+  /**
+   * Start a level compaction unless an unseq merge is running. Synchronized with the unseq merge
+   * so that they never run at the same time.
+   *
+   * @return false if the level compaction should wait
+   */
+  protected synchronized boolean tryStartSeqMerging() {
+    if (isUnseqMerging) {
+      return false;
+    }
+    seqMergingCount.incrementAndGet();
+    return true;
+  }
+
+  protected void endSeqMerging() {
+    seqMergingCount.decrementAndGet();
+  }
 
   public class CompactionMergeTask implements Callable<Void> {
 
     private CloseCompactionMergeCallBack closeCompactionMergeCallBack;
     private long timePartitionId;
+    private boolean fullMerge;
 
     public CompactionMergeTask(
         CloseCompactionMergeCallBack closeCompactionMergeCallBack, long timePartitionId) {
+      this(closeCompactionMergeCallBack, timePartitionId, isForceFullMerge);
+    }
+
+    public CompactionMergeTask(
+        CloseCompactionMergeCallBack closeCompactionMergeCallBack,
+        long timePartitionId,
+        boolean fullMerge) {
       this.closeCompactionMergeCallBack = closeCompactionMergeCallBack;
       this.timePartitionId = timePartitionId;
+      this.fullMerge = fullMerge;
     }
 
     @Override
     public Void call() {
-      merge(timePartitionId);
-      closeCompactionMergeCallBack.call(isMergeExecutedInCurrentTask, timePartitionId);
+      boolean isMergeExecutedInCurrentTask = false;
+      try {
+        isMergeExecutedInCurrentTask = merge(timePartitionId, fullMerge);
+      } finally {
+        closeCompactionMergeCallBack.call(isMergeExecutedInCurrentTask, timePartitionId);
+      }
       return null;
     }
   }
@@ -208,8 +322,8 @@ public abstract class TsFileManagement {
       }
       return;
     }
-    // wait until seq merge has finished
-    while (isSeqMerging) {
+    // wait until the seq merges of all time partitions have finished
+    while (isSeqMerging()) {
       try {
         wait(200);
       } catch (InterruptedException e) {
@@ -218,6 +332,10 @@ public abstract class TsFileManagement {
         return;
       }
     }
+    // the monitor is released while waiting, another partition may have started an unseq merge
+    if (isUnseqMerging) {
+      return;
+    }
     isUnseqMerging = true;
 
     if (seqMergeList.isEmpty()) {
@@ -340,8 +458,10 @@ public abstract class TsFileManagement {
       removeAll(unseqFiles, false);
       // clean cache
       if (IoTDBDescriptor.getInstance().getConfig().isMetaDataCacheEnable()) {
-        ChunkCache.getInstance().clear();
-        TimeSeriesMetadataCache.getInstance().clear();
+        for (TsFileResource unseqFile : unseqFiles) {
+          ChunkCache.getInstance().removeFile(unseqFile.getTsFilePath());
+          TimeSeriesMetadataCache.getInstance().removeFile(unseqFile.getTsFilePath());
+        }
       }
     } finally {
       writeUnlock();
@@ -406,6 +526,13 @@ public abstract class TsFileManagement {
       logger.info("{} a merge task abnormally ends", storageGroupName);
       return;
     }
+    // the merge has rewritten the time ranges of the seq files, they must cover the data of the
+    // unseq files before the unseq files are removed
+    for (TsFileResource seqFile : seqFiles) {
+      if (contains(seqFile, true)) {
+        addToIndex(seqFile, true);
+      }
+    }
     removeUnseqFiles(unseqFiles);
 
     for (int i = 0; i < seqFiles.size(); i++) {
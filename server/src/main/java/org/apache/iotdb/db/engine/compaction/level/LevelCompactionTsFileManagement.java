@@ -28,6 +28,7 @@ import org.apache.iotdb.db.engine.compaction.utils.CompactionLogger;
 import org.apache.iotdb.db.engine.compaction.utils.CompactionUtils;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.query.control.FileReaderManager;
@@ -51,6 +52,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.iotdb.db.conf.IoTDBConstant.FILE_NAME_SEPARATOR;
 import static org.apache.iotdb.db.engine.compaction.utils.CompactionLogger.COMPACTION_LOG_NAME;
@@ -84,8 +86,12 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
       new TreeMap<>();
 
   private final Map<Long, List<List<TsFileResource>>> unSequenceTsFileResources = new TreeMap<>();
-  private final List<List<TsFileResource>> forkedSequenceTsFileResources = new ArrayList<>();
-  private final List<List<TsFileResource>> forkedUnSequenceTsFileResources = new ArrayList<>();
+  /** time partition -> forked file level list, removed when the compaction of the partition runs */
+  private final Map<Long, List<List<TsFileResource>>> forkedSequenceTsFileResources =
+      new ConcurrentHashMap<>();
+
+  private final Map<Long, List<List<TsFileResource>>> forkedUnSequenceTsFileResources =
+      new ConcurrentHashMap<>();
   private final List<TsFileResource> sequenceRecoverTsFileResources = new ArrayList<>();
   private final List<TsFileResource> unSequenceRecoverTsFileResources = new ArrayList<>();
 
@@ -124,6 +130,38 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
     }
   }
 
+  /**
+   * Merge the rollups of the source files into a rollup file of the target file. Only done when
+   * every source file has rollups and no deletion was applied by the compaction, as the rollups do
+   * not reflect deleted points; otherwise the target file is read from raw data.
+   */
+  private void mergeRollups(
+      List<TsFileResource> sourceFiles,
+      TsFileResource targetFile,
+      List<Modification> appliedModifications) {
+    if (!appliedModifications.isEmpty()) {
+      return;
+    }
+    long[] intervals = IoTDBDescriptor.getInstance().getConfig().getRollupIntervals();
+    TsFileRollup targetRollup = new TsFileRollup(intervals);
+    try {
+      for (TsFileResource sourceFile : sourceFiles) {
+        if (!TsFileRollup.exists(sourceFile.getTsFile())) {
+          return;
+        }
+        targetRollup.merge(TsFileRollup.deserialize(sourceFile.getTsFile(), intervals));
+      }
+      targetRollup.serialize(targetFile.getTsFile());
+    } catch (IOException e) {
+      logger.warn("{} [Compaction] cannot merge rollups into {}", storageGroupName, targetFile, e);
+      try {
+        TsFileRollup.remove(targetFile);
+      } catch (IOException e1) {
+        logger.error("{} [Compaction] cannot remove rollups of {}", storageGroupName, targetFile);
+      }
+    }
+  }
+
   private void deleteLevelFilesInDisk(Collection<TsFileResource> mergeTsFiles) {
     logger.debug("{} [compaction] merge starts to delete real file", storageGroupName);
     for (TsFileResource mergeTsFile : mergeTsFiles) {
@@ -142,20 +180,22 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
           sequenceTsFileResources.get(timePartitionId).get(level).removeAll(mergeTsFiles);
         }
       }
+      removeFromIndex(mergeTsFiles, true);
     } else {
       if (unSequenceTsFileResources.containsKey(timePartitionId)) {
         if (unSequenceTsFileResources.get(timePartitionId).size() > level) {
           unSequenceTsFileResources.get(timePartitionId).get(level).removeAll(mergeTsFiles);
         }
       }
+      removeFromIndex(mergeTsFiles, false);
     }
   }
 
   private void deleteLevelFile(TsFileResource seqFile) {
     seqFile.writeLock();
     try {
-      ChunkCache.getInstance().clear();
-      TimeSeriesMetadataCache.getInstance().clear();
+      ChunkCache.getInstance().removeFile(seqFile.getTsFilePath());
+      TimeSeriesMetadataCache.getInstance().removeFile(seqFile.getTsFilePath());
       FileReaderManager.getInstance().closeFileAndRemoveReader(seqFile.getTsFilePath());
       seqFile.setDeleted(true);
       seqFile.delete();
@@ -235,6 +275,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
           unSequenceTsFileResource.remove(tsFileResource);
         }
       }
+      removeFromIndex(tsFileResource, sequence);
     } finally {
       writeUnlock();
     }
@@ -259,6 +300,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
           }
         }
       }
+      removeFromIndex(tsFileResourceList, sequence);
     } finally {
       writeUnlock();
     }
@@ -299,6 +341,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
               .add(tsFileResource);
         }
       }
+      addToIndex(tsFileResource, sequence);
     } finally {
       writeUnlock();
     }
@@ -358,6 +401,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
     try {
       sequenceTsFileResources.clear();
       unSequenceTsFileResources.clear();
+      clearIndex();
     } finally {
       writeUnlock();
     }
@@ -419,13 +463,25 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
     }
   }
 
-  /** recover files */
+  /** recover files from the log of the storage group and the logs of each time partition */
   @Override
-  @SuppressWarnings({"squid:S3776", "squid:S2142"})
   public void recover() {
-    File logFile =
+    File[] logFiles =
         FSFactoryProducer.getFSFactory()
-            .getFile(storageGroupDir, storageGroupName + COMPACTION_LOG_NAME);
+            .getFile(storageGroupDir)
+            .listFiles(
+                (dir, name) ->
+                    name.startsWith(storageGroupName) && name.endsWith(COMPACTION_LOG_NAME));
+    if (logFiles == null) {
+      return;
+    }
+    for (File logFile : logFiles) {
+      recover(logFile);
+    }
+  }
+
+  @SuppressWarnings({"squid:S3776", "squid:S2142"})
+  private void recover(File logFile) {
     try {
       if (logFile.exists()) {
         CompactionLogAnalyzer logAnalyzer = new CompactionLogAnalyzer(logFile);
@@ -458,8 +514,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
               writer.getIOWriterOut().truncate(offset - 1);
             }
             writer.close();
-            CompactionLogger compactionLogger =
-                new CompactionLogger(storageGroupDir, storageGroupName);
+            CompactionLogger compactionLogger = new CompactionLogger(logFile);
             List<Modification> modifications = new ArrayList<>();
             CompactionUtils.merge(
                 targetTsFileResource,
@@ -492,8 +547,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
               writer.getIOWriterOut().truncate(offset - 1);
             }
             writer.close();
-            CompactionLogger compactionLogger =
-                new CompactionLogger(storageGroupDir, storageGroupName);
+            CompactionLogger compactionLogger = new CompactionLogger(logFile);
             List<Modification> modifications = new ArrayList<>();
             CompactionUtils.merge(
                 targetResource,
@@ -518,6 +572,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
                 unSequenceTsFileResources.get(timePartition).get(targetLevel).add(targetResource);
                 unSequenceRecoverTsFileResources.clear();
               }
+              addToIndex(targetResource, isSeq);
               deleteLevelFilesInList(timePartition, sourceTsFileResources, level, isSeq);
             } finally {
               writeUnlock();
@@ -563,26 +618,29 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
 
   @Override
   public void forkCurrentFileList(long timePartition) {
-    readLock();
+    // the write lock is needed as the list of a new time partition may be created
+    writeLock();
     try {
-      forkTsFileList(
-          forkedSequenceTsFileResources,
-          sequenceTsFileResources.computeIfAbsent(timePartition, this::newSequenceTsFileResources),
-          seqLevelNum);
+      forkedSequenceTsFileResources.put(
+          timePartition,
+          forkTsFileList(
+              sequenceTsFileResources.computeIfAbsent(
+                  timePartition, this::newSequenceTsFileResources),
+              seqLevelNum));
       // we have to copy all unseq file
-      forkTsFileList(
-          forkedUnSequenceTsFileResources,
-          unSequenceTsFileResources.computeIfAbsent(
-              timePartition, this::newUnSequenceTsFileResources),
-          unseqLevelNum + 1);
+      forkedUnSequenceTsFileResources.put(
+          timePartition,
+          forkTsFileList(
+              unSequenceTsFileResources.computeIfAbsent(
+                  timePartition, this::newUnSequenceTsFileResources),
+              unseqLevelNum + 1));
     } finally {
-      readUnLock();
+      writeUnlock();
     }
   }
 
-  private void forkTsFileList(
-      List<List<TsFileResource>> forkedTsFileResources, List rawTsFileResources, int currMaxLevel) {
-    forkedTsFileResources.clear();
+  private List<List<TsFileResource>> forkTsFileList(List rawTsFileResources, int currMaxLevel) {
+    List<List<TsFileResource>> forkedTsFileResources = new ArrayList<>();
     for (int i = 0; i < currMaxLevel - 1; i++) {
       List<TsFileResource> forkedLevelTsFileResources = new ArrayList<>();
       Collection<TsFileResource> levelRawTsFileResources =
@@ -594,31 +652,46 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
       }
       forkedTsFileResources.add(forkedLevelTsFileResources);
     }
+    return forkedTsFileResources;
   }
 
   @Override
-  protected void merge(long timePartition) {
-    isMergeExecutedInCurrentTask =
+  protected boolean merge(long timePartition, boolean fullMerge) {
+    List<List<TsFileResource>> forkedSequenceFiles =
+        forkedSequenceTsFileResources.remove(timePartition);
+    List<List<TsFileResource>> forkedUnSequenceFiles =
+        forkedUnSequenceTsFileResources.remove(timePartition);
+    if (forkedSequenceFiles == null || forkedUnSequenceFiles == null) {
+      logger.warn(
+          "{} [Compaction] time partition {} is not forked", storageGroupName, timePartition);
+      return false;
+    }
+    boolean isMergeExecutedInCurrentTask =
         merge(
-            forkedSequenceTsFileResources, true, timePartition, seqLevelNum, seqFileNumInEachLevel);
-    if (enableUnseqCompaction
-        && unseqLevelNum <= 1
-        && forkedUnSequenceTsFileResources.get(0).size() > 0) {
+            forkedSequenceFiles,
+            true,
+            timePartition,
+            seqLevelNum,
+            seqFileNumInEachLevel,
+            fullMerge);
+    if (enableUnseqCompaction && unseqLevelNum <= 1 && !forkedUnSequenceFiles.get(0).isEmpty()) {
       isMergeExecutedInCurrentTask = true;
       merge(
-          isForceFullMerge,
+          fullMerge,
           getTsFileListByTimePartition(true, timePartition),
-          forkedUnSequenceTsFileResources.get(0),
+          forkedUnSequenceFiles.get(0),
           Long.MAX_VALUE);
     } else {
-      isMergeExecutedInCurrentTask =
+      isMergeExecutedInCurrentTask |=
           merge(
-              forkedUnSequenceTsFileResources,
+              forkedUnSequenceFiles,
               false,
               timePartition,
               unseqLevelNum,
-              unseqFileNumInEachLevel);
+              unseqFileNumInEachLevel,
+              fullMerge);
     }
+    return isMergeExecutedInCurrentTask;
   }
 
   @SuppressWarnings("squid:S3776")
@@ -627,9 +700,10 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
       boolean sequence,
       long timePartition,
       int currMaxLevel,
-      int currMaxFileNumInEachLevel) {
+      int currMaxFileNumInEachLevel,
+      boolean fullMerge) {
     // wait until unseq merge has finished
-    while (isUnseqMerging) {
+    while (!tryStartSeqMerging()) {
       try {
         Thread.sleep(200);
       } catch (InterruptedException e) {
@@ -638,11 +712,13 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
         return false;
       }
     }
-    isSeqMerging = true;
+    boolean isSeqMerging = true;
     long startTimeMillis = System.currentTimeMillis();
     // whether execute merge chunk in the loop below
     boolean isMergeExecutedInCurrentTask = false;
     CompactionLogger compactionLogger = null;
+    File logFile =
+        CompactionLogger.getPartitionLogFile(storageGroupDir, storageGroupName, timePartition);
     try {
       logger.info("{} start to filter compaction condition", storageGroupName);
       for (int i = 0; i < currMaxLevel - 1; i++) {
@@ -655,13 +731,14 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
             // do not merge current unseq file level to upper level and just merge all of them to
             // seq file
             isSeqMerging = false;
+            endSeqMerging();
             merge(
-                isForceFullMerge,
+                fullMerge,
                 getTsFileListByTimePartition(true, timePartition),
                 mergeResources.get(i),
                 Long.MAX_VALUE);
           } else {
-            compactionLogger = new CompactionLogger(storageGroupDir, storageGroupName);
+            compactionLogger = new CompactionLogger(logFile);
             // log source file list and target file for recover
             for (TsFileResource mergeResource : mergeResources.get(i)) {
               mergeResource.setMerging(true);
@@ -694,6 +771,9 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
                 new HashSet<>(),
                 sequence,
                 modifications);
+            if (sequence && IoTDBDescriptor.getInstance().getConfig().isEnableRollup()) {
+              mergeRollups(toMergeTsFiles, newResource, modifications);
+            }
             logger.info(
                 "{} [Compaction] merged level-{}'s {} TsFiles to next level, and start to delete old files",
                 storageGroupName,
@@ -711,6 +791,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
               } else {
                 unSequenceTsFileResources.get(timePartition).get(i + 1).add(newResource);
               }
+              addToIndex(newResource, sequence);
               deleteLevelFilesInList(timePartition, toMergeTsFiles, i, sequence);
               if (mergeResources.size() > i + 1) {
                 mergeResources.get(i + 1).add(newResource);
@@ -721,9 +802,6 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
             deleteLevelFilesInDisk(toMergeTsFiles);
             renameLevelFilesMods(modifications, toMergeTsFiles, newResource);
             compactionLogger.close();
-            File logFile =
-                FSFactoryProducer.getFSFactory()
-                    .getFile(storageGroupDir, storageGroupName + COMPACTION_LOG_NAME);
             if (logFile.exists()) {
               Files.delete(logFile.toPath());
             }
@@ -735,13 +813,15 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
         try {
           compactionLogger.close();
         } catch (IOException ioException) {
-          logger.error("{} Compaction log close fail", storageGroupName + COMPACTION_LOG_NAME);
+          logger.error("{} Compaction log close fail", logFile);
         }
       }
-      restoreCompaction();
+      restoreCompaction(logFile);
       logger.error("Error occurred in Compaction Merge thread", e);
     } finally {
-      isSeqMerging = false;
+      if (isSeqMerging) {
+        endSeqMerging();
+      }
       // reset the merge working state to false
       logger.info(
           "{} [Compaction] merge end time isSeq = {}, consumption: {} ms",
@@ -840,10 +920,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
   }
 
   /** restore the files back to the status before the compaction task is submitted */
-  private void restoreCompaction() {
-    File logFile =
-        FSFactoryProducer.getFSFactory()
-            .getFile(storageGroupDir, storageGroupName + COMPACTION_LOG_NAME);
+  private void restoreCompaction(File logFile) {
     try {
       if (logFile.exists()) {
         CompactionLogAnalyzer logAnalyzer = new CompactionLogAnalyzer(logFile);
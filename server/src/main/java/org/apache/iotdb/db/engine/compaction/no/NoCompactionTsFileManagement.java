@@ -107,6 +107,7 @@ public class NoCompactionTsFileManagement extends TsFileManagement {
             unSequenceFileListMap.get(tsFileResource.getTimePartition());
         unSequenceFileList.remove(tsFileResource);
       }
+      removeFromIndex(tsFileResource, sequence);
     } finally {
       writeUnlock();
     }
@@ -151,6 +152,7 @@ public class NoCompactionTsFileManagement extends TsFileManagement {
               .get(currTimePartition)
               .removeAll(tsFileResourceList.subList(startIndex, tsFileResourceList.size()));
         }
+        removeFromIndex(tsFileResourceList, sequence);
       }
     } finally {
       writeUnlock();
@@ -171,6 +173,7 @@ public class NoCompactionTsFileManagement extends TsFileManagement {
             .computeIfAbsent(timePartitionId, this::newUnSequenceTsFileResources)
             .add(tsFileResource);
       }
+      addToIndex(tsFileResource, sequence);
     } finally {
       writeUnlock();
     }
@@ -217,6 +220,7 @@ public class NoCompactionTsFileManagement extends TsFileManagement {
     try {
       sequenceFileTreeSetMap.clear();
       unSequenceFileListMap.clear();
+      clearIndex();
     } finally {
       writeUnlock();
     }
@@ -276,8 +280,9 @@ public class NoCompactionTsFileManagement extends TsFileManagement {
   }
 
   @Override
-  protected void merge(long timePartition) {
+  protected boolean merge(long timePartition, boolean fullMerge) {
     logger.info("{} no merge logic", storageGroupName);
+    return false;
   }
 
   private TreeSet<TsFileResource> newSequenceTsFileResources(Long k) {
@@ -39,12 +39,23 @@ public class CompactionLogger {
   private BufferedWriter logStream;
 
   public CompactionLogger(String storageGroupDir, String storageGroupName) throws IOException {
-    logStream =
-        new BufferedWriter(
-            new FileWriter(
-                SystemFileFactory.INSTANCE.getFile(
-                    storageGroupDir, storageGroupName + COMPACTION_LOG_NAME),
-                true));
+    this(
+        SystemFileFactory.INSTANCE.getFile(
+            storageGroupDir, storageGroupName + COMPACTION_LOG_NAME));
+  }
+
+  public CompactionLogger(File logFile) throws IOException {
+    logStream = new BufferedWriter(new FileWriter(logFile, true));
+  }
+
+  /**
+   * Each time partition has its own log, as the compactions of different time partitions may run
+   * at the same time. The logs are named "{storageGroupName}-{timePartition}.compaction.log".
+   */
+  public static File getPartitionLogFile(
+      String storageGroupDir, String storageGroupName, long timePartition) {
+    return SystemFileFactory.INSTANCE.getFile(
+        storageGroupDir, storageGroupName + "-" + timePartition + COMPACTION_LOG_NAME);
   }
 
   public void close() throws IOException {
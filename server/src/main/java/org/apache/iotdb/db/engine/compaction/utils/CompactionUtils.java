@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.engine.compaction.utils;
 
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionMergeTaskPoolManager;
 import org.apache.iotdb.db.engine.compaction.TsFileManagement;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.modification.Modification;
@@ -49,8 +50,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -60,6 +65,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.iotdb.db.utils.MergeUtils.writeTVPair;
 import static org.apache.iotdb.db.utils.QueryUtils.modifyChunkMetaData;
@@ -72,6 +83,18 @@ public class CompactionUtils {
     throw new IllegalStateException("Utility class");
   }
 
+  private static long getChunkSize(Chunk chunk) {
+    return (long) chunk.getHeader().getDataSize() + chunk.getData().position();
+  }
+
+  /** read a chunk and wait for the read throughput shared by compaction and merge */
+  private static Chunk readChunk(TsFileSequenceReader reader, ChunkMetadata chunkMetadata)
+      throws IOException {
+    Chunk chunk = reader.readMemChunk(chunkMetadata);
+    MergeManager.getINSTANCE().acquireReadThroughput(getChunkSize(chunk));
+    return chunk;
+  }
+
   private static Pair<ChunkMetadata, Chunk> readByAppendPageMerge(
       Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap) throws IOException {
     ChunkMetadata newChunkMetadata = null;
@@ -81,7 +104,7 @@ public class CompactionUtils {
       TsFileSequenceReader reader = entry.getKey();
       List<ChunkMetadata> chunkMetadataList = entry.getValue();
       for (ChunkMetadata chunkMetadata : chunkMetadataList) {
-        Chunk chunk = reader.readMemChunk(chunkMetadata);
+        Chunk chunk = readChunk(reader, chunkMetadata);
         if (newChunkMetadata == null) {
           newChunkMetadata = chunkMetadata;
           newChunk = chunk;
@@ -108,7 +131,7 @@ public class CompactionUtils {
       modifyChunkMetaDataWithCache(
           reader, chunkMetadataList, modificationCache, seriesPath, modifications);
       for (ChunkMetadata chunkMetadata : chunkMetadataList) {
-        IChunkReader chunkReader = new ChunkReaderByTimestamp(reader.readMemChunk(chunkMetadata));
+        IChunkReader chunkReader = new ChunkReaderByTimestamp(readChunk(reader, chunkMetadata));
         while (chunkReader.hasNextSatisfiedPage()) {
           IPointReader iPointReader = new BatchDataIterator(chunkReader.nextPageData());
           while (iPointReader.hasNextTimeValuePair()) {
@@ -131,6 +154,15 @@ public class CompactionUtils {
       TsFileResource targetResource,
       RestorableTsFileIOWriter writer)
       throws IOException {
+    writeByAppendChunkMerge(
+        entry,
+        new TargetFileConsumer(device, compactionWriteRateLimiter, targetResource, writer));
+  }
+
+  private static void writeByAppendChunkMerge(
+      Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry,
+      MergedChunkConsumer consumer)
+      throws IOException {
     Map<TsFileSequenceReader, List<ChunkMetadata>> readerListMap = entry.getValue();
     for (Entry<TsFileSequenceReader, List<ChunkMetadata>> readerListEntry :
         readerListMap.entrySet()) {
@@ -138,13 +170,7 @@ public class CompactionUtils {
       List<ChunkMetadata> chunkMetadataList = readerListEntry.getValue();
       // read chunk and write it to new file directly
       for (ChunkMetadata chunkMetadata : chunkMetadataList) {
-        Chunk chunk = reader.readMemChunk(chunkMetadata);
-        MergeManager.mergeRateLimiterAcquire(
-            compactionWriteRateLimiter,
-            (long) chunk.getHeader().getDataSize() + chunk.getData().position());
-        writer.writeChunk(chunk, chunkMetadata);
-        targetResource.updateStartTime(device, chunkMetadata.getStartTime());
-        targetResource.updateEndTime(device, chunkMetadata.getEndTime());
+        consumer.write(readChunk(reader, chunkMetadata), chunkMetadata);
       }
     }
   }
@@ -156,17 +182,20 @@ public class CompactionUtils {
       TsFileResource targetResource,
       RestorableTsFileIOWriter writer)
       throws IOException {
+    writeByAppendPageMerge(
+        entry,
+        new TargetFileConsumer(device, compactionWriteRateLimiter, targetResource, writer));
+  }
+
+  private static void writeByAppendPageMerge(
+      Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry,
+      MergedChunkConsumer consumer)
+      throws IOException {
     Pair<ChunkMetadata, Chunk> chunkPair = readByAppendPageMerge(entry.getValue());
     ChunkMetadata newChunkMetadata = chunkPair.left;
     Chunk newChunk = chunkPair.right;
     if (newChunkMetadata != null && newChunk != null) {
-      // wait for limit write
-      MergeManager.mergeRateLimiterAcquire(
-          compactionWriteRateLimiter,
-          (long) newChunk.getHeader().getDataSize() + newChunk.getData().position());
-      writer.writeChunk(newChunk, newChunkMetadata);
-      targetResource.updateStartTime(device, newChunkMetadata.getStartTime());
-      targetResource.updateEndTime(device, newChunkMetadata.getEndTime());
+      consumer.write(newChunk, newChunkMetadata);
     }
   }
 
@@ -179,7 +208,22 @@ public class CompactionUtils {
       Map<String, List<Modification>> modificationCache,
       List<Modification> modifications)
       throws IOException, IllegalPathException {
-    Map<Long, TimeValuePair> timeValuePairMap = new TreeMap<>();
+    writeByDeserializePageMerge(
+        device,
+        entry,
+        new TargetFileConsumer(device, compactionRateLimiter, targetResource, writer),
+        modificationCache,
+        modifications);
+  }
+
+  private static void writeByDeserializePageMerge(
+      String device,
+      Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry,
+      MergedChunkConsumer consumer,
+      Map<String, List<Modification>> modificationCache,
+      List<Modification> modifications)
+      throws IOException, IllegalPathException {
+    TreeMap<Long, TimeValuePair> timeValuePairMap = new TreeMap<>();
     Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap = entry.getValue();
     readByDeserializePageMerge(
         readerChunkMetadataMap,
@@ -194,7 +238,7 @@ public class CompactionUtils {
         break;
       }
     }
-    if (isChunkMetadataEmpty) {
+    if (isChunkMetadataEmpty || timeValuePairMap.isEmpty()) {
       return;
     }
     IChunkWriter chunkWriter;
@@ -209,12 +253,8 @@ public class CompactionUtils {
     }
     for (TimeValuePair timeValuePair : timeValuePairMap.values()) {
       writeTVPair(timeValuePair, chunkWriter);
-      targetResource.updateStartTime(device, timeValuePair.getTimestamp());
-      targetResource.updateEndTime(device, timeValuePair.getTimestamp());
     }
-    // wait for limit write
-    MergeManager.mergeRateLimiterAcquire(compactionRateLimiter, chunkWriter.getCurrentChunkSize());
-    chunkWriter.writeToFileWriter(writer);
+    consumer.write(chunkWriter, timeValuePairMap.firstKey(), timeValuePairMap.lastKey());
   }
 
   private static Set<String> getTsFileDevicesSet(
@@ -250,7 +290,6 @@ public class CompactionUtils {
    * @param compactionLogger the logger
    * @param devices the devices to be skipped(used by recover)
    */
-  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public static void merge(
       TsFileResource targetResource,
       List<TsFileResource> tsFileResources,
@@ -263,175 +302,326 @@ public class CompactionUtils {
     Map<String, TsFileSequenceReader> tsFileSequenceReaderMap = new HashMap<>();
     try {
       RestorableTsFileIOWriter writer = new RestorableTsFileIOWriter(targetResource.getTsFile());
-      Map<String, List<Modification>> modificationCache = new HashMap<>();
+      // shared by the sub-tasks merging different devices
+      Map<String, List<Modification>> modificationCache = new ConcurrentHashMap<>();
       RateLimiter compactionWriteRateLimiter =
           MergeManager.getINSTANCE().getMergeWriteRateLimiter();
       Set<String> tsFileDevicesMap =
           getTsFileDevicesSet(tsFileResources, tsFileSequenceReaderMap, storageGroup);
+      List<String> devicesToMerge = new ArrayList<>();
       for (String device : tsFileDevicesMap) {
-        if (devices.contains(device)) {
-          continue;
+        if (!devices.contains(device)) {
+          devicesToMerge.add(device);
+        }
+      }
+      List<TsFileSequenceReader> readers = new ArrayList<>();
+      for (TsFileResource tsFileResource : tsFileResources) {
+        TsFileSequenceReader reader =
+            buildReaderFromTsFileResource(tsFileResource, tsFileSequenceReaderMap, storageGroup);
+        if (reader != null) {
+          readers.add(reader);
+        }
+      }
+      if (!devicesToMerge.isEmpty() && readers.size() < tsFileResources.size()) {
+        throw new IOException(
+            String.format("%s [Compaction] cannot read all the source files", storageGroup));
+      }
+
+      int subTaskNum = IoTDBDescriptor.getInstance().getConfig().getCompactionDeviceSubThreadNum();
+      if (subTaskNum > 1 && devicesToMerge.size() > 1) {
+        mergeDevicesInParallel(
+            devicesToMerge,
+            readers,
+            storageGroup,
+            sequence,
+            subTaskNum,
+            modificationCache,
+            new TargetFileContext(
+                targetResource, writer, compactionWriteRateLimiter, compactionLogger),
+            modifications);
+      } else {
+        for (String device : devicesToMerge) {
+          writer.startChunkGroup(device);
+          mergeDevice(
+              device,
+              readers,
+              storageGroup,
+              sequence,
+              new TargetFileConsumer(device, compactionWriteRateLimiter, targetResource, writer),
+              modificationCache,
+              modifications);
+          writer.endChunkGroup();
+          if (compactionLogger != null) {
+            compactionLogger.logDevice(device, writer.getPos());
+          }
+        }
+      }
+
+      for (TsFileResource tsFileResource : tsFileResources) {
+        targetResource.updatePlanIndexes(tsFileResource);
+      }
+      targetResource.serialize();
+      writer.endFile();
+      targetResource.close();
+
+    } finally {
+      for (TsFileSequenceReader reader : tsFileSequenceReaderMap.values()) {
+        reader.close();
+      }
+    }
+  }
+
+  /**
+   * Merge the devices by sub-tasks, keeping at most subTaskNum devices merged ahead of the device
+   * being written. The merged chunks of each device are buffered by its sub-task and written by
+   * the current thread in the order of the devices, so the target file is the same as a sequential
+   * compaction and the compaction log can still be recovered by device. The buffered chunks take
+   * at most compaction_device_subthread_memory_budget bytes, a sub-task gives up buffering a device
+   * that does not fit, which is then merged again and written directly by the current thread.
+   */
+  private static void mergeDevicesInParallel(
+      List<String> devices,
+      List<TsFileSequenceReader> readers,
+      String storageGroup,
+      boolean sequence,
+      int subTaskNum,
+      Map<String, List<Modification>> modificationCache,
+      TargetFileContext target,
+      List<Modification> modifications)
+      throws IOException, IllegalPathException {
+    Deque<Future<BufferedChunkConsumer>> mergingDevices = new ArrayDeque<>();
+    AtomicLong bufferedBytes = new AtomicLong();
+    long memoryBudget =
+        IoTDBDescriptor.getInstance().getConfig().getCompactionDeviceSubThreadMemoryBudget();
+    int nextDeviceIndex = 0;
+    try {
+      for (String device : devices) {
+        while (nextDeviceIndex < devices.size() && mergingDevices.size() < subTaskNum) {
+          mergingDevices.add(
+              submitDeviceMerge(
+                  devices.get(nextDeviceIndex++),
+                  readers,
+                  storageGroup,
+                  sequence,
+                  modificationCache,
+                  new BufferedChunkConsumer(bufferedBytes, memoryBudget)));
+        }
+        BufferedChunkConsumer mergedDevice = getMergedDevice(mergingDevices.poll(), storageGroup);
+        TargetFileConsumer targetFileConsumer =
+            new TargetFileConsumer(
+                device, target.compactionWriteRateLimiter, target.resource, target.writer);
+        target.writer.startChunkGroup(device);
+        if (mergedDevice.overBudget) {
+          mergeDevice(
+              device,
+              readers,
+              storageGroup,
+              sequence,
+              targetFileConsumer,
+              modificationCache,
+              modifications);
+        } else {
+          mergedDevice.writeTo(targetFileConsumer);
+          modifications.addAll(mergedDevice.usedModifications);
+        }
+        target.writer.endChunkGroup();
+        if (target.compactionLogger != null) {
+          target.compactionLogger.logDevice(device, target.writer.getPos());
         }
-        writer.startChunkGroup(device);
-        Map<TsFileSequenceReader, Map<String, List<ChunkMetadata>>> chunkMetadataListCacheForMerge =
+      }
+    } finally {
+      for (Future<BufferedChunkConsumer> future : mergingDevices) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private static Future<BufferedChunkConsumer> submitDeviceMerge(
+      String device,
+      List<TsFileSequenceReader> readers,
+      String storageGroup,
+      boolean sequence,
+      Map<String, List<Modification>> modificationCache,
+      BufferedChunkConsumer mergedDevice) {
+    Callable<BufferedChunkConsumer> mergeTask =
+        () -> {
+          try {
+            mergeDevice(
+                device,
+                readers,
+                storageGroup,
+                sequence,
+                mergedDevice,
+                modificationCache,
+                mergedDevice.usedModifications);
+          } catch (OverBudgetException e) {
+            mergedDevice.giveUp();
+          }
+          return mergedDevice;
+        };
+    Future<BufferedChunkConsumer> future =
+        CompactionMergeTaskPoolManager.getInstance().submitSubTask(mergeTask);
+    if (future == null) {
+      // the sub-task pool is not available, merge the device in the current thread
+      FutureTask<BufferedChunkConsumer> futureTask = new FutureTask<>(mergeTask);
+      futureTask.run();
+      future = futureTask;
+    }
+    return future;
+  }
+
+  private static BufferedChunkConsumer getMergedDevice(
+      Future<BufferedChunkConsumer> future, String storageGroup)
+      throws IOException, IllegalPathException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(String.format("%s [Compaction] abort", storageGroup));
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof IllegalPathException) {
+        throw (IllegalPathException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /** merge the chunks of a device in all source files, in the order of the sensors */
+  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
+  private static void mergeDevice(
+      String device,
+      List<TsFileSequenceReader> readers,
+      String storageGroup,
+      boolean sequence,
+      MergedChunkConsumer consumer,
+      Map<String, List<Modification>> modificationCache,
+      List<Modification> modifications)
+      throws IOException, IllegalPathException {
+    Map<TsFileSequenceReader, Map<String, List<ChunkMetadata>>> chunkMetadataListCacheForMerge =
+        new TreeMap<>(
+            (o1, o2) ->
+                TsFileManagement.compareFileName(
+                    new File(o1.getFileName()), new File(o2.getFileName())));
+    Map<TsFileSequenceReader, Iterator<Map<String, List<ChunkMetadata>>>>
+        chunkMetadataListIteratorCache =
             new TreeMap<>(
                 (o1, o2) ->
                     TsFileManagement.compareFileName(
                         new File(o1.getFileName()), new File(o2.getFileName())));
-        Map<TsFileSequenceReader, Iterator<Map<String, List<ChunkMetadata>>>>
-            chunkMetadataListIteratorCache =
-                new TreeMap<>(
-                    (o1, o2) ->
-                        TsFileManagement.compareFileName(
-                            new File(o1.getFileName()), new File(o2.getFileName())));
-        for (TsFileResource tsFileResource : tsFileResources) {
-          TsFileSequenceReader reader =
-              buildReaderFromTsFileResource(tsFileResource, tsFileSequenceReaderMap, storageGroup);
-          if (reader == null) {
-            throw new IOException();
+    for (TsFileSequenceReader reader : readers) {
+      Iterator<Map<String, List<ChunkMetadata>>> iterator =
+          reader.getMeasurementChunkMetadataListMapIterator(device);
+      chunkMetadataListIteratorCache.put(reader, iterator);
+      chunkMetadataListCacheForMerge.put(reader, new TreeMap<>());
+    }
+    while (hasNextChunkMetadataList(chunkMetadataListIteratorCache.values())) {
+      String lastSensor = null;
+      Set<String> allSensors = new HashSet<>();
+      for (Entry<TsFileSequenceReader, Map<String, List<ChunkMetadata>>>
+          chunkMetadataListCacheForMergeEntry : chunkMetadataListCacheForMerge.entrySet()) {
+        TsFileSequenceReader reader = chunkMetadataListCacheForMergeEntry.getKey();
+        Map<String, List<ChunkMetadata>> sensorChunkMetadataListMap =
+            chunkMetadataListCacheForMergeEntry.getValue();
+        if (sensorChunkMetadataListMap.size() <= 0) {
+          if (chunkMetadataListIteratorCache.get(reader).hasNext()) {
+            sensorChunkMetadataListMap = chunkMetadataListIteratorCache.get(reader).next();
+            chunkMetadataListCacheForMerge.put(reader, sensorChunkMetadataListMap);
+          } else {
+            continue;
           }
-          Iterator<Map<String, List<ChunkMetadata>>> iterator =
-              reader.getMeasurementChunkMetadataListMapIterator(device);
-          chunkMetadataListIteratorCache.put(reader, iterator);
-          chunkMetadataListCacheForMerge.put(reader, new TreeMap<>());
         }
-        while (hasNextChunkMetadataList(chunkMetadataListIteratorCache.values())) {
-          String lastSensor = null;
-          Set<String> allSensors = new HashSet<>();
+        // get the min last sensor in the current chunkMetadata cache list for merge
+        String maxSensor = Collections.max(sensorChunkMetadataListMap.keySet());
+        if (lastSensor == null) {
+          lastSensor = maxSensor;
+        } else {
+          if (maxSensor.compareTo(lastSensor) < 0) {
+            lastSensor = maxSensor;
+          }
+        }
+        // get all sensor used later
+        allSensors.addAll(sensorChunkMetadataListMap.keySet());
+      }
+
+      // if there is no more chunkMetaData, merge all the sensors
+      if (!hasNextChunkMetadataList(chunkMetadataListIteratorCache.values())) {
+        lastSensor = Collections.max(allSensors);
+      }
+
+      for (String sensor : allSensors) {
+        if (sensor.compareTo(lastSensor) <= 0) {
+          Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataListMap =
+              new TreeMap<>(
+                  (o1, o2) ->
+                      TsFileManagement.compareFileName(
+                          new File(o1.getFileName()), new File(o2.getFileName())));
+          // find all chunkMetadata of a sensor
           for (Entry<TsFileSequenceReader, Map<String, List<ChunkMetadata>>>
               chunkMetadataListCacheForMergeEntry : chunkMetadataListCacheForMerge.entrySet()) {
             TsFileSequenceReader reader = chunkMetadataListCacheForMergeEntry.getKey();
             Map<String, List<ChunkMetadata>> sensorChunkMetadataListMap =
                 chunkMetadataListCacheForMergeEntry.getValue();
-            if (sensorChunkMetadataListMap.size() <= 0) {
-              if (chunkMetadataListIteratorCache.get(reader).hasNext()) {
-                sensorChunkMetadataListMap = chunkMetadataListIteratorCache.get(reader).next();
-                chunkMetadataListCacheForMerge.put(reader, sensorChunkMetadataListMap);
-              } else {
-                continue;
-              }
-            }
-            // get the min last sensor in the current chunkMetadata cache list for merge
-            String maxSensor = Collections.max(sensorChunkMetadataListMap.keySet());
-            if (lastSensor == null) {
-              lastSensor = maxSensor;
-            } else {
-              if (maxSensor.compareTo(lastSensor) < 0) {
-                lastSensor = maxSensor;
-              }
+            if (sensorChunkMetadataListMap.containsKey(sensor)) {
+              readerChunkMetadataListMap.put(reader, sensorChunkMetadataListMap.get(sensor));
+              sensorChunkMetadataListMap.remove(sensor);
             }
-            // get all sensor used later
-            allSensors.addAll(sensorChunkMetadataListMap.keySet());
-          }
-
-          // if there is no more chunkMetaData, merge all the sensors
-          if (!hasNextChunkMetadataList(chunkMetadataListIteratorCache.values())) {
-            lastSensor = Collections.max(allSensors);
           }
-
-          for (String sensor : allSensors) {
-            if (sensor.compareTo(lastSensor) <= 0) {
-              Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataListMap =
-                  new TreeMap<>(
-                      (o1, o2) ->
-                          TsFileManagement.compareFileName(
-                              new File(o1.getFileName()), new File(o2.getFileName())));
-              // find all chunkMetadata of a sensor
-              for (Entry<TsFileSequenceReader, Map<String, List<ChunkMetadata>>>
-                  chunkMetadataListCacheForMergeEntry : chunkMetadataListCacheForMerge.entrySet()) {
-                TsFileSequenceReader reader = chunkMetadataListCacheForMergeEntry.getKey();
-                Map<String, List<ChunkMetadata>> sensorChunkMetadataListMap =
-                    chunkMetadataListCacheForMergeEntry.getValue();
-                if (sensorChunkMetadataListMap.containsKey(sensor)) {
-                  readerChunkMetadataListMap.put(reader, sensorChunkMetadataListMap.get(sensor));
-                  sensorChunkMetadataListMap.remove(sensor);
-                }
-              }
-              Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>>
-                  sensorReaderChunkMetadataListEntry =
-                      new DefaultMapEntry<>(sensor, readerChunkMetadataListMap);
-              if (!sequence) {
-                writeByDeserializePageMerge(
-                    device,
-                    compactionWriteRateLimiter,
-                    sensorReaderChunkMetadataListEntry,
-                    targetResource,
-                    writer,
-                    modificationCache,
-                    modifications);
-              } else {
-                boolean isChunkEnoughLarge = true;
-                boolean isPageEnoughLarge = true;
-                for (List<ChunkMetadata> chunkMetadatas : readerChunkMetadataListMap.values()) {
-                  for (ChunkMetadata chunkMetadata : chunkMetadatas) {
-                    if (chunkMetadata.getNumOfPoints()
-                        < IoTDBDescriptor.getInstance()
-                            .getConfig()
-                            .getMergePagePointNumberThreshold()) {
-                      isPageEnoughLarge = false;
-                    }
-                    if (chunkMetadata.getNumOfPoints()
-                        < IoTDBDescriptor.getInstance()
-                            .getConfig()
-                            .getMergeChunkPointNumberThreshold()) {
-                      isChunkEnoughLarge = false;
-                    }
-                  }
+          Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>>
+              sensorReaderChunkMetadataListEntry =
+                  new DefaultMapEntry<>(sensor, readerChunkMetadataListMap);
+          if (!sequence) {
+            writeByDeserializePageMerge(
+                device,
+                sensorReaderChunkMetadataListEntry,
+                consumer,
+                modificationCache,
+                modifications);
+          } else {
+            boolean isChunkEnoughLarge = true;
+            boolean isPageEnoughLarge = true;
+            for (List<ChunkMetadata> chunkMetadatas : readerChunkMetadataListMap.values()) {
+              for (ChunkMetadata chunkMetadata : chunkMetadatas) {
+                if (chunkMetadata.getNumOfPoints()
+                    < IoTDBDescriptor.getInstance()
+                        .getConfig()
+                        .getMergePagePointNumberThreshold()) {
+                  isPageEnoughLarge = false;
                 }
-                // if a chunk is large enough, it's page must be large enough too
-                if (isChunkEnoughLarge) {
-                  logger.debug(
-                      "{} [Compaction] chunk enough large, use append chunk merge", storageGroup);
-                  // append page in chunks, so we do not have to deserialize a chunk
-                  writeByAppendChunkMerge(
-                      device,
-                      compactionWriteRateLimiter,
-                      sensorReaderChunkMetadataListEntry,
-                      targetResource,
-                      writer);
-                } else if (isPageEnoughLarge) {
-                  logger.debug(
-                      "{} [Compaction] page enough large, use append page merge", storageGroup);
-                  // append page in chunks, so we do not have to deserialize a chunk
-                  writeByAppendPageMerge(
-                      device,
-                      compactionWriteRateLimiter,
-                      sensorReaderChunkMetadataListEntry,
-                      targetResource,
-                      writer);
-                } else {
-                  logger.debug(
-                      "{} [Compaction] page too small, use deserialize page merge", storageGroup);
-                  // we have to deserialize chunks to merge pages
-                  writeByDeserializePageMerge(
-                      device,
-                      compactionWriteRateLimiter,
-                      sensorReaderChunkMetadataListEntry,
-                      targetResource,
-                      writer,
-                      modificationCache,
-                      modifications);
+                if (chunkMetadata.getNumOfPoints()
+                    < IoTDBDescriptor.getInstance()
+                        .getConfig()
+                        .getMergeChunkPointNumberThreshold()) {
+                  isChunkEnoughLarge = false;
                 }
               }
             }
+            // if a chunk is large enough, it's page must be large enough too
+            if (isChunkEnoughLarge) {
+              logger.debug(
+                  "{} [Compaction] chunk enough large, use append chunk merge", storageGroup);
+              // append page in chunks, so we do not have to deserialize a chunk
+              writeByAppendChunkMerge(sensorReaderChunkMetadataListEntry, consumer);
+            } else if (isPageEnoughLarge) {
+              logger.debug(
+                  "{} [Compaction] page enough large, use append page merge", storageGroup);
+              // append page in chunks, so we do not have to deserialize a chunk
+              writeByAppendPageMerge(sensorReaderChunkMetadataListEntry, consumer);
+            } else {
+              logger.debug(
+                  "{} [Compaction] page too small, use deserialize page merge", storageGroup);
+              // we have to deserialize chunks to merge pages
+              writeByDeserializePageMerge(
+                  device,
+                  sensorReaderChunkMetadataListEntry,
+                  consumer,
+                  modificationCache,
+                  modifications);
+            }
           }
         }
-        writer.endChunkGroup();
-        if (compactionLogger != null) {
-          compactionLogger.logDevice(device, writer.getPos());
-        }
-      }
-
-      for (TsFileResource tsFileResource : tsFileResources) {
-        targetResource.updatePlanIndexes(tsFileResource);
-      }
-      targetResource.serialize();
-      writer.endFile();
-      targetResource.close();
-
-    } finally {
-      for (TsFileSequenceReader reader : tsFileSequenceReaderMap.values()) {
-        reader.close();
       }
     }
   }
@@ -482,4 +672,148 @@ public class CompactionUtils {
     }
     modifyChunkMetaData(chunkMetadataList, seriesModifications);
   }
+
+  /** Receives the merged chunks of a device in the order they are written to the target file. */
+  private interface MergedChunkConsumer {
+
+    void write(Chunk chunk, ChunkMetadata chunkMetadata) throws IOException;
+
+    /** @param chunkWriter holds the merged pages of a series between startTime and endTime */
+    void write(IChunkWriter chunkWriter, long startTime, long endTime) throws IOException;
+  }
+
+  /** Writes the merged chunks of a device to the target file and updates its time index. */
+  private static class TargetFileConsumer implements MergedChunkConsumer {
+
+    private final String device;
+    private final RateLimiter compactionWriteRateLimiter;
+    private final TsFileResource targetResource;
+    private final RestorableTsFileIOWriter writer;
+
+    private TargetFileConsumer(
+        String device,
+        RateLimiter compactionWriteRateLimiter,
+        TsFileResource targetResource,
+        RestorableTsFileIOWriter writer) {
+      this.device = device;
+      this.compactionWriteRateLimiter = compactionWriteRateLimiter;
+      this.targetResource = targetResource;
+      this.writer = writer;
+    }
+
+    @Override
+    public void write(Chunk chunk, ChunkMetadata chunkMetadata) throws IOException {
+      // wait for limit write
+      MergeManager.getINSTANCE()
+          .acquireWriteThroughput(compactionWriteRateLimiter, getChunkSize(chunk));
+      writer.writeChunk(chunk, chunkMetadata);
+      targetResource.updateStartTime(device, chunkMetadata.getStartTime());
+      targetResource.updateEndTime(device, chunkMetadata.getEndTime());
+    }
+
+    @Override
+    public void write(IChunkWriter chunkWriter, long startTime, long endTime)
+        throws IOException {
+      // wait for limit write
+      MergeManager.getINSTANCE()
+          .acquireWriteThroughput(compactionWriteRateLimiter, chunkWriter.getCurrentChunkSize());
+      chunkWriter.writeToFileWriter(writer);
+      targetResource.updateStartTime(device, startTime);
+      targetResource.updateEndTime(device, endTime);
+    }
+  }
+
+  /**
+   * Keeps the merged chunks of a device in memory, so that a sub-task can merge the device while
+   * the chunks are written to the target file by the compaction thread.
+   */
+  private static class BufferedChunkConsumer implements MergedChunkConsumer {
+
+    private final List<BufferedWrite> bufferedWrites = new ArrayList<>();
+    private final List<Modification> usedModifications = new ArrayList<>();
+    /** bytes buffered by all the sub-tasks of the compaction */
+    private final AtomicLong sharedBufferedBytes;
+    private final long memoryBudget;
+    private long bufferedBytes = 0;
+    /** whether the device does not fit in the budget and has to be merged again */
+    private boolean overBudget = false;
+
+    private BufferedChunkConsumer(AtomicLong sharedBufferedBytes, long memoryBudget) {
+      this.sharedBufferedBytes = sharedBufferedBytes;
+      this.memoryBudget = memoryBudget;
+    }
+
+    @Override
+    public void write(Chunk chunk, ChunkMetadata chunkMetadata) throws OverBudgetException {
+      reserve(getChunkSize(chunk));
+      bufferedWrites.add(consumer -> consumer.write(chunk, chunkMetadata));
+    }
+
+    @Override
+    public void write(IChunkWriter chunkWriter, long startTime, long endTime)
+        throws OverBudgetException {
+      reserve(chunkWriter.estimateMaxSeriesMemSize());
+      bufferedWrites.add(consumer -> consumer.write(chunkWriter, startTime, endTime));
+    }
+
+    private void reserve(long size) throws OverBudgetException {
+      if (sharedBufferedBytes.addAndGet(size) > memoryBudget) {
+        sharedBufferedBytes.addAndGet(-size);
+        throw new OverBudgetException();
+      }
+      bufferedBytes += size;
+    }
+
+    /** drop the buffered chunks, the device will be merged again by the compaction thread */
+    private void giveUp() {
+      release();
+      usedModifications.clear();
+      overBudget = true;
+    }
+
+    private void release() {
+      bufferedWrites.clear();
+      sharedBufferedBytes.addAndGet(-bufferedBytes);
+      bufferedBytes = 0;
+    }
+
+    private void writeTo(MergedChunkConsumer consumer) throws IOException {
+      for (BufferedWrite bufferedWrite : bufferedWrites) {
+        bufferedWrite.writeTo(consumer);
+      }
+      release();
+    }
+  }
+
+  /** thrown when the merged chunks of a device cannot be buffered within the memory budget */
+  private static class OverBudgetException extends IOException {
+
+    private static final long serialVersionUID = -2651476370207637412L;
+  }
+
+  @FunctionalInterface
+  private interface BufferedWrite {
+
+    void writeTo(MergedChunkConsumer consumer) throws IOException;
+  }
+
+  /** where the merged devices are written to */
+  private static class TargetFileContext {
+
+    private final TsFileResource resource;
+    private final RestorableTsFileIOWriter writer;
+    private final RateLimiter compactionWriteRateLimiter;
+    private final CompactionLogger compactionLogger;
+
+    private TargetFileContext(
+        TsFileResource resource,
+        RestorableTsFileIOWriter writer,
+        RateLimiter compactionWriteRateLimiter,
+        CompactionLogger compactionLogger) {
+      this.resource = resource;
+      this.writer = writer;
+      this.compactionWriteRateLimiter = compactionWriteRateLimiter;
+      this.compactionLogger = compactionLogger;
+    }
+  }
 }
@@ -23,12 +23,13 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.flush.pool.FlushSubTaskPoolManager;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.IWritableMemChunk;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
 import org.apache.iotdb.db.exception.runtime.FlushRunTimeException;
 import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.db.utils.datastructure.VectorTVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
 import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 import org.apache.iotdb.tsfile.write.chunk.VectorChunkWriterImpl;
@@ -42,13 +43,19 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * flush task to flush one memtable using a pipeline model to flush, which is sort memtable ->
- * encoding -> write to disk (io task)
+ * encoding -> write to disk (io task). The encoding stage may run several workers in parallel (see
+ * {@link IoTDBConfig#getEncodingThreadNumForFlushing()}); the io task still writes the encoded
+ * chunks in device/measurement order because the sort task hands it the series in that order and
+ * the io task waits for each one to be encoded.
  */
 public class MemTableFlushTask {
 
@@ -56,7 +63,10 @@ public class MemTableFlushTask {
   private static final FlushSubTaskPoolManager SUB_TASK_POOL_MANAGER =
       FlushSubTaskPoolManager.getInstance();
   private static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
-  private final Future<?> encodingTaskFuture;
+  /** how long the sort task waits for a slot of a full io task queue before checking the io task */
+  private static final long IO_TASK_OFFER_TIMEOUT_MS = 100;
+  private final int encodingThreadNum = Math.max(1, config.getEncodingThreadNumForFlushing());
+  private final List<Future<?>> encodingTaskFutures = new ArrayList<>(encodingThreadNum);
   private final Future<?> ioTaskFuture;
   private RestorableTsFileIOWriter writer;
 
@@ -70,7 +80,11 @@ public class MemTableFlushTask {
 
   private IMemTable memTable;
 
-  private volatile long memSerializeTime = 0L;
+  /** the rollups of the flushed series, null if rollups are not maintained for the file */
+  private final TsFileRollup rollup;
+
+  /** the sum of the encoding time of all encoding workers */
+  private final AtomicLong memSerializeTime = new AtomicLong();
   private volatile long ioTime = 0L;
 
   /**
@@ -80,10 +94,25 @@ public class MemTableFlushTask {
    */
   public MemTableFlushTask(
       IMemTable memTable, RestorableTsFileIOWriter writer, String storageGroup) {
+    this(memTable, writer, storageGroup, null);
+  }
+
+  /**
+   * @param rollup where the rollups of the flushed series are added to, or null if rollups are not
+   *     maintained for the file
+   */
+  public MemTableFlushTask(
+      IMemTable memTable,
+      RestorableTsFileIOWriter writer,
+      String storageGroup,
+      TsFileRollup rollup) {
     this.memTable = memTable;
     this.writer = writer;
     this.storageGroup = storageGroup;
-    this.encodingTaskFuture = SUB_TASK_POOL_MANAGER.submit(encodingTask);
+    this.rollup = rollup;
+    for (int i = 0; i < encodingThreadNum; i++) {
+      this.encodingTaskFutures.add(SUB_TASK_POOL_MANAGER.submit(encodingTask));
+    }
     this.ioTaskFuture = SUB_TASK_POOL_MANAGER.submit(ioTask);
     LOGGER.debug(
         "flush task of Storage group {} memtable is created, flushing to file {}.",
@@ -102,17 +131,48 @@ public class MemTableFlushTask {
 
     long estimatedTemporaryMemSize = 0L;
     if (config.isEnableMemControl() && SystemInfo.getInstance().isEncodingFasterThanIo()) {
+      // every queued io task and every chunk under encoding may hold one encoded series
       estimatedTemporaryMemSize =
-          memTable.memSize() / memTable.getSeriesNumber() * config.getIoTaskQueueSizeForFlushing();
+          memTable.memSize()
+              / memTable.getSeriesNumber()
+              * (config.getIoTaskQueueSizeForFlushing() + encodingThreadNum);
       SystemInfo.getInstance().applyTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
     }
     long start = System.currentTimeMillis();
+    try {
+      flushByPipeline();
+    } finally {
+      if (estimatedTemporaryMemSize != 0) {
+        SystemInfo.getInstance().releaseTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
+      }
+    }
+
+    if (config.isEnableMemControl()) {
+      SystemInfo.getInstance()
+          .setEncodingFasterThanIo(ioTime >= memSerializeTime.get() / encodingThreadNum);
+    }
+
+    LOGGER.info(
+        "Storage group {} memtable {} flushing a memtable has finished! Time consumption: {}ms",
+        storageGroup,
+        memTable,
+        System.currentTimeMillis() - start);
+  }
+
+  /** sort the series and hand them to the encoding and io tasks, then wait for them to finish */
+  private void flushByPipeline() throws ExecutionException, InterruptedException {
     long sortTime = 0;
+    long startPos;
+    try {
+      startPos = writer.getPos();
+    } catch (IOException e) {
+      throw new ExecutionException(e);
+    }
 
     // for map do not use get(key) to iterate
     for (Map.Entry<String, Map<String, IWritableMemChunk>> memTableEntry :
         memTable.getMemTableMap().entrySet()) {
-      encodingTaskQueue.put(new StartFlushGroupIOTask(memTableEntry.getKey()));
+      putIoTask(new StartFlushGroupIOTask(memTableEntry.getKey()));
 
       final Map<String, IWritableMemChunk> value = memTableEntry.getValue();
       for (Map.Entry<String, IWritableMemChunk> iWritableMemChunkEntry : value.entrySet()) {
@@ -124,12 +184,18 @@ public class MemTableFlushTask {
          */
         TVList tvList = series.getSortedTvListForFlush();
         sortTime += System.currentTimeMillis() - startTime;
-        encodingTaskQueue.put(new Pair<>(tvList, desc));
+        // the io task receives the series in order and waits until a worker has encoded it
+        EncodingTask seriesTask = new EncodingTask(memTableEntry.getKey(), tvList, desc);
+        encodingTaskQueue.put(seriesTask);
+        putIoTask(seriesTask);
       }
 
-      encodingTaskQueue.put(new EndChunkGroupIoTask());
+      putIoTask(new EndChunkGroupIoTask());
+    }
+    for (int i = 0; i < encodingThreadNum; i++) {
+      encodingTaskQueue.put(new TaskEnd());
     }
-    encodingTaskQueue.put(new TaskEnd());
+    putIoTask(new TaskEnd());
     LOGGER.debug(
         "Storage group {} memtable flushing into file {}: data sort time cost {} ms.",
         storageGroup,
@@ -137,8 +203,13 @@ public class MemTableFlushTask {
         sortTime);
 
     try {
-      encodingTaskFuture.get();
+      for (Future<?> encodingTaskFuture : encodingTaskFutures) {
+        encodingTaskFuture.get();
+      }
     } catch (InterruptedException | ExecutionException e) {
+      for (Future<?> encodingTaskFuture : encodingTaskFutures) {
+        encodingTaskFuture.cancel(true);
+      }
       ioTaskFuture.cancel(true);
       throw e;
     }
@@ -147,25 +218,32 @@ public class MemTableFlushTask {
 
     try {
       writer.writePlanIndices();
+      // flush does not wait for the merge write throughput, it is only accounted there
+      MergeManager.getINSTANCE().recordFlushWrite(writer.getPos() - startPos);
     } catch (IOException e) {
       throw new ExecutionException(e);
     }
+  }
 
-    if (config.isEnableMemControl()) {
-      if (estimatedTemporaryMemSize != 0) {
-        SystemInfo.getInstance().releaseTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
+  /**
+   * Hand a task to the io task. The io task queue may be bounded and the io task stops taking tasks
+   * once it fails, so instead of waiting for a free slot forever, the failure of the io task is
+   * thrown.
+   */
+  private void putIoTask(Object task) throws InterruptedException, ExecutionException {
+    while (!ioTaskQueue.offer(task, IO_TASK_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+      if (ioTaskFuture.isDone()) {
+        for (Future<?> encodingTaskFuture : encodingTaskFutures) {
+          encodingTaskFuture.cancel(true);
+        }
+        ioTaskFuture.get();
+        // the io task only ends without a failure before TaskEnd when it is interrupted
+        throw new ExecutionException(new InterruptedException("The flush io task is interrupted"));
       }
-      SystemInfo.getInstance().setEncodingFasterThanIo(ioTime >= memSerializeTime);
     }
-
-    LOGGER.info(
-        "Storage group {} memtable {} flushing a memtable has finished! Time consumption: {}ms",
-        storageGroup,
-        memTable,
-        System.currentTimeMillis() - start);
   }
 
-  /** encoding task (second task of pipeline) */
+  /** encoding task (second task of pipeline), run by each encoding worker */
   private Runnable encodingTask =
       new Runnable() {
         private void writeOneSeries(
@@ -281,6 +359,29 @@ public class MemTableFlushTask {
           }
         }
 
+        private IChunkWriter encodeSeries(TVList tvList, IMeasurementSchema schema) {
+          IChunkWriter seriesWriter;
+          if (tvList.getDataType() == TSDataType.VECTOR) {
+            seriesWriter = new VectorChunkWriterImpl(schema);
+          } else {
+            seriesWriter = new ChunkWriterImpl(schema);
+          }
+          writeOneSeries(tvList, seriesWriter, schema.getType());
+          seriesWriter.sealCurrentPage();
+          seriesWriter.clearPageWriter();
+          return seriesWriter;
+        }
+
+        private void updateRollup(EncodingTask seriesTask, ChunkWriterImpl seriesWriter) {
+          String measurementId = seriesTask.schema.getMeasurementId();
+          if (seriesWriter.isSdtEncoding()) {
+            // SDT drops points, so the rollup of the memtable would not match the file
+            rollup.exclude(seriesTask.deviceId, measurementId, seriesTask.tvList.getDataType());
+          } else {
+            rollup.update(seriesTask.deviceId, measurementId, seriesTask.tvList);
+          }
+        }
+
         @SuppressWarnings("squid:S135")
         @Override
         public void run() {
@@ -294,60 +395,36 @@ public class MemTableFlushTask {
             try {
               task = encodingTaskQueue.take();
             } catch (InterruptedException e1) {
-              LOGGER.error("Take task into ioTaskQueue Interrupted");
+              LOGGER.error("Take task from encodingTaskQueue Interrupted");
               Thread.currentThread().interrupt();
               break;
             }
-            if (task instanceof StartFlushGroupIOTask || task instanceof EndChunkGroupIoTask) {
-              try {
-                ioTaskQueue.put(task);
-              } catch (
-                  @SuppressWarnings("squid:S2142")
-                  InterruptedException e) {
-                LOGGER.error(
-                    "Storage group {} memtable flushing to file {}, encoding task is interrupted.",
-                    storageGroup,
-                    writer.getFile().getName(),
-                    e);
-                // generally it is because the thread pool is shutdown so the task should be aborted
-                break;
-              }
-            } else if (task instanceof TaskEnd) {
+            if (task instanceof TaskEnd) {
               break;
-            } else {
-              long starTime = System.currentTimeMillis();
-              Pair<TVList, IMeasurementSchema> encodingMessage =
-                  (Pair<TVList, IMeasurementSchema>) task;
-              IChunkWriter seriesWriter;
-              if (encodingMessage.left.getDataType() == TSDataType.VECTOR) {
-                seriesWriter = new VectorChunkWriterImpl(encodingMessage.right);
-              } else {
-                seriesWriter = new ChunkWriterImpl(encodingMessage.right);
-              }
-              writeOneSeries(encodingMessage.left, seriesWriter, encodingMessage.right.getType());
-              seriesWriter.sealCurrentPage();
-              seriesWriter.clearPageWriter();
-              try {
-                ioTaskQueue.put(seriesWriter);
-              } catch (InterruptedException e) {
-                LOGGER.error("Put task into ioTaskQueue Interrupted");
-                Thread.currentThread().interrupt();
-              }
-              memSerializeTime += System.currentTimeMillis() - starTime;
             }
-          }
-          try {
-            ioTaskQueue.put(new TaskEnd());
-          } catch (InterruptedException e) {
-            LOGGER.error("Put task into ioTaskQueue Interrupted");
-            Thread.currentThread().interrupt();
+            long starTime = System.currentTimeMillis();
+            EncodingTask seriesTask = (EncodingTask) task;
+            IChunkWriter seriesWriter;
+            try {
+              seriesWriter = encodeSeries(seriesTask.tvList, seriesTask.schema);
+              seriesTask.result.complete(seriesWriter);
+            } catch (RuntimeException e) {
+              // let the io task fail instead of waiting for this series forever
+              seriesTask.result.completeExceptionally(e);
+              throw e;
+            }
+            // the rollup is computed while the io task writes the encoded chunk
+            if (rollup != null && seriesWriter instanceof ChunkWriterImpl) {
+              updateRollup(seriesTask, (ChunkWriterImpl) seriesWriter);
+            }
+            memSerializeTime.addAndGet(System.currentTimeMillis() - starTime);
           }
 
           LOGGER.debug(
               "Storage group {}, flushing memtable {} into disk: Encoding data cost " + "{} ms.",
               storageGroup,
               writer.getFile().getName(),
-              memSerializeTime);
+              memSerializeTime.get());
         }
       };
 
@@ -368,18 +445,30 @@ public class MemTableFlushTask {
             Thread.currentThread().interrupt();
             break;
           }
+          if (ioMessage instanceof EncodingTask) {
+            try {
+              ioMessage = ((EncodingTask) ioMessage).result.get();
+            } catch (InterruptedException e) {
+              LOGGER.error("Wait for encoding task Interrupted");
+              Thread.currentThread().interrupt();
+              break;
+            } catch (ExecutionException e) {
+              LOGGER.error(
+                  "Storage group {} memtable {}, encoding task meets error.",
+                  storageGroup,
+                  memTable,
+                  e);
+              throw new FlushRunTimeException(e);
+            }
+          }
           long starTime = System.currentTimeMillis();
           try {
             if (ioMessage instanceof StartFlushGroupIOTask) {
               this.writer.startChunkGroup(((StartFlushGroupIOTask) ioMessage).deviceId);
             } else if (ioMessage instanceof TaskEnd) {
               break;
-            } else if (ioMessage instanceof ChunkWriterImpl) {
-              ChunkWriterImpl chunkWriter = (ChunkWriterImpl) ioMessage;
-              chunkWriter.writeToFileWriter(this.writer);
-            } else if (ioMessage instanceof VectorChunkWriterImpl) {
-              VectorChunkWriterImpl chunkWriter = (VectorChunkWriterImpl) ioMessage;
-              chunkWriter.writeToFileWriter(this.writer);
+            } else if (ioMessage instanceof IChunkWriter) {
+              ((IChunkWriter) ioMessage).writeToFileWriter(this.writer);
             } else {
               this.writer.setMinPlanIndex(memTable.getMinPlanIndex());
               this.writer.setMaxPlanIndex(memTable.getMaxPlanIndex());
@@ -399,6 +488,21 @@ public class MemTableFlushTask {
             ioTime);
       };
 
+  /** a sorted series waiting to be encoded, and the chunk writer that holds its encoded data */
+  static class EncodingTask {
+
+    private final String deviceId;
+    private final TVList tvList;
+    private final IMeasurementSchema schema;
+    private final CompletableFuture<IChunkWriter> result = new CompletableFuture<>();
+
+    EncodingTask(String deviceId, TVList tvList, IMeasurementSchema schema) {
+      this.deviceId = deviceId;
+      this.tvList = tvList;
+      this.schema = schema;
+    }
+  }
+
   static class TaskEnd {
 
     TaskEnd() {}
@@ -43,7 +43,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters of a memtable are atomic and its device map is concurrent, as insertions of
+ * different devices may run at the same time when concurrent insert is enabled. The series map of
+ * one device is only written by the insertion holding the lock of that device.
+ */
 public abstract class AbstractMemTable implements IMemTable {
 
   private final Map<String, Map<String, IWritableMemChunk>> memTableMap;
@@ -56,27 +64,27 @@ public abstract class AbstractMemTable implements IMemTable {
   private final int avgSeriesPointNumThreshold =
       IoTDBDescriptor.getInstance().getConfig().getAvgSeriesPointNumberThreshold();
   /** memory size of data points, including TEXT values */
-  private long memSize = 0;
+  private final AtomicLong memSize = new AtomicLong();
   /**
    * memory usage of all TVLists memory usage regardless of whether these TVLists are full,
    * including TEXT values
    */
-  private long tvListRamCost = 0;
+  private final AtomicLong tvListRamCost = new AtomicLong();
 
-  private int seriesNumber = 0;
+  private final AtomicInteger seriesNumber = new AtomicInteger();
 
-  private long totalPointsNum = 0;
+  private final AtomicLong totalPointsNum = new AtomicLong();
 
-  private long totalPointsNumThreshold = 0;
+  private final AtomicLong totalPointsNumThreshold = new AtomicLong();
 
-  private long maxPlanIndex = Long.MIN_VALUE;
+  private final AtomicLong maxPlanIndex = new AtomicLong(Long.MIN_VALUE);
 
-  private long minPlanIndex = Long.MAX_VALUE;
+  private final AtomicLong minPlanIndex = new AtomicLong(Long.MAX_VALUE);
 
   private long createdTime = System.currentTimeMillis();
 
   public AbstractMemTable() {
-    this.memTableMap = new HashMap<>();
+    this.memTableMap = new ConcurrentHashMap<>();
   }
 
   public AbstractMemTable(Map<String, Map<String, IWritableMemChunk>> memTableMap) {
@@ -111,9 +119,9 @@ public abstract class AbstractMemTable implements IMemTable {
     return memSeries.computeIfAbsent(
         schema.getMeasurementId(),
         k -> {
-          seriesNumber++;
-          totalPointsNumThreshold +=
-              ((long) avgSeriesPointNumThreshold * schema.getSubMeasurementsCount());
+          seriesNumber.incrementAndGet();
+          totalPointsNumThreshold.addAndGet(
+              (long) avgSeriesPointNumThreshold * schema.getSubMeasurementsCount());
           return genMemSeries(schema);
         });
   }
@@ -137,11 +145,11 @@ public abstract class AbstractMemTable implements IMemTable {
           vectorValue[j] = values[columnIndex];
           columnIndex++;
         }
-        memSize +=
+        memSize.addAndGet(
             MemUtils.getVectorRecordSize(
                 measurementMNode.getSchema().getSubMeasurementsTSDataTypeList(),
                 vectorValue,
-                disableMemControl);
+                disableMemControl));
         write(
             insertRowPlan.getPrefixPath().getFullPath(),
             measurementMNode.getSchema(),
@@ -154,9 +162,9 @@ public abstract class AbstractMemTable implements IMemTable {
           columnIndex++;
           continue;
         }
-        memSize +=
+        memSize.addAndGet(
             MemUtils.getRecordSize(
-                measurementMNode.getSchema().getType(), values[columnIndex], disableMemControl);
+                measurementMNode.getSchema().getType(), values[columnIndex], disableMemControl));
 
         write(
             insertRowPlan.getPrefixPath().getFullPath(),
@@ -167,8 +175,8 @@ public abstract class AbstractMemTable implements IMemTable {
       }
     }
 
-    totalPointsNum +=
-        insertRowPlan.getMeasurements().length - insertRowPlan.getFailedMeasurementNumber();
+    totalPointsNum.addAndGet(
+        insertRowPlan.getMeasurements().length - insertRowPlan.getFailedMeasurementNumber());
   }
 
   @Override
@@ -177,10 +185,10 @@ public abstract class AbstractMemTable implements IMemTable {
     updatePlanIndexes(insertTabletPlan.getIndex());
     try {
       write(insertTabletPlan, start, end);
-      memSize += MemUtils.getRecordSize(insertTabletPlan, start, end, disableMemControl);
-      totalPointsNum +=
+      memSize.addAndGet(MemUtils.getRecordSize(insertTabletPlan, start, end, disableMemControl));
+      totalPointsNum.addAndGet(
           (insertTabletPlan.getDataTypes().length - insertTabletPlan.getFailedMeasurementNumber())
-              * (end - start);
+              * (end - start));
     } catch (RuntimeException e) {
       throw new WriteProcessException(e);
     }
@@ -256,12 +264,12 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public int getSeriesNumber() {
-    return seriesNumber;
+    return seriesNumber.get();
   }
 
   @Override
   public long getTotalPointsNum() {
-    return totalPointsNum;
+    return totalPointsNum.get();
   }
 
   @Override
@@ -277,26 +285,27 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public long memSize() {
-    return memSize;
+    return memSize.get();
   }
 
   @Override
   public boolean reachTotalPointNumThreshold() {
-    if (totalPointsNum == 0) {
+    long pointsNum = totalPointsNum.get();
+    if (pointsNum == 0) {
       return false;
     }
-    return totalPointsNum >= totalPointsNumThreshold;
+    return pointsNum >= totalPointsNumThreshold.get();
   }
 
   @Override
   public void clear() {
     memTableMap.clear();
-    memSize = 0;
-    seriesNumber = 0;
-    totalPointsNum = 0;
-    totalPointsNumThreshold = 0;
-    tvListRamCost = 0;
-    maxPlanIndex = 0;
+    memSize.set(0);
+    seriesNumber.set(0);
+    totalPointsNum.set(0);
+    totalPointsNumThreshold.set(0);
+    tvListRamCost.set(0);
+    maxPlanIndex.set(0);
   }
 
   @Override
@@ -372,7 +381,7 @@ public abstract class AbstractMemTable implements IMemTable {
           iter.remove();
         }
         int deletedPointsNumber = chunk.delete(startTimestamp, endTimestamp);
-        totalPointsNum -= deletedPointsNumber;
+        totalPointsNum.addAndGet(-deletedPointsNumber);
       }
       // for vector type
       else if (schema.getType() == TSDataType.VECTOR) {
@@ -382,7 +391,7 @@ public abstract class AbstractMemTable implements IMemTable {
             iter.remove();
           }
           int deletedPointsNumber = chunk.delete(startTimestamp, endTimestamp);
-          totalPointsNum -= deletedPointsNumber;
+          totalPointsNum.addAndGet(-deletedPointsNumber);
         }
       }
     }
@@ -390,27 +399,27 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public void addTVListRamCost(long cost) {
-    this.tvListRamCost += cost;
+    tvListRamCost.addAndGet(cost);
   }
 
   @Override
   public void releaseTVListRamCost(long cost) {
-    this.tvListRamCost -= cost;
+    tvListRamCost.addAndGet(-cost);
   }
 
   @Override
   public long getTVListsRamCost() {
-    return tvListRamCost;
+    return tvListRamCost.get();
   }
 
   @Override
   public void addTextDataSize(long textDataSize) {
-    this.memSize += textDataSize;
+    memSize.addAndGet(textDataSize);
   }
 
   @Override
   public void releaseTextDataSize(long textDataSize) {
-    this.memSize -= textDataSize;
+    memSize.addAndGet(-textDataSize);
   }
 
   @Override
@@ -437,17 +446,17 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public long getMaxPlanIndex() {
-    return maxPlanIndex;
+    return maxPlanIndex.get();
   }
 
   @Override
   public long getMinPlanIndex() {
-    return minPlanIndex;
+    return minPlanIndex.get();
   }
 
   void updatePlanIndexes(long index) {
-    maxPlanIndex = Math.max(index, maxPlanIndex);
-    minPlanIndex = Math.min(index, minPlanIndex);
+    maxPlanIndex.accumulateAndGet(index, Math::max);
+    minPlanIndex.accumulateAndGet(index, Math::min);
   }
 
   @Override
@@ -51,6 +51,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * MergeManager provides a ThreadPool to queue and run all merge tasks to restrain the total
@@ -64,6 +65,14 @@ public class MergeManager implements IService, MergeManagerMBean {
       String.format(
           "%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE, getID().getJmxName());
   private final RateLimiter mergeWriteRateLimiter = RateLimiter.create(Double.MAX_VALUE);
+  private final RateLimiter mergeReadRateLimiter = RateLimiter.create(Double.MAX_VALUE);
+
+  /** bytes flushed since the last merge write that have not been paid from the write budget */
+  private final AtomicLong unpaidFlushBytes = new AtomicLong();
+
+  private final AtomicLong flushWrittenBytes = new AtomicLong();
+  private final AtomicLong mergeReadBytes = new AtomicLong();
+  private final AtomicLong mergeWrittenBytes = new AtomicLong();
 
   private AtomicInteger threadCnt = new AtomicInteger();
   private ThreadPoolExecutor mergeTaskPool;
@@ -77,10 +86,54 @@ public class MergeManager implements IService, MergeManagerMBean {
   private MergeManager() {}
 
   public RateLimiter getMergeWriteRateLimiter() {
-    setWriteMergeRate(IoTDBDescriptor.getInstance().getConfig().getMergeWriteThroughputMbPerSec());
+    setMergeRate(
+        mergeWriteRateLimiter,
+        IoTDBDescriptor.getInstance().getConfig().getMergeWriteThroughputMbPerSec());
     return mergeWriteRateLimiter;
   }
 
+  public RateLimiter getMergeReadRateLimiter() {
+    setMergeRate(
+        mergeReadRateLimiter,
+        IoTDBDescriptor.getInstance().getConfig().getMergeReadThroughputMbPerSec());
+    return mergeReadRateLimiter;
+  }
+
+  /**
+   * Record the bytes written by a flush. A flush never waits for the write budget, but if
+   * share_merge_write_throughput_with_flush is enabled, its bytes are paid by the next compaction
+   * or merge write, so that flush plus merge stay within merge_write_throughput_mb_per_sec. At most
+   * one second of budget is owed at a time so that a flush burst cannot stall merges for long.
+   */
+  public void recordFlushWrite(long bytesLength) {
+    flushWrittenBytes.addAndGet(bytesLength);
+    if (!IoTDBDescriptor.getInstance().getConfig().isShareMergeWriteThroughputWithFlush()) {
+      return;
+    }
+    double rate = getMergeWriteRateLimiter().getRate();
+    if (rate != Double.MAX_VALUE) {
+      long maxUnpaid = (long) rate;
+      unpaidFlushBytes.accumulateAndGet(
+          bytesLength, (unpaid, bytes) -> Math.min(unpaid + bytes, maxUnpaid));
+    }
+  }
+
+  /** wait for the write budget shared by compaction, merge and (optionally) flush */
+  public void acquireWriteThroughput(RateLimiter limiter, long bytesLength) {
+    mergeWrittenBytes.addAndGet(bytesLength);
+    mergeRateLimiterAcquire(limiter, bytesLength + unpaidFlushBytes.getAndSet(0));
+  }
+
+  public void acquireWriteThroughput(long bytesLength) {
+    acquireWriteThroughput(getMergeWriteRateLimiter(), bytesLength);
+  }
+
+  /** wait for the read budget shared by compaction and merge */
+  public void acquireReadThroughput(long bytesLength) {
+    mergeReadBytes.addAndGet(bytesLength);
+    mergeRateLimiterAcquire(getMergeReadRateLimiter(), bytesLength);
+  }
+
   /** wait by throughoutMbPerSec limit to avoid continuous Write Or Read */
   public static void mergeRateLimiterAcquire(RateLimiter limiter, long bytesLength) {
     while (bytesLength >= Integer.MAX_VALUE) {
@@ -92,14 +145,14 @@ public class MergeManager implements IService, MergeManagerMBean {
     }
   }
 
-  private void setWriteMergeRate(final double throughoutMbPerSec) {
+  private static void setMergeRate(RateLimiter limiter, final double throughoutMbPerSec) {
     double throughout = throughoutMbPerSec * 1024.0 * 1024.0;
     // if throughout = 0, disable rate limiting
     if (throughout == 0) {
       throughout = Double.MAX_VALUE;
     }
-    if (mergeWriteRateLimiter.getRate() != throughout) {
-      mergeWriteRateLimiter.setRate(throughout);
+    if (limiter.getRate() != throughout) {
+      limiter.setRate(throughout);
     }
   }
 
@@ -357,6 +410,31 @@ public class MergeManager implements IService, MergeManagerMBean {
     return builder.toString();
   }
 
+  @Override
+  public long getFlushWrittenBytes() {
+    return flushWrittenBytes.get();
+  }
+
+  @Override
+  public long getMergeReadBytes() {
+    return mergeReadBytes.get();
+  }
+
+  @Override
+  public long getMergeWrittenBytes() {
+    return mergeWrittenBytes.get();
+  }
+
+  /** @return (flushed bytes + compacted or merged bytes) / flushed bytes */
+  @Override
+  public double getWriteAmplification() {
+    long flushed = flushWrittenBytes.get();
+    if (flushed == 0) {
+      return 0;
+    }
+    return (double) (flushed + mergeWrittenBytes.get()) / flushed;
+  }
+
   @Override
   public void printMergeStatus() {
     if (logger.isInfoEnabled()) {
@@ -23,4 +23,12 @@ public interface MergeManagerMBean {
   void printMergeStatus();
 
   void abortMerge(String storageGroup);
+
+  long getFlushWrittenBytes();
+
+  long getMergeReadBytes();
+
+  long getMergeWrittenBytes();
+
+  double getWriteAmplification();
 }
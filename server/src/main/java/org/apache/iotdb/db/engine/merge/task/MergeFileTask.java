@@ -23,8 +23,10 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
+import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.query.control.FileReaderManager;
@@ -163,6 +165,7 @@ public class MergeFileTask {
       return;
     }
 
+    String oldTsFilePath = seqFile.getTsFilePath();
     seqFile.writeLock();
     try {
       if (Thread.currentThread().isInterrupted()) {
@@ -170,6 +173,8 @@ public class MergeFileTask {
       }
 
       FileReaderManager.getInstance().closeFileAndRemoveReader(seqFile.getTsFilePath());
+      // the merged file no longer matches its rollups
+      TsFileRollup.remove(seqFile);
 
       resource.removeFileReader(seqFile);
       TsFileIOWriter oldFileWriter = getOldFileWriter(seqFile);
@@ -223,6 +228,11 @@ public class MergeFileTask {
       restoreOldFile(seqFile);
       throw e;
     } finally {
+      // clean cache
+      if (IoTDBDescriptor.getInstance().getConfig().isMetaDataCacheEnable()) {
+        ChunkCache.getInstance().removeFile(oldTsFilePath);
+        TimeSeriesMetadataCache.getInstance().removeFile(oldTsFilePath);
+      }
       seqFile.writeUnlock();
     }
   }
@@ -301,6 +311,9 @@ public class MergeFileTask {
     fileWriter.startChunkGroup(device);
     for (ChunkMetadata chunkMetaData : chunkMetadataList) {
       Chunk chunk = reader.readMemChunk(chunkMetaData);
+      long chunkSize = (long) chunk.getHeader().getDataSize() + chunk.getData().position();
+      MergeManager.getINSTANCE().acquireReadThroughput(chunkSize);
+      MergeManager.getINSTANCE().acquireWriteThroughput(chunkSize);
       fileWriter.writeChunk(chunk, chunkMetaData);
       context.incTotalPointWritten(chunkMetaData.getNumOfPoints());
     }
@@ -349,6 +362,7 @@ public class MergeFileTask {
 
     updatePlanIndexes(seqFile);
 
+    String oldTsFilePath = seqFile.getTsFilePath();
     seqFile.writeLock();
     try {
       if (Thread.currentThread().isInterrupted()) {
@@ -359,6 +373,8 @@ public class MergeFileTask {
       mergeLogger.logFileMergeEnd();
       logger.debug("{} moved unmerged chunks of {} to the new file", taskName, seqFile);
       FileReaderManager.getInstance().closeFileAndRemoveReader(seqFile.getTsFilePath());
+      // the merged file no longer matches its rollups
+      TsFileRollup.remove(seqFile);
 
       // change tsFile name
       if (!seqFile.getTsFile().delete()) {
@@ -376,8 +392,8 @@ public class MergeFileTask {
     } finally {
       // clean cache
       if (IoTDBDescriptor.getInstance().getConfig().isMetaDataCacheEnable()) {
-        ChunkCache.getInstance().clear();
-        TimeSeriesMetadataCache.getInstance().clear();
+        ChunkCache.getInstance().removeFile(oldTsFilePath);
+        TimeSeriesMetadataCache.getInstance().removeFile(oldTsFilePath);
       }
       seqFile.writeUnlock();
     }
@@ -396,6 +412,9 @@ public class MergeFileTask {
         ChunkMetadata metaData = chunkMetadataList.get(chunkIdx);
         if (metaData.getStartTime() == startTime) {
           Chunk chunk = reader.readMemChunk(metaData);
+          long chunkSize = (long) chunk.getHeader().getDataSize() + chunk.getData().position();
+          MergeManager.getINSTANCE().acquireReadThroughput(chunkSize);
+          MergeManager.getINSTANCE().acquireWriteThroughput(chunkSize);
           fileWriter.writeChunk(chunk, metaData);
           maxVersion = metaData.getVersion() > maxVersion ? metaData.getVersion() : maxVersion;
           context.incTotalPointWritten(metaData.getNumOfPoints());
@@ -491,6 +491,9 @@ public class MergeMultiChunkTask {
         && !chunkTooSmall
         && !chunkOverflowed
         && !chunkModified) {
+      MergeManager.getINSTANCE()
+          .acquireWriteThroughput(
+              (long) chunk.getHeader().getDataSize() + chunk.getData().position());
       synchronized (mergeFileWriter) {
         mergeFileWriter.writeChunk(chunk, currMeta);
       }
@@ -516,6 +519,7 @@ public class MergeMultiChunkTask {
     if (minChunkPointNum > 0 && unclosedChunkPoint >= minChunkPointNum
         || unclosedChunkPoint > 0 && minChunkPointNum < 0) {
       // the new chunk's size is large enough and it should be flushed
+      MergeManager.getINSTANCE().acquireWriteThroughput(chunkWriter.getCurrentChunkSize());
       synchronized (mergeFileWriter) {
         chunkWriter.writeToFileWriter(mergeFileWriter);
       }
@@ -653,6 +657,9 @@ public class MergeMultiChunkTask {
           synchronized (reader) {
             chunk = reader.readMemChunk(currMeta);
           }
+          MergeManager.getINSTANCE()
+              .acquireReadThroughput(
+                  (long) chunk.getHeader().getDataSize() + chunk.getData().position());
           ptWrittens[pathIdx] =
               mergeChunkV2(
                   currMeta,
@@ -681,6 +688,7 @@ public class MergeMultiChunkTask {
         }
         // the last merged chunk may still be smaller than the threshold, flush it anyway
         if (ptWrittens[pathIdx] > 0) {
+          MergeManager.getINSTANCE().acquireWriteThroughput(chunkWriter.getCurrentChunkSize());
           synchronized (mergeFileWriter) {
             chunkWriter.writeToFileWriter(mergeFileWriter);
           }
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The position of the rollup of each series in a rollup file. It is built by scanning the file
+ * once and cached in the TsFileResource, so that reading the rollup of a series only reads its own
+ * bytes.
+ */
+public class RollupIndex {
+
+  private static final FSFactory fsFactory = FSFactoryProducer.getFSFactory();
+
+  private final File rollupFile;
+
+  /** device -> measurement -> {offset, length} of the serialized rollup of the series */
+  private final Map<String, Map<String, long[]>> positions = new HashMap<>();
+
+  private RollupIndex(File rollupFile) {
+    this.rollupFile = rollupFile;
+  }
+
+  public static RollupIndex load(File rollupFile) throws IOException {
+    RollupIndex index = new RollupIndex(rollupFile);
+    try (InputStream inputStream = fsFactory.getBufferedInputStream(rollupFile.getPath())) {
+      ReadWriteIOUtils.readBytes(inputStream, 1);
+      long offset = 1 + Integer.BYTES;
+      int deviceNum = ReadWriteIOUtils.readInt(inputStream);
+      for (int i = 0; i < deviceNum; i++) {
+        String deviceId = ReadWriteIOUtils.readString(inputStream);
+        offset += Integer.BYTES + deviceId.getBytes().length;
+        int seriesNum = ReadWriteIOUtils.readInt(inputStream);
+        offset += Integer.BYTES;
+        Map<String, long[]> seriesPositions = new HashMap<>(seriesNum);
+        for (int j = 0; j < seriesNum; j++) {
+          String measurementId = ReadWriteIOUtils.readString(inputStream);
+          int length = ReadWriteIOUtils.readInt(inputStream);
+          offset += Integer.BYTES + measurementId.getBytes().length + Integer.BYTES;
+          seriesPositions.put(measurementId, new long[] {offset, length});
+          TsFileRollup.skipFully(inputStream, length);
+          offset += length;
+        }
+        index.positions.put(deviceId, seriesPositions);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Read the rollup of one series from the rollup file.
+   *
+   * @return the rollup of the series, or null if the series has no point in the TsFile
+   */
+  public SeriesRollup read(String deviceId, String measurementId) throws IOException {
+    Map<String, long[]> seriesPositions = positions.get(deviceId);
+    long[] position = seriesPositions == null ? null : seriesPositions.get(measurementId);
+    if (position == null) {
+      return null;
+    }
+    byte[] bytes = new byte[(int) position[1]];
+    try (InputStream inputStream = fsFactory.getBufferedInputStream(rollupFile.getPath())) {
+      TsFileRollup.skipFully(inputStream, position[0]);
+      int readLen = 0;
+      while (readLen < bytes.length) {
+        int len = inputStream.read(bytes, readLen, bytes.length - readLen);
+        if (len < 0) {
+          throw new IOException("Unexpected end of rollup file");
+        }
+        readLen += len;
+      }
+    }
+    return SeriesRollup.deserialize(new ByteArrayInputStream(bytes));
+  }
+}
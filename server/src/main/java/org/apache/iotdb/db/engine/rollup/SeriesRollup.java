@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The downsampling rollups of one series in one TsFile. For each bucket width ("interval"), the
+ * points of the series are summarized by one {@link Statistics} per bucket [k * interval, (k + 1)
+ * * interval), so the count, sum, min, max, first and last of any window made of whole buckets can
+ * be computed without reading the raw data.
+ */
+public class SeriesRollup {
+
+  private final TSDataType dataType;
+
+  /** interval -> (bucket start time -> statistics of the points in the bucket) */
+  private final Map<Long, NavigableMap<Long, Statistics>> buckets = new TreeMap<>();
+
+  public SeriesRollup(TSDataType dataType, long[] intervals) {
+    this.dataType = dataType;
+    for (long interval : intervals) {
+      buckets.put(interval, new TreeMap<>());
+    }
+  }
+
+  private SeriesRollup(TSDataType dataType) {
+    this.dataType = dataType;
+  }
+
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  public boolean hasInterval(long interval) {
+    return buckets.containsKey(interval);
+  }
+
+  public static long getBucketStart(long time, long interval) {
+    return Math.floorDiv(time, interval) * interval;
+  }
+
+  /**
+   * Add the points of a sorted TVList. Points of duplicated timestamps are counted once, using the
+   * last one, in the same way as they are flushed into the TsFile.
+   */
+  public void update(TVList tvList) {
+    for (Entry<Long, NavigableMap<Long, Statistics>> entry : buckets.entrySet()) {
+      long interval = entry.getKey();
+      NavigableMap<Long, Statistics> intervalBuckets = entry.getValue();
+      Statistics current = null;
+      long currentBucketStart = 0;
+      int size = tvList.size();
+      for (int i = 0; i < size; i++) {
+        long time = tvList.getTime(i);
+        if (i + 1 < size && time == tvList.getTime(i + 1)) {
+          continue;
+        }
+        long bucketStart = getBucketStart(time, interval);
+        if (current == null || bucketStart != currentBucketStart) {
+          currentBucketStart = bucketStart;
+          current = intervalBuckets.get(bucketStart);
+          if (current == null) {
+            current = Statistics.getStatsByType(dataType);
+            intervalBuckets.put(bucketStart, current);
+          }
+        }
+        updateStatistics(current, tvList, i, time);
+      }
+    }
+  }
+
+  private void updateStatistics(Statistics statistics, TVList tvList, int index, long time) {
+    switch (dataType) {
+      case BOOLEAN:
+        statistics.update(time, tvList.getBoolean(index));
+        break;
+      case INT32:
+        statistics.update(time, tvList.getInt(index));
+        break;
+      case INT64:
+        statistics.update(time, tvList.getLong(index));
+        break;
+      case FLOAT:
+        statistics.update(time, tvList.getFloat(index));
+        break;
+      case DOUBLE:
+        statistics.update(time, tvList.getDouble(index));
+        break;
+      case TEXT:
+        statistics.update(time, tvList.getBinary(index));
+        break;
+      default:
+        throw new UnsupportedOperationException("Rollup does not support data type " + dataType);
+    }
+  }
+
+  /**
+   * Merge the rollup of points that do not share timestamps with the points of this rollup, e.g.,
+   * the rollup of a later memtable of the same sequence TsFile. The intervals that the other rollup
+   * does not have are dropped, as their buckets would be incomplete.
+   */
+  public void merge(SeriesRollup other) {
+    Iterator<Entry<Long, NavigableMap<Long, Statistics>>> iterator = buckets.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Entry<Long, NavigableMap<Long, Statistics>> entry = iterator.next();
+      NavigableMap<Long, Statistics> otherBuckets = other.buckets.get(entry.getKey());
+      if (otherBuckets == null) {
+        iterator.remove();
+        continue;
+      }
+      NavigableMap<Long, Statistics> intervalBuckets = entry.getValue();
+      for (Entry<Long, Statistics> bucket : otherBuckets.entrySet()) {
+        Statistics statistics = intervalBuckets.get(bucket.getKey());
+        if (statistics == null) {
+          statistics = Statistics.getStatsByType(dataType);
+          intervalBuckets.put(bucket.getKey(), statistics);
+        }
+        statistics.mergeStatistics(bucket.getValue());
+      }
+    }
+  }
+
+  /**
+   * Merge the buckets of the interval in [startTime, endTime) into the given statistics.
+   *
+   * @return whether any bucket is merged
+   */
+  public boolean mergeBucketsInto(
+      long interval, long startTime, long endTime, Statistics statistics) {
+    NavigableMap<Long, Statistics> intervalBuckets = buckets.get(interval);
+    if (intervalBuckets == null) {
+      return false;
+    }
+    boolean merged = false;
+    for (Statistics bucket : intervalBuckets.subMap(startTime, true, endTime, false).values()) {
+      statistics.mergeStatistics(bucket);
+      merged = true;
+    }
+    return merged;
+  }
+
+  public void serialize(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(dataType, outputStream);
+    ReadWriteIOUtils.write(buckets.size(), outputStream);
+    for (Entry<Long, NavigableMap<Long, Statistics>> entry : buckets.entrySet()) {
+      ReadWriteIOUtils.write(entry.getKey(), outputStream);
+      ReadWriteIOUtils.write(entry.getValue().size(), outputStream);
+      // the start of a bucket is derived from the start time of its statistics
+      for (Statistics statistics : entry.getValue().values()) {
+        statistics.serialize(outputStream);
+      }
+    }
+  }
+
+  public static SeriesRollup deserialize(InputStream inputStream) throws IOException {
+    SeriesRollup rollup = new SeriesRollup(ReadWriteIOUtils.readDataType(inputStream));
+    int intervalNum = ReadWriteIOUtils.readInt(inputStream);
+    for (int i = 0; i < intervalNum; i++) {
+      long interval = ReadWriteIOUtils.readLong(inputStream);
+      int bucketNum = ReadWriteIOUtils.readInt(inputStream);
+      NavigableMap<Long, Statistics> intervalBuckets = new TreeMap<>();
+      for (int j = 0; j < bucketNum; j++) {
+        Statistics statistics = Statistics.deserialize(inputStream, rollup.dataType);
+        intervalBuckets.put(getBucketStart(statistics.getStartTime(), interval), statistics);
+      }
+      rollup.buckets.put(interval, intervalBuckets);
+    }
+    return rollup;
+  }
+}
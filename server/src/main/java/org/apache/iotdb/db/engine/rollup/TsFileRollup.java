@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The rollups of all series in a sequence TsFile, stored in a sidecar file beside the TsFile (the
+ * ".rollup" file). A rollup file only exists when the rollups cover every point of the TsFile, so
+ * a TsFile without one, e.g., an unsealed, loaded or merged file, is always read from raw data.
+ * Deletions are not applied to rollups; readers must check the modification file of the TsFile.
+ *
+ * <p>The rollup of each series is serialized with its length, so that a reader can skip the series
+ * it does not need, and the positions of the series are indexed by {@link RollupIndex}.
+ */
+public class TsFileRollup {
+
+  public static final String ROLLUP_SUFFIX = ".rollup";
+  private static final String TEMP_SUFFIX = ".temp";
+  private static final byte VERSION_NUMBER = 1;
+
+  private static final FSFactory fsFactory = FSFactoryProducer.getFSFactory();
+
+  private final long[] intervals;
+
+  /** device -> measurement -> rollup */
+  private final Map<String, Map<String, SeriesRollup>> deviceRollups = new ConcurrentHashMap<>();
+
+  public TsFileRollup(long[] intervals) {
+    this.intervals = intervals;
+  }
+
+  /**
+   * Add the points of a sorted TVList of a series. Different series can be updated concurrently,
+   * but a series can only be updated by one thread at a time.
+   */
+  public void update(String deviceId, String measurementId, TVList tvList) {
+    deviceRollups
+        .computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>())
+        .computeIfAbsent(measurementId, k -> new SeriesRollup(tvList.getDataType(), intervals))
+        .update(tvList);
+  }
+
+  /**
+   * Mark that the series cannot be rolled up in this file, e.g., because its points are dropped by
+   * lossy compression. The series gets a rollup without any interval, so it is always read raw.
+   */
+  public void exclude(String deviceId, String measurementId, TSDataType dataType) {
+    deviceRollups
+        .computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>())
+        .put(measurementId, new SeriesRollup(dataType, new long[0]));
+  }
+
+  public SeriesRollup getSeriesRollup(String deviceId, String measurementId) {
+    Map<String, SeriesRollup> seriesRollups = deviceRollups.get(deviceId);
+    return seriesRollups == null ? null : seriesRollups.get(measurementId);
+  }
+
+  /**
+   * Merge the rollups of other points of the same series, e.g., the rollups of another memtable
+   * flushed into the same TsFile, or the rollups of another sequence TsFile being compacted into
+   * the same target. The points of the two rollups must not share timestamps.
+   */
+  public void merge(TsFileRollup other) {
+    for (Entry<String, Map<String, SeriesRollup>> deviceEntry : other.deviceRollups.entrySet()) {
+      Map<String, SeriesRollup> seriesRollups =
+          deviceRollups.computeIfAbsent(deviceEntry.getKey(), k -> new ConcurrentHashMap<>());
+      for (Entry<String, SeriesRollup> seriesEntry : deviceEntry.getValue().entrySet()) {
+        SeriesRollup seriesRollup = seriesRollups.get(seriesEntry.getKey());
+        if (seriesRollup == null) {
+          seriesRollups.put(seriesEntry.getKey(), seriesEntry.getValue());
+        } else if (seriesRollup.getDataType() != seriesEntry.getValue().getDataType()) {
+          // the series has been deleted and recreated with another type, neither is complete
+          seriesRollups.remove(seriesEntry.getKey());
+        } else {
+          seriesRollup.merge(seriesEntry.getValue());
+        }
+      }
+    }
+  }
+
+  public boolean isEmpty() {
+    return deviceRollups.isEmpty();
+  }
+
+  public static File getRollupFile(File tsFile) {
+    return fsFactory.getFile(tsFile.getPath() + ROLLUP_SUFFIX);
+  }
+
+  /** write the rollups beside the TsFile, replacing the existing rollup file if any */
+  public void serialize(File tsFile) throws IOException {
+    File tempFile = fsFactory.getFile(tsFile.getPath() + ROLLUP_SUFFIX + TEMP_SUFFIX);
+    try (OutputStream outputStream = fsFactory.getBufferedOutputStream(tempFile.getPath())) {
+      ReadWriteIOUtils.write(VERSION_NUMBER, outputStream);
+      ReadWriteIOUtils.write(deviceRollups.size(), outputStream);
+      PublicBAOS seriesBuffer = new PublicBAOS();
+      for (Entry<String, Map<String, SeriesRollup>> deviceEntry : deviceRollups.entrySet()) {
+        ReadWriteIOUtils.write(deviceEntry.getKey(), outputStream);
+        ReadWriteIOUtils.write(deviceEntry.getValue().size(), outputStream);
+        for (Entry<String, SeriesRollup> seriesEntry : deviceEntry.getValue().entrySet()) {
+          seriesBuffer.reset();
+          seriesEntry.getValue().serialize(seriesBuffer);
+          ReadWriteIOUtils.write(seriesEntry.getKey(), outputStream);
+          ReadWriteIOUtils.write(seriesBuffer.size(), outputStream);
+          outputStream.write(seriesBuffer.getBuf(), 0, seriesBuffer.size());
+        }
+      }
+    }
+    File rollupFile = getRollupFile(tsFile);
+    fsFactory.deleteIfExists(rollupFile);
+    fsFactory.moveFile(tempFile, rollupFile);
+  }
+
+  public static TsFileRollup deserialize(File tsFile, long[] intervals) throws IOException {
+    TsFileRollup rollup = new TsFileRollup(intervals);
+    try (InputStream inputStream =
+        fsFactory.getBufferedInputStream(getRollupFile(tsFile).getPath())) {
+      ReadWriteIOUtils.readBytes(inputStream, 1);
+      int deviceNum = ReadWriteIOUtils.readInt(inputStream);
+      for (int i = 0; i < deviceNum; i++) {
+        String deviceId = ReadWriteIOUtils.readString(inputStream);
+        Map<String, SeriesRollup> seriesRollups = new ConcurrentHashMap<>();
+        int seriesNum = ReadWriteIOUtils.readInt(inputStream);
+        for (int j = 0; j < seriesNum; j++) {
+          String measurementId = ReadWriteIOUtils.readString(inputStream);
+          ReadWriteIOUtils.readInt(inputStream);
+          seriesRollups.put(measurementId, SeriesRollup.deserialize(inputStream));
+        }
+        rollup.deviceRollups.put(deviceId, seriesRollups);
+      }
+    }
+    return rollup;
+  }
+
+  /**
+   * Read the rollup of one series from the rollup file of a sealed TsFile, through the index of the
+   * rollup file cached in the resource.
+   *
+   * @return the rollup of the series, or null if the series has no point in the TsFile
+   */
+  public static SeriesRollup readSeriesRollup(
+      TsFileResource resource, String deviceId, String measurementId) throws IOException {
+    RollupIndex index = resource.getRollupIndex();
+    if (index == null) {
+      index = RollupIndex.load(getRollupFile(resource.getTsFile()));
+      resource.setRollupIndex(index);
+    }
+    return index.read(deviceId, measurementId);
+  }
+
+  static void skipFully(InputStream inputStream, long length) throws IOException {
+    while (length > 0) {
+      long skipped = inputStream.skip(length);
+      if (skipped <= 0) {
+        throw new IOException("Unexpected end of rollup file");
+      }
+      length -= skipped;
+    }
+  }
+
+  public static boolean exists(File tsFile) {
+    return getRollupFile(tsFile).exists();
+  }
+
+  /** remove the rollup file of the TsFile, called when the content of the TsFile changes */
+  public static void remove(File tsFile) throws IOException {
+    fsFactory.deleteIfExists(getRollupFile(tsFile));
+  }
+
+  /** remove the rollup file of the TsFile and the index of it cached in the resource */
+  public static void remove(TsFileResource resource) throws IOException {
+    resource.setRollupIndex(null);
+    remove(resource.getTsFile());
+  }
+}
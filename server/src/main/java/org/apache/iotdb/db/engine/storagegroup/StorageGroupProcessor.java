@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.engine.storagegroup;
 
+import org.apache.iotdb.db.concurrent.HashLock;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -95,13 +96,15 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
@@ -161,6 +164,17 @@ public class StorageGroupProcessor {
    * partitionLatestFlushedTimeForEachDevice)
    */
   private final ReadWriteLock insertLock = new ReentrantReadWriteLock();
+  /**
+   * If enabled, insertions take the read lock of insertLock and the write lock of their device in
+   * deviceInsertLock, so that only insertions of the same device exclude each other. Queries take
+   * the read lock of the queried device, and flushes or closes still take the write lock of
+   * insertLock, as they switch the working memtables.
+   */
+  private final boolean enableConcurrentInsert = config.isEnableConcurrentInsert();
+
+  private final HashLock deviceInsertLock = new HashLock();
+  /** serializes the creation of TsFileProcessors by concurrent insertions */
+  private final Object tsFileProcessorCreationLock = new Object();
   /** closeStorageGroupCondition is used to wait for all currently closing TsFiles to be done. */
   private final Object closeStorageGroupCondition = new Object();
   /**
@@ -168,11 +182,18 @@ public class StorageGroupProcessor {
    */
   private final ReadWriteLock closeQueryLock = new ReentrantReadWriteLock();
   /** time partition id in the storage group -> tsFileProcessor for this time partition */
-  private final TreeMap<Long, TsFileProcessor> workSequenceTsFileProcessors = new TreeMap<>();
+  private final ConcurrentSkipListMap<Long, TsFileProcessor> workSequenceTsFileProcessors =
+      new ConcurrentSkipListMap<>();
   /** time partition id in the storage group -> tsFileProcessor for this time partition */
-  private final TreeMap<Long, TsFileProcessor> workUnsequenceTsFileProcessors = new TreeMap<>();
-  /** compactionMergeWorking is used to wait for last compaction to be done. */
-  private volatile boolean compactionMergeWorking = false;
+  private final ConcurrentSkipListMap<Long, TsFileProcessor> workUnsequenceTsFileProcessors =
+      new ConcurrentSkipListMap<>();
+  /** compactionRecovering is used to wait for the compaction recovery to be done. */
+  private volatile boolean compactionRecovering = false;
+  /**
+   * the time partitions whose compaction is submitted or running, different time partitions are
+   * compacted in parallel, at most max_compaction_partition_num_in_each_storage_group at a time
+   */
+  private final Set<Long> compactingPartitions = new HashSet<>();
   // upgrading sequence TsFile resource list
   private List<TsFileResource> upgradeSeqFileList = new LinkedList<>();
 
@@ -194,7 +215,7 @@ public class StorageGroupProcessor {
    * changes upon timestamps of each device, and is used to update partitionLatestFlushedTimeForEachDevice
    * when a flush is issued.
    */
-  private Map<Long, Map<String, Long>> latestTimeForEachDevice = new HashMap<>();
+  private Map<Long, Map<String, Long>> latestTimeForEachDevice = new ConcurrentHashMap<>();
   /**
    * time partition id -> map, which contains device -> largest timestamp of the latest memtable to
    * be submitted to asyncTryToFlush partitionLatestFlushedTimeForEachDevice determines whether a
@@ -202,7 +223,8 @@ public class StorageGroupProcessor {
    * with timestamp less than or equals to the device's latestFlushedTime should go into an
    * unsequential file.
    */
-  private Map<Long, Map<String, Long>> partitionLatestFlushedTimeForEachDevice = new HashMap<>();
+  private Map<Long, Map<String, Long>> partitionLatestFlushedTimeForEachDevice =
+      new ConcurrentHashMap<>();
 
   /** used to record the latest flush time while upgrading and inserting */
   private Map<Long, Map<String, Long>> newlyFlushedPartitionLatestFlushedTimeForEachDevice =
@@ -213,7 +235,7 @@ public class StorageGroupProcessor {
    * latestFlushedTime of devices and will be updated along with
    * partitionLatestFlushedTimeForEachDevice
    */
-  private Map<String, Long> globalLatestFlushedTimeForEachDevice = new HashMap<>();
+  private Map<String, Long> globalLatestFlushedTimeForEachDevice = new ConcurrentHashMap<>();
 
   /** virtual storage group id */
   private String virtualStorageGroupId;
@@ -528,10 +550,10 @@ public class StorageGroupProcessor {
         endTimeMap.put(deviceId, endTime);
       }
       latestTimeForEachDevice
-          .computeIfAbsent(timePartitionId, l -> new HashMap<>())
+          .computeIfAbsent(timePartitionId, l -> new ConcurrentHashMap<>())
           .putAll(endTimeMap);
       partitionLatestFlushedTimeForEachDevice
-          .computeIfAbsent(timePartitionId, id -> new HashMap<>())
+          .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
           .putAll(endTimeMap);
       globalLatestFlushedTimeForEachDevice.putAll(endTimeMap);
     }
@@ -552,7 +574,7 @@ public class StorageGroupProcessor {
 
   private void recoverCompaction() {
     if (!CompactionMergeTaskPoolManager.getInstance().isTerminated()) {
-      compactionMergeWorking = true;
+      compactionRecovering = true;
       logger.info(
           "{} - {} submit a compaction recover merge task",
           logicalStorageGroupName,
@@ -561,9 +583,9 @@ public class StorageGroupProcessor {
         CompactionMergeTaskPoolManager.getInstance()
             .submitTask(
                 logicalStorageGroupName,
-                tsFileManagement.new CompactionRecoverTask(this::closeCompactionMergeCallBack));
+                tsFileManagement.new CompactionRecoverTask(this::closeCompactionRecoverCallBack));
       } catch (RejectedExecutionException e) {
-        this.closeCompactionMergeCallBack(false, 0);
+        this.closeCompactionRecoverCallBack(false, 0);
         logger.error(
             "{} - {} compaction submit task failed",
             logicalStorageGroupName,
@@ -599,7 +621,7 @@ public class StorageGroupProcessor {
         long endTime = resource.getEndTime(deviceId);
         long endTimePartitionId = StorageEngine.getTimePartition(endTime);
         latestTimeForEachDevice
-            .computeIfAbsent(endTimePartitionId, l -> new HashMap<>())
+            .computeIfAbsent(endTimePartitionId, l -> new ConcurrentHashMap<>())
             .put(deviceId, endTime);
         globalLatestFlushedTimeForEachDevice.put(deviceId, endTime);
 
@@ -607,7 +629,7 @@ public class StorageGroupProcessor {
         long partitionId = StorageEngine.getTimePartition(resource.getStartTime(deviceId));
         while (partitionId <= endTimePartitionId) {
           partitionLatestFlushedTimeForEachDevice
-              .computeIfAbsent(partitionId, l -> new HashMap<>())
+              .computeIfAbsent(partitionId, l -> new ConcurrentHashMap<>())
               .put(deviceId, endTime);
           if (!timePartitionIdVersionControllerMap.containsKey(partitionId)) {
             File directory =
@@ -859,13 +881,15 @@ public class StorageGroupProcessor {
     if (!isAlive(insertRowPlan.getTime())) {
       throw new OutOfTTLException(insertRowPlan.getTime(), (System.currentTimeMillis() - dataTTL));
     }
-    writeLock("InsertRow");
+    String deviceId = insertRowPlan.getPrefixPath().getFullPath();
+    List<TsFileProcessor> processorsToFlush = newProcessorsToFlush();
+    insertLock(deviceId, "InsertRow");
     try {
       // init map
       long timePartitionId = StorageEngine.getTimePartition(insertRowPlan.getTime());
 
       partitionLatestFlushedTimeForEachDevice.computeIfAbsent(
-          timePartitionId, id -> new HashMap<>());
+          timePartitionId, id -> new ConcurrentHashMap<>());
 
       boolean isSequence =
           insertRowPlan.getTime()
@@ -879,16 +903,17 @@ public class StorageGroupProcessor {
         return;
       }
 
-      latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new HashMap<>());
+      latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new ConcurrentHashMap<>());
 
       // fire trigger before insertion
       TriggerEngine.fire(TriggerEvent.BEFORE_INSERT, insertRowPlan);
       // insert to sequence or unSequence file
-      insertToTsFileProcessor(insertRowPlan, isSequence, timePartitionId);
+      insertToTsFileProcessor(insertRowPlan, isSequence, timePartitionId, processorsToFlush);
       // fire trigger after insertion
       TriggerEngine.fire(TriggerEvent.AFTER_INSERT, insertRowPlan);
     } finally {
-      writeUnlock();
+      insertUnlock(deviceId);
+      flushProcessors(processorsToFlush);
     }
   }
 
@@ -901,7 +926,9 @@ public class StorageGroupProcessor {
   public void insertTablet(InsertTabletPlan insertTabletPlan)
       throws BatchProcessException, TriggerExecutionException {
 
-    writeLock("insertTablet");
+    String deviceId = insertTabletPlan.getPrefixPath().getFullPath();
+    List<TsFileProcessor> processorsToFlush = newProcessorsToFlush();
+    insertLock(deviceId, "insertTablet");
     try {
       TSStatus[] results = new TSStatus[insertTabletPlan.getRowCount()];
       Arrays.fill(results, RpcUtils.SUCCESS_STATUS);
@@ -942,7 +969,7 @@ public class StorageGroupProcessor {
       // init map
       long lastFlushTime =
           partitionLatestFlushedTimeForEachDevice
-              .computeIfAbsent(beforeTimePartition, id -> new HashMap<>())
+              .computeIfAbsent(beforeTimePartition, id -> new ConcurrentHashMap<>())
               .computeIfAbsent(
                   insertTabletPlan.getPrefixPath().getFullPath(), id -> Long.MIN_VALUE);
       // if is sequence
@@ -957,7 +984,13 @@ public class StorageGroupProcessor {
               || !IoTDBDescriptor.getInstance().getConfig().isEnableDiscardOutOfOrderData()) {
             noFailure =
                 insertTabletToTsFileProcessor(
-                        insertTabletPlan, before, loc, isSequence, results, beforeTimePartition)
+                        insertTabletPlan,
+                        before,
+                        loc,
+                        isSequence,
+                        results,
+                        beforeTimePartition,
+                        processorsToFlush)
                     && noFailure;
           }
           // re initialize
@@ -965,7 +998,7 @@ public class StorageGroupProcessor {
           beforeTimePartition = curTimePartition;
           lastFlushTime =
               partitionLatestFlushedTimeForEachDevice
-                  .computeIfAbsent(beforeTimePartition, id -> new HashMap<>())
+                  .computeIfAbsent(beforeTimePartition, id -> new ConcurrentHashMap<>())
                   .computeIfAbsent(
                       insertTabletPlan.getPrefixPath().getFullPath(), id -> Long.MIN_VALUE);
           isSequence = false;
@@ -978,7 +1011,13 @@ public class StorageGroupProcessor {
             if (!IoTDBDescriptor.getInstance().getConfig().isEnableDiscardOutOfOrderData()) {
               noFailure =
                   insertTabletToTsFileProcessor(
-                          insertTabletPlan, before, loc, false, results, beforeTimePartition)
+                          insertTabletPlan,
+                          before,
+                          loc,
+                          false,
+                          results,
+                          beforeTimePartition,
+                          processorsToFlush)
                       && noFailure;
             }
             before = loc;
@@ -994,7 +1033,13 @@ public class StorageGroupProcessor {
               || !IoTDBDescriptor.getInstance().getConfig().isEnableDiscardOutOfOrderData())) {
         noFailure =
             insertTabletToTsFileProcessor(
-                    insertTabletPlan, before, loc, isSequence, results, beforeTimePartition)
+                    insertTabletPlan,
+                    before,
+                    loc,
+                    isSequence,
+                    results,
+                    beforeTimePartition,
+                    processorsToFlush)
                 && noFailure;
       }
       long globalLatestFlushedTime =
@@ -1009,7 +1054,8 @@ public class StorageGroupProcessor {
       // fire trigger after insertion
       TriggerEngine.fire(TriggerEvent.AFTER_INSERT, insertTabletPlan, firePosition);
     } finally {
-      writeUnlock();
+      insertUnlock(deviceId);
+      flushProcessors(processorsToFlush);
     }
   }
 
@@ -1028,6 +1074,7 @@ public class StorageGroupProcessor {
    * @param end end index of rows to be inserted in insertTabletPlan
    * @param results result array
    * @param timePartitionId time partition id
+   * @param processorsToFlush collects the processors to flush after a concurrent insertion
    * @return false if any failure occurs when inserting the tablet, true otherwise
    */
   private boolean insertTabletToTsFileProcessor(
@@ -1036,7 +1083,8 @@ public class StorageGroupProcessor {
       int end,
       boolean sequence,
       TSStatus[] results,
-      long timePartitionId) {
+      long timePartitionId,
+      List<TsFileProcessor> processorsToFlush) {
     // return when start >= end
     if (start >= end) {
       return true;
@@ -1063,7 +1111,7 @@ public class StorageGroupProcessor {
       return false;
     }
 
-    latestTimeForEachDevice.computeIfAbsent(timePartitionId, t -> new HashMap<>());
+    latestTimeForEachDevice.computeIfAbsent(timePartitionId, t -> new ConcurrentHashMap<>());
     // try to update the latest time of the device of this tsRecord
     if (sequence
         && latestTimeForEachDevice
@@ -1077,9 +1125,7 @@ public class StorageGroupProcessor {
     }
 
     // check memtable size and may async try to flush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
-    }
+    tryToFlush(tsFileProcessor, sequence, processorsToFlush);
     return true;
   }
 
@@ -1087,41 +1133,27 @@ public class StorageGroupProcessor {
     if (!IoTDBDescriptor.getInstance().getConfig().isLastCacheEnabled()) {
       return;
     }
+    // Update cached last value with high priority, the columns with measurementMNodes in one pass
+    IoTDB.metaManager.updateLastCache(plan, latestFlushedTime);
     IMeasurementMNode[] mNodes = plan.getMeasurementMNodes();
     for (int i = 0; i < mNodes.length; i++) {
-      if (plan.getColumns()[i] == null) {
+      if (plan.getColumns()[i] == null || mNodes[i] != null) {
         continue;
       }
-      // Update cached last value with high priority
-      if (mNodes[i] == null) {
-        // no matter aligned or not, concat the path to use the full path to update LastCache
-        IoTDB.metaManager.updateLastCache(
-            plan.getPrefixPath().concatNode(plan.getMeasurements()[i]),
-            plan.composeLastTimeValuePair(i),
-            true,
-            latestFlushedTime);
-      } else {
-        if (plan.isAligned()) {
-          // vector lastCache update need subMeasurement
-          IoTDB.metaManager.updateLastCache(
-              mNodes[i],
-              plan.getMeasurements()[i],
-              plan.composeLastTimeValuePair(i),
-              true,
-              latestFlushedTime);
-
-        } else {
-          // in stand alone version, the seriesPath is not needed, just use measurementMNodes[i] to
-          // update last cache
-          IoTDB.metaManager.updateLastCache(
-              mNodes[i], plan.composeLastTimeValuePair(i), true, latestFlushedTime);
-        }
-      }
+      // no matter aligned or not, concat the path to use the full path to update LastCache
+      IoTDB.metaManager.updateLastCache(
+          plan.getPrefixPath().concatNode(plan.getMeasurements()[i]),
+          plan.composeLastTimeValuePair(i),
+          true,
+          latestFlushedTime);
     }
   }
 
   private void insertToTsFileProcessor(
-      InsertRowPlan insertRowPlan, boolean sequence, long timePartitionId)
+      InsertRowPlan insertRowPlan,
+      boolean sequence,
+      long timePartitionId,
+      List<TsFileProcessor> processorsToFlush)
       throws WriteProcessException {
     TsFileProcessor tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId, sequence);
     if (tsFileProcessor == null) {
@@ -1147,8 +1179,34 @@ public class StorageGroupProcessor {
     tryToUpdateInsertLastCache(insertRowPlan, globalLatestFlushTime);
 
     // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
+    tryToFlush(tsFileProcessor, sequence, processorsToFlush);
+  }
+
+  /**
+   * Flush the working memtable of the processor if it is full. Switching memtables needs the write
+   * lock, so a concurrent insertion, which only holds the read lock, collects the processor instead
+   * and flushes it in {@link #flushProcessors(List)} after releasing its locks.
+   */
+  private void tryToFlush(
+      TsFileProcessor tsFileProcessor, boolean sequence, List<TsFileProcessor> processorsToFlush) {
+    if (!tsFileProcessor.shouldFlush()) {
+      return;
+    }
+    if (!enableConcurrentInsert) {
       fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+    } else if (!processorsToFlush.contains(tsFileProcessor)) {
+      processorsToFlush.add(tsFileProcessor);
+    }
+  }
+
+  private List<TsFileProcessor> newProcessorsToFlush() {
+    return enableConcurrentInsert ? new ArrayList<>() : Collections.emptyList();
+  }
+
+  private void flushProcessors(List<TsFileProcessor> processorsToFlush) {
+    for (TsFileProcessor tsFileProcessor : processorsToFlush) {
+      // the memtable may have been flushed by another insertion meanwhile, which is checked again
+      submitAFlushTaskWhenShouldFlush(tsFileProcessor);
     }
   }
 
@@ -1236,16 +1294,22 @@ public class StorageGroupProcessor {
    * @param sequence whether is sequence or not
    */
   private TsFileProcessor getOrCreateTsFileProcessorIntern(
-      long timeRangeId, TreeMap<Long, TsFileProcessor> tsFileProcessorTreeMap, boolean sequence)
+      long timeRangeId, Map<Long, TsFileProcessor> tsFileProcessorTreeMap, boolean sequence)
       throws IOException, DiskSpaceInsufficientException {
 
     TsFileProcessor res = tsFileProcessorTreeMap.get(timeRangeId);
 
     if (null == res) {
-      // build new processor, memory control module will control the number of memtables
-      res = newTsFileProcessor(sequence, timeRangeId);
-      tsFileProcessorTreeMap.put(timeRangeId, res);
-      tsFileManagement.add(res.getTsFileResource(), sequence);
+      synchronized (tsFileProcessorCreationLock) {
+        // concurrent insertions may have created it meanwhile
+        res = tsFileProcessorTreeMap.get(timeRangeId);
+        if (null == res) {
+          // build new processor, memory control module will control the number of memtables
+          res = newTsFileProcessor(sequence, timeRangeId);
+          tsFileProcessorTreeMap.put(timeRangeId, res);
+          tsFileManagement.add(res.getTsFileResource(), sequence);
+        }
+      }
     }
 
     return res;
@@ -1740,11 +1804,12 @@ public class StorageGroupProcessor {
       QueryFileManager filePathsManager,
       Filter timeFilter)
       throws QueryProcessException {
-    readLock();
+    String deviceId = fullPath.getDevice();
+    readLock(deviceId);
     try {
       List<TsFileResource> seqResources =
           getFileResourceListForQuery(
-              tsFileManagement.getTsFileList(true),
+              tsFileManagement.getTsFileListForQuery(deviceId, timeFilter, true),
               upgradeSeqFileList,
               fullPath,
               context,
@@ -1752,7 +1817,7 @@ public class StorageGroupProcessor {
               true);
       List<TsFileResource> unseqResources =
           getFileResourceListForQuery(
-              tsFileManagement.getTsFileList(false),
+              tsFileManagement.getTsFileListForQuery(deviceId, timeFilter, false),
               upgradeUnseqFileList,
               fullPath,
               context,
@@ -1770,7 +1835,49 @@ public class StorageGroupProcessor {
     } catch (MetadataException e) {
       throw new QueryProcessException(e);
     } finally {
-      readUnlock();
+      readUnlock(deviceId);
+    }
+  }
+
+  /**
+   * lock the read lock of the insert lock and, if concurrent insert is enabled, of the device, as
+   * insertions of the device only exclude the query through the device lock in that mode
+   */
+  private void readLock(String deviceId) {
+    insertLock.readLock().lock();
+    if (enableConcurrentInsert) {
+      deviceInsertLock.readLock(deviceId);
+    }
+    tsFileManagement.readLock();
+  }
+
+  private void readUnlock(String deviceId) {
+    tsFileManagement.readUnLock();
+    if (enableConcurrentInsert) {
+      deviceInsertLock.readUnlock(deviceId);
+    }
+    insertLock.readLock().unlock();
+  }
+
+  /**
+   * lock for inserting into the device, which takes the write lock of the insert lock, or only the
+   * device lock if concurrent insert is enabled
+   */
+  private void insertLock(String deviceId, String holder) {
+    if (enableConcurrentInsert) {
+      insertLock.readLock().lock();
+      deviceInsertLock.writeLock(deviceId);
+    } else {
+      writeLock(holder);
+    }
+  }
+
+  private void insertUnlock(String deviceId) {
+    if (enableConcurrentInsert) {
+      deviceInsertLock.writeUnlock(deviceId);
+      insertLock.readLock().unlock();
+    } else {
+      writeUnlock();
     }
   }
 
@@ -2088,7 +2195,7 @@ public class StorageGroupProcessor {
 
     for (Entry<String, Long> entry : curPartitionDeviceLatestTime.entrySet()) {
       partitionLatestFlushedTimeForEachDevice
-          .computeIfAbsent(processor.getTimeRangeId(), id -> new HashMap<>())
+          .computeIfAbsent(processor.getTimeRangeId(), id -> new ConcurrentHashMap<>())
           .put(entry.getKey(), entry.getValue());
       updateNewlyFlushedPartitionLatestFlushedTimeForEachDevice(
           processor.getTimeRangeId(), entry.getKey(), entry.getValue());
@@ -2125,10 +2232,10 @@ public class StorageGroupProcessor {
       entry.setValue(latestFlushTime);
 
       partitionLatestFlushedTimeForEachDevice
-          .computeIfAbsent(partitionId, id -> new HashMap<>())
+          .computeIfAbsent(partitionId, id -> new ConcurrentHashMap<>())
           .put(entry.getKey(), entry.getValue());
       newlyFlushedPartitionLatestFlushedTimeForEachDevice
-          .computeIfAbsent(partitionId, id -> new HashMap<>())
+          .computeIfAbsent(partitionId, id -> new ConcurrentHashMap<>())
           .put(entry.getKey(), entry.getValue());
       if (globalLatestFlushedTimeForEachDevice.getOrDefault(entry.getKey(), Long.MIN_VALUE)
           < entry.getValue()) {
@@ -2142,7 +2249,7 @@ public class StorageGroupProcessor {
   public void updateNewlyFlushedPartitionLatestFlushedTimeForEachDevice(
       long partitionId, String deviceId, long time) {
     newlyFlushedPartitionLatestFlushedTimeForEachDevice
-        .computeIfAbsent(partitionId, id -> new HashMap<>())
+        .computeIfAbsent(partitionId, id -> new ConcurrentHashMap<>())
         .compute(deviceId, (k, v) -> v == null ? time : Math.max(v, time));
   }
 
@@ -2175,44 +2282,79 @@ public class StorageGroupProcessor {
   }
 
   private void executeCompaction(long timePartition, boolean fullMerge) {
-    if (!compactionMergeWorking && !CompactionMergeTaskPoolManager.getInstance().isTerminated()) {
-      compactionMergeWorking = true;
-      logger.info(
-          "{} submit a compaction merge task",
-          logicalStorageGroupName + "-" + virtualStorageGroupId);
-      try {
-        // fork and filter current tsfile, then commit then to compaction merge
-        tsFileManagement.forkCurrentFileList(timePartition);
-        tsFileManagement.setForceFullMerge(fullMerge);
-        CompactionMergeTaskPoolManager.getInstance()
-            .submitTask(
-                logicalStorageGroupName,
-                tsFileManagement
-                .new CompactionMergeTask(this::closeCompactionMergeCallBack, timePartition));
-      } catch (IOException | RejectedExecutionException e) {
-        this.closeCompactionMergeCallBack(false, timePartition);
-        logger.error(
-            "{} compaction submit task failed",
-            logicalStorageGroupName + "-" + virtualStorageGroupId,
-            e);
-      }
+    if (!CompactionMergeTaskPoolManager.getInstance().isTerminated()
+        && tryClaimCompactionPartition(timePartition)) {
+      submitCompaction(timePartition, fullMerge);
     } else {
       logger.info(
-          "{} last compaction merge task is working, skip current merge",
-          logicalStorageGroupName + "-" + virtualStorageGroupId);
+          "{} last compaction merge task of time partition {} is working or too many partitions"
+              + " are being compacted, skip current merge",
+          logicalStorageGroupName + "-" + virtualStorageGroupId,
+          timePartition);
+    }
+  }
+
+  /** the caller must have claimed the time partition */
+  private void submitCompaction(long timePartition, boolean fullMerge) {
+    logger.info(
+        "{} submit a compaction merge task of time partition {}",
+        logicalStorageGroupName + "-" + virtualStorageGroupId,
+        timePartition);
+    try {
+      // fork and filter current tsfile, then commit then to compaction merge
+      tsFileManagement.forkCurrentFileList(timePartition);
+      CompactionMergeTaskPoolManager.getInstance()
+          .submitTask(
+              logicalStorageGroupName,
+              tsFileManagement
+              .new CompactionMergeTask(
+                  this::closeCompactionMergeCallBack, timePartition, fullMerge));
+    } catch (IOException | RejectedExecutionException e) {
+      releaseCompactionPartition(timePartition);
+      logger.error(
+          "{} compaction submit task failed",
+          logicalStorageGroupName + "-" + virtualStorageGroupId,
+          e);
+    }
+  }
+
+  private boolean tryClaimCompactionPartition(long timePartition) {
+    int maxPartitionNum =
+        IoTDBDescriptor.getInstance().getConfig().getMaxCompactionPartitionNumInEachStorageGroup();
+    synchronized (compactingPartitions) {
+      if (compactionRecovering
+          || compactingPartitions.contains(timePartition)
+          || compactingPartitions.size() >= Math.max(1, maxPartitionNum)) {
+        return false;
+      }
+      compactingPartitions.add(timePartition);
+      return true;
+    }
+  }
+
+  private void releaseCompactionPartition(long timePartition) {
+    synchronized (compactingPartitions) {
+      compactingPartitions.remove(timePartition);
     }
   }
 
   /** close compaction merge callback, to release some locks */
   private void closeCompactionMergeCallBack(boolean isMerge, long timePartitionId) {
-    if (isMerge && IoTDBDescriptor.getInstance().getConfig().isEnableContinuousCompaction()) {
-      executeCompaction(
+    if (isMerge
+        && IoTDBDescriptor.getInstance().getConfig().isEnableContinuousCompaction()
+        && !CompactionMergeTaskPoolManager.getInstance().isTerminated()) {
+      // keep the time partition claimed and compact it again
+      submitCompaction(
           timePartitionId, IoTDBDescriptor.getInstance().getConfig().isForceFullMerge());
     } else {
-      this.compactionMergeWorking = false;
+      releaseCompactionPartition(timePartitionId);
     }
   }
 
+  private void closeCompactionRecoverCallBack(boolean isMerge, long timePartitionId) {
+    this.compactionRecovering = false;
+  }
+
   /**
    * count all Tsfiles in the storage group which need to be upgraded
    *
@@ -2268,7 +2410,7 @@ public class StorageGroupProcessor {
           long endTime = endTimeMap.getValue();
           if (latestFlushTimeForPartition.getOrDefault(device, Long.MIN_VALUE) < endTime) {
             partitionLatestFlushedTimeForEachDevice
-                .computeIfAbsent(timePartitionId, id -> new HashMap<>())
+                .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
                 .put(device, endTime);
           }
         }
@@ -2706,7 +2848,7 @@ public class StorageGroupProcessor {
       long endTime = newTsFileResource.getEndTime(device);
       long timePartitionId = StorageEngine.getTimePartition(endTime);
       if (!latestTimeForEachDevice
-              .computeIfAbsent(timePartitionId, id -> new HashMap<>())
+              .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
               .containsKey(device)
           || latestTimeForEachDevice.get(timePartitionId).get(device) < endTime) {
         latestTimeForEachDevice.get(timePartitionId).put(device, endTime);
@@ -2717,7 +2859,7 @@ public class StorageGroupProcessor {
 
       if (latestFlushTimeForPartition.getOrDefault(device, Long.MIN_VALUE) < endTime) {
         partitionLatestFlushedTimeForEachDevice
-            .computeIfAbsent(timePartitionId, id -> new HashMap<>())
+            .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
             .put(device, endTime);
       }
       if (globalLatestFlushedTimeForEachDevice.getOrDefault(device, Long.MIN_VALUE) < endTime) {
@@ -3073,6 +3215,10 @@ public class StorageGroupProcessor {
       // abort ongoing comapctions and merges
       CompactionMergeTaskPoolManager.getInstance().abortCompaction(logicalStorageGroupName);
       MergeManager.getINSTANCE().abortMerge(logicalStorageGroupName);
+      // the aborted tasks that have not started will never release their time partitions
+      synchronized (compactingPartitions) {
+        compactingPartitions.clear();
+      }
       // close all working files that should be removed
       removePartitions(filter, workSequenceTsFileProcessors.entrySet(), true);
       removePartitions(filter, workUnsequenceTsFileProcessors.entrySet(), false);
@@ -3134,7 +3280,9 @@ public class StorageGroupProcessor {
    */
   public void insert(InsertRowsOfOneDevicePlan insertRowsOfOneDevicePlan)
       throws WriteProcessException, TriggerExecutionException {
-    writeLock("InsertRowsOfOneDevice");
+    String deviceId = insertRowsOfOneDevicePlan.getPrefixPath().getFullPath();
+    List<TsFileProcessor> processorsToFlush = newProcessorsToFlush();
+    insertLock(deviceId, "InsertRowsOfOneDevice");
     try {
       boolean isSequence = false;
       InsertRowPlan[] rowPlans = insertRowsOfOneDevicePlan.getRowPlans();
@@ -3150,7 +3298,7 @@ public class StorageGroupProcessor {
         long timePartitionId = StorageEngine.getTimePartition(plan.getTime());
 
         partitionLatestFlushedTimeForEachDevice.computeIfAbsent(
-            timePartitionId, id -> new HashMap<>());
+            timePartitionId, id -> new ConcurrentHashMap<>());
         // as the plans have been ordered, and we have get the write lock,
         // So, if a plan is sequenced, then all the rest plans are sequenced.
         //
@@ -3166,17 +3314,18 @@ public class StorageGroupProcessor {
             && IoTDBDescriptor.getInstance().getConfig().isEnableDiscardOutOfOrderData()) {
           return;
         }
-        latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new HashMap<>());
+        latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new ConcurrentHashMap<>());
 
         // fire trigger before insertion
         TriggerEngine.fire(TriggerEvent.BEFORE_INSERT, plan);
         // insert to sequence or unSequence file
-        insertToTsFileProcessor(plan, isSequence, timePartitionId);
+        insertToTsFileProcessor(plan, isSequence, timePartitionId, processorsToFlush);
         // fire trigger before insertion
         TriggerEngine.fire(TriggerEvent.AFTER_INSERT, plan);
       }
     } finally {
-      writeUnlock();
+      insertUnlock(deviceId);
+      flushProcessors(processorsToFlush);
     }
   }
 
@@ -34,6 +34,7 @@ import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.UpdateEndTimeCallBack;
 import org.apache.iotdb.db.exception.TsFileProcessorException;
 import org.apache.iotdb.db.exception.WriteProcessException;
@@ -128,8 +129,11 @@ public class TsFileProcessor {
    */
   private volatile boolean shouldClose;
 
-  /** working memtable */
-  private IMemTable workMemTable;
+  /** working memtable, volatile as concurrent insertions create it lazily */
+  private volatile IMemTable workMemTable;
+
+  /** guards the lazy creation of workMemTable by concurrent insertions */
+  private final Object workMemTableCreationLock = new Object();
 
   /** last flush time to flush the working memtable */
   private long lastWorkMemtableFlushTime;
@@ -138,7 +142,9 @@ public class TsFileProcessor {
   private final UpdateEndTimeCallBack updateLatestFlushTimeCallback;
 
   /** Wal log node */
-  private WriteLogNode logNode;
+  private volatile WriteLogNode logNode;
+
+  private final Object logNodeCreationLock = new Object();
 
   /** whether it's a sequence file or not */
   private final boolean sequence;
@@ -146,6 +152,12 @@ public class TsFileProcessor {
   /** total memtable size for mem control */
   private long totalMemTableSize;
 
+  /**
+   * the rollups of all flushed memtables, written beside the TsFile when it is sealed. Null for
+   * unsequence files and for files reopened after a restart, whose earlier rollups are lost.
+   */
+  private final TsFileRollup rollup;
+
   private static final String FLUSH_QUERY_WRITE_LOCKED = "{}: {} get flushQueryLock write lock";
   private static final String FLUSH_QUERY_WRITE_RELEASE =
       "{}: {} get flushQueryLock write lock released";
@@ -171,6 +183,8 @@ public class TsFileProcessor {
     this.writer = new RestorableTsFileIOWriter(tsfile);
     this.updateLatestFlushTimeCallback = updateLatestFlushTimeCallback;
     this.sequence = sequence;
+    this.rollup =
+        sequence && config.isEnableRollup() ? new TsFileRollup(config.getRollupIntervals()) : null;
     logger.info("create a new tsfile processor {}", tsfile.getAbsolutePath());
     flushListeners.add(new WALFlushListener(this));
     closeFileListeners.add(closeTsFileCallback);
@@ -191,6 +205,7 @@ public class TsFileProcessor {
     this.writer = writer;
     this.updateLatestFlushTimeCallback = updateLatestFlushTimeCallback;
     this.sequence = sequence;
+    this.rollup = null;
     logger.info("reopen a tsfile processor {}", tsFileResource.getTsFile());
     flushListeners.add(new WALFlushListener(this));
     closeFileListeners.add(closeUnsealedTsFileProcessor);
@@ -203,14 +218,7 @@ public class TsFileProcessor {
    */
   public void insert(InsertRowPlan insertRowPlan) throws WriteProcessException {
 
-    if (workMemTable == null) {
-      if (enableMemControl) {
-        workMemTable = new PrimitiveMemTable(enableMemControl);
-        MemTableManager.getInstance().addMemtableNumber();
-      } else {
-        workMemTable = MemTableManager.getInstance().getAvailableMemTable(storageGroupName);
-      }
-    }
+    createWorkMemTableIfAbsent();
 
     long[] memIncrements = null;
     if (enableMemControl) {
@@ -259,14 +267,7 @@ public class TsFileProcessor {
       InsertTabletPlan insertTabletPlan, int start, int end, TSStatus[] results)
       throws WriteProcessException {
 
-    if (workMemTable == null) {
-      if (enableMemControl) {
-        workMemTable = new PrimitiveMemTable(enableMemControl);
-        MemTableManager.getInstance().addMemtableNumber();
-      } else {
-        workMemTable = MemTableManager.getInstance().getAvailableMemTable(storageGroupName);
-      }
-    }
+    createWorkMemTableIfAbsent();
 
     long[] memIncrements = null;
     try {
@@ -320,6 +321,22 @@ public class TsFileProcessor {
     tsFileResource.updatePlanIndexes(insertTabletPlan.getIndex());
   }
 
+  private void createWorkMemTableIfAbsent() throws WriteProcessException {
+    if (workMemTable != null) {
+      return;
+    }
+    synchronized (workMemTableCreationLock) {
+      if (workMemTable == null) {
+        if (enableMemControl) {
+          workMemTable = new PrimitiveMemTable(enableMemControl);
+          MemTableManager.getInstance().addMemtableNumber();
+        } else {
+          workMemTable = MemTableManager.getInstance().getAvailableMemTable(storageGroupName);
+        }
+      }
+    }
+  }
+
   @SuppressWarnings("squid:S3776") // high Cognitive Complexity
   private long[] checkMemCostAndAddToTspInfo(InsertRowPlan insertRowPlan)
       throws WriteProcessException {
@@ -909,9 +926,15 @@ public class TsFileProcessor {
     if (!memTableToFlush.isSignalMemTable()) {
       try {
         writer.mark();
+        // the rollups of a memtable are only kept if the memtable is flushed successfully
+        TsFileRollup memTableRollup =
+            rollup == null ? null : new TsFileRollup(config.getRollupIntervals());
         MemTableFlushTask flushTask =
-            new MemTableFlushTask(memTableToFlush, writer, storageGroupName);
+            new MemTableFlushTask(memTableToFlush, writer, storageGroupName, memTableRollup);
         flushTask.syncFlushMemTable();
+        if (rollup != null) {
+          rollup.merge(memTableRollup);
+        }
       } catch (Exception e) {
         if (writer == null) {
           logger.info(
@@ -1073,12 +1096,29 @@ public class TsFileProcessor {
     }
   }
 
+  /** a TsFile can be read without its rollups, so failing to write them does not fail the file */
+  private void serializeRollup() {
+    try {
+      rollup.serialize(tsFileResource.getTsFile());
+    } catch (IOException e) {
+      logger.warn("{}: cannot write the rollups of {}", storageGroupName, tsFileResource, e);
+      try {
+        TsFileRollup.remove(tsFileResource);
+      } catch (IOException e1) {
+        logger.error("{}: cannot remove the rollups of {}", storageGroupName, tsFileResource, e1);
+      }
+    }
+  }
+
   /** end file and write some meta */
   private void endFile() throws IOException, TsFileProcessorException {
     logger.info("Start to end file {}", tsFileResource);
     long closeStartTime = System.currentTimeMillis();
     tsFileResource.serialize();
     writer.endFile();
+    if (rollup != null) {
+      serializeRollup();
+    }
     logger.info("Ended file {}", tsFileResource);
 
     // remove this processor from Closing list in StorageGroupProcessor,
@@ -1120,11 +1160,15 @@ public class TsFileProcessor {
    */
   public WriteLogNode getLogNode() {
     if (logNode == null) {
-      logNode =
-          MultiFileLogNodeManager.getInstance()
-              .getNode(
-                  storageGroupName + "-" + tsFileResource.getTsFile().getName(),
-                  storageGroupInfo.getWalSupplier());
+      synchronized (logNodeCreationLock) {
+        if (logNode == null) {
+          logNode =
+              MultiFileLogNodeManager.getInstance()
+                  .getNode(
+                      storageGroupName + "-" + tsFileResource.getTsFile().getName(),
+                      storageGroupInfo.getWalSupplier());
+        }
+      }
     }
     return logNode;
   }
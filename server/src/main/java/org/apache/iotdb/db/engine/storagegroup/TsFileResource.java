@@ -20,8 +20,12 @@ package org.apache.iotdb.db.engine.storagegroup;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.BloomFilterCache;
+import org.apache.iotdb.db.engine.cache.BloomFilterCache.SeriesBloomFilter;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.rollup.RollupIndex;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.UpgradeTsFileResourceCallBack;
 import org.apache.iotdb.db.engine.storagegroup.timeindex.DeviceTimeIndex;
 import org.apache.iotdb.db.engine.storagegroup.timeindex.ITimeIndex;
@@ -122,6 +126,12 @@ public class TsFileResource {
   /** used for unsealed file to get TimeseriesMetadata */
   private ITimeSeriesMetadata timeSeriesMetadata;
 
+  /** off-heap bloom filter of the sealed file, loaded by the BloomFilterCache */
+  private volatile SeriesBloomFilter bloomFilter;
+
+  /** index of the rollup file of the sealed file, loaded when the rollups are first read */
+  private volatile RollupIndex rollupIndex;
+
   private FSFactory fsFactory = FSFactoryProducer.getFSFactory();
 
   /** generated upgraded TsFile ResourceList used for upgrading v0.11.x/v2 -> 0.12/v3 */
@@ -445,6 +455,8 @@ public class TsFileResource {
 
   public void setFile(File file) {
     this.file = file;
+    BloomFilterCache.getInstance().invalidate(this);
+    rollupIndex = null;
   }
 
   public File getTsFile() {
@@ -476,6 +488,11 @@ public class TsFileResource {
     return timeIndex.endTimeEmpty();
   }
 
+  /** whether the time index records the time range of each device rather than of the file */
+  public boolean isDeviceTimeIndex() {
+    return timeIndex instanceof DeviceTimeIndex;
+  }
+
   public boolean isClosed() {
     return closed;
   }
@@ -544,8 +561,11 @@ public class TsFileResource {
     modFile = null;
   }
 
-  /** Remove the data file, its resource file, and its modification file physically. */
+  /**
+   * Remove the data file, its resource file, its modification file and its rollup file physically.
+   */
   public void remove() {
+    BloomFilterCache.getInstance().invalidate(this);
     try {
       fsFactory.deleteIfExists(file);
     } catch (IOException e) {
@@ -557,6 +577,11 @@ public class TsFileResource {
     } catch (IOException e) {
       logger.error("ModificationFile {} cannot be deleted: {}", file, e.getMessage());
     }
+    try {
+      TsFileRollup.remove(this);
+    } catch (IOException e) {
+      logger.error("Rollup file of {} cannot be deleted: {}", file, e.getMessage());
+    }
   }
 
   public void removeResourceFile() {
@@ -578,6 +603,12 @@ public class TsFileResource {
           originModFile,
           fsFactory.getFile(targetDir, file.getName() + ModificationFile.FILE_SUFFIX));
     }
+    File originRollupFile = TsFileRollup.getRollupFile(file);
+    if (originRollupFile.exists()) {
+      fsFactory.moveFile(
+          originRollupFile,
+          fsFactory.getFile(targetDir, file.getName() + TsFileRollup.ROLLUP_SUFFIX));
+    }
   }
 
   @Override
@@ -681,6 +712,22 @@ public class TsFileResource {
     return timeSeriesMetadata;
   }
 
+  public SeriesBloomFilter getBloomFilter() {
+    return bloomFilter;
+  }
+
+  public void setBloomFilter(SeriesBloomFilter bloomFilter) {
+    this.bloomFilter = bloomFilter;
+  }
+
+  public RollupIndex getRollupIndex() {
+    return rollupIndex;
+  }
+
+  public void setRollupIndex(RollupIndex rollupIndex) {
+    this.rollupIndex = rollupIndex;
+  }
+
   public void setUpgradedResources(List<TsFileResource> upgradedResources) {
     this.upgradedResources = upgradedResources;
   }
@@ -777,12 +824,14 @@ public class TsFileResource {
   }
 
   public void delete() throws IOException {
+    BloomFilterCache.getInstance().invalidate(this);
     if (file.exists()) {
       Files.delete(file.toPath());
       Files.delete(
           FSFactoryProducer.getFSFactory()
               .getFile(file.toPath() + TsFileResource.RESOURCE_SUFFIX)
               .toPath());
+      TsFileRollup.remove(this);
     }
   }
 
@@ -798,8 +847,10 @@ public class TsFileResource {
     if (planIndex == Long.MIN_VALUE || planIndex == Long.MAX_VALUE) {
       return;
     }
-    maxPlanIndex = Math.max(maxPlanIndex, planIndex);
-    minPlanIndex = Math.min(minPlanIndex, planIndex);
+    synchronized (this) {
+      maxPlanIndex = Math.max(maxPlanIndex, planIndex);
+      minPlanIndex = Math.min(minPlanIndex, planIndex);
+    }
     if (closed) {
       try {
         serialize();
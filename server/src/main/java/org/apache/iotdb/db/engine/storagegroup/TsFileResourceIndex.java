@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.db.utils.datastructure.IntervalTree;
+import org.apache.iotdb.db.utils.datastructure.IntervalTree.Interval;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TsFileResourceIndex indexes the time ranges of the sealed TsFiles of a storage group (either
+ * sequence or unsequence) by device, so that a query finds the files overlapping its time range
+ * without checking every file. The time ranges of unsealed files still change, so they are kept
+ * aside and returned for every query until they are found sealed.
+ */
+public class TsFileResourceIndex {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** device -> time ranges of the device in the indexed files */
+  private final Map<String, IntervalTree<TsFileResource>> deviceIndex = new HashMap<>();
+  /** indexed file -> its intervals in the device index, used to remove it */
+  private final Map<TsFileResource, List<DeviceInterval>> indexedFiles = new HashMap<>();
+  /** unsealed files, and files whose time index does not record devices */
+  private final Set<TsFileResource> unindexedFiles = new LinkedHashSet<>();
+
+  /** Add a file, or re-index it if its time ranges have changed since it is added. */
+  public void add(TsFileResource resource) {
+    lock.writeLock().lock();
+    try {
+      removeWithoutLock(resource);
+      if (isIndexable(resource)) {
+        index(resource);
+      } else {
+        unindexedFiles.add(resource);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(TsFileResource resource) {
+    lock.writeLock().lock();
+    try {
+      removeWithoutLock(resource);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void removeAll(Collection<TsFileResource> resources) {
+    lock.writeLock().lock();
+    try {
+      for (TsFileResource resource : resources) {
+        removeWithoutLock(resource);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      deviceIndex.clear();
+      indexedFiles.clear();
+      unindexedFiles.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Find the files that may contain data of the device in [startTime, endTime]. The sealed files
+   * are returned only if they overlap the range of the device, the other files are always
+   * returned, so the caller still checks each file.
+   *
+   * @return the files ordered by the start time of the device, or null if some files do not
+   *     record the time range of each device and the order cannot be decided
+   */
+  public List<TsFileResource> query(String deviceId, long startTime, long endTime) {
+    List<TsFileResource> results = new ArrayList<>();
+    List<TsFileResource> unindexed;
+    lock.readLock().lock();
+    try {
+      IntervalTree<TsFileResource> tree = deviceIndex.get(deviceId);
+      if (tree != null) {
+        tree.query(startTime, endTime, results);
+      }
+      if (unindexedFiles.isEmpty()) {
+        return results;
+      }
+      unindexed = new ArrayList<>(unindexedFiles);
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    boolean hasIndexableFile = false;
+    for (TsFileResource resource : unindexed) {
+      if (!resource.isDeviceTimeIndex()) {
+        return null;
+      }
+      hasIndexableFile |= resource.isClosed();
+    }
+    if (hasIndexableFile) {
+      indexSealedFiles();
+    }
+    // the unsealed files contain the latest data, but not necessarily of this device
+    results.addAll(unindexed);
+    // the start times of unsealed files may change while sorting, so they are read only once
+    Map<TsFileResource, Long> startTimes = new HashMap<>(results.size());
+    for (TsFileResource resource : results) {
+      startTimes.put(resource, resource.getStartTime(deviceId));
+    }
+    results.sort(Comparator.comparingLong(startTimes::get));
+    return results;
+  }
+
+  /** move the files that have been sealed since they are added into the device index */
+  private void indexSealedFiles() {
+    lock.writeLock().lock();
+    try {
+      List<TsFileResource> sealedFiles = new ArrayList<>();
+      for (TsFileResource resource : unindexedFiles) {
+        if (isIndexable(resource)) {
+          sealedFiles.add(resource);
+        }
+      }
+      for (TsFileResource resource : sealedFiles) {
+        unindexedFiles.remove(resource);
+        index(resource);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** the time ranges of a sealed file only change by merge, which re-adds it */
+  private boolean isIndexable(TsFileResource resource) {
+    return resource.isClosed() && resource.isDeviceTimeIndex();
+  }
+
+  private void index(TsFileResource resource) {
+    Set<String> devices = resource.getDevices();
+    List<DeviceInterval> intervals = new ArrayList<>(devices.size());
+    for (String device : devices) {
+      long startTime = resource.getStartTime(device);
+      long endTime = resource.getEndTime(device);
+      if (endTime < startTime) {
+        // the end time is not recorded, the file may contain any later data of the device
+        endTime = Long.MAX_VALUE;
+      }
+      Interval<TsFileResource> interval =
+          deviceIndex
+              .computeIfAbsent(device, d -> new IntervalTree<>())
+              .insert(startTime, endTime, resource);
+      intervals.add(new DeviceInterval(device, interval));
+    }
+    indexedFiles.put(resource, intervals);
+  }
+
+  private void removeWithoutLock(TsFileResource resource) {
+    unindexedFiles.remove(resource);
+    List<DeviceInterval> intervals = indexedFiles.remove(resource);
+    if (intervals == null) {
+      return;
+    }
+    for (DeviceInterval deviceInterval : intervals) {
+      IntervalTree<TsFileResource> tree = deviceIndex.get(deviceInterval.device);
+      tree.remove(deviceInterval.interval);
+      if (tree.isEmpty()) {
+        deviceIndex.remove(deviceInterval.device);
+      }
+    }
+  }
+
+  private static class DeviceInterval {
+
+    private final String device;
+    private final Interval<TsFileResource> interval;
+
+    private DeviceInterval(String device, Interval<TsFileResource> interval) {
+      this.device = device;
+      this.interval = interval;
+    }
+  }
+}
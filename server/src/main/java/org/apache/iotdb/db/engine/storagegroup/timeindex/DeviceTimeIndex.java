@@ -44,14 +44,17 @@ public class DeviceTimeIndex implements ITimeIndex {
   protected static final Map<String, String> cachedDevicePool =
       CachedStringPool.getInstance().getCachedPool();
 
-  /** start times array. */
-  protected long[] startTimes;
+  /**
+   * start times array. It is volatile as the lock-free readers may see it replaced by a larger one
+   * when a device is registered.
+   */
+  protected volatile long[] startTimes;
 
   /**
    * end times array. The values in this array are Long.MIN_VALUE if it's an unsealed sequence
    * tsfile
    */
-  protected long[] endTimes;
+  protected volatile long[] endTimes;
 
   /** device -> index of start times array and end times array */
   protected Map<String, Integer> deviceToIndex;
@@ -140,7 +143,7 @@ public class DeviceTimeIndex implements ITimeIndex {
   }
 
   @Override
-  public void close() {
+  public synchronized void close() {
     startTimes = Arrays.copyOfRange(startTimes, 0, deviceToIndex.size());
     endTimes = Arrays.copyOfRange(endTimes, 0, deviceToIndex.size());
   }
@@ -181,17 +184,20 @@ public class DeviceTimeIndex implements ITimeIndex {
         + RamUsageEstimator.sizeOf(endTimes);
   }
 
+  /**
+   * Only called by the synchronized updaters, as registering a device may enlarge the arrays, which
+   * must not race with concurrent insertions of other devices. The arrays are enlarged before the
+   * index is published, so that a reader never sees an index beyond the arrays.
+   */
   private int getDeviceIndex(String deviceId) {
-    int index;
-    if (deviceToIndex.containsKey(deviceId)) {
-      index = deviceToIndex.get(deviceId);
-    } else {
+    Integer index = deviceToIndex.get(deviceId);
+    if (index == null) {
       index = deviceToIndex.size();
-      deviceToIndex.put(deviceId, index);
       if (startTimes.length <= index) {
         startTimes = enLargeArray(startTimes, Long.MAX_VALUE);
         endTimes = enLargeArray(endTimes, Long.MIN_VALUE);
       }
+      deviceToIndex.put(deviceId, index);
     }
     return index;
   }
@@ -257,7 +263,7 @@ public class DeviceTimeIndex implements ITimeIndex {
   }
 
   @Override
-  public void updateStartTime(String deviceId, long time) {
+  public synchronized void updateStartTime(String deviceId, long time) {
     long startTime = getStartTime(deviceId);
     if (time < startTime) {
       int index = getDeviceIndex(deviceId);
@@ -266,7 +272,7 @@ public class DeviceTimeIndex implements ITimeIndex {
   }
 
   @Override
-  public void updateEndTime(String deviceId, long time) {
+  public synchronized void updateEndTime(String deviceId, long time) {
     long endTime = getEndTime(deviceId);
     if (time > endTime) {
       int index = getDeviceIndex(deviceId);
@@ -275,31 +281,33 @@ public class DeviceTimeIndex implements ITimeIndex {
   }
 
   @Override
-  public void putStartTime(String deviceId, long time) {
+  public synchronized void putStartTime(String deviceId, long time) {
     int index = getDeviceIndex(deviceId);
     startTimes[index] = time;
   }
 
   @Override
-  public void putEndTime(String deviceId, long time) {
+  public synchronized void putEndTime(String deviceId, long time) {
     int index = getDeviceIndex(deviceId);
     endTimes[index] = time;
   }
 
   @Override
   public long getStartTime(String deviceId) {
-    if (!deviceToIndex.containsKey(deviceId)) {
+    Integer index = deviceToIndex.get(deviceId);
+    if (index == null) {
       return Long.MAX_VALUE;
     }
-    return startTimes[deviceToIndex.get(deviceId)];
+    return startTimes[index];
   }
 
   @Override
   public long getEndTime(String deviceId) {
-    if (!deviceToIndex.containsKey(deviceId)) {
+    Integer index = deviceToIndex.get(deviceId);
+    if (index == null) {
       return Long.MIN_VALUE;
     }
-    return endTimes[deviceToIndex.get(deviceId)];
+    return endTimes[index];
   }
 
   @Override
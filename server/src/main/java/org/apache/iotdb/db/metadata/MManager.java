@@ -41,6 +41,7 @@ import org.apache.iotdb.db.metadata.mnode.IMNode;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
 import org.apache.iotdb.db.metadata.mnode.IStorageGroupMNode;
 import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.db.metadata.schemafile.SchemaFileCache;
 import org.apache.iotdb.db.metadata.tag.TagManager;
 import org.apache.iotdb.db.metadata.template.Template;
 import org.apache.iotdb.db.metadata.template.TemplateManager;
@@ -198,7 +199,8 @@ public class MManager {
           }
         };
 
-    if (config.isEnableMTreeSnapshot()) {
+    // the schema file is rebuilt on each start, so the MTree is recovered from the snapshot
+    if (config.isEnableMTreeSnapshot() || config.isEnableSchemaFile()) {
       timedCreateMTreeSnapshotThread =
           Executors.newSingleThreadScheduledExecutor(
               r -> new Thread(r, "timedCreateMTreeSnapshotThread"));
@@ -227,15 +229,20 @@ public class MManager {
       isRecovering = true;
 
       tagManager.init();
+      SchemaFileCache.getInstance().init(config.getSchemaDir());
       mtree = new MTree();
       mtree.init();
+      SchemaFileCache.getInstance().finishRecovery();
 
       int lineNumber = initFromLog(logFile);
+      if (!tagManager.isIndexRecovered()) {
+        rebuildTagIndex();
+      }
 
       logWriter = new MLogWriter(config.getSchemaDir(), MetadataConstant.METADATA_LOG);
       logWriter.setLogNum(lineNumber);
       isRecovering = false;
-    } catch (IOException e) {
+    } catch (IOException | MetadataException e) {
       logger.error(
           "Cannot recover all MTree from file, we try to recover as possible as we can", e);
     }
@@ -318,6 +325,7 @@ public class MManager {
     try {
       mtree.createSnapshot();
       logWriter.clear();
+      tagManager.checkpointIndex();
     } catch (IOException e) {
       logger.warn("Failed to create MTree snapshot", e);
     }
@@ -339,8 +347,9 @@ public class MManager {
         logWriter = null;
       }
       tagManager.clear();
+      SchemaFileCache.getInstance().clear();
       initialized = false;
-      if (config.isEnableMTreeSnapshot() && timedCreateMTreeSnapshotThread != null) {
+      if (timedCreateMTreeSnapshotThread != null) {
         timedCreateMTreeSnapshotThread.shutdownNow();
         timedCreateMTreeSnapshotThread = null;
       }
@@ -475,7 +484,7 @@ public class MManager {
 
       // update statistics and schemaDataTypeNumMap
       totalSeriesNumber.addAndGet(1);
-      if (totalSeriesNumber.get() * ESTIMATED_SERIES_SIZE >= MTREE_SIZE_THRESHOLD) {
+      if (isMTreeTooLarge()) {
         logger.warn("Current series number {} is too large...", totalSeriesNumber);
         allowToCreateNewSeries = false;
       }
@@ -569,7 +578,7 @@ public class MManager {
 
       // update statistics and schemaDataTypeNumMap
       totalSeriesNumber.addAndGet(measurements.size());
-      if (totalSeriesNumber.get() * ESTIMATED_SERIES_SIZE >= MTREE_SIZE_THRESHOLD) {
+      if (isMTreeTooLarge()) {
         logger.warn("Current series number {} is too large...", totalSeriesNumber);
         allowToCreateNewSeries = false;
       }
@@ -677,14 +686,22 @@ public class MManager {
     // TODO: delete the path node and all its ancestors
     mNodeCache.clear();
     totalSeriesNumber.addAndGet(-timeseriesNum);
-    if (!allowToCreateNewSeries
-        && totalSeriesNumber.get() * ESTIMATED_SERIES_SIZE < MTREE_SIZE_THRESHOLD) {
+    if (!allowToCreateNewSeries && !isMTreeTooLarge()) {
       logger.info("Current series number {} come back to normal level", totalSeriesNumber);
       allowToCreateNewSeries = true;
     }
     return storageGroupPath;
   }
 
+  /** the evicted measurements in the schema file do not take memory */
+  private boolean isMTreeTooLarge() {
+    long seriesNumberInMemory = totalSeriesNumber.get();
+    if (config.isEnableSchemaFile()) {
+      seriesNumberInMemory = Math.min(seriesNumberInMemory, config.getSchemaFileCacheSize());
+    }
+    return seriesNumberInMemory * ESTIMATED_SERIES_SIZE >= MTREE_SIZE_THRESHOLD;
+  }
+
   /**
    * Set storage group of the given path to MTree.
    *
@@ -917,64 +934,74 @@ public class MManager {
     }
   }
 
-  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   private List<ShowTimeSeriesResult> showTimeseriesWithIndex(
       ShowTimeSeriesPlan plan, QueryContext context) throws MetadataException {
 
-    List<IMeasurementMNode> allMatchedNodes = tagManager.getMatchedTimeseriesInIndex(plan, context);
+    // the matched nodes are under the prefix path of the plan, offset and limit applied
+    List<IMeasurementMNode> matchedNodes =
+        tagManager.getMatchedTimeseriesInIndex(plan, context, this::getIndexedMeasurementMNode);
 
     List<ShowTimeSeriesResult> res = new LinkedList<>();
-    String[] prefixNodes = plan.getPath().getNodes();
-    int curOffset = -1;
-    int count = 0;
-    int limit = plan.getLimit();
-    int offset = plan.getOffset();
-    for (IMeasurementMNode leaf : allMatchedNodes) {
-      if (match(leaf.getPartialPath(), prefixNodes)) {
-        if (limit != 0 || offset != 0) {
-          curOffset++;
-          if (curOffset < offset || count == limit) {
-            continue;
-          }
-        }
-        try {
-          Pair<Map<String, String>, Map<String, String>> tagAndAttributePair =
-              tagManager.readTagFile(leaf.getOffset());
-          IMeasurementSchema measurementSchema = leaf.getSchema();
-          res.add(
-              new ShowTimeSeriesResult(
-                  leaf.getFullPath(),
-                  leaf.getAlias(),
-                  getStorageGroupPath(leaf.getPartialPath()).getFullPath(),
-                  measurementSchema.getType(),
-                  measurementSchema.getEncodingType(),
-                  measurementSchema.getCompressor(),
-                  tagAndAttributePair.left,
-                  tagAndAttributePair.right));
-          if (limit != 0) {
-            count++;
-          }
-        } catch (IOException e) {
-          throw new MetadataException(
-              "Something went wrong while deserialize tag info of " + leaf.getFullPath(), e);
-        }
+    for (IMeasurementMNode leaf : matchedNodes) {
+      try {
+        Pair<Map<String, String>, Map<String, String>> tagAndAttributePair =
+            tagManager.readTagFile(leaf.getOffset());
+        IMeasurementSchema measurementSchema = leaf.getSchema();
+        res.add(
+            new ShowTimeSeriesResult(
+                leaf.getFullPath(),
+                leaf.getAlias(),
+                getStorageGroupPath(leaf.getPartialPath()).getFullPath(),
+                measurementSchema.getType(),
+                measurementSchema.getEncodingType(),
+                measurementSchema.getCompressor(),
+                tagAndAttributePair.left,
+                tagAndAttributePair.right));
+      } catch (IOException e) {
+        throw new MetadataException(
+            "Something went wrong while deserialize tag info of " + leaf.getFullPath(), e);
       }
     }
     return res;
   }
 
-  /** whether the full path has the prefixNodes */
-  private boolean match(PartialPath fullPath, String[] prefixNodes) {
-    String[] nodes = fullPath.getNodes();
-    if (nodes.length < prefixNodes.length) {
-      return false;
+  /** get the node of a full path in the tag index, null if the timeseries has been deleted */
+  private IMeasurementMNode getIndexedMeasurementMNode(String fullPath) {
+    try {
+      IMNode node = mtree.getNodeByPath(new PartialPath(fullPath));
+      return node instanceof IMeasurementMNode ? (IMeasurementMNode) node : null;
+    } catch (MetadataException e) {
+      return null;
     }
-    for (int i = 0; i < prefixNodes.length; i++) {
-      if (!"*".equals(prefixNodes[i]) && !prefixNodes[i].equals(nodes[i])) {
-        return false;
+  }
+
+  /**
+   * Rebuild the tag index from the tag file for the timeseries recovered from mlog or MTree
+   * snapshot, which only happens when the tag index has not been persisted before.
+   */
+  private void rebuildTagIndex() throws MetadataException, IOException {
+    long time = System.currentTimeMillis();
+    tagManager.resetIndex();
+    ShowTimeSeriesPlan allSeriesPlan =
+        new ShowTimeSeriesPlan(new PartialPath(MetadataConstant.ROOT));
+    List<Pair<PartialPath, String[]>> allSeries = mtree.getAllMeasurementSchema(allSeriesPlan);
+    int indexedNum = 0;
+    for (Pair<PartialPath, String[]> series : allSeries) {
+      long tagOffset = Long.parseLong(series.right[5]);
+      if (tagOffset < 0) {
+        continue;
+      }
+      IMeasurementMNode leaf = getIndexedMeasurementMNode(series.left.getFullPath());
+      if (leaf != null) {
+        tagManager.addIndex(tagManager.readTagFile(tagOffset).left, leaf);
+        indexedNum++;
       }
     }
-    return true;
+    tagManager.checkpointIndex();
+    logger.info(
+        "Rebuild tag index of {} timeseries, spend {} ms",
+        indexedNum,
+        System.currentTimeMillis() - time);
   }
 
   /**
@@ -1156,6 +1183,44 @@ public class MManager {
     return mtree.getNodeByPath(path);
   }
 
+  /**
+   * Get the measurement nodes of the given timeseries. Consecutive paths of the same device are
+   * resolved from the device node found for the first of them, so a list of paths grouped by device
+   * only walks down the tree once for each device.
+   *
+   * <p>Invoking scenario: last cache read during last Query
+   *
+   * @param seriesPaths the full paths of timeseries or the vector paths of aligned timeseries
+   * @return the measurement nodes, null for the paths that can not be found locally
+   */
+  public IMeasurementMNode[] getMeasurementMNodes(List<PartialPath> seriesPaths) {
+    IMeasurementMNode[] nodes = new IMeasurementMNode[seriesPaths.size()];
+    PartialPath devicePath = null;
+    IMNode deviceNode = null;
+    for (int i = 0; i < seriesPaths.size(); i++) {
+      PartialPath seriesPath = seriesPaths.get(i);
+      try {
+        PartialPath currentDevicePath = seriesPath.getDevicePath();
+        if (deviceNode == null || !currentDevicePath.equals(devicePath)) {
+          deviceNode = mtree.getNodeByPath(currentDevicePath);
+          devicePath = currentDevicePath;
+        }
+        IMNode node =
+            deviceNode.isMeasurement() ? null : deviceNode.getChild(seriesPath.getMeasurement());
+        if (node == null) {
+          // measurements of template and subMeasurements of vector are left to the full search
+          node = mtree.getNodeByPath(seriesPath);
+        }
+        if (node.isMeasurement()) {
+          nodes[i] = (IMeasurementMNode) node;
+        }
+      } catch (MetadataException e) {
+        deviceNode = null;
+      }
+    }
+    return nodes;
+  }
+
   /**
    * E.g., root.sg is storage group given [root, sg], return the MNode of root.sg given [root, sg,
    * device], return the MNode of root.sg Get storage group node by path. If storage group is not
@@ -1675,8 +1740,22 @@ public class MManager {
     if (node.getSchema() instanceof VectorMeasurementSchema) {
       throw new UnsupportedOperationException("Must provide subMeasurement for vector measurement");
     }
+    // the node itself holds the lastCache of a unary measurement, so no path needs to be built
     LastCacheManager.updateLastCache(
-        node.getPartialPath(), timeValuePair, highPriorityUpdate, latestFlushedTime, node);
+        null, timeValuePair, highPriorityUpdate, latestFlushedTime, node);
+  }
+
+  /**
+   * Update the last cache values of all the columns of an insertTabletPlan in one pass, using the
+   * measurementMNodes the plan holds. Columns without a measurementMNode are skipped.
+   *
+   * <p>Invoking scenario: after executing insertTabletPlan
+   *
+   * @param plan the executed insertTabletPlan
+   * @param latestFlushedTime latest flushed time
+   */
+  public void updateLastCache(InsertTabletPlan plan, Long latestFlushedTime) {
+    LastCacheManager.updateLastCache(plan, latestFlushedTime);
   }
 
   /**
@@ -1743,7 +1822,7 @@ public class MManager {
     if (node.getSchema() instanceof VectorMeasurementSchema) {
       throw new UnsupportedOperationException("Must provide subMeasurement for vector measurement");
     }
-    return LastCacheManager.getLastCache(node.getPartialPath(), node);
+    return LastCacheManager.getLastCache(null, node);
   }
 
   /**
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.metadata.MManager.StorageGroupFilter;
 import org.apache.iotdb.db.metadata.lastCache.LastCacheManager;
 import org.apache.iotdb.db.metadata.logfile.MLogReader;
 import org.apache.iotdb.db.metadata.logfile.MLogWriter;
+import org.apache.iotdb.db.metadata.mnode.EntityMNode;
 import org.apache.iotdb.db.metadata.mnode.IEntityMNode;
 import org.apache.iotdb.db.metadata.mnode.IMNode;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
@@ -39,12 +40,14 @@ import org.apache.iotdb.db.metadata.mnode.IStorageGroupMNode;
 import org.apache.iotdb.db.metadata.mnode.InternalMNode;
 import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
 import org.apache.iotdb.db.metadata.mnode.StorageGroupMNode;
+import org.apache.iotdb.db.metadata.schemafile.SchemaFileCache;
 import org.apache.iotdb.db.metadata.template.Template;
 import org.apache.iotdb.db.metadata.utils.MetaFormatUtils;
 import org.apache.iotdb.db.metadata.utils.MetaUtils;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.sys.MNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.MeasurementMNodePlan;
+import org.apache.iotdb.db.qp.physical.sys.SchemaFileSegmentPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowDevicesPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.StorageGroupMNodePlan;
@@ -144,17 +147,24 @@ public class MTree implements Serializable {
     root = new InternalMNode(null, IoTDBConstant.PATH_ROOT);
   }
 
-  public void createSnapshot() throws IOException {
+  public synchronized void createSnapshot() throws IOException {
     long time = System.currentTimeMillis();
     logger.info("Start creating MTree snapshot to {}", mtreeSnapshotPath);
+    boolean replaced = false;
+    SchemaFileCache.getInstance().startSnapshot();
     try {
       serializeTo(mtreeSnapshotTmpPath);
+      // the snapshot refers to the segments in the schema file
+      SchemaFileCache.getInstance().syncForSnapshot();
       File tmpFile = SystemFileFactory.INSTANCE.getFile(mtreeSnapshotTmpPath);
       File snapshotFile = SystemFileFactory.INSTANCE.getFile(mtreeSnapshotPath);
       if (snapshotFile.exists()) {
         Files.delete(snapshotFile.toPath());
+        // the previous snapshot is gone, the segments only referred by it can be reused
+        replaced = true;
       }
       if (tmpFile.renameTo(snapshotFile)) {
+        replaced = true;
         logger.info(
             "Finish creating MTree snapshot to {}, spend {} ms.",
             mtreeSnapshotPath,
@@ -170,6 +180,8 @@ public class MTree implements Serializable {
         }
       }
       throw e;
+    } finally {
+      SchemaFileCache.getInstance().finishSnapshot(replaced);
     }
   }
 
@@ -1764,6 +1776,8 @@ public class MTree implements Serializable {
   private static InternalMNode deserializeFromReader(MLogReader mLogReader) {
     Deque<IMNode> nodeStack = new ArrayDeque<>();
     IMNode node = null;
+    // the measurements of the next node are in the schema file
+    SchemaFileSegmentPlan segmentPlan = null;
     while (mLogReader.hasNext()) {
       PhysicalPlan plan = null;
       try {
@@ -1771,6 +1785,10 @@ public class MTree implements Serializable {
         if (plan == null) {
           continue;
         }
+        if (plan instanceof SchemaFileSegmentPlan) {
+          segmentPlan = (SchemaFileSegmentPlan) plan;
+          continue;
+        }
         int childrenSize = 0;
         if (plan instanceof StorageGroupMNodePlan) {
           node = StorageGroupMNode.deserializeFrom((StorageGroupMNodePlan) plan);
@@ -1783,7 +1801,10 @@ public class MTree implements Serializable {
           childrenSize = ((MNodePlan) plan).getChildSize();
         }
 
-        if (childrenSize != 0) {
+        if (segmentPlan != null) {
+          node = IEntityMNode.setToEntity(node);
+        }
+        if (childrenSize != 0 || segmentPlan != null) {
           ConcurrentHashMap<String, IMNode> childrenMap = new ConcurrentHashMap<>();
           for (int i = 0; i < childrenSize; i++) {
             IMNode child = nodeStack.removeFirst();
@@ -1799,7 +1820,18 @@ public class MTree implements Serializable {
             }
             child.setParent(node);
           }
-          node.setChildren(childrenMap);
+          if (segmentPlan != null) {
+            SchemaFileSegmentPlan entityPlan = segmentPlan;
+            segmentPlan = null;
+            SchemaFileCache.getInstance()
+                .recoverEvicted(
+                    (EntityMNode) node,
+                    childrenMap,
+                    entityPlan.getPosition(),
+                    entityPlan.getMeasurementCount());
+          } else {
+            node.setChildren(childrenMap);
+          }
         }
         nodeStack.push(node);
       } catch (Exception e) {
@@ -32,6 +32,9 @@ public class MetadataConstant {
   public static final String METADATA_TXT_LOG = "mlog.txt";
   public static final String METADATA_LOG = "mlog.bin";
   public static final String TAG_LOG = "tlog.txt";
+  public static final String TAG_INDEX_CHECKPOINT = "tag_index.bin";
+  public static final String TAG_INDEX_LOG = "tag_index.log";
+  public static final String SCHEMA_FILE = "schema_file.bin";
   public static final String MTREE_PREFIX = "mtree";
   public static final String MTREE_TXT_SNAPSHOT =
       MTREE_PREFIX + IoTDBConstant.FILE_NAME_SEPARATOR + MTREE_VERSION + ".snapshot";
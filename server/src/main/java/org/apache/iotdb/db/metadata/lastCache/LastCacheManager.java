@@ -26,6 +26,7 @@ import org.apache.iotdb.db.metadata.mnode.IEntityMNode;
 import org.apache.iotdb.db.metadata.mnode.IMNode;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
 import org.apache.iotdb.db.metadata.template.Template;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.executor.fill.LastPointReader;
@@ -123,6 +124,43 @@ public class LastCacheManager {
     }
   }
 
+  /**
+   * update the last cache values of all the columns of an insertTabletPlan with high priority. The
+   * measurementMNodes of the plan are used directly, so no path is built or searched for any
+   * column, and columns without a measurementMNode are skipped.
+   *
+   * @param plan the executed insertTabletPlan
+   * @param latestFlushedTime latest flushed time
+   */
+  public static void updateLastCache(InsertTabletPlan plan, Long latestFlushedTime) {
+    IMeasurementMNode[] mNodes = plan.getMeasurementMNodes();
+    for (int i = 0; i < mNodes.length; i++) {
+      IMeasurementMNode node = mNodes[i];
+      if (plan.getColumns()[i] == null || node == null) {
+        continue;
+      }
+
+      checkIsTemplateLastCacheAndSetIfAbsent(node);
+
+      ILastCacheContainer lastCacheContainer = node.getLastCacheContainer();
+      IMeasurementSchema schema = node.getSchema();
+      if (plan.isAligned() && schema instanceof VectorMeasurementSchema) {
+        // vector lastCache update need subMeasurement
+        if (lastCacheContainer.isEmpty()) {
+          lastCacheContainer.init(schema.getSubMeasurementsCount());
+        }
+        lastCacheContainer.updateCachedLast(
+            schema.getSubMeasurementIndex(plan.getMeasurements()[i]),
+            plan.composeLastTimeValuePair(i),
+            true,
+            latestFlushedTime);
+      } else {
+        lastCacheContainer.updateCachedLast(
+            plan.composeLastTimeValuePair(i), true, latestFlushedTime);
+      }
+    }
+  }
+
   /**
    * reset the last cache value of time series of given seriesPath
    *
@@ -19,100 +19,125 @@
 
 package org.apache.iotdb.db.metadata.lastCache.container;
 
-import org.apache.iotdb.db.metadata.lastCache.container.value.ILastCacheValue;
-import org.apache.iotdb.db.metadata.lastCache.container.value.UnaryLastCacheValue;
-import org.apache.iotdb.db.metadata.lastCache.container.value.VectorLastCacheValue;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
- * This class possesses the ILastCacheValue and implements the basic last cache operations.
+ * This class holds the last points of a timeseries and implements the basic last cache operations.
  *
- * <p>The ILastCacheValue may be extended to ILastCacheValue List in future to support batched last
- * value cache.
+ * <p>A cached point is an immutable TimeValuePair that is never modified after being published. An
+ * update replaces the whole pair by compare-and-set, so concurrent insertions and last queries of
+ * the same timeseries never block each other. The TimeValuePairs passed in and returned must
+ * therefore not be modified by the invoker.
  */
 public class LastCacheContainer implements ILastCacheContainer {
 
-  ILastCacheValue lastCacheValue;
+  private static final AtomicReferenceFieldUpdater<LastCacheContainer, TimeValuePair>
+      LAST_POINT_UPDATER =
+          AtomicReferenceFieldUpdater.newUpdater(
+              LastCacheContainer.class, TimeValuePair.class, "lastPoint");
+
+  // last point of a unary timeseries
+  private volatile TimeValuePair lastPoint;
+
+  // last points of the subMeasurements of a vector timeseries, never reset to null once created
+  private volatile AtomicReferenceArray<TimeValuePair> vectorLastPoints;
 
   @Override
   public void init(int size) {
-    if (size > 1) {
-      lastCacheValue = new VectorLastCacheValue(size);
+    // only the first update of a vector timeseries creates the array, so locking here is cheap
+    if (size > 1 && vectorLastPoints == null) {
+      synchronized (this) {
+        if (vectorLastPoints == null) {
+          vectorLastPoints = new AtomicReferenceArray<>(size);
+        }
+      }
     }
   }
 
   @Override
   public TimeValuePair getCachedLast() {
-    return lastCacheValue == null ? null : lastCacheValue.getTimeValuePair();
+    return lastPoint;
   }
 
   @Override
   public TimeValuePair getCachedLast(int index) {
-    return lastCacheValue == null ? null : lastCacheValue.getTimeValuePair(index);
+    AtomicReferenceArray<TimeValuePair> lastPoints = vectorLastPoints;
+    return lastPoints == null ? null : lastPoints.get(index);
   }
 
   @Override
-  public synchronized void updateCachedLast(
+  public void updateCachedLast(
       TimeValuePair timeValuePair, boolean highPriorityUpdate, Long latestFlushedTime) {
     if (timeValuePair == null || timeValuePair.getValue() == null) {
       return;
     }
 
-    if (lastCacheValue == null) {
-      // If no cached last, (1) a last query (2) an unseq insertion or (3) a seq insertion will
-      // update cache.
-      if (!highPriorityUpdate || latestFlushedTime <= timeValuePair.getTimestamp()) {
-        lastCacheValue =
-            new UnaryLastCacheValue(timeValuePair.getTimestamp(), timeValuePair.getValue());
+    TimeValuePair current;
+    do {
+      current = lastPoint;
+      if (!shouldUpdate(current, timeValuePair, highPriorityUpdate, latestFlushedTime)) {
+        return;
       }
-    } else if (timeValuePair.getTimestamp() > lastCacheValue.getTimestamp()
-        || (timeValuePair.getTimestamp() == lastCacheValue.getTimestamp() && highPriorityUpdate)) {
-      lastCacheValue.setTimestamp(timeValuePair.getTimestamp());
-      lastCacheValue.setValue(timeValuePair.getValue());
-    }
+    } while (!LAST_POINT_UPDATER.compareAndSet(this, current, timeValuePair));
   }
 
   @Override
-  public synchronized void updateCachedLast(
+  public void updateCachedLast(
       int index, TimeValuePair timeValuePair, boolean highPriorityUpdate, Long latestFlushedTime) {
-    if (timeValuePair == null || timeValuePair.getValue() == null) {
+    AtomicReferenceArray<TimeValuePair> lastPoints = vectorLastPoints;
+    if (timeValuePair == null || timeValuePair.getValue() == null || lastPoints == null) {
       return;
     }
 
-    if (lastCacheValue.getTimeValuePair(index) == null) {
+    TimeValuePair current;
+    do {
+      current = lastPoints.get(index);
+      if (!shouldUpdate(current, timeValuePair, highPriorityUpdate, latestFlushedTime)) {
+        return;
+      }
+    } while (!lastPoints.compareAndSet(index, current, timeValuePair));
+  }
+
+  private static boolean shouldUpdate(
+      TimeValuePair current,
+      TimeValuePair timeValuePair,
+      boolean highPriorityUpdate,
+      Long latestFlushedTime) {
+    if (current == null) {
       // If no cached last, (1) a last query (2) an unseq insertion or (3) a seq insertion will
       // update cache.
-      if (!highPriorityUpdate || latestFlushedTime <= timeValuePair.getTimestamp()) {
-        lastCacheValue.setTimestamp(index, timeValuePair.getTimestamp());
-        lastCacheValue.setValue(index, timeValuePair.getValue());
-      }
-    } else if (timeValuePair.getTimestamp() > lastCacheValue.getTimestamp(index)) {
-      lastCacheValue.setTimestamp(index, timeValuePair.getTimestamp());
-      lastCacheValue.setValue(index, timeValuePair.getValue());
-    } else if (timeValuePair.getTimestamp() == lastCacheValue.getTimestamp(index)) {
-      if (highPriorityUpdate || lastCacheValue.getValue(index) == null) {
-        lastCacheValue.setTimestamp(index, timeValuePair.getTimestamp());
-        lastCacheValue.setValue(index, timeValuePair.getValue());
-      }
+      return !highPriorityUpdate || latestFlushedTime <= timeValuePair.getTimestamp();
     }
+    return timeValuePair.getTimestamp() > current.getTimestamp()
+        || (timeValuePair.getTimestamp() == current.getTimestamp() && highPriorityUpdate);
   }
 
   @Override
-  public synchronized void resetLastCache() {
-    lastCacheValue = null;
+  public void resetLastCache() {
+    lastPoint = null;
+    AtomicReferenceArray<TimeValuePair> lastPoints = vectorLastPoints;
+    if (lastPoints != null) {
+      for (int i = 0; i < lastPoints.length(); i++) {
+        lastPoints.set(i, null);
+      }
+    }
   }
 
   @Override
   public void resetLastCache(int index) {
-    if (lastCacheValue instanceof VectorLastCacheValue) {
-      lastCacheValue.setValue(index, null);
+    AtomicReferenceArray<TimeValuePair> lastPoints = vectorLastPoints;
+    if (lastPoints != null) {
+      lastPoints.set(index, null);
     } else {
-      lastCacheValue = null;
+      lastPoint = null;
     }
   }
 
   @Override
   public boolean isEmpty() {
-    return lastCacheValue == null;
+    return lastPoint == null && vectorLastPoints == null;
   }
 }
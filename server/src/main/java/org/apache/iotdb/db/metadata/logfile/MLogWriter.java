@@ -40,6 +40,7 @@ import org.apache.iotdb.db.qp.physical.sys.DeleteTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DropContinuousQueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.MNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.MeasurementMNodePlan;
+import org.apache.iotdb.db.qp.physical.sys.SchemaFileSegmentPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetTTLPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetUsingSchemaTemplatePlan;
@@ -189,6 +190,10 @@ public class MLogWriter implements AutoCloseable {
     if (node.getChildren() != null) {
       childSize = node.getChildren().size();
     }
+    serializeMNode(node, childSize);
+  }
+
+  public void serializeMNode(IMNode node, int childSize) throws IOException {
     MNodePlan plan = new MNodePlan(node.getName(), childSize);
     putLog(plan);
   }
@@ -209,11 +214,21 @@ public class MLogWriter implements AutoCloseable {
     if (node.getChildren() != null) {
       childSize = node.getChildren().size();
     }
+    serializeStorageGroupMNode(node, childSize);
+  }
+
+  public void serializeStorageGroupMNode(IStorageGroupMNode node, int childSize)
+      throws IOException {
     StorageGroupMNodePlan plan =
         new StorageGroupMNodePlan(node.getName(), node.getDataTTL(), childSize);
     putLog(plan);
   }
 
+  /** the measurements of the next node in the snapshot are in the segment of the schema file */
+  public void serializeSchemaFileSegment(long position, int measurementCount) throws IOException {
+    putLog(new SchemaFileSegmentPlan(position, measurementCount));
+  }
+
   public void setUsingSchemaTemplate(PartialPath path) throws IOException {
     SetUsingSchemaTemplatePlan plan = new SetUsingSchemaTemplatePlan(path);
     putLog(plan);
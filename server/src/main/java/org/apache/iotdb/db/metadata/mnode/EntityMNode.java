@@ -20,8 +20,13 @@ package org.apache.iotdb.db.metadata.mnode;
 
 import org.apache.iotdb.db.metadata.lastCache.container.ILastCacheContainer;
 import org.apache.iotdb.db.metadata.lastCache.container.LastCacheContainer;
+import org.apache.iotdb.db.metadata.logfile.MLogWriter;
+import org.apache.iotdb.db.metadata.schemafile.SchemaFileCache;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -39,6 +44,9 @@ public class EntityMNode extends InternalMNode implements IEntityMNode {
 
   private volatile Map<String, ILastCacheContainer> lastCacheMap = null;
 
+  /** state in the SchemaFileCache, null if the schema file is disabled */
+  private transient volatile SchemaFileCache.Entry cacheEntry = null;
+
   /**
    * Constructor of MNode.
    *
@@ -52,59 +60,319 @@ public class EntityMNode extends InternalMNode implements IEntityMNode {
   /** check whether the MNode has a child with the name */
   @Override
   public boolean hasChild(String name) {
-    return (children != null && children.containsKey(name))
-        || (aliasChildren != null && aliasChildren.containsKey(name));
+    return getChild(name) != null;
   }
 
   /** get the child with the name */
   @Override
   public IMNode getChild(String name) {
-    IMNode child = null;
-    if (children != null) {
-      child = children.get(name);
+    while (true) {
+      Map<String, IMNode> loadedChildren = getLoadedChildren();
+      IMNode child = loadedChildren == null ? null : loadedChildren.get(name);
+      if (child != null) {
+        return child;
+      }
+      Map<String, IMeasurementMNode> loadedAliasChildren = aliasChildren;
+      child = loadedAliasChildren == null ? null : loadedAliasChildren.get(name);
+      // the measurements may be evicted after the children are got, then try again
+      if (child != null || !(children instanceof EvictedChildren)) {
+        return child;
+      }
+    }
+  }
+
+  @Override
+  public void addChild(String name, IMNode child) {
+    if (!SchemaFileCache.getInstance().isEnabled()) {
+      super.addChild(name, child);
+      return;
+    }
+    int measurementDelta = 0;
+    SchemaFileCache.getInstance().pin(this);
+    try {
+      boolean absent = children == null || !children.containsKey(name);
+      super.addChild(name, child);
+      if (absent && child.isMeasurement()) {
+        measurementDelta = 1;
+      }
+    } finally {
+      SchemaFileCache.getInstance().unpin(this, measurementDelta, true);
+    }
+  }
+
+  @Override
+  public IMNode addChild(IMNode child) {
+    addChild(child.getName(), child);
+    return child;
+  }
+
+  @Override
+  public void deleteChild(String name) {
+    if (!SchemaFileCache.getInstance().isEnabled()) {
+      super.deleteChild(name);
+      return;
+    }
+    int measurementDelta = 0;
+    SchemaFileCache.getInstance().pin(this);
+    try {
+      IMNode child = children == null ? null : children.remove(name);
+      if (child != null && child.isMeasurement()) {
+        measurementDelta = -1;
+      }
+    } finally {
+      SchemaFileCache.getInstance().unpin(this, measurementDelta, true);
+    }
+  }
+
+  @Override
+  public Map<String, IMNode> getChildren() {
+    Map<String, IMNode> loadedChildren = getLoadedChildren();
+    return loadedChildren == null ? Collections.emptyMap() : loadedChildren;
+  }
+
+  @Override
+  public void setChildren(Map<String, IMNode> children) {
+    if (!SchemaFileCache.getInstance().isEnabled()) {
+      super.setChildren(children);
+      return;
+    }
+    int measurementDelta = 0;
+    SchemaFileCache.getInstance().pin(this);
+    try {
+      measurementDelta = -countLoadedMeasurements();
+      this.children = children;
+      measurementDelta += countLoadedMeasurements();
+    } finally {
+      SchemaFileCache.getInstance().unpin(this, measurementDelta, true);
+    }
+  }
+
+  @Override
+  public int getMeasurementMNodeCount() {
+    Map<String, IMNode> currentChildren = children;
+    if (!(currentChildren instanceof EvictedChildren)) {
+      return super.getMeasurementMNodeCount();
     }
-    if (child != null) {
-      return child;
+    // count the evicted measurements without loading them
+    int measurementMNodeCount = SchemaFileCache.getInstance().getMeasurementCount(this);
+    for (IMNode child : currentChildren.values()) {
+      measurementMNodeCount += child.getMeasurementMNodeCount();
     }
-    return aliasChildren == null ? null : aliasChildren.get(name);
+    return measurementMNodeCount;
   }
 
   /** add an alias */
   @Override
   public boolean addAlias(String alias, IMeasurementMNode child) {
-    if (aliasChildren == null) {
-      // double check, alias children volatile
-      synchronized (this) {
-        if (aliasChildren == null) {
-          aliasChildren = new ConcurrentHashMap<>();
+    boolean cacheEnabled = SchemaFileCache.getInstance().isEnabled();
+    if (cacheEnabled) {
+      SchemaFileCache.getInstance().pin(this);
+    }
+    try {
+      if (aliasChildren == null) {
+        // double check, alias children volatile
+        synchronized (this) {
+          if (aliasChildren == null) {
+            aliasChildren = new ConcurrentHashMap<>();
+          }
         }
       }
-    }
 
-    return aliasChildren.computeIfAbsent(alias, aliasName -> child) == child;
+      return aliasChildren.computeIfAbsent(alias, aliasName -> child) == child;
+    } finally {
+      if (cacheEnabled) {
+        SchemaFileCache.getInstance().unpin(this, 0, false);
+      }
+    }
   }
 
   /** delete the alias of a child */
   @Override
   public void deleteAliasChild(String alias) {
-    if (aliasChildren != null) {
-      aliasChildren.remove(alias);
+    getLoadedChildren();
+    Map<String, IMeasurementMNode> loadedAliasChildren = aliasChildren;
+    if (loadedAliasChildren != null) {
+      loadedAliasChildren.remove(alias);
     }
   }
 
   @Override
   public Map<String, IMeasurementMNode> getAliasChildren() {
-    if (aliasChildren == null) {
+    getLoadedChildren();
+    Map<String, IMeasurementMNode> loadedAliasChildren = aliasChildren;
+    if (loadedAliasChildren == null) {
       return Collections.emptyMap();
     }
-    return aliasChildren;
+    return loadedAliasChildren;
   }
 
   @Override
   public void setAliasChildren(Map<String, IMeasurementMNode> aliasChildren) {
+    getLoadedChildren();
     this.aliasChildren = aliasChildren;
   }
 
+  /** get the children after loading the evicted measurements from the schema file */
+  private Map<String, IMNode> getLoadedChildren() {
+    Map<String, IMNode> loadedChildren = children;
+    SchemaFileCache.Entry entry = cacheEntry;
+    if (entry != null && !(loadedChildren instanceof EvictedChildren)) {
+      // record the access for the eviction
+      entry.touch();
+    }
+    while (loadedChildren instanceof EvictedChildren) {
+      SchemaFileCache.getInstance().load(this);
+      loadedChildren = children;
+    }
+    return loadedChildren;
+  }
+
+  /**
+   * Serialize the children into the snapshot. The evicted measurements are not loaded, the snapshot
+   * refers to their segment in the schema file instead.
+   */
+  @Override
+  int serializeChildren(MLogWriter logWriter) throws IOException {
+    long[] segment = SchemaFileCache.getInstance().getSegmentForSnapshot(this);
+    if (segment == null) {
+      return super.serializeChildren(logWriter);
+    }
+    int childSize = 0;
+    for (IMNode child : children.values()) {
+      if (!child.isMeasurement()) {
+        child.serializeTo(logWriter);
+        childSize++;
+      }
+    }
+    // the segment belongs to the node serialized next, which is this entity
+    logWriter.serializeSchemaFileSegment(segment[0], (int) segment[1]);
+    return childSize;
+  }
+
+  public SchemaFileCache.Entry getCacheEntry() {
+    return cacheEntry;
+  }
+
+  public void setCacheEntry(SchemaFileCache.Entry cacheEntry) {
+    this.cacheEntry = cacheEntry;
+  }
+
+  public int countLoadedMeasurements() {
+    Map<String, IMNode> currentChildren = children;
+    if (currentChildren == null || currentChildren instanceof EvictedChildren) {
+      return 0;
+    }
+    int count = 0;
+    for (IMNode child : currentChildren.values()) {
+      if (child.isMeasurement()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * get the measurements to be evicted by the SchemaFileCache
+   *
+   * @return null if the measurements are evicted already or cannot be evicted
+   */
+  public List<IMeasurementMNode> getMeasurementsToEvict() {
+    Map<String, IMNode> currentChildren = children;
+    if (currentChildren instanceof EvictedChildren) {
+      return null;
+    }
+    List<IMeasurementMNode> measurements = new ArrayList<>();
+    if (currentChildren == null) {
+      return measurements;
+    }
+    for (IMNode child : currentChildren.values()) {
+      if (child.isMeasurement()) {
+        IMeasurementMNode measurement = (IMeasurementMNode) child;
+        if (measurement.getTriggerExecutor() != null) {
+          // the trigger would be lost
+          return null;
+        }
+        measurements.add(measurement);
+      }
+    }
+    return measurements;
+  }
+
+  /** release the measurements, which should have been written into the schema file */
+  public void detachMeasurements() {
+    EvictedChildren evictedChildren = new EvictedChildren();
+    if (children != null) {
+      for (Map.Entry<String, IMNode> entry : children.entrySet()) {
+        if (!entry.getValue().isMeasurement()) {
+          evictedChildren.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    // children must be replaced first, see getChild()
+    children = evictedChildren;
+    aliasChildren = null;
+  }
+
+  /** set the children recovered from the snapshot, whose measurements are in the schema file */
+  public void setEvictedChildren(Map<String, IMNode> children) {
+    EvictedChildren evictedChildren = new EvictedChildren();
+    for (Map.Entry<String, IMNode> entry : children.entrySet()) {
+      if (!entry.getValue().isMeasurement()) {
+        evictedChildren.put(entry.getKey(), entry.getValue());
+      }
+    }
+    this.children = evictedChildren;
+    aliasChildren = null;
+  }
+
+  /** put the measurements loaded from the schema file back, if they are evicted */
+  public void attachMeasurements(List<IMeasurementMNode> measurements) {
+    Map<String, IMNode> currentChildren = children;
+    if (!(currentChildren instanceof EvictedChildren)) {
+      return;
+    }
+    Map<String, IMNode> loadedChildren = new ConcurrentHashMap<>(currentChildren);
+    Map<String, IMeasurementMNode> loadedAliasChildren = null;
+    for (IMeasurementMNode measurement : measurements) {
+      measurement.setParent(this);
+      loadedChildren.put(measurement.getName(), measurement);
+      if (measurement.getAlias() != null) {
+        if (loadedAliasChildren == null) {
+          loadedAliasChildren = new ConcurrentHashMap<>();
+        }
+        loadedAliasChildren.put(measurement.getAlias(), measurement);
+      }
+    }
+    aliasChildren = loadedAliasChildren;
+    children = loadedChildren;
+  }
+
+  /**
+   * Replace the measurement loaded from the schema file with the given one, which has been evicted
+   * and modified after that.
+   */
+  public void reattachMeasurement(IMeasurementMNode measurement) {
+    Map<String, IMNode> currentChildren = children;
+    if (currentChildren == null || currentChildren instanceof EvictedChildren) {
+      return;
+    }
+    IMNode loaded = currentChildren.get(measurement.getName());
+    if (loaded == measurement || loaded == null || !loaded.isMeasurement()) {
+      return;
+    }
+    currentChildren.put(measurement.getName(), measurement);
+    String loadedAlias = ((IMeasurementMNode) loaded).getAlias();
+    if (loadedAlias != null && aliasChildren != null) {
+      aliasChildren.remove(loadedAlias, loaded);
+    }
+    if (measurement.getAlias() != null) {
+      if (aliasChildren == null) {
+        aliasChildren = new ConcurrentHashMap<>();
+      }
+      aliasChildren.put(measurement.getAlias(), measurement);
+    }
+  }
+
   @Override
   public boolean isUseTemplate() {
     return useTemplate;
@@ -139,4 +407,10 @@ public class EntityMNode extends InternalMNode implements IEntityMNode {
   public boolean isEntity() {
     return true;
   }
+
+  /** children of an entity whose measurements are evicted, only other children are kept */
+  private static class EvictedChildren extends ConcurrentHashMap<String, IMNode> {
+
+    private static final long serialVersionUID = 2948304863213874519L;
+  }
 }
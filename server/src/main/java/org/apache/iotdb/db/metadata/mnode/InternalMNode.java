@@ -251,18 +251,19 @@ public class InternalMNode extends MNode {
 
   @Override
   public void serializeTo(MLogWriter logWriter) throws IOException {
-    serializeChildren(logWriter);
+    int childSize = serializeChildren(logWriter);
 
-    logWriter.serializeMNode(this);
+    logWriter.serializeMNode(this, childSize);
   }
 
-  void serializeChildren(MLogWriter logWriter) throws IOException {
-    if (children == null) {
-      return;
-    }
-    for (Entry<String, IMNode> entry : children.entrySet()) {
+  /** @return the number of the serialized children */
+  int serializeChildren(MLogWriter logWriter) throws IOException {
+    int childSize = 0;
+    for (Entry<String, IMNode> entry : getChildren().entrySet()) {
       entry.getValue().serializeTo(logWriter);
+      childSize++;
     }
+    return childSize;
   }
 
   public static InternalMNode deserializeFrom(MNodePlan plan) {
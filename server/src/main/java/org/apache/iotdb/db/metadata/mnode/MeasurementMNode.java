@@ -23,6 +23,7 @@ import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.metadata.lastCache.container.ILastCacheContainer;
 import org.apache.iotdb.db.metadata.lastCache.container.LastCacheContainer;
 import org.apache.iotdb.db.metadata.logfile.MLogWriter;
+import org.apache.iotdb.db.metadata.schemafile.SchemaFileCache;
 import org.apache.iotdb.db.metadata.template.Template;
 import org.apache.iotdb.db.qp.physical.sys.MeasurementMNodePlan;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
@@ -95,6 +96,7 @@ public class MeasurementMNode extends MNode implements IMeasurementMNode {
   @Override
   public void setSchema(IMeasurementSchema schema) {
     this.schema = schema;
+    updateSchemaFileCache();
   }
 
   @Override
@@ -131,6 +133,7 @@ public class MeasurementMNode extends MNode implements IMeasurementMNode {
   @Override
   public void setOffset(long offset) {
     this.offset = offset;
+    updateSchemaFileCache();
   }
 
   @Override
@@ -141,6 +144,7 @@ public class MeasurementMNode extends MNode implements IMeasurementMNode {
   @Override
   public void setAlias(String alias) {
     this.alias = alias;
+    updateSchemaFileCache();
   }
 
   @Override
@@ -151,6 +155,14 @@ public class MeasurementMNode extends MNode implements IMeasurementMNode {
   @Override
   public void setTriggerExecutor(TriggerExecutor triggerExecutor) {
     this.triggerExecutor = triggerExecutor;
+    updateSchemaFileCache();
+  }
+
+  /** make sure the modification is not lost if the parent is evicted to the schema file */
+  private void updateSchemaFileCache() {
+    if (parent != null && SchemaFileCache.getInstance().isEnabled()) {
+      SchemaFileCache.getInstance().update(this);
+    }
   }
 
   @Override
@@ -51,8 +51,8 @@ public class StorageGroupEntityMNode extends EntityMNode implements IStorageGrou
 
   @Override
   public void serializeTo(MLogWriter logWriter) throws IOException {
-    serializeChildren(logWriter);
+    int childSize = serializeChildren(logWriter);
 
-    logWriter.serializeStorageGroupMNode(this);
+    logWriter.serializeStorageGroupMNode(this, childSize);
   }
 }
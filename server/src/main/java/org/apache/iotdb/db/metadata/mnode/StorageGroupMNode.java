@@ -55,9 +55,9 @@ public class StorageGroupMNode extends InternalMNode implements IStorageGroupMNo
 
   @Override
   public void serializeTo(MLogWriter logWriter) throws IOException {
-    serializeChildren(logWriter);
+    int childSize = serializeChildren(logWriter);
 
-    logWriter.serializeStorageGroupMNode(this);
+    logWriter.serializeStorageGroupMNode(this, childSize);
   }
 
   public static StorageGroupMNode deserializeFrom(StorageGroupMNodePlan plan) {
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.schemafile;
+
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.VectorMeasurementSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SchemaFile stores the measurement nodes of the evicted entities. The measurements of one entity
+ * are written into one segment, whose size is a power of two no less than {@link
+ * #MIN_SEGMENT_SIZE}, so that the freed segments can be reused by later entities of a similar size.
+ *
+ * <p>Segment layout: [segment size (int)] [measurement number (int)] [measurements...]
+ *
+ * <p>The MTree snapshot refers to the segments of the entities that are written here instead of
+ * containing their measurements, so the file is kept across restarts. A freed segment is not reused
+ * until a later snapshot is created, as the last snapshot may still refer to it. On start, the
+ * segments that the recovered snapshot does not refer to are free.
+ */
+public class SchemaFile implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SchemaFile.class);
+
+  static final int MIN_SEGMENT_SIZE = 256;
+
+  private static final int SEGMENT_HEADER_SIZE = 2 * Integer.BYTES;
+
+  private static final byte MEASUREMENT_SCHEMA = 0;
+  private static final byte VECTOR_MEASUREMENT_SCHEMA = 1;
+
+  private final File file;
+  private final FileChannel fileChannel;
+  /** the end of the allocated segments */
+  private long fileLength;
+  /** the end of the segments written before the file is opened */
+  private final long recoveredLength;
+  /** segment size -> positions of the free segments of the size */
+  private final Map<Integer, Deque<Long>> freeSegments = new HashMap<>();
+  /** positions of the segments freed after the last snapshot is started */
+  private List<Long> pendingFreeSegments = new ArrayList<>();
+  /** positions of the segments freed before the running snapshot is started */
+  private List<Long> snapshotFreeSegments = new ArrayList<>();
+
+  public SchemaFile(String schemaDir, String fileName) throws IOException {
+    File schemaFolder = SystemFileFactory.INSTANCE.getFile(schemaDir);
+    if (!schemaFolder.exists()) {
+      if (schemaFolder.mkdirs()) {
+        logger.info("create schema folder {}.", schemaFolder);
+      } else {
+        logger.info("create schema folder {} failed.", schemaFolder);
+      }
+    }
+    file = SystemFileFactory.INSTANCE.getFile(schemaDir + File.separator + fileName);
+    fileChannel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE);
+    fileLength = fileChannel.size();
+    recoveredLength = fileLength;
+  }
+
+  /**
+   * Free the segments written before the file is opened, except those referred by the recovered
+   * snapshot. The segments written since the file is opened are not touched.
+   *
+   * @param referredPositions positions of the segments referred by the recovered snapshot
+   */
+  public synchronized void recoverFreeSegments(Set<Long> referredPositions) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    long position = 0;
+    while (position < recoveredLength) {
+      header.clear();
+      readFully(header, position);
+      int segmentSize = header.getInt();
+      if (segmentSize < MIN_SEGMENT_SIZE
+          || Integer.bitCount(segmentSize) != 1
+          || position + segmentSize > recoveredLength) {
+        // a segment torn by a crash, which cannot be referred by any snapshot
+        logger.warn(
+            "The schema file {} is corrupted at {}, the rest {} bytes are not reused",
+            file,
+            position,
+            recoveredLength - position);
+        break;
+      }
+      if (!referredPositions.contains(position)) {
+        freeSegments.computeIfAbsent(segmentSize, size -> new ArrayDeque<>()).push(position);
+      }
+      position += segmentSize;
+    }
+  }
+
+  /**
+   * Write the measurements into a free segment.
+   *
+   * @return the position of the segment
+   */
+  public long write(Collection<IMeasurementMNode> measurements) throws IOException {
+    PublicBAOS outputStream = new PublicBAOS();
+    ReadWriteIOUtils.write(0, outputStream);
+    ReadWriteIOUtils.write(measurements.size(), outputStream);
+    for (IMeasurementMNode measurement : measurements) {
+      serializeMeasurement(measurement, outputStream);
+    }
+    int segmentSize = getSegmentSize(outputStream.size());
+    ByteBuffer buffer = ByteBuffer.allocate(segmentSize);
+    buffer.put(outputStream.getBuf(), 0, outputStream.size());
+    buffer.putInt(0, segmentSize);
+    buffer.clear();
+
+    long position = allocate(segmentSize);
+    while (buffer.hasRemaining()) {
+      fileChannel.write(buffer, position + buffer.position());
+    }
+    return position;
+  }
+
+  /** Read the measurements in the segment, their parents are not set. */
+  public List<IMeasurementMNode> read(long position) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+    readFully(header, position);
+    int segmentSize = header.getInt();
+    int measurementNum = header.getInt();
+
+    ByteBuffer buffer = ByteBuffer.allocate(segmentSize - SEGMENT_HEADER_SIZE);
+    readFully(buffer, position + SEGMENT_HEADER_SIZE);
+    List<IMeasurementMNode> measurements = new ArrayList<>(measurementNum);
+    for (int i = 0; i < measurementNum; i++) {
+      measurements.add(deserializeMeasurement(buffer));
+    }
+    return measurements;
+  }
+
+  /** Free the segment so that it can be reused after the next snapshot is created. */
+  public synchronized void free(long position) {
+    pendingFreeSegments.add(position);
+  }
+
+  /** Called before a snapshot is serialized, the snapshot does not refer to any freed segment. */
+  public synchronized void startSnapshot() {
+    snapshotFreeSegments.addAll(pendingFreeSegments);
+    pendingFreeSegments = new ArrayList<>();
+  }
+
+  /**
+   * Called after a snapshot is serialized. The segments freed before the snapshot is started can be
+   * reused if it has replaced the previous snapshot.
+   */
+  public void finishSnapshot(boolean replaced) throws IOException {
+    List<Long> releasedSegments;
+    synchronized (this) {
+      if (!replaced) {
+        return;
+      }
+      releasedSegments = snapshotFreeSegments;
+      snapshotFreeSegments = new ArrayList<>();
+    }
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    for (long position : releasedSegments) {
+      header.clear();
+      readFully(header, position);
+      int segmentSize = header.getInt();
+      synchronized (this) {
+        freeSegments.computeIfAbsent(segmentSize, size -> new ArrayDeque<>()).push(position);
+      }
+    }
+  }
+
+  /** Make sure the written segments are on disk before a snapshot refers to them. */
+  public void force() throws IOException {
+    fileChannel.force(false);
+  }
+
+  private synchronized long allocate(int segmentSize) {
+    Deque<Long> segments = freeSegments.get(segmentSize);
+    if (segments != null && !segments.isEmpty()) {
+      return segments.pop();
+    }
+    long position = fileLength;
+    fileLength += segmentSize;
+    return position;
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException(
+            String.format("Unexpected end of schema file %s at %d", file, position));
+      }
+    }
+    buffer.flip();
+  }
+
+  static int getSegmentSize(int dataSize) {
+    int segmentSize = MIN_SEGMENT_SIZE;
+    while (segmentSize < dataSize) {
+      segmentSize <<= 1;
+    }
+    return segmentSize;
+  }
+
+  private void serializeMeasurement(IMeasurementMNode measurement, PublicBAOS outputStream)
+      throws IOException {
+    ReadWriteIOUtils.write(measurement.getName(), outputStream);
+    ReadWriteIOUtils.write(measurement.getAlias(), outputStream);
+    ReadWriteIOUtils.write(measurement.getOffset(), outputStream);
+    IMeasurementSchema schema = measurement.getSchema();
+    if (schema instanceof VectorMeasurementSchema) {
+      ReadWriteIOUtils.write(VECTOR_MEASUREMENT_SCHEMA, outputStream);
+    } else {
+      ReadWriteIOUtils.write(MEASUREMENT_SCHEMA, outputStream);
+    }
+    schema.serializeTo(outputStream);
+  }
+
+  private IMeasurementMNode deserializeMeasurement(ByteBuffer buffer) {
+    String name = ReadWriteIOUtils.readString(buffer);
+    String alias = ReadWriteIOUtils.readString(buffer);
+    long offset = ReadWriteIOUtils.readLong(buffer);
+    IMeasurementSchema schema;
+    if (ReadWriteIOUtils.readByte(buffer) == VECTOR_MEASUREMENT_SCHEMA) {
+      schema = VectorMeasurementSchema.deserializeFrom(buffer);
+    } else {
+      schema = MeasurementSchema.deserializeFrom(buffer);
+    }
+    IMeasurementMNode measurement = new MeasurementMNode(null, name, schema, alias);
+    measurement.setOffset(offset);
+    return measurement;
+  }
+
+  /** Close the file, which is kept for the snapshot to recover from. */
+  @Override
+  public void close() throws IOException {
+    fileChannel.close();
+  }
+}
@@ -0,0 +1,529 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.schemafile;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+import org.apache.iotdb.db.metadata.mnode.EntityMNode;
+import org.apache.iotdb.db.metadata.mnode.IEntityMNode;
+import org.apache.iotdb.db.metadata.mnode.IMNode;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SchemaFileCache bounds the number of measurement nodes in memory when the schema file is
+ * enabled. The entities whose measurements are in memory are kept in a list in the order they are
+ * loaded, and each read of an entity marks it accessed without locking. When there are more
+ * measurements than the capacity, the entities at the head of the list that are accessed since
+ * they were last checked are moved to the tail (the second chance of the CLOCK algorithm), and the
+ * measurements of the others are written into the {@link SchemaFile} if they are modified, and
+ * released from the MTree. An entity loads its measurements back when they are accessed.
+ *
+ * <p>The list is guarded by its own lock, which is never held during IO. The measurements of an
+ * entity are loaded and evicted under the lock of its entry, so the entities do not wait for the
+ * disk reads of each other.
+ *
+ * <p>An entity is pinned while its children are being modified, so it is not evicted in the
+ * middle. The last caches of evicted measurements are dropped, and the entities with triggers are
+ * never evicted.
+ */
+public class SchemaFileCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(SchemaFileCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private volatile boolean enabled = false;
+  private long capacity;
+  /** number of the measurements in memory of the cached entities */
+  private final AtomicLong size = new AtomicLong();
+  /** increased on each clear, so that the entries of the released MTree are ignored */
+  private volatile int generation;
+  /** only one thread evicts entities at a time, the others go on */
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  private volatile SchemaFile schemaFile;
+  /**
+   * positions of the segments referred by the snapshot being recovered, null if the recovery is
+   * finished
+   */
+  private Set<Long> recoveredPositions;
+
+  /** guards the list */
+  private final Object listLock = new Object();
+  /** sentinel of the list, head.next is the entity loaded the earliest */
+  private final Entry head = new Entry(null, -1);
+  /** number of the entries in the list */
+  private int listSize;
+
+  private SchemaFileCache() {
+    head.prev = head;
+    head.next = head;
+  }
+
+  public static SchemaFileCache getInstance() {
+    return SchemaFileCacheHolder.INSTANCE;
+  }
+
+  /**
+   * Open the schema file before the MTree snapshot is recovered. The file is opened even if it is
+   * disabled, as the snapshot may refer to the measurements in it.
+   */
+  public synchronized void init(String schemaDir) throws IOException {
+    if (enabled || schemaFile != null) {
+      return;
+    }
+    if (!config.isEnableSchemaFile()
+        && !SystemFileFactory.INSTANCE
+            .getFile(schemaDir + File.separator + MetadataConstant.SCHEMA_FILE)
+            .exists()) {
+      return;
+    }
+    schemaFile = new SchemaFile(schemaDir, MetadataConstant.SCHEMA_FILE);
+    recoveredPositions = new HashSet<>();
+    if (config.isEnableSchemaFile()) {
+      capacity = config.getSchemaFileCacheSize();
+      enabled = true;
+    }
+  }
+
+  /**
+   * Called after the MTree snapshot is recovered. The segments that the snapshot does not refer to
+   * can be reused.
+   */
+  public synchronized void finishRecovery() throws IOException {
+    Set<Long> referredPositions = recoveredPositions;
+    recoveredPositions = null;
+    if (schemaFile == null || referredPositions == null) {
+      return;
+    }
+    if (!enabled) {
+      // the recovered measurements are all in memory
+      schemaFile.close();
+      schemaFile = null;
+      return;
+    }
+    schemaFile.recoverFreeSegments(referredPositions);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Recover an entity whose measurements are in the schema file from the snapshot, without reading
+   * them if the schema file is enabled.
+   *
+   * @param children the children of the entity other than the measurements
+   */
+  public synchronized void recoverEvicted(
+      EntityMNode entity, Map<String, IMNode> children, long position, int measurementCount)
+      throws IOException {
+    if (schemaFile == null || recoveredPositions == null) {
+      throw new IOException("The schema file is not opened to recover " + entity.getName());
+    }
+    if (!enabled) {
+      Map<String, IMNode> loadedChildren = new ConcurrentHashMap<>(children);
+      List<IMeasurementMNode> measurements = schemaFile.read(position);
+      for (IMeasurementMNode measurement : measurements) {
+        measurement.setParent(entity);
+        loadedChildren.put(measurement.getName(), measurement);
+      }
+      entity.setChildren(loadedChildren);
+      for (IMeasurementMNode measurement : measurements) {
+        if (measurement.getAlias() != null) {
+          entity.addAlias(measurement.getAlias(), measurement);
+        }
+      }
+      return;
+    }
+    entity.setEvictedChildren(children);
+    Entry entry = new Entry(entity, generation);
+    entry.loaded = false;
+    entry.dirty = false;
+    entry.position = position;
+    entry.measurementCount = measurementCount;
+    entity.setCacheEntry(entry);
+    recoveredPositions.add(position);
+  }
+
+  /** Load the measurements of the entity if they are evicted, and keep them until unpinned. */
+  public void pin(EntityMNode entity) {
+    if (!enabled) {
+      entity.attachMeasurements(Collections.emptyList());
+      return;
+    }
+    Entry entry = getOrCreateEntry(entity);
+    synchronized (entry) {
+      load(entry);
+      entry.pinCount++;
+    }
+    evictIfFull();
+  }
+
+  /**
+   * @param measurementDelta the number of measurements added to the entity since it is pinned
+   * @param dirty whether the measurements of the entity have been modified
+   */
+  public void unpin(EntityMNode entity, int measurementDelta, boolean dirty) {
+    Entry entry = entity.getCacheEntry();
+    if (!enabled || entry == null || entry.generation != generation) {
+      // the cache has been cleared
+      return;
+    }
+    synchronized (entry) {
+      if (entry.pinCount == 0) {
+        return;
+      }
+      entry.pinCount--;
+      entry.measurementCount += measurementDelta;
+      size.addAndGet(measurementDelta);
+      entry.dirty |= dirty;
+    }
+    evictIfFull();
+  }
+
+  /** Load the evicted measurements of the entity. */
+  public void load(EntityMNode entity) {
+    if (!enabled) {
+      entity.attachMeasurements(Collections.emptyList());
+      return;
+    }
+    Entry entry = getOrCreateEntry(entity);
+    synchronized (entry) {
+      load(entry);
+    }
+    evictIfFull();
+  }
+
+  /**
+   * Mark the entity of the measurement dirty after the measurement is modified. If the entity has
+   * been evicted before the modification, the measurement replaces the loaded one.
+   */
+  public void update(IMeasurementMNode measurement) {
+    IEntityMNode parent = measurement.getParent();
+    if (!enabled || !(parent instanceof EntityMNode)) {
+      return;
+    }
+    EntityMNode entity = (EntityMNode) parent;
+    Entry entry = getOrCreateEntry(entity);
+    synchronized (entry) {
+      load(entry);
+      entity.reattachMeasurement(measurement);
+      entry.dirty = true;
+    }
+    evictIfFull();
+  }
+
+  /** the number of measurements of the entity, no matter whether they are evicted */
+  public int getMeasurementCount(EntityMNode entity) {
+    Entry entry = entity.getCacheEntry();
+    return entry == null ? 0 : entry.measurementCount;
+  }
+
+  /**
+   * Get the segment that the snapshot can refer to instead of serializing the measurements of the
+   * entity, which never loads the evicted measurements.
+   *
+   * @return {position, measurement number} of the segment, or null if the measurements in memory
+   *     are not written into the schema file
+   */
+  public long[] getSegmentForSnapshot(EntityMNode entity) {
+    Entry entry = entity.getCacheEntry();
+    if (!enabled || entry == null || entry.generation != generation) {
+      return null;
+    }
+    synchronized (entry) {
+      if (entry.position < 0 || (entry.loaded && entry.dirty)) {
+        return null;
+      }
+      return new long[] {entry.position, entry.measurementCount};
+    }
+  }
+
+  /** Called before the MTree snapshot is serialized. */
+  public void startSnapshot() {
+    SchemaFile currentFile = schemaFile;
+    if (enabled && currentFile != null) {
+      currentFile.startSnapshot();
+    }
+  }
+
+  /** Make sure the segments referred by the serialized snapshot are on disk. */
+  public void syncForSnapshot() throws IOException {
+    SchemaFile currentFile = schemaFile;
+    if (enabled && currentFile != null) {
+      currentFile.force();
+    }
+  }
+
+  /**
+   * Called after the MTree snapshot is serialized.
+   *
+   * @param replaced whether the snapshot has replaced the previous one
+   */
+  public void finishSnapshot(boolean replaced) {
+    SchemaFile currentFile = schemaFile;
+    if (!enabled || currentFile == null) {
+      return;
+    }
+    try {
+      currentFile.finishSnapshot(replaced);
+    } catch (IOException e) {
+      logger.error("Cannot free the segments of the schema file after the snapshot", e);
+    }
+  }
+
+  public synchronized void clear() {
+    enabled = false;
+    if (schemaFile != null) {
+      try {
+        schemaFile.close();
+      } catch (IOException e) {
+        logger.error("Cannot close the schema file", e);
+      }
+    }
+    schemaFile = null;
+    recoveredPositions = null;
+    synchronized (listLock) {
+      head.prev = head;
+      head.next = head;
+      listSize = 0;
+      size.set(0);
+      generation++;
+    }
+  }
+
+  private Entry getOrCreateEntry(EntityMNode entity) {
+    Entry entry = entity.getCacheEntry();
+    if (entry != null && entry.generation == generation) {
+      return entry;
+    }
+    synchronized (entity) {
+      entry = entity.getCacheEntry();
+      if (entry == null || entry.generation != generation) {
+        // the measurements of the released MTree are lost
+        entity.attachMeasurements(Collections.emptyList());
+        entry = new Entry(entity, generation);
+        entry.measurementCount = entity.countLoadedMeasurements();
+        size.addAndGet(entry.measurementCount);
+        link(entry);
+        entity.setCacheEntry(entry);
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * load the measurements of the entity under the lock of its entry. The read that loads them is
+   * not counted as an access, so an entity read only once is evicted before the hot ones.
+   */
+  private void load(Entry entry) {
+    if (entry.loaded) {
+      entry.touch();
+      return;
+    }
+    List<IMeasurementMNode> measurements = Collections.emptyList();
+    SchemaFile currentFile = schemaFile;
+    if (currentFile == null) {
+      logger.warn("The schema file is closed, measurements of {} are lost", entry.entity);
+    } else if (entry.position >= 0) {
+      try {
+        measurements = currentFile.read(entry.position);
+      } catch (IOException e) {
+        throw new IllegalStateException(
+            String.format("Cannot load measurements of %s from the schema file", entry.entity),
+            e);
+      }
+    }
+    entry.entity.attachMeasurements(measurements);
+    entry.measurementCount = measurements.size();
+    entry.loaded = true;
+    size.addAndGet(entry.measurementCount);
+    link(entry);
+  }
+
+  /** evict the unpinned entities that are not accessed recently until the cache is not full */
+  private void evictIfFull() {
+    while (size.get() > capacity && evicting.compareAndSet(false, true)) {
+      List<Entry> victims;
+      try {
+        victims = selectVictims();
+        for (Entry victim : victims) {
+          evict(victim);
+        }
+      } finally {
+        evicting.set(false);
+      }
+      if (victims.isEmpty()) {
+        // all the entities are pinned
+        return;
+      }
+    }
+  }
+
+  /** unlink the entities to be evicted from the list, the most recently loaded one is kept */
+  private List<Entry> selectVictims() {
+    List<Entry> victims = new ArrayList<>();
+    synchronized (listLock) {
+      long sizeToFree = size.get() - capacity;
+      Entry newest = head.prev;
+      // each entity is checked at most twice, the first check may only clear its access mark
+      int checkNum = 2 * listSize;
+      Entry entry = head.next;
+      while (sizeToFree > 0 && checkNum-- > 0 && entry != head) {
+        Entry next = entry.next;
+        // the newest entity is just loaded and not read yet, it is kept
+        if (entry != newest && entry.accessed) {
+          entry.accessed = false;
+          unlink(entry);
+          linkLast(entry);
+        } else if (entry != newest && entry.pinCount == 0) {
+          unlink(entry);
+          victims.add(entry);
+          sizeToFree -= entry.measurementCount;
+        }
+        entry = next;
+      }
+    }
+    return victims;
+  }
+
+  private void evict(Entry entry) {
+    synchronized (entry) {
+      if (entry.generation != generation || !entry.loaded) {
+        return;
+      }
+      List<IMeasurementMNode> measurements = entry.entity.getMeasurementsToEvict();
+      if (entry.pinCount > 0 || measurements == null) {
+        link(entry);
+        return;
+      }
+      SchemaFile currentFile = schemaFile;
+      if (currentFile == null) {
+        return;
+      }
+      try {
+        if (entry.dirty || entry.position < 0) {
+          long oldPosition = entry.position;
+          entry.position = measurements.isEmpty() ? -1 : currentFile.write(measurements);
+          if (oldPosition >= 0) {
+            currentFile.free(oldPosition);
+          }
+          entry.dirty = false;
+        }
+      } catch (IOException e) {
+        logger.error("Cannot write measurements of {} into the schema file", entry.entity, e);
+        link(entry);
+        return;
+      }
+      entry.entity.detachMeasurements();
+      entry.loaded = false;
+      size.addAndGet(-entry.measurementCount);
+    }
+  }
+
+  private void link(Entry entry) {
+    synchronized (listLock) {
+      if (!entry.linked && entry.generation == generation) {
+        linkLast(entry);
+      }
+    }
+  }
+
+  private void linkLast(Entry entry) {
+    entry.prev = head.prev;
+    entry.next = head;
+    head.prev.next = entry;
+    head.prev = entry;
+    entry.linked = true;
+    listSize++;
+  }
+
+  private void unlink(Entry entry) {
+    entry.prev.next = entry.next;
+    entry.next.prev = entry.prev;
+    entry.prev = null;
+    entry.next = null;
+    entry.linked = false;
+    listSize--;
+  }
+
+  /** cache state of an entity, guarded by itself except the list fields */
+  public static class Entry {
+
+    private final EntityMNode entity;
+    private final int generation;
+
+    /** guarded by listLock */
+    private Entry prev;
+    /** guarded by listLock */
+    private Entry next;
+    /** whether the entry is in the list, guarded by listLock */
+    private boolean linked;
+    /** whether the entity is read since it was last checked for eviction */
+    private volatile boolean accessed;
+
+    /** position of the segment in the schema file, -1 if the measurements are never written */
+    private long position = -1;
+    /** whether the measurements are in memory */
+    private boolean loaded = true;
+    /** whether the measurements in memory differ from those in the schema file */
+    private boolean dirty = true;
+
+    private volatile int pinCount;
+    private volatile int measurementCount;
+
+    private Entry(EntityMNode entity, int generation) {
+      this.entity = entity;
+      this.generation = generation;
+    }
+
+    /** mark the entity accessed, which is called on every read of its children */
+    public void touch() {
+      if (!accessed) {
+        accessed = true;
+      }
+    }
+  }
+
+  private static class SchemaFileCacheHolder {
+
+    private SchemaFileCacheHolder() {
+      // allowed to do nothing
+    }
+
+    private static final SchemaFileCache INSTANCE = new SchemaFileCache();
+  }
+}
@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.db.utils.datastructure.CompressedBitmap;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TagInvertedIndex maps tag key -> tag value -> timeseries. Every indexed timeseries is given a
+ * dense int id, so a posting list is a CompressedBitmap of ids and the conjunctions and
+ * disjunctions of tag predicates are evaluated as bitmap operations.
+ *
+ * <p>The index is persisted as a checkpoint plus an append-only log of the changes after it. Both
+ * carry a log id, and a log is only replayed on the checkpoint with the same log id, so a crash
+ * while a new checkpoint is being written never applies a log twice. If a change cannot be logged,
+ * the persisted index is dropped, so that it is rebuilt from the tag file when restarting.
+ */
+public class TagInvertedIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(TagInvertedIndex.class);
+
+  private static final byte ADD = 0;
+  private static final byte REMOVE = 1;
+
+  /** the log is folded into a new checkpoint once it has this many records */
+  private static final int LOG_RECORDS_PER_CHECKPOINT = 100_000;
+
+  private final String schemaDir;
+  private final String checkpointPath;
+  private final String checkpointTmpPath;
+  private final String logPath;
+
+  private final Map<String, Integer> pathToId = new HashMap<>();
+  // id -> full path of the timeseries, null if the id is free
+  private final List<String> idToPath = new ArrayList<>();
+  // id -> number of posting lists containing the id, the id is freed when it drops to 0
+  private int[] postingNum = new int[16];
+  private final Deque<Integer> freeIds = new ArrayDeque<>();
+  // tag key -> tag value -> ids of the timeseries
+  private final Map<String, Map<String, CompressedBitmap>> postings = new HashMap<>();
+
+  private long logId;
+  private FileOutputStream logFileStream;
+  private DataOutputStream logStream;
+  private int logRecordNum;
+
+  public TagInvertedIndex(String schemaDir) {
+    this.schemaDir = schemaDir;
+    this.checkpointPath = schemaDir + File.separator + MetadataConstant.TAG_INDEX_CHECKPOINT;
+    this.checkpointTmpPath = checkpointPath + ".tmp";
+    this.logPath = schemaDir + File.separator + MetadataConstant.TAG_INDEX_LOG;
+  }
+
+  /**
+   * Load the checkpoint and replay the log after it, then open the log for appending.
+   *
+   * @return whether a persisted index is found
+   */
+  public synchronized boolean recover() throws IOException {
+    File checkpointFile = SystemFileFactory.INSTANCE.getFile(checkpointPath);
+    File logFile = SystemFileFactory.INSTANCE.getFile(logPath);
+    boolean found = checkpointFile.exists() || logFile.exists();
+    if (checkpointFile.exists()) {
+      loadCheckpoint(checkpointFile);
+    }
+    if (logFile.exists()) {
+      replayLog(logFile);
+    }
+    freeIds.clear();
+    for (int id = idToPath.size() - 1; id >= 0; id--) {
+      if (idToPath.get(id) == null) {
+        freeIds.push(id);
+      }
+    }
+    if (logStream == null) {
+      openLog(logFile.exists());
+    }
+    return found;
+  }
+
+  public synchronized void add(String path, String tagKey, String tagValue) {
+    Integer id = pathToId.get(path);
+    if (id == null) {
+      id = allocateId(path);
+    }
+    if (applyAdd(id, tagKey, tagValue)) {
+      appendLog(ADD, id, path, tagKey, tagValue);
+    } else if (postingNum[id] == 0) {
+      releaseId(id);
+    }
+  }
+
+  public synchronized void remove(String path, String tagKey, String tagValue) {
+    Integer id = pathToId.get(path);
+    if (id != null && applyRemove(id, tagKey, tagValue)) {
+      appendLog(REMOVE, id, path, tagKey, tagValue);
+    }
+  }
+
+  public synchronized boolean containsKey(String tagKey) {
+    return postings.containsKey(tagKey);
+  }
+
+  public synchronized boolean contains(String path, String tagKey, String tagValue) {
+    Integer id = pathToId.get(path);
+    Map<String, CompressedBitmap> valueToIds = postings.get(tagKey);
+    CompressedBitmap ids = valueToIds == null ? null : valueToIds.get(tagValue);
+    return id != null && ids != null && ids.contains(id);
+  }
+
+  /**
+   * @param predicates a disjunction of conjunctions of tag predicates
+   * @return the ids of the matched timeseries
+   */
+  public synchronized CompressedBitmap query(List<List<TagPredicate>> predicates) {
+    CompressedBitmap result = new CompressedBitmap();
+    for (List<TagPredicate> conjunction : predicates) {
+      CompressedBitmap matched = null;
+      for (TagPredicate predicate : conjunction) {
+        CompressedBitmap ids = match(predicate);
+        matched = matched == null ? ids : CompressedBitmap.and(matched, ids);
+        if (matched.isEmpty()) {
+          break;
+        }
+      }
+      if (matched != null) {
+        result = CompressedBitmap.or(result, matched);
+      }
+    }
+    return result;
+  }
+
+  private CompressedBitmap match(TagPredicate predicate) {
+    Map<String, CompressedBitmap> valueToIds = postings.get(predicate.getKey());
+    if (valueToIds == null) {
+      return new CompressedBitmap();
+    }
+    if (!predicate.isContains()) {
+      CompressedBitmap ids = valueToIds.get(predicate.getValue());
+      return ids == null ? new CompressedBitmap() : ids;
+    }
+    CompressedBitmap result = new CompressedBitmap();
+    for (Map.Entry<String, CompressedBitmap> entry : valueToIds.entrySet()) {
+      if (predicate.matches(entry.getKey())) {
+        result = CompressedBitmap.or(result, entry.getValue());
+      }
+    }
+    return result;
+  }
+
+  /** @return the full paths of the ids in ascending order of the ids, freed ids are skipped */
+  public synchronized List<String> getPaths(CompressedBitmap ids) {
+    List<String> paths = new ArrayList<>(ids.getCardinality());
+    ids.forEach(
+        id -> {
+          if (id < idToPath.size() && idToPath.get(id) != null) {
+            paths.add(idToPath.get(id));
+          }
+        });
+    return paths;
+  }
+
+  public synchronized int size() {
+    return pathToId.size();
+  }
+
+  private int allocateId(String path) {
+    int id;
+    if (freeIds.isEmpty()) {
+      id = idToPath.size();
+      idToPath.add(path);
+    } else {
+      id = freeIds.pop();
+      idToPath.set(id, path);
+    }
+    ensurePostingNumCapacity(id);
+    pathToId.put(path, id);
+    return id;
+  }
+
+  private void bindId(int id, String path) {
+    while (idToPath.size() <= id) {
+      idToPath.add(null);
+    }
+    String previous = idToPath.get(id);
+    if (previous != null && !previous.equals(path)) {
+      pathToId.remove(previous);
+    }
+    idToPath.set(id, path);
+    ensurePostingNumCapacity(id);
+    pathToId.put(path, id);
+  }
+
+  private void releaseId(int id) {
+    pathToId.remove(idToPath.get(id));
+    idToPath.set(id, null);
+    freeIds.push(id);
+  }
+
+  private void ensurePostingNumCapacity(int id) {
+    if (id >= postingNum.length) {
+      postingNum = Arrays.copyOf(postingNum, Math.max(id + 1, postingNum.length * 2));
+    }
+  }
+
+  private boolean applyAdd(int id, String tagKey, String tagValue) {
+    if (postings
+        .computeIfAbsent(tagKey, k -> new HashMap<>())
+        .computeIfAbsent(tagValue, v -> new CompressedBitmap())
+        .add(id)) {
+      postingNum[id]++;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean applyRemove(int id, String tagKey, String tagValue) {
+    Map<String, CompressedBitmap> valueToIds = postings.get(tagKey);
+    CompressedBitmap ids = valueToIds == null ? null : valueToIds.get(tagValue);
+    if (ids == null || !ids.remove(id)) {
+      return false;
+    }
+    if (ids.isEmpty()) {
+      valueToIds.remove(tagValue);
+      if (valueToIds.isEmpty()) {
+        postings.remove(tagKey);
+      }
+    }
+    if (--postingNum[id] == 0) {
+      releaseId(id);
+    }
+    return true;
+  }
+
+  private void appendLog(byte type, int id, String path, String tagKey, String tagValue) {
+    if (logStream == null) {
+      return;
+    }
+    try {
+      logStream.write(type);
+      logStream.writeInt(id);
+      if (type == ADD) {
+        ReadWriteIOUtils.write(path, logStream);
+      }
+      ReadWriteIOUtils.write(tagKey, logStream);
+      ReadWriteIOUtils.write(tagValue, logStream);
+      logStream.flush();
+    } catch (IOException e) {
+      logger.error(
+          "Failed to log the change of tag index of {}, it will be rebuilt when restarting",
+          path,
+          e);
+      dropPersistedIndex();
+      return;
+    }
+    if (++logRecordNum >= LOG_RECORDS_PER_CHECKPOINT) {
+      try {
+        checkpoint();
+      } catch (IOException e) {
+        logger.warn("Failed to create the checkpoint of tag index", e);
+      }
+    }
+  }
+
+  /**
+   * Drop the checkpoint and the log, whose replay would miss a change, and stop logging. The index
+   * in memory is still complete, so a later checkpoint persists it again.
+   */
+  private void dropPersistedIndex() {
+    try {
+      closeLog();
+    } catch (IOException e) {
+      logger.warn("Failed to close the tag index log {}", logPath, e);
+      logStream = null;
+      logFileStream = null;
+    }
+    try {
+      Files.deleteIfExists(SystemFileFactory.INSTANCE.getFile(checkpointPath).toPath());
+      Files.deleteIfExists(SystemFileFactory.INSTANCE.getFile(logPath).toPath());
+    } catch (IOException e) {
+      logger.error("Failed to delete the persisted tag index in {}", schemaDir, e);
+    }
+  }
+
+  private void replayLog(File logFile) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile.toPath()));
+    int validLength = 0;
+    try {
+      long fileLogId = buffer.getLong();
+      if (fileLogId != logId) {
+        // the checkpoint is newer than the log, whose records are all in the checkpoint
+        logger.info("Skip the outdated tag index log {}", logFile);
+        Files.delete(logFile.toPath());
+        return;
+      }
+      validLength = buffer.position();
+      while (buffer.hasRemaining()) {
+        byte type = buffer.get();
+        int id = buffer.getInt();
+        String path = type == ADD ? ReadWriteIOUtils.readString(buffer) : null;
+        String tagKey = ReadWriteIOUtils.readString(buffer);
+        String tagValue = ReadWriteIOUtils.readString(buffer);
+        if (type == ADD) {
+          bindId(id, path);
+          applyAdd(id, tagKey, tagValue);
+        } else if (id < idToPath.size() && idToPath.get(id) != null) {
+          applyRemove(id, tagKey, tagValue);
+        }
+        validLength = buffer.position();
+        logRecordNum++;
+      }
+    } catch (BufferUnderflowException e) {
+      logger.warn("The tag index log {} is incomplete, truncate it to {}", logFile, validLength);
+      if (validLength == 0) {
+        Files.delete(logFile.toPath());
+        return;
+      }
+      try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.WRITE)) {
+        channel.truncate(validLength);
+      }
+    }
+  }
+
+  private void openLog(boolean append) throws IOException {
+    File dir = SystemFileFactory.INSTANCE.getFile(schemaDir);
+    if (!dir.exists() && !dir.mkdirs()) {
+      logger.warn("create schema folder {} failed.", dir);
+    }
+    File logFile = SystemFileFactory.INSTANCE.getFile(logPath);
+    append = append && logFile.exists();
+    logFileStream = new FileOutputStream(logFile, append);
+    logStream = new DataOutputStream(new BufferedOutputStream(logFileStream));
+    if (!append) {
+      logStream.writeLong(logId);
+      logStream.flush();
+      logRecordNum = 0;
+    }
+  }
+
+  /** Write all postings to a new checkpoint and start a new log after it. */
+  public synchronized void checkpoint() throws IOException {
+    long time = System.currentTimeMillis();
+    long newLogId = logId + 1;
+    File tmpFile = SystemFileFactory.INSTANCE.getFile(checkpointTmpPath);
+    try (FileOutputStream fileStream = new FileOutputStream(tmpFile);
+        DataOutputStream outputStream =
+            new DataOutputStream(new BufferedOutputStream(fileStream))) {
+      outputStream.writeLong(newLogId);
+      outputStream.writeInt(idToPath.size());
+      for (String path : idToPath) {
+        outputStream.writeBoolean(path != null);
+        if (path != null) {
+          ReadWriteIOUtils.write(path, outputStream);
+        }
+      }
+      outputStream.writeInt(postings.size());
+      for (Map.Entry<String, Map<String, CompressedBitmap>> keyEntry : postings.entrySet()) {
+        ReadWriteIOUtils.write(keyEntry.getKey(), outputStream);
+        outputStream.writeInt(keyEntry.getValue().size());
+        for (Map.Entry<String, CompressedBitmap> valueEntry : keyEntry.getValue().entrySet()) {
+          ReadWriteIOUtils.write(valueEntry.getKey(), outputStream);
+          valueEntry.getValue().serialize(outputStream);
+        }
+      }
+      outputStream.flush();
+      fileStream.getFD().sync();
+    }
+    File checkpointFile = SystemFileFactory.INSTANCE.getFile(checkpointPath);
+    if (checkpointFile.exists()) {
+      Files.delete(checkpointFile.toPath());
+    }
+    if (!tmpFile.renameTo(checkpointFile)) {
+      throw new IOException("Cannot rename " + tmpFile + " to " + checkpointFile);
+    }
+    logId = newLogId;
+    closeLog();
+    openLog(false);
+    logger.info(
+        "Finish creating the checkpoint of tag index with {} timeseries, spend {} ms.",
+        pathToId.size(),
+        System.currentTimeMillis() - time);
+  }
+
+  private void loadCheckpoint(File checkpointFile) throws IOException {
+    try (DataInputStream inputStream =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)))) {
+      logId = inputStream.readLong();
+      int idNum = inputStream.readInt();
+      for (int id = 0; id < idNum; id++) {
+        if (inputStream.readBoolean()) {
+          bindId(id, ReadWriteIOUtils.readString(inputStream));
+        } else {
+          idToPath.add(null);
+        }
+      }
+      int keyNum = inputStream.readInt();
+      for (int i = 0; i < keyNum; i++) {
+        String tagKey = ReadWriteIOUtils.readString(inputStream);
+        Map<String, CompressedBitmap> valueToIds = new HashMap<>();
+        int valueNum = inputStream.readInt();
+        for (int j = 0; j < valueNum; j++) {
+          String tagValue = ReadWriteIOUtils.readString(inputStream);
+          CompressedBitmap ids = CompressedBitmap.deserialize(inputStream);
+          ids.forEach(id -> postingNum[id]++);
+          valueToIds.put(tagValue, ids);
+        }
+        postings.put(tagKey, valueToIds);
+      }
+    }
+  }
+
+  private void closeLog() throws IOException {
+    if (logStream != null) {
+      try {
+        logStream.flush();
+        logFileStream.getFD().sync();
+      } finally {
+        logStream.close();
+        logStream = null;
+        logFileStream = null;
+      }
+    }
+  }
+
+  /** close the underlying log file, so that the following changes fail to be logged */
+  @TestOnly
+  synchronized void breakLog() throws IOException {
+    logFileStream.close();
+  }
+
+  /** drop all postings in memory, the persisted index is kept */
+  public synchronized void clear() throws IOException {
+    closeLog();
+    pathToId.clear();
+    idToPath.clear();
+    freeIds.clear();
+    postings.clear();
+    postingNum = new int[16];
+    logId = 0;
+    logRecordNum = 0;
+  }
+
+  /** drop all postings and start a new checkpoint, used when the index is rebuilt */
+  public synchronized void reset() throws IOException {
+    long currentLogId = logId;
+    clear();
+    logId = currentLogId;
+    checkpoint();
+  }
+}
@@ -19,16 +19,20 @@
 package org.apache.iotdb.db.metadata.tag;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.metadata.MetadataConstant;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.metadata.lastCache.LastCacheManager;
 import org.apache.iotdb.db.metadata.mnode.IMNode;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.utils.MetaUtils;
 import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.utils.TestOnly;
@@ -39,8 +43,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
 
@@ -57,8 +60,10 @@ public class TagManager {
   private static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   private TagLogFile tagLogFile;
-  // tag key -> tag value -> LeafMNode
-  private Map<String, Map<String, Set<IMeasurementMNode>>> tagIndex = new ConcurrentHashMap<>();
+  // tag key -> tag value -> ids of the timeseries
+  private TagInvertedIndex tagIndex = new TagInvertedIndex(config.getSchemaDir());
+  // whether the tag index is loaded from its checkpoint and log
+  private boolean indexRecovered;
 
   private static class TagManagerHolder {
 
@@ -82,13 +87,30 @@ public class TagManager {
 
   public void init() throws IOException {
     tagLogFile = new TagLogFile(config.getSchemaDir(), MetadataConstant.TAG_LOG);
+    indexRecovered = tagIndex.recover();
+  }
+
+  /**
+   * @return false if there is no persisted tag index, which should be rebuilt from the tag file
+   *     by {@link #resetIndex()} and {@link #addIndex(Map, IMeasurementMNode)}
+   */
+  public boolean isIndexRecovered() {
+    return indexRecovered;
+  }
+
+  /** drop the tag index before rebuilding it */
+  public void resetIndex() throws IOException {
+    tagIndex.reset();
+    indexRecovered = true;
+  }
+
+  /** persist the whole tag index, so that its log is not replayed when restarting */
+  public void checkpointIndex() throws IOException {
+    tagIndex.checkpoint();
   }
 
   public void addIndex(String tagKey, String tagValue, IMeasurementMNode measurementMNode) {
-    tagIndex
-        .computeIfAbsent(tagKey, k -> new ConcurrentHashMap<>())
-        .computeIfAbsent(tagValue, v -> new CopyOnWriteArraySet<>())
-        .add(measurementMNode);
+    tagIndex.add(measurementMNode.getFullPath(), tagKey, tagValue);
   }
 
   public void addIndex(Map<String, String> tagsMap, IMeasurementMNode measurementMNode) {
@@ -100,41 +122,52 @@ public class TagManager {
   }
 
   public void removeIndex(String tagKey, String tagValue, IMeasurementMNode measurementMNode) {
-    tagIndex.get(tagKey).get(tagValue).remove(measurementMNode);
-    if (tagIndex.get(tagKey).get(tagValue).isEmpty()) {
-      tagIndex.get(tagKey).remove(tagValue);
-    }
+    tagIndex.remove(measurementMNode.getFullPath(), tagKey, tagValue);
   }
 
+  /**
+   * Get the timeseries matching the tag predicates of the plan under its prefix path, within the
+   * offset and limit of the plan. Unless ordered by heat, only the nodes of that page are resolved.
+   *
+   * @param resolver gets the measurement node of a full path in the index, or null if the
+   *     timeseries does not exist
+   */
   public List<IMeasurementMNode> getMatchedTimeseriesInIndex(
-      ShowTimeSeriesPlan plan, QueryContext context) throws MetadataException {
-    if (!tagIndex.containsKey(plan.getKey())) {
+      ShowTimeSeriesPlan plan, QueryContext context, Function<String, IMeasurementMNode> resolver)
+      throws MetadataException {
+    List<List<TagPredicate>> predicates = plan.getTagPredicates();
+    if (predicates.stream()
+        .flatMap(List::stream)
+        .noneMatch(predicate -> tagIndex.containsKey(predicate.getKey()))) {
       throw new MetadataException("The key " + plan.getKey() + " is not a tag.", true);
     }
-    Map<String, Set<IMeasurementMNode>> value2Node = tagIndex.get(plan.getKey());
-    if (value2Node.isEmpty()) {
-      throw new MetadataException("The key " + plan.getKey() + " is not a tag.");
-    }
 
+    List<String> matchedPaths = tagIndex.getPaths(tagIndex.query(predicates));
+    int offset = plan.getOffset();
+    int limit = plan.getLimit() == 0 ? Integer.MAX_VALUE : plan.getLimit();
+    if (!plan.isOrderByHeat()) {
+      // otherwise, we just sort them by the alphabetical order, and only resolve the nodes of the
+      // requested page
+      Collections.sort(matchedPaths);
+    } else {
+      // all the nodes are needed to sort them by heat before paging
+      offset = 0;
+      limit = Integer.MAX_VALUE;
+    }
     List<IMeasurementMNode> allMatchedNodes = new ArrayList<>();
-    if (plan.isContains()) {
-      for (Map.Entry<String, Set<IMeasurementMNode>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
-          continue;
-        }
-        String tagValue = entry.getKey();
-        if (tagValue.contains(plan.getValue())) {
-          allMatchedNodes.addAll(entry.getValue());
-        }
+    int skipped = 0;
+    for (String path : matchedPaths) {
+      if (allMatchedNodes.size() >= limit) {
+        break;
       }
-    } else {
-      for (Map.Entry<String, Set<IMeasurementMNode>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
+      if (plan.getPath() == null || matchPrefix(path, plan.getPath())) {
+        if (skipped < offset) {
+          skipped++;
           continue;
         }
-        String tagValue = entry.getKey();
-        if (plan.getValue().equals(tagValue)) {
-          allMatchedNodes.addAll(entry.getValue());
+        IMeasurementMNode node = resolver.apply(path);
+        if (node != null) {
+          allMatchedNodes.add(node);
         }
       }
     }
@@ -156,6 +189,8 @@ public class TagManager {
                                   LastCacheManager.getLastTimeStamp(mNode, context))
                           .reversed()
                           .thenComparing(IMNode::getFullPath))
+                  .skip(plan.getOffset())
+                  .limit(plan.getLimit() == 0 ? Long.MAX_VALUE : plan.getLimit())
                   .collect(toList());
         } finally {
           StorageEngine.getInstance().mergeUnLock(list);
@@ -163,17 +198,37 @@ public class TagManager {
       } catch (StorageEngineException e) {
         throw new MetadataException(e);
       }
-    } else {
-      // otherwise, we just sort them by the alphabetical order
-      allMatchedNodes =
-          allMatchedNodes.stream()
-              .sorted(Comparator.comparing(IMNode::getFullPath))
-              .collect(toList());
     }
 
     return allMatchedNodes;
   }
 
+  /** whether the full path is under the prefix path, "*" in the prefix path matches any node */
+  private boolean matchPrefix(String fullPath, PartialPath prefixPath) {
+    String prefix = prefixPath.getFullPath();
+    if (!prefix.contains("*")) {
+      return fullPath.startsWith(prefix)
+          && (fullPath.length() == prefix.length()
+              || fullPath.charAt(prefix.length()) == IoTDBConstant.PATH_SEPARATOR);
+    }
+    String[] nodes;
+    try {
+      nodes = MetaUtils.splitPathToDetachedPath(fullPath);
+    } catch (IllegalPathException e) {
+      return false;
+    }
+    String[] prefixNodes = prefixPath.getNodes();
+    if (nodes.length < prefixNodes.length) {
+      return false;
+    }
+    for (int i = 0; i < prefixNodes.length; i++) {
+      if (!"*".equals(prefixNodes[i]) && !prefixNodes[i].equals(nodes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /** remove the node from the tag inverted index */
   public void removeFromTagInvertedIndex(IMeasurementMNode node) throws IOException {
     if (node.getOffset() < 0) {
@@ -183,8 +238,7 @@ public class TagManager {
         tagLogFile.readTag(config.getTagAttributeTotalSize(), node.getOffset());
     if (tagMap != null) {
       for (Map.Entry<String, String> entry : tagMap.entrySet()) {
-        if (tagIndex.containsKey(entry.getKey())
-            && tagIndex.get(entry.getKey()).containsKey(entry.getValue())) {
+        if (tagIndex.contains(node.getFullPath(), entry.getKey(), entry.getValue())) {
           if (logger.isDebugEnabled()) {
             logger.debug(
                 String.format(
@@ -193,13 +247,7 @@ public class TagManager {
                     entry.getValue(),
                     node.getOffset()));
           }
-          tagIndex.get(entry.getKey()).get(entry.getValue()).remove(node);
-          if (tagIndex.get(entry.getKey()).get(entry.getValue()).isEmpty()) {
-            tagIndex.get(entry.getKey()).remove(entry.getValue());
-            if (tagIndex.get(entry.getKey()).isEmpty()) {
-              tagIndex.remove(entry.getKey());
-            }
-          }
+          removeIndex(entry.getKey(), entry.getValue(), node);
         } else {
           if (logger.isDebugEnabled()) {
             logger.debug(
@@ -236,7 +284,7 @@ public class TagManager {
         // we should remove before key-value from inverted index map
         if (beforeValue != null && !beforeValue.equals(value)) {
 
-          if (tagIndex.containsKey(key) && tagIndex.get(key).containsKey(beforeValue)) {
+          if (tagIndex.contains(leafMNode.getFullPath(), key, beforeValue)) {
             if (logger.isDebugEnabled()) {
               logger.debug(
                   String.format(
@@ -362,33 +410,21 @@ public class TagManager {
     // persist the change to disk
     tagLogFile.write(pair.left, pair.right, leafMNode.getOffset());
 
-    Map<String, Set<IMeasurementMNode>> tagVal2LeafMNodeSet;
-    Set<IMeasurementMNode> MMNodes;
     for (Map.Entry<String, String> entry : deleteTag.entrySet()) {
       String key = entry.getKey();
       String value = entry.getValue();
       // change the tag inverted index map
-      tagVal2LeafMNodeSet = tagIndex.get(key);
-      if (tagVal2LeafMNodeSet != null) {
-        MMNodes = tagVal2LeafMNodeSet.get(value);
-        if (MMNodes != null) {
-          if (logger.isDebugEnabled()) {
-            logger.debug(
-                String.format(
-                    String.format(DEBUG_MSG, "Drop" + TAG_FORMAT, leafMNode.getFullPath()),
-                    entry.getKey(),
-                    entry.getValue(),
-                    leafMNode.getOffset()));
-          }
-
-          MMNodes.remove(leafMNode);
-          if (MMNodes.isEmpty()) {
-            tagVal2LeafMNodeSet.remove(value);
-            if (tagVal2LeafMNodeSet.isEmpty()) {
-              tagIndex.remove(key);
-            }
-          }
+      if (tagIndex.contains(leafMNode.getFullPath(), key, value)) {
+        if (logger.isDebugEnabled()) {
+          logger.debug(
+              String.format(
+                  String.format(DEBUG_MSG, "Drop" + TAG_FORMAT, leafMNode.getFullPath()),
+                  entry.getKey(),
+                  entry.getValue(),
+                  leafMNode.getOffset()));
         }
+
+        removeIndex(key, value, leafMNode);
       } else {
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -443,7 +479,7 @@ public class TagManager {
       String beforeValue = entry.getValue();
       String currentValue = newTagValue.get(key);
       // change the tag inverted index map
-      if (tagIndex.containsKey(key) && tagIndex.get(key).containsKey(beforeValue)) {
+      if (tagIndex.contains(leafMNode.getFullPath(), key, beforeValue)) {
 
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -454,7 +490,7 @@ public class TagManager {
                   leafMNode.getOffset()));
         }
 
-        tagIndex.get(key).get(beforeValue).remove(leafMNode);
+        removeIndex(key, beforeValue, leafMNode);
       } else {
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -498,7 +534,7 @@ public class TagManager {
       // persist the change to disk
       tagLogFile.write(pair.left, pair.right, leafMNode.getOffset());
       // change the tag inverted index map
-      if (tagIndex.containsKey(oldKey) && tagIndex.get(oldKey).containsKey(value)) {
+      if (tagIndex.contains(leafMNode.getFullPath(), oldKey, value)) {
 
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -509,7 +545,7 @@ public class TagManager {
                   leafMNode.getOffset()));
         }
 
-        tagIndex.get(oldKey).get(value).remove(leafMNode);
+        removeIndex(oldKey, value, leafMNode);
 
       } else {
         if (logger.isDebugEnabled()) {
@@ -547,7 +583,15 @@ public class TagManager {
   }
 
   public void clear() throws IOException {
+    if (tagLogFile != null && SystemFileFactory.INSTANCE.getFile(config.getSchemaDir()).exists()) {
+      try {
+        tagIndex.checkpoint();
+      } catch (IOException e) {
+        logger.warn("Failed to create the checkpoint of tag index", e);
+      }
+    }
     this.tagIndex.clear();
+    indexRecovered = false;
     if (tagLogFile != null) {
       tagLogFile.close();
       tagLogFile = null;
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import java.util.Objects;
+
+/** A condition on one tag of a timeseries, "key = value" or "key contains value". */
+public class TagPredicate {
+
+  private final String key;
+  private final String value;
+  private final boolean isContains;
+
+  public TagPredicate(String key, String value, boolean isContains) {
+    this.key = key;
+    this.value = value;
+    this.isContains = isContains;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public boolean isContains() {
+    return isContains;
+  }
+
+  public boolean matches(String tagValue) {
+    return isContains ? tagValue.contains(value) : value.equals(tagValue);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TagPredicate that = (TagPredicate) o;
+    return isContains == that.isContains
+        && Objects.equals(key, that.key)
+        && Objects.equals(value, that.value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key, value, isContains);
+  }
+
+  @Override
+  public String toString() {
+    return key + (isContains ? " contains " : " = ") + value;
+  }
+}
@@ -171,6 +171,7 @@ public abstract class Operator {
     CREATE_CONTINUOUS_QUERY,
     DROP_CONTINUOUS_QUERY,
     SHOW_CONTINUOUS_QUERIES,
-    SET_SYSTEM_MODE
+    SET_SYSTEM_MODE,
+    SCHEMA_FILE_SEGMENT
   }
 }
@@ -21,16 +21,21 @@ package org.apache.iotdb.db.qp.logical.sys;
 
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.tag.TagPredicate;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
 import org.apache.iotdb.db.qp.strategy.PhysicalGenerator;
 
+import java.util.List;
+
 public class ShowTimeSeriesOperator extends ShowOperator {
 
   private PartialPath path;
   private boolean isContains;
   private String key;
   private String value;
+  // a disjunction of conjunctions of tag predicates
+  private List<List<TagPredicate>> tagPredicates;
   private int limit = 0;
   private int offset = 0;
   // if is true, the result will be sorted according to the inserting frequency of the timeseries
@@ -70,6 +75,14 @@ public class ShowTimeSeriesOperator extends ShowOperator {
     this.value = value;
   }
 
+  public List<List<TagPredicate>> getTagPredicates() {
+    return tagPredicates;
+  }
+
+  public void setTagPredicates(List<List<TagPredicate>> tagPredicates) {
+    this.tagPredicates = tagPredicates;
+  }
+
   public int getLimit() {
     return limit;
   }
@@ -97,6 +110,7 @@ public class ShowTimeSeriesOperator extends ShowOperator {
     showTimeSeriesPlan.setIsContains(isContains);
     showTimeSeriesPlan.setKey(key);
     showTimeSeriesPlan.setValue(value);
+    showTimeSeriesPlan.setTagPredicates(tagPredicates);
     showTimeSeriesPlan.setOrderByHeat(orderByHeat);
     return showTimeSeriesPlan;
   }
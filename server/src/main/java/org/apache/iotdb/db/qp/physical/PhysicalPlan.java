@@ -59,6 +59,7 @@ import org.apache.iotdb.db.qp.physical.sys.LogPlan;
 import org.apache.iotdb.db.qp.physical.sys.MNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.MeasurementMNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.MergePlan;
+import org.apache.iotdb.db.qp.physical.sys.SchemaFileSegmentPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetSystemModePlan;
 import org.apache.iotdb.db.qp.physical.sys.SetTTLPlan;
@@ -418,6 +419,9 @@ public abstract class PhysicalPlan {
         case SET_SYSTEM_MODE:
           plan = new SetSystemModePlan();
           break;
+        case SCHEMA_FILE_SEGMENT:
+          plan = new SchemaFileSegmentPlan();
+          break;
         default:
           throw new IOException("unrecognized log type " + type);
       }
@@ -484,7 +488,8 @@ public abstract class PhysicalPlan {
     CREATE_FUNCTION,
     DROP_FUNCTION,
     SELECT_INTO,
-    SET_SYSTEM_MODE
+    SET_SYSTEM_MODE,
+    SCHEMA_FILE_SEGMENT
   }
 
   public long getIndex() {
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.qp.physical.sys;
+
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.qp.logical.Operator;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Written into the MTree snapshot instead of the measurements of an entity that are in the schema
+ * file, it refers to the segment of the measurements. The entity is the next node in the snapshot.
+ */
+public class SchemaFileSegmentPlan extends PhysicalPlan {
+  private long position;
+  private int measurementCount;
+
+  public SchemaFileSegmentPlan() {
+    super(false, Operator.OperatorType.SCHEMA_FILE_SEGMENT);
+  }
+
+  public SchemaFileSegmentPlan(long position, int measurementCount) {
+    super(false, Operator.OperatorType.SCHEMA_FILE_SEGMENT);
+    this.position = position;
+    this.measurementCount = measurementCount;
+  }
+
+  @Override
+  public List<PartialPath> getPaths() {
+    return new ArrayList<>();
+  }
+
+  public long getPosition() {
+    return position;
+  }
+
+  public int getMeasurementCount() {
+    return measurementCount;
+  }
+
+  @Override
+  public void serialize(ByteBuffer buffer) {
+    buffer.put((byte) PhysicalPlanType.SCHEMA_FILE_SEGMENT.ordinal());
+    buffer.putLong(position);
+    buffer.putInt(measurementCount);
+    buffer.putLong(index);
+  }
+
+  @Override
+  public void serialize(DataOutputStream stream) throws IOException {
+    stream.write((byte) PhysicalPlanType.SCHEMA_FILE_SEGMENT.ordinal());
+    stream.writeLong(position);
+    stream.writeInt(measurementCount);
+    stream.writeLong(index);
+  }
+
+  @Override
+  public void deserialize(ByteBuffer buffer) {
+    position = buffer.getLong();
+    measurementCount = buffer.getInt();
+    index = buffer.getLong();
+  }
+
+  @Override
+  public String toString() {
+    return "SchemaFileSegment{" + position + "," + measurementCount + "}";
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SchemaFileSegmentPlan that = (SchemaFileSegmentPlan) o;
+    return position == that.position && measurementCount == that.measurementCount;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(position, measurementCount);
+  }
+}
@@ -20,16 +20,22 @@ package org.apache.iotdb.db.qp.physical.sys;
 
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.tag.TagPredicate;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class ShowTimeSeriesPlan extends ShowPlan {
 
   private boolean isContains;
   private String key;
   private String value;
+  // a disjunction of conjunctions of tag predicates, the first one is also kept in key and value
+  private List<List<TagPredicate>> tagPredicates;
 
   // if is true, the result will be sorted according to the inserting frequency of the timeseries
   private boolean orderByHeat;
@@ -88,6 +94,19 @@ public class ShowTimeSeriesPlan extends ShowPlan {
     this.value = value;
   }
 
+  /** @return the tag predicates, or the one made of key and value if they are not set */
+  public List<List<TagPredicate>> getTagPredicates() {
+    if (tagPredicates == null && key != null && value != null) {
+      return Collections.singletonList(
+          Collections.singletonList(new TagPredicate(key, value, isContains)));
+    }
+    return tagPredicates;
+  }
+
+  public void setTagPredicates(List<List<TagPredicate>> tagPredicates) {
+    this.tagPredicates = tagPredicates;
+  }
+
   public boolean isOrderByHeat() {
     return orderByHeat;
   }
@@ -106,6 +125,19 @@ public class ShowTimeSeriesPlan extends ShowPlan {
     outputStream.writeInt(limit);
     outputStream.writeInt(offset);
     outputStream.writeBoolean(orderByHeat);
+    if (tagPredicates == null) {
+      outputStream.writeInt(-1);
+    } else {
+      outputStream.writeInt(tagPredicates.size());
+      for (List<TagPredicate> conjunction : tagPredicates) {
+        outputStream.writeInt(conjunction.size());
+        for (TagPredicate predicate : conjunction) {
+          outputStream.writeBoolean(predicate.isContains());
+          putString(outputStream, predicate.getKey());
+          putString(outputStream, predicate.getValue());
+        }
+      }
+    }
     outputStream.writeLong(index);
   }
 
@@ -118,6 +150,21 @@ public class ShowTimeSeriesPlan extends ShowPlan {
     limit = buffer.getInt();
     offset = buffer.getInt();
     orderByHeat = buffer.get() == 1;
+    int disjunctionSize = buffer.getInt();
+    if (disjunctionSize >= 0) {
+      tagPredicates = new ArrayList<>(disjunctionSize);
+      for (int i = 0; i < disjunctionSize; i++) {
+        int conjunctionSize = buffer.getInt();
+        List<TagPredicate> conjunction = new ArrayList<>(conjunctionSize);
+        for (int j = 0; j < conjunctionSize; j++) {
+          boolean contains = buffer.get() == 1;
+          String predicateKey = readString(buffer);
+          String predicateValue = readString(buffer);
+          conjunction.add(new TagPredicate(predicateKey, predicateValue, contains));
+        }
+        tagPredicates.add(conjunction);
+      }
+    }
     this.index = buffer.getLong();
   }
 }
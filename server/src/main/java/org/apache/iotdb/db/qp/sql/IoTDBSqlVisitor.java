@@ -26,6 +26,7 @@ import org.apache.iotdb.db.exception.runtime.SQLParserException;
 import org.apache.iotdb.db.index.common.IndexType;
 import org.apache.iotdb.db.index.common.IndexUtils;
 import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.tag.TagPredicate;
 import org.apache.iotdb.db.qp.constant.FilterConstant;
 import org.apache.iotdb.db.qp.constant.FilterConstant.FilterType;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
@@ -233,7 +234,9 @@ import org.apache.iotdb.db.qp.sql.SqlBaseParser.StartTriggerContext;
 import org.apache.iotdb.db.qp.sql.SqlBaseParser.StopTriggerContext;
 import org.apache.iotdb.db.qp.sql.SqlBaseParser.StringLiteralContext;
 import org.apache.iotdb.db.qp.sql.SqlBaseParser.SuffixPathContext;
+import org.apache.iotdb.db.qp.sql.SqlBaseParser.TagAndExpressionContext;
 import org.apache.iotdb.db.qp.sql.SqlBaseParser.TagClauseContext;
+import org.apache.iotdb.db.qp.sql.SqlBaseParser.TagPredicateContext;
 import org.apache.iotdb.db.qp.sql.SqlBaseParser.TimeIntervalContext;
 import org.apache.iotdb.db.qp.sql.SqlBaseParser.TopClauseContext;
 import org.apache.iotdb.db.qp.sql.SqlBaseParser.TracingOffContext;
@@ -1924,15 +1927,34 @@ public class IoTDBSqlVisitor extends SqlBaseBaseVisitor<Operator> {
   }
 
   private void parseShowWhereClause(ShowWhereClauseContext ctx, ShowTimeSeriesOperator operator) {
+    List<List<TagPredicate>> tagPredicates = new ArrayList<>();
+    for (TagAndExpressionContext andExpression : ctx.tagOrExpression().tagAndExpression()) {
+      List<TagPredicate> conjunction = new ArrayList<>();
+      for (TagPredicateContext predicate : andExpression.tagPredicate()) {
+        conjunction.add(parseTagPredicate(predicate));
+      }
+      tagPredicates.add(conjunction);
+    }
+    // the first predicate is also set as key and value, which marks the query to use tag index
+    TagPredicate firstPredicate = tagPredicates.get(0).get(0);
+    operator.setContains(firstPredicate.isContains());
+    operator.setKey(firstPredicate.getKey());
+    operator.setValue(firstPredicate.getValue());
+    operator.setTagPredicates(tagPredicates);
+  }
+
+  private TagPredicate parseTagPredicate(TagPredicateContext ctx) {
     PropertyValueContext propertyValueContext;
+    boolean isContains;
+    String key;
     if (ctx.containsExpression() != null) {
-      operator.setContains(true);
+      isContains = true;
       propertyValueContext = ctx.containsExpression().propertyValue();
-      operator.setKey(ctx.containsExpression().ID().getText());
+      key = ctx.containsExpression().ID().getText();
     } else {
-      operator.setContains(false);
+      isContains = false;
       propertyValueContext = ctx.property().propertyValue();
-      operator.setKey(ctx.property().ID().getText());
+      key = ctx.property().ID().getText();
     }
     String value;
     if (propertyValueContext.stringLiteral() != null) {
@@ -1940,7 +1962,7 @@ public class IoTDBSqlVisitor extends SqlBaseBaseVisitor<Operator> {
     } else {
       value = propertyValueContext.getText();
     }
-    operator.setValue(value);
+    return new TagPredicate(key, value, isContains);
   }
 
   private String[] parsePrivilege(PrivilegesContext ctx) {
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.strategy;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.qp.logical.Operator;
+import org.apache.iotdb.db.qp.sql.IoTDBSqlVisitor;
+import org.apache.iotdb.db.qp.sql.SqlBaseLexer;
+import org.apache.iotdb.db.qp.sql.SqlBaseParser;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.WritableToken;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ParseTreeCache keeps the ANTLR parse trees of recently executed statements, so that repeated
+ * statements skip the parser. The key of a statement is its token sequence with the texts of
+ * literal tokens (numbers, time values, durations and strings) left out: since the parser only
+ * decides by token types, statements with the same key have parse trees of the same shape, and a
+ * cached tree is reused by writing the literals of the current statement into its tokens before
+ * visiting it. {@link IoTDBSqlVisitor} only reads token texts, so the generated operator is the
+ * same as if the statement were parsed again.
+ *
+ * <p>Parse trees do not depend on the schema, so the cache never needs to be invalidated.
+ */
+public class ParseTreeCache {
+
+  /** statements with more tokens than this, e.g., large insertions, are not cached */
+  private static final int MAX_CACHED_TOKEN_NUM = 1024;
+
+  /** null if the cache is disabled */
+  private final Cache<String, CachedParseTree> cache;
+
+  private ParseTreeCache() {
+    int cacheSize = IoTDBDescriptor.getInstance().getConfig().getParseTreeCacheSize();
+    cache = cacheSize > 0 ? Caffeine.newBuilder().maximumSize(cacheSize).build() : null;
+  }
+
+  public static ParseTreeCache getInstance() {
+    return ParseTreeCacheHolder.INSTANCE;
+  }
+
+  /** Parse the sql, or reuse the parse tree of a statement with the same key, and visit it. */
+  public Operator visit(String sql, IoTDBSqlVisitor visitor) throws ParseCancellationException {
+    CommonTokenStream tokens = lex(sql);
+    tokens.fill();
+    if (cache == null || tokens.size() > MAX_CACHED_TOKEN_NUM) {
+      return visitor.visit(parse(tokens));
+    }
+
+    List<Token> literals = new ArrayList<>();
+    String key = normalize(tokens.getTokens(), literals);
+    // the texts are copied before the tokens may be shared through the cache
+    List<String> literalTexts = new ArrayList<>(literals.size());
+    for (Token literal : literals) {
+      literalTexts.add(literal.getText());
+    }
+    CachedParseTree cachedTree = cache.getIfPresent(key);
+    if (cachedTree == null) {
+      cachedTree = new CachedParseTree(parse(tokens), literals);
+      cache.put(key, cachedTree);
+    }
+    return cachedTree.visit(literalTexts, visitor);
+  }
+
+  /**
+   * Build the key of a statement from its tokens on the default channel and collect its literal
+   * tokens in order. Each token is written as its type followed by its length-prefixed text, so
+   * that keys of different token sequences never collide.
+   */
+  private static String normalize(List<Token> tokens, List<Token> literals) {
+    StringBuilder key = new StringBuilder();
+    for (Token token : tokens) {
+      if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+        continue;
+      }
+      key.append(token.getType()).append(':');
+      if (isLiteral(token.getType())) {
+        literals.add(token);
+      } else if (token.getType() != Token.EOF) {
+        String text = token.getText();
+        key.append(text.length()).append(':').append(text);
+      }
+      key.append(' ');
+    }
+    return key.toString();
+  }
+
+  private static boolean isLiteral(int tokenType) {
+    switch (tokenType) {
+      case SqlBaseLexer.INT:
+      case SqlBaseLexer.EXPONENT:
+      case SqlBaseLexer.DATETIME:
+      case SqlBaseLexer.DURATION:
+      case SqlBaseLexer.SINGLE_QUOTE_STRING_LITERAL:
+      case SqlBaseLexer.DOUBLE_QUOTE_STRING_LITERAL:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static CommonTokenStream lex(String sql) {
+    SqlBaseLexer lexer = new SqlBaseLexer(CharStreams.fromString(sql));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(SQLParseError.INSTANCE);
+    return new CommonTokenStream(lexer);
+  }
+
+  private static ParseTree parse(CommonTokenStream tokens) {
+    SqlBaseParser parser1 = new SqlBaseParser(tokens);
+    parser1.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    parser1.removeErrorListeners();
+    parser1.addErrorListener(SQLParseError.INSTANCE);
+    try {
+      return parser1.singleStatement(); // STAGE 1
+    } catch (Exception ex) {
+      tokens.seek(0);
+      SqlBaseParser parser2 = new SqlBaseParser(tokens);
+      parser2.getInterpreter().setPredictionMode(PredictionMode.LL);
+      parser2.removeErrorListeners();
+      parser2.addErrorListener(SQLParseError.INSTANCE);
+      // if we parse ok, it's LL not SLL
+      return parser2.singleStatement(); // STAGE 2
+    }
+  }
+
+  public void clear() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  private static class CachedParseTree {
+
+    private final ParseTree tree;
+    private final List<Token> literals;
+
+    private CachedParseTree(ParseTree tree, List<Token> literals) {
+      this.tree = tree;
+      this.literals = literals;
+    }
+
+    /**
+     * The literal tokens are shared by all statements with the same key, so writing them and
+     * visiting the tree must not interleave with another statement.
+     */
+    private synchronized Operator visit(List<String> literalTexts, IoTDBSqlVisitor visitor) {
+      for (int i = 0; i < literals.size(); i++) {
+        ((WritableToken) literals.get(i)).setText(literalTexts.get(i));
+      }
+      return visitor.visit(tree);
+    }
+  }
+
+  private static class ParseTreeCacheHolder {
+
+    private static final ParseTreeCache INSTANCE = new ParseTreeCache();
+
+    private ParseTreeCacheHolder() {}
+  }
+}
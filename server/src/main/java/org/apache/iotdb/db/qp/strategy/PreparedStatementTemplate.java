@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.strategy;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A statement prepared by a client, whose parameters are marked by '?' outside string literals.
+ * Statements bound with literal parameters, e.g., numbers, time values or strings, only differ in
+ * their literals, so they share one parse tree in {@link ParseTreeCache}.
+ */
+public class PreparedStatementTemplate {
+
+  private final String sql;
+  /** the sql split by the parameter markers, one more than the parameters */
+  private final List<String> fragments;
+
+  public PreparedStatementTemplate(String sql) {
+    this.sql = sql;
+    this.fragments = split(sql);
+  }
+
+  private static List<String> split(String sql) {
+    List<String> fragments = new ArrayList<>();
+    char quote = 0;
+    int fragmentStart = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == '\\') {
+          i++;
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '?') {
+        fragments.add(sql.substring(fragmentStart, i));
+        fragmentStart = i + 1;
+      }
+    }
+    fragments.add(sql.substring(fragmentStart));
+    return fragments;
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
+  public int getParameterCount() {
+    return fragments.size() - 1;
+  }
+
+  public String bind(List<String> parameters) throws QueryProcessException {
+    if (parameters.size() != getParameterCount()) {
+      throw new QueryProcessException(
+          String.format(
+              "The statement has %d parameters but %d are given",
+              getParameterCount(), parameters.size()));
+    }
+    StringBuilder statement = new StringBuilder(fragments.get(0));
+    for (int i = 0; i < parameters.size(); i++) {
+      statement.append(parameters.get(i)).append(fragments.get(i + 1));
+    }
+    return statement.toString();
+  }
+}
@@ -298,7 +298,7 @@ public abstract class AggregateResult {
     this.binaryValue = binaryValue;
   }
 
-  protected boolean hasCandidateResult() {
+  public boolean hasCandidateResult() {
     return hasCandidateResult;
   }
 
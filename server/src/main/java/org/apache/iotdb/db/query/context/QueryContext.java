@@ -25,10 +25,10 @@ import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** QueryContext contains the shared information with in a query. */
 public class QueryContext {
@@ -43,7 +43,7 @@ public class QueryContext {
    * use this field because each call of Modification.getModifications() return a copy of the
    * Modifications, and we do not want it to create multiple copies within a query.
    */
-  private Map<String, List<Modification>> fileModCache = new HashMap<>();
+  private Map<String, List<Modification>> fileModCache = new ConcurrentHashMap<>();
 
   private long queryId;
 
@@ -51,6 +51,9 @@ public class QueryContext {
 
   private boolean debug;
 
+  /** the size of the chunk data this query has read through the ChunkCache */
+  private final AtomicLong readChunkSize = new AtomicLong();
+
   public QueryContext() {}
 
   public QueryContext(long queryId) {
@@ -106,6 +109,14 @@ public class QueryContext {
     this.queryTimeLowerBound = queryTimeLowerBound;
   }
 
+  public long getReadChunkSize() {
+    return readChunkSize.get();
+  }
+
+  public void addReadChunkSize(long size) {
+    readChunkSize.addAndGet(size);
+  }
+
   public boolean chunkNotSatisfy(IChunkMetadata chunkMetaData) {
     return chunkMetaData.getEndTime() < queryTimeLowerBound;
   }
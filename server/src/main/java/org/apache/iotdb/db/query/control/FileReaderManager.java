@@ -20,6 +20,7 @@ package org.apache.iotdb.db.query.control;
 
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.CompressedChunkCache;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
@@ -90,6 +91,8 @@ public class FileReaderManager implements IService {
   }
 
   public synchronized void closeFileAndRemoveReader(String filePath) throws IOException {
+    // the file is going to be deleted or rewritten, so its cached compressed chunks are stale
+    CompressedChunkCache.getInstance().removeFile(filePath);
     closedReferenceMap.remove(filePath);
     TsFileSequenceReader reader = closedFileReaderMap.remove(filePath);
     if (reader != null) {
@@ -226,6 +229,7 @@ public class FileReaderManager implements IService {
    * integration tests will not conflict with each other.
    */
   public synchronized void closeAndRemoveAllOpenedReaders() throws IOException {
+    CompressedChunkCache.getInstance().clear();
     Iterator<Map.Entry<String, TsFileSequenceReader>> iterator =
         closedFileReaderMap.entrySet().iterator();
     while (iterator.hasNext()) {
@@ -109,6 +109,24 @@ public class QueryResourceManager {
     return queryDataSource;
   }
 
+  /**
+   * Decide how many tasks may read the series of one query at the same time. Each task reads its
+   * share of the series one after another, so at most this many series readers of the query hold
+   * memory at once. The result is capped by max_series_parallelism_per_query and by the size of
+   * the query thread pool.
+   *
+   * @param seriesNum number of series the query reads
+   */
+  public int getSeriesParallelism(int seriesNum) {
+    return Math.max(1, Math.min(seriesNum, getMaxSeriesParallelism()));
+  }
+
+  /** @return how many tasks may read the data of one query at the same time at most */
+  public int getMaxSeriesParallelism() {
+    return Math.max(
+        1, Math.min(CONFIG.getMaxSeriesParallelismPerQuery(), CONFIG.getConcurrentQueryThread()));
+  }
+
   /**
    * Whenever the jdbc request is closed normally or abnormally, this method must be invoked. All
    * query tokens created by this jdbc request must be cleared.
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.control;
 
 import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.qp.strategy.PreparedStatementTemplate;
 import org.apache.iotdb.db.query.dataset.UDTFDataSet;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 
@@ -54,6 +55,12 @@ public class SessionManager {
   // (queryId -> QueryDataSet)
   private final Map<Long, QueryDataSet> queryIdToDataSet = new ConcurrentHashMap<>();
 
+  // The preparedStatementId is unique in one IoTDB instance.
+  private final AtomicLong preparedStatementIdGenerator = new AtomicLong();
+  // (sessionId -> (preparedStatementId -> PreparedStatementTemplate))
+  private final Map<Long, Map<Long, PreparedStatementTemplate>> sessionIdToPreparedStatements =
+      new ConcurrentHashMap<>();
+
   private SessionManager() {
     // singleton
   }
@@ -87,6 +94,7 @@ public class SessionManager {
 
   public boolean releaseSessionResource(long sessionId) {
     sessionIdToZoneId.remove(sessionId);
+    sessionIdToPreparedStatements.remove(sessionId);
 
     Set<Long> statementIdSet = sessionIdToStatementId.remove(sessionId);
     if (statementIdSet != null) {
@@ -138,6 +146,29 @@ public class SessionManager {
     }
   }
 
+  public long registerPreparedStatement(long sessionId, PreparedStatementTemplate template) {
+    long preparedStatementId = preparedStatementIdGenerator.incrementAndGet();
+    sessionIdToPreparedStatements
+        .computeIfAbsent(sessionId, s -> new ConcurrentHashMap<>())
+        .put(preparedStatementId, template);
+    return preparedStatementId;
+  }
+
+  /** @return the prepared statement, or null if it is not prepared in the session */
+  public PreparedStatementTemplate getPreparedStatement(long sessionId, long preparedStatementId) {
+    Map<Long, PreparedStatementTemplate> preparedStatements =
+        sessionIdToPreparedStatements.get(sessionId);
+    return preparedStatements == null ? null : preparedStatements.get(preparedStatementId);
+  }
+
+  public void closePreparedStatement(long sessionId, long preparedStatementId) {
+    Map<Long, PreparedStatementTemplate> preparedStatements =
+        sessionIdToPreparedStatements.get(sessionId);
+    if (preparedStatements != null) {
+      preparedStatements.remove(preparedStatementId);
+    }
+  }
+
   public long requestQueryId(Long statementId, boolean isDataQuery) {
     long queryId = requestQueryId(isDataQuery);
     statementIdToQueryId
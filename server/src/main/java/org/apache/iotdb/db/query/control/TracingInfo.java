@@ -49,16 +49,16 @@ public class TracingInfo {
     return totalChunkPoints;
   }
 
-  public void addChunkInfo(int totalChunkNum, long totalChunkPoints) {
+  public synchronized void addChunkInfo(int totalChunkNum, long totalChunkPoints) {
     this.totalChunkNum += totalChunkNum;
     this.totalChunkPoints += totalChunkPoints;
   }
 
-  public void addTotalPageNum(int totalPageNum) {
+  public synchronized void addTotalPageNum(int totalPageNum) {
     this.totalPageNum += totalPageNum;
   }
 
-  public void addOverlappedPageNum() {
+  public synchronized void addOverlappedPageNum() {
     this.overlappedPageNum++;
   }
 
@@ -78,7 +78,8 @@ public class TracingInfo {
     return unSeqFileSet;
   }
 
-  public void addTsFileSet(List<TsFileResource> seqResources, List<TsFileResource> unSeqResources) {
+  public synchronized void addTsFileSet(
+      List<TsFileResource> seqResources, List<TsFileResource> unSeqResources) {
     this.seqFileSet.addAll(seqResources);
     this.unSeqFileSet.addAll(unSeqResources);
   }
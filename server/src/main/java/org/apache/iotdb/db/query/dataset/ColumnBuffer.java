@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable byte array holding one column of a TSQueryDataSet. Values are written big-endian
+ * straight into the backing array, in the same layout as ReadWriteIOUtils, so filling a column
+ * does not allocate per cell. The array is kept across reset() and reused by the next fetch.
+ */
+public class ColumnBuffer {
+
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  private byte[] buf;
+  private int size;
+
+  public ColumnBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ColumnBuffer(int capacity) {
+    buf = new byte[capacity];
+  }
+
+  private void ensureCapacity(int length) {
+    if (size + length > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + length));
+    }
+  }
+
+  public void putByte(byte value) {
+    ensureCapacity(1);
+    buf[size++] = value;
+  }
+
+  public void putBoolean(boolean value) {
+    putByte(value ? (byte) 1 : (byte) 0);
+  }
+
+  public void putInt(int value) {
+    ensureCapacity(4);
+    buf[size++] = (byte) (value >>> 24);
+    buf[size++] = (byte) (value >>> 16);
+    buf[size++] = (byte) (value >>> 8);
+    buf[size++] = (byte) value;
+  }
+
+  public void putLong(long value) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buf[size++] = (byte) (value >>> shift);
+    }
+  }
+
+  public void putFloat(float value) {
+    putInt(Float.floatToIntBits(value));
+  }
+
+  public void putDouble(double value) {
+    putLong(Double.doubleToLongBits(value));
+  }
+
+  /** write the length of the binary and then its bytes */
+  public void putBinary(Binary value) {
+    byte[] values = value.getValues();
+    putInt(values.length);
+    ensureCapacity(values.length);
+    System.arraycopy(values, 0, buf, size, values.length);
+    size += values.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** discard the content but keep the backing array for reuse */
+  public void reset() {
+    size = 0;
+  }
+
+  /**
+   * @return a buffer sharing the backing array, valid until the next write after reset(). Its
+   *     position is 0 and its limit is the size of the content.
+   */
+  public ByteBuffer toByteBuffer() {
+    return ByteBuffer.wrap(buf, 0, size);
+  }
+}
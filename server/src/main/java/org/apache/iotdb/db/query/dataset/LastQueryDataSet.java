@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.dataset;
+
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES_DATATYPE;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_VALUE;
+
+/**
+ * The result of a last query, one row (timeseries, value, data type) for each timeseries.
+ *
+ * <p>The rows are kept as the last points themselves instead of RowRecords, and {@link
+ * #fillBuffer(int, WatermarkEncoder)} writes them straight into the rpc buffers without creating
+ * any Field or RowRecord. All the columns are TEXT, so the watermark never applies.
+ */
+public class LastQueryDataSet extends QueryDataSet implements DirectAlignByTimeDataSet {
+
+  private static final int COLUMN_NUM = 3;
+
+  private final List<Pair<String, TimeValuePair>> lastPoints = new ArrayList<>();
+  private int index = 0;
+
+  public LastQueryDataSet() {
+    super(
+        Arrays.asList(
+            new PartialPath(COLUMN_TIMESERIES, false),
+            new PartialPath(COLUMN_VALUE, false),
+            new PartialPath(COLUMN_TIMESERIES_DATATYPE, false)),
+        Arrays.asList(TSDataType.TEXT, TSDataType.TEXT, TSDataType.TEXT));
+  }
+
+  public void putLastPoint(String timeseries, TimeValuePair lastPoint) {
+    lastPoints.add(new Pair<>(timeseries, lastPoint));
+  }
+
+  /** sort the rows by time in descending order */
+  public void sortByTime() {
+    lastPoints.sort((o1, o2) -> Long.compare(o2.right.getTimestamp(), o1.right.getTimestamp()));
+  }
+
+  @Override
+  public boolean hasNextWithoutConstraint() {
+    return index < lastPoints.size();
+  }
+
+  @Override
+  public RowRecord nextWithoutConstraint() {
+    Pair<String, TimeValuePair> lastPoint = lastPoints.get(index++);
+    RowRecord record = new RowRecord(lastPoint.right.getTimestamp());
+    record.addField(new Binary(lastPoint.left), TSDataType.TEXT);
+    record.addField(new Binary(lastPoint.right.getValue().getStringValue()), TSDataType.TEXT);
+    record.addField(new Binary(lastPoint.right.getValue().getDataType().name()), TSDataType.TEXT);
+    return record;
+  }
+
+  @Override
+  public TSQueryDataSet fillBuffer(int fetchSize, WatermarkEncoder encoder) throws IOException {
+    while (rowOffset > 0 && index < lastPoints.size()) {
+      index++;
+      rowOffset--;
+    }
+    int rowCount = Math.min(fetchSize, lastPoints.size() - index);
+    if (rowLimit > 0) {
+      rowCount = Math.min(rowCount, rowLimit - alreadyReturnedRowNum);
+      alreadyReturnedRowNum += rowCount;
+    }
+
+    ByteBuffer timeBuffer = ByteBuffer.allocate(rowCount * Long.BYTES);
+    PublicBAOS[] valueBAOSList = new PublicBAOS[COLUMN_NUM];
+    for (int i = 0; i < COLUMN_NUM; i++) {
+      valueBAOSList[i] = new PublicBAOS();
+    }
+    for (int i = 0; i < rowCount; i++) {
+      Pair<String, TimeValuePair> lastPoint = lastPoints.get(index++);
+      timeBuffer.putLong(lastPoint.right.getTimestamp());
+      writeText(lastPoint.left, valueBAOSList[0]);
+      writeText(lastPoint.right.getValue().getStringValue(), valueBAOSList[1]);
+      writeText(lastPoint.right.getValue().getDataType().name(), valueBAOSList[2]);
+    }
+    timeBuffer.flip();
+
+    List<ByteBuffer> valueBufferList = new ArrayList<>(COLUMN_NUM);
+    List<ByteBuffer> bitmapBufferList = new ArrayList<>(COLUMN_NUM);
+    for (int i = 0; i < COLUMN_NUM; i++) {
+      ByteBuffer valueBuffer = ByteBuffer.allocate(valueBAOSList[i].size());
+      valueBuffer.put(valueBAOSList[i].getBuf(), 0, valueBAOSList[i].size());
+      valueBuffer.flip();
+      valueBufferList.add(valueBuffer);
+      bitmapBufferList.add(fullBitmap(rowCount));
+    }
+
+    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
+    tsQueryDataSet.setTime(timeBuffer);
+    tsQueryDataSet.setValueList(valueBufferList);
+    tsQueryDataSet.setBitmapList(bitmapBufferList);
+    return tsQueryDataSet;
+  }
+
+  private static void writeText(String value, PublicBAOS outputStream) throws IOException {
+    byte[] bytes = value.getBytes(TSFileConfig.STRING_CHARSET);
+    ReadWriteIOUtils.write(bytes.length, outputStream);
+    outputStream.write(bytes);
+  }
+
+  /**
+   * no value of a last query is null, so every bit of the bitmap is set. The last byte is fed with
+   * 0 in the right like the bitmaps of other data sets.
+   */
+  private static ByteBuffer fullBitmap(int rowCount) {
+    ByteBuffer bitmapBuffer = ByteBuffer.allocate((rowCount + 7) / 8);
+    for (int i = 0; i < rowCount / 8; i++) {
+      bitmapBuffer.put((byte) 0xFF);
+    }
+    int remaining = rowCount % 8;
+    if (remaining != 0) {
+      bitmapBuffer.put((byte) (((1 << remaining) - 1) << (8 - remaining)));
+    }
+    bitmapBuffer.flip();
+    return bitmapBuffer;
+  }
+}
@@ -35,9 +35,6 @@ import org.apache.iotdb.tsfile.read.common.ExceptionBatchData;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.common.SignalBatchData;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
-import org.apache.iotdb.tsfile.utils.BytesUtils;
-import org.apache.iotdb.tsfile.utils.PublicBAOS;
-import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 import org.slf4j.Logger;
@@ -148,6 +145,14 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
 
   private int bufferNum;
 
+  // a single non-vector series is filled in bulk, see fillSingleSeriesInBulk
+  private boolean isSingleSeries;
+
+  // column buffers reused by every fillBuffer call of this query
+  private ColumnBuffer timeColumn;
+  private ColumnBuffer[] valueColumns;
+  private ColumnBuffer[] bitmapColumns;
+
   // capacity for blocking queue
   private static final int BLOCKING_QUEUE_CAPACITY = 5;
 
@@ -189,6 +194,10 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
         bufferNum += 1;
       }
     }
+    isSingleSeries =
+        readers.size() == 1
+            && !(paths.get(0) instanceof VectorPartialPath)
+            && dataTypes.get(0) != TSDataType.VECTOR;
     init();
   }
 
@@ -226,29 +235,31 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
 
   /**
    * for RPC in RawData query between client and server fill time buffer, value buffers and bitmap
-   * buffers
+   * buffers.
+   *
+   * <p>The column buffers are reused by the next call, so the returned TSQueryDataSet is only valid
+   * until the next fetch of this query. The RPC service serializes the response before the client
+   * can issue that fetch.
    */
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   @Override
   public TSQueryDataSet fillBuffer(int fetchSize, WatermarkEncoder encoder)
       throws IOException, InterruptedException {
     int seriesNum = seriesReaderList.size();
-    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
-
-    PublicBAOS timeBAOS = new PublicBAOS();
-
-    PublicBAOS[] valueBAOSList = new PublicBAOS[bufferNum];
-    PublicBAOS[] bitmapBAOSList = new PublicBAOS[bufferNum];
-
-    for (int bufferIndex = 0; bufferIndex < bufferNum; bufferIndex++) {
-      valueBAOSList[bufferIndex] = new PublicBAOS();
-      bitmapBAOSList[bufferIndex] = new PublicBAOS();
-    }
+    resetColumnBuffers();
 
     // used to record a bitmap for every 8 row records
     int[] currentBitmapList = new int[bufferNum];
     int rowCount = 0;
-    while (rowCount < fetchSize) {
+    if (isSingleSeries) {
+      rowCount = fillSingleSeriesInBulk(fetchSize, encoder);
+      // every row has a value, so the bitmap is full except for the trailing rows
+      for (int i = 0; i < rowCount / 8; i++) {
+        bitmapColumns[0].putByte((byte) 0xFF);
+      }
+      currentBitmapList[0] = (1 << (rowCount % 8)) - 1;
+    }
+    while (!isSingleSeries && rowCount < fetchSize) {
 
       if ((rowLimit > 0 && alreadyReturnedRowNum >= rowLimit) || timeHeap.isEmpty()) {
         break;
@@ -261,7 +272,7 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
       }
 
       if (rowOffset == 0) {
-        timeBAOS.write(BytesUtils.longToBytes(minTime));
+        timeColumn.putLong(minTime);
       }
 
       for (int seriesIndex = 0, bufferIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
@@ -294,7 +305,7 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
                 if (encoder != null && encoder.needEncode(minTime)) {
                   intValue = encoder.encodeInt(intValue, minTime);
                 }
-                ReadWriteIOUtils.write(intValue, valueBAOSList[seriesIndex]);
+                valueColumns[bufferIndex].putInt(intValue);
                 bufferIndex++;
                 break;
               case INT64:
@@ -303,7 +314,7 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
                 if (encoder != null && encoder.needEncode(minTime)) {
                   longValue = encoder.encodeLong(longValue, minTime);
                 }
-                ReadWriteIOUtils.write(longValue, valueBAOSList[seriesIndex]);
+                valueColumns[bufferIndex].putLong(longValue);
                 bufferIndex++;
                 break;
               case FLOAT:
@@ -312,7 +323,7 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
                 if (encoder != null && encoder.needEncode(minTime)) {
                   floatValue = encoder.encodeFloat(floatValue, minTime);
                 }
-                ReadWriteIOUtils.write(floatValue, valueBAOSList[seriesIndex]);
+                valueColumns[bufferIndex].putFloat(floatValue);
                 bufferIndex++;
                 break;
               case DOUBLE:
@@ -321,19 +332,18 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
                 if (encoder != null && encoder.needEncode(minTime)) {
                   doubleValue = encoder.encodeDouble(doubleValue, minTime);
                 }
-                ReadWriteIOUtils.write(doubleValue, valueBAOSList[seriesIndex]);
+                valueColumns[bufferIndex].putDouble(doubleValue);
                 bufferIndex++;
                 break;
               case BOOLEAN:
                 currentBitmapList[bufferIndex] = (currentBitmapList[bufferIndex] << 1) | FLAG;
-                ReadWriteIOUtils.write(
-                    cachedBatchDataArray[seriesIndex].getBoolean(), valueBAOSList[seriesIndex]);
+                valueColumns[bufferIndex].putBoolean(
+                    cachedBatchDataArray[seriesIndex].getBoolean());
                 bufferIndex++;
                 break;
               case TEXT:
                 currentBitmapList[bufferIndex] = (currentBitmapList[bufferIndex] << 1) | FLAG;
-                ReadWriteIOUtils.write(
-                    cachedBatchDataArray[seriesIndex].getBinary(), valueBAOSList[seriesIndex]);
+                valueColumns[bufferIndex].putBinary(cachedBatchDataArray[seriesIndex].getBinary());
                 bufferIndex++;
                 break;
               case VECTOR:
@@ -350,34 +360,34 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
                       if (encoder != null && encoder.needEncode(minTime)) {
                         intVal = encoder.encodeInt(intVal, minTime);
                       }
-                      ReadWriteIOUtils.write(intVal, valueBAOSList[bufferIndex]);
+                      valueColumns[bufferIndex].putInt(intVal);
                       break;
                     case INT64:
                       long longVal = primitiveVal.getLong();
                       if (encoder != null && encoder.needEncode(minTime)) {
                         longVal = encoder.encodeLong(longVal, minTime);
                       }
-                      ReadWriteIOUtils.write(longVal, valueBAOSList[bufferIndex]);
+                      valueColumns[bufferIndex].putLong(longVal);
                       break;
                     case FLOAT:
                       float floatVal = primitiveVal.getFloat();
                       if (encoder != null && encoder.needEncode(minTime)) {
                         floatVal = encoder.encodeFloat(floatVal, minTime);
                       }
-                      ReadWriteIOUtils.write(floatVal, valueBAOSList[bufferIndex]);
+                      valueColumns[bufferIndex].putFloat(floatVal);
                       break;
                     case DOUBLE:
                       double doubleVal = primitiveVal.getDouble();
                       if (encoder != null && encoder.needEncode(minTime)) {
                         doubleVal = encoder.encodeDouble(doubleVal, minTime);
                       }
-                      ReadWriteIOUtils.write(doubleVal, valueBAOSList[bufferIndex]);
+                      valueColumns[bufferIndex].putDouble(doubleVal);
                       break;
                     case BOOLEAN:
-                      ReadWriteIOUtils.write(primitiveVal.getBoolean(), valueBAOSList[bufferIndex]);
+                      valueColumns[bufferIndex].putBoolean(primitiveVal.getBoolean());
                       break;
                     case TEXT:
-                      ReadWriteIOUtils.write(primitiveVal.getBinary(), valueBAOSList[bufferIndex]);
+                      valueColumns[bufferIndex].putBinary(primitiveVal.getBinary());
                       break;
                     default:
                       throw new UnSupportedDataTypeException(
@@ -400,8 +410,7 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
         rowCount++;
         if (rowCount % 8 == 0) {
           for (int bufferIndex = 0; bufferIndex < bufferNum; bufferIndex++) {
-            ReadWriteIOUtils.write(
-                (byte) currentBitmapList[bufferIndex], bitmapBAOSList[bufferIndex]);
+            bitmapColumns[bufferIndex].putByte((byte) currentBitmapList[bufferIndex]);
             // we should clear the bitmap every 8 row record
             currentBitmapList[bufferIndex] = 0;
           }
@@ -422,29 +431,21 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
       int remaining = rowCount % 8;
       if (remaining != 0) {
         for (int bufferIndex = 0; bufferIndex < bufferNum; bufferIndex++) {
-          ReadWriteIOUtils.write(
-              (byte) (currentBitmapList[bufferIndex] << (8 - remaining)),
-              bitmapBAOSList[bufferIndex]);
+          bitmapColumns[bufferIndex].putByte(
+              (byte) (currentBitmapList[bufferIndex] << (8 - remaining)));
         }
       }
     }
 
+    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
     // set time buffer
-    ByteBuffer timeBuffer = ByteBuffer.allocate(timeBAOS.size());
-    timeBuffer.put(timeBAOS.getBuf(), 0, timeBAOS.size());
-    timeBuffer.flip();
-    tsQueryDataSet.setTime(timeBuffer);
-
-    List<ByteBuffer> valueBufferList = new ArrayList<>();
-    List<ByteBuffer> bitmapBufferList = new ArrayList<>();
+    tsQueryDataSet.setTime(timeColumn.toByteBuffer());
 
+    List<ByteBuffer> valueBufferList = new ArrayList<>(bufferNum);
+    List<ByteBuffer> bitmapBufferList = new ArrayList<>(bufferNum);
     for (int bufferIndex = 0; bufferIndex < bufferNum; bufferIndex++) {
-
-      // add value buffer of current series
-      putPBOSToBuffer(valueBAOSList, valueBufferList, bufferIndex);
-
-      // add bitmap buffer of current series
-      putPBOSToBuffer(bitmapBAOSList, bitmapBufferList, bufferIndex);
+      valueBufferList.add(valueColumns[bufferIndex].toByteBuffer());
+      bitmapBufferList.add(bitmapColumns[bufferIndex].toByteBuffer());
     }
 
     // set value buffers and bitmap buffers
@@ -454,6 +455,135 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
     return tsQueryDataSet;
   }
 
+  private void resetColumnBuffers() {
+    if (timeColumn == null) {
+      timeColumn = new ColumnBuffer();
+      valueColumns = new ColumnBuffer[bufferNum];
+      bitmapColumns = new ColumnBuffer[bufferNum];
+      for (int bufferIndex = 0; bufferIndex < bufferNum; bufferIndex++) {
+        valueColumns[bufferIndex] = new ColumnBuffer();
+        bitmapColumns[bufferIndex] = new ColumnBuffer();
+      }
+      return;
+    }
+    timeColumn.reset();
+    for (int bufferIndex = 0; bufferIndex < bufferNum; bufferIndex++) {
+      valueColumns[bufferIndex].reset();
+      bitmapColumns[bufferIndex].reset();
+    }
+  }
+
+  /**
+   * Fill the buffers of a query over one non-vector series straight from the cached batches. Every
+   * row of such a query has a value, so the time heap is bypassed within a batch and the values
+   * are copied in a tight loop per data type.
+   *
+   * @return the number of rows put into the buffers
+   */
+  private int fillSingleSeriesInBulk(int fetchSize, WatermarkEncoder encoder)
+      throws IOException, InterruptedException {
+    int rowCount = 0;
+    while (rowCount < fetchSize
+        && !(rowLimit > 0 && alreadyReturnedRowNum >= rowLimit)
+        && !timeHeap.isEmpty()) {
+      // the heap only holds the current time of the cached batch
+      timeHeap.pollFirst();
+      BatchData batchData = cachedBatchDataArray[0];
+      while (rowOffset > 0 && batchData.hasCurrent()) {
+        batchData.next();
+        rowOffset--;
+      }
+      int maxRows = fetchSize - rowCount;
+      if (rowLimit > 0) {
+        maxRows = (int) Math.min(maxRows, rowLimit - alreadyReturnedRowNum);
+      }
+      int copied = copyBatch(batchData, maxRows, encoder);
+      rowCount += copied;
+      if (rowLimit > 0) {
+        alreadyReturnedRowNum += copied;
+      }
+
+      // check the interrupted status of query before taking next batch
+      QueryTimeManager.checkQueryAlive(queryId);
+      if (!batchData.hasCurrent() && !noMoreDataInQueueArray[0]) {
+        fillCache(0);
+      }
+      if (cachedBatchDataArray[0].hasCurrent()) {
+        timeHeap.add(cachedBatchDataArray[0].currentTime());
+      }
+    }
+    return rowCount;
+  }
+
+  /** copy at most maxRows points from the current position of the batch into the buffers */
+  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
+  private int copyBatch(BatchData batchData, int maxRows, WatermarkEncoder encoder) {
+    ColumnBuffer valueColumn = valueColumns[0];
+    int copied = 0;
+    switch (batchData.getDataType()) {
+      case INT32:
+        for (; copied < maxRows && batchData.hasCurrent(); copied++, batchData.next()) {
+          long time = batchData.currentTime();
+          int value = batchData.getInt();
+          if (encoder != null && encoder.needEncode(time)) {
+            value = encoder.encodeInt(value, time);
+          }
+          timeColumn.putLong(time);
+          valueColumn.putInt(value);
+        }
+        break;
+      case INT64:
+        for (; copied < maxRows && batchData.hasCurrent(); copied++, batchData.next()) {
+          long time = batchData.currentTime();
+          long value = batchData.getLong();
+          if (encoder != null && encoder.needEncode(time)) {
+            value = encoder.encodeLong(value, time);
+          }
+          timeColumn.putLong(time);
+          valueColumn.putLong(value);
+        }
+        break;
+      case FLOAT:
+        for (; copied < maxRows && batchData.hasCurrent(); copied++, batchData.next()) {
+          long time = batchData.currentTime();
+          float value = batchData.getFloat();
+          if (encoder != null && encoder.needEncode(time)) {
+            value = encoder.encodeFloat(value, time);
+          }
+          timeColumn.putLong(time);
+          valueColumn.putFloat(value);
+        }
+        break;
+      case DOUBLE:
+        for (; copied < maxRows && batchData.hasCurrent(); copied++, batchData.next()) {
+          long time = batchData.currentTime();
+          double value = batchData.getDouble();
+          if (encoder != null && encoder.needEncode(time)) {
+            value = encoder.encodeDouble(value, time);
+          }
+          timeColumn.putLong(time);
+          valueColumn.putDouble(value);
+        }
+        break;
+      case BOOLEAN:
+        for (; copied < maxRows && batchData.hasCurrent(); copied++, batchData.next()) {
+          timeColumn.putLong(batchData.currentTime());
+          valueColumn.putBoolean(batchData.getBoolean());
+        }
+        break;
+      case TEXT:
+        for (; copied < maxRows && batchData.hasCurrent(); copied++, batchData.next()) {
+          timeColumn.putLong(batchData.currentTime());
+          valueColumn.putBinary(batchData.getBinary());
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", batchData.getDataType()));
+    }
+    return copied;
+  }
+
   /** if any column in the row record is null, we filter it. */
   private boolean filterRowRecord(int seriesNum, long minTime)
       throws IOException, InterruptedException {
@@ -544,14 +674,6 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet
     }
   }
 
-  private void putPBOSToBuffer(
-      PublicBAOS[] bitmapBAOSList, List<ByteBuffer> bitmapBufferList, int tsIndex) {
-    ByteBuffer bitmapBuffer = ByteBuffer.allocate(bitmapBAOSList[tsIndex].size());
-    bitmapBuffer.put(bitmapBAOSList[tsIndex].getBuf(), 0, bitmapBAOSList[tsIndex].size());
-    bitmapBuffer.flip();
-    bitmapBufferList.add(bitmapBuffer);
-  }
-
   /** for spark/hadoop/hive integration and test */
   @Override
   public boolean hasNextWithoutConstraint() {
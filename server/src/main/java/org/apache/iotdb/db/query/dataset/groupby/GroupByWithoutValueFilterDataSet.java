@@ -27,8 +27,10 @@ import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.qp.physical.crud.GroupByTimePlan;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.factory.AggregateResultFactory;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
@@ -56,6 +58,9 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
 
   private Map<PartialPath, GroupByExecutor> pathExecutors = new HashMap<>();
 
+  // the entries of pathExecutors in a fixed order, so that they can be split among threads
+  private List<Entry<PartialPath, GroupByExecutor>> executorEntries;
+
   /**
    * path -> result index for each aggregation
    *
@@ -137,16 +142,26 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
 
     AggregateResult[] fields = new AggregateResult[paths.size()];
 
+    if (executorEntries == null) {
+      executorEntries = new ArrayList<>(pathExecutors.entrySet());
+    }
     try {
-      for (Entry<PartialPath, GroupByExecutor> pathToExecutorEntry : pathExecutors.entrySet()) {
-        GroupByExecutor executor = pathToExecutorEntry.getValue();
-        List<AggregateResult> aggregations = executor.calcResult(curStartTime, curEndTime);
-        for (int i = 0; i < aggregations.size(); i++) {
-          int resultIndex = resultIndexes.get(pathToExecutorEntry.getKey()).get(i);
-          fields[resultIndex] = aggregations.get(i);
-        }
-      }
-    } catch (QueryProcessException e) {
+      // each series writes its own slots of fields, so they can run in parallel
+      QueryTaskPoolManager.getInstance()
+          .runSeriesTasks(
+              executorEntries.size(),
+              QueryResourceManager.getInstance().getSeriesParallelism(executorEntries.size()),
+              index -> {
+                Entry<PartialPath, GroupByExecutor> pathToExecutorEntry =
+                    executorEntries.get(index);
+                GroupByExecutor executor = pathToExecutorEntry.getValue();
+                List<AggregateResult> aggregations = executor.calcResult(curStartTime, curEndTime);
+                for (int i = 0; i < aggregations.size(); i++) {
+                  int resultIndex = resultIndexes.get(pathToExecutorEntry.getKey()).get(i);
+                  fields[resultIndex] = aggregations.get(i);
+                }
+              });
+    } catch (QueryProcessException | StorageEngineException e) {
       logger.error("GroupByWithoutValueFilterDataSet execute has error", e);
       throw new IOException(e.getMessage(), e);
     }
@@ -19,10 +19,12 @@
 
 package org.apache.iotdb.db.query.dataset.groupby;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.VectorPartialPath;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
@@ -57,6 +59,9 @@ public class LocalGroupByExecutor implements GroupByExecutor {
 
   private QueryDataSource queryDataSource;
 
+  /** calculates aligned windows from rollups, null if rollups are disabled or not applicable */
+  private final SeriesRollupReader rollupReader;
+
   public LocalGroupByExecutor(
       PartialPath path,
       Set<String> allSensors,
@@ -81,6 +86,12 @@ public class LocalGroupByExecutor implements GroupByExecutor {
             null,
             fileFilter,
             ascending);
+    this.rollupReader =
+        IoTDBDescriptor.getInstance().getConfig().isEnableRollup()
+                && !(path instanceof VectorPartialPath)
+                && dataType != TSDataType.VECTOR
+            ? new SeriesRollupReader(path, dataType, context, queryDataSource, timeFilter)
+            : null;
     this.preCachedData = null;
     timeRange = new TimeRange(Long.MIN_VALUE, Long.MAX_VALUE);
     lastReadCurArrayIndex = 0;
@@ -192,6 +203,11 @@ public class LocalGroupByExecutor implements GroupByExecutor {
       result.reset();
     }
 
+    // windows skipped here are skipped by the raw reader like windows of a sliding step
+    if (rollupReader != null && rollupReader.calcResult(curStartTime, curEndTime, results)) {
+      return results;
+    }
+
     timeRange.set(curStartTime, curEndTime - 1);
     if (calcFromCacheData(curStartTime, curEndTime)) {
       return results;
@@ -210,6 +226,13 @@ public class LocalGroupByExecutor implements GroupByExecutor {
     // read from file first
     while (reader.hasNextFile()) {
       Statistics fileStatistics = reader.currentFileStatistics();
+      // e.g., the file only has points of windows calculated from rollups
+      if (ascending
+          ? fileStatistics.getEndTime() < curStartTime
+          : fileStatistics.getStartTime() >= curEndTime) {
+        reader.skipCurrentFile();
+        continue;
+      }
       if (fileStatistics.getStartTime() >= curEndTime) {
         return results;
       }
@@ -282,6 +305,10 @@ public class LocalGroupByExecutor implements GroupByExecutor {
           continue;
         }
       }
+      if (ascending && chunkStatistics.getEndTime() < curStartTime) {
+        reader.skipCurrentChunk();
+        continue;
+      }
       // calc from chunkMetaData
       if (reader.canUseCurrentChunkStatistics()
           && timeRange.contains(chunkStatistics.getStartTime(), chunkStatistics.getEndTime())) {
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.rollup.SeriesRollup;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculates group by windows of a series from the rollups of its sequence TsFiles (see {@link
+ * TsFileRollup}). A window can be calculated from rollups when it consists of whole buckets of a
+ * rollup interval, it is not cut by the time filter, and no data of the series in it has to be read
+ * raw, i.e., no unsequence file, unsealed file, file without rollups or deletion covers it.
+ *
+ * <p>The rollups are loaded on the first aligned window, so queries whose windows never align do
+ * not read rollup files.
+ */
+public class SeriesRollupReader {
+
+  private static final Logger logger = LoggerFactory.getLogger(SeriesRollupReader.class);
+
+  private final PartialPath seriesPath;
+  private final TSDataType dataType;
+  private final QueryContext context;
+  private final QueryDataSource dataSource;
+  private final Filter timeFilter;
+  private final long[] intervals;
+
+  private boolean loaded = false;
+  private final List<SeriesRollup> rollups = new ArrayList<>();
+  /** the intervals that all the rollups have, in descending order */
+  private final List<Long> usableIntervals = new ArrayList<>();
+  /** sorted and merged ranges in which the series must be read from raw data */
+  private List<TimeRange> rawRanges = new ArrayList<>();
+
+  public SeriesRollupReader(
+      PartialPath seriesPath,
+      TSDataType dataType,
+      QueryContext context,
+      QueryDataSource dataSource,
+      Filter timeFilter) {
+    this.seriesPath = seriesPath;
+    this.dataType = dataType;
+    this.context = context;
+    this.dataSource = dataSource;
+    this.timeFilter = timeFilter;
+    this.intervals = IoTDBDescriptor.getInstance().getConfig().getRollupIntervals();
+  }
+
+  /**
+   * Calculate the aggregations of [startTime, endTime) from rollups if possible.
+   *
+   * @return false if the window must be calculated from raw data, in which case the results are
+   *     not touched
+   */
+  public boolean calcResult(long startTime, long endTime, List<AggregateResult> results)
+      throws QueryProcessException {
+    if (!isAlignedToAnyInterval(startTime, endTime, intervals)
+        || (timeFilter != null && !timeFilter.containStartEndTime(startTime, endTime - 1))) {
+      return false;
+    }
+    if (!loaded) {
+      load();
+    }
+
+    long interval = -1;
+    for (long usableInterval : usableIntervals) {
+      if (isAligned(startTime, endTime, usableInterval)) {
+        interval = usableInterval;
+        break;
+      }
+    }
+    if (interval < 0 || overlapsRawRanges(startTime, endTime - 1)) {
+      return false;
+    }
+
+    Statistics statistics = Statistics.getStatsByType(dataType);
+    boolean hasData = false;
+    for (SeriesRollup rollup : rollups) {
+      hasData |= rollup.mergeBucketsInto(interval, startTime, endTime, statistics);
+    }
+    if (hasData) {
+      for (AggregateResult result : results) {
+        result.updateResultFromStatistics(statistics);
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAligned(long startTime, long endTime, long interval) {
+    return Math.floorMod(startTime, interval) == 0 && Math.floorMod(endTime, interval) == 0;
+  }
+
+  private static boolean isAlignedToAnyInterval(long startTime, long endTime, long[] intervals) {
+    for (long interval : intervals) {
+      if (isAligned(startTime, endTime, interval)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean overlapsRawRanges(long startTime, long endTime) {
+    // find the last range starting before the end of the window
+    int low = 0;
+    int high = rawRanges.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (rawRanges.get(mid).getMin() <= endTime) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high >= 0 && rawRanges.get(high).getMax() >= startTime;
+  }
+
+  private void load() {
+    loaded = true;
+    // expired points are still counted in rollups
+    if (dataSource.getDataTTL() != Long.MAX_VALUE) {
+      return;
+    }
+    String deviceId = seriesPath.getDevice();
+    List<TimeRange> ranges = new ArrayList<>();
+    for (TsFileResource resource : dataSource.getSeqResources()) {
+      SeriesRollup rollup = null;
+      boolean hasRollup = resource.isClosed() && TsFileRollup.exists(resource.getTsFile());
+      if (hasRollup) {
+        try {
+          rollup =
+              TsFileRollup.readSeriesRollup(resource, deviceId, seriesPath.getMeasurement());
+        } catch (IOException e) {
+          logger.warn("Cannot read the rollups of {}, read raw data instead", resource, e);
+          hasRollup = false;
+        }
+      }
+      if (!hasRollup || (rollup != null && rollup.getDataType() != dataType)) {
+        ranges.add(getRange(resource, deviceId));
+        continue;
+      }
+      addDeletedRanges(resource, ranges);
+      if (rollup != null) {
+        rollups.add(rollup);
+      }
+    }
+    for (TsFileResource resource : dataSource.getUnseqResources()) {
+      ranges.add(getRange(resource, deviceId));
+    }
+    rawRanges = TimeRange.sortAndMerge(ranges);
+
+    for (int i = intervals.length - 1; i >= 0; i--) {
+      long interval = intervals[i];
+      if (rollups.stream().allMatch(rollup -> rollup.hasInterval(interval))) {
+        usableIntervals.add(interval);
+      }
+    }
+  }
+
+  private TimeRange getRange(TsFileResource resource, String deviceId) {
+    // the end time of an unsealed file may grow
+    long endTime = resource.isClosed() ? resource.getEndTime(deviceId) : Long.MAX_VALUE;
+    return new TimeRange(resource.getStartTime(deviceId), endTime);
+  }
+
+  private void addDeletedRanges(TsFileResource resource, List<TimeRange> ranges) {
+    ModificationFile modFile = resource.getModFile();
+    if (!modFile.exists()) {
+      return;
+    }
+    for (Modification modification : context.getPathModifications(modFile, seriesPath)) {
+      if (modification instanceof Deletion) {
+        Deletion deletion = (Deletion) modification;
+        ranges.add(new TimeRange(deletion.getStartTime(), deletion.getEndTime()));
+      }
+    }
+  }
+}
@@ -33,9 +33,11 @@ import org.apache.iotdb.db.qp.physical.crud.RawDataQueryPlan;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.control.QueryTimeManager;
 import org.apache.iotdb.db.query.dataset.SingleDataSet;
 import org.apache.iotdb.db.query.factory.AggregateResultFactory;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.series.IAggregateReader;
 import org.apache.iotdb.db.query.reader.series.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.series.SeriesAggregateReader;
@@ -56,6 +58,7 @@ import org.apache.iotdb.tsfile.read.query.timegenerator.TimeGenerator;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -76,6 +79,12 @@ public class AggregationExecutor {
   /** aggregation batch calculation size. */
   private int aggregateFetchSize;
 
+  /**
+   * how many time splits the data of one series may be cut into, only greater than 1 when the query
+   * has a single series, so that the query threads are not left idle
+   */
+  private int maxSplitNumPerSeries = 1;
+
   protected AggregationExecutor(AggregationPlan aggregationPlan) {
     this.selectedSeries = aggregationPlan.getDeduplicatedPaths();
     this.dataTypes = aggregationPlan.getDeduplicatedDataTypes();
@@ -99,7 +108,6 @@ public class AggregationExecutor {
       timeFilter = ((GlobalTimeExpression) expression).getFilter();
     }
 
-    // TODO use multi-thread
     Map<PartialPath, List<Integer>> pathToAggrIndexesMap =
         groupAggregationsBySeries(selectedSeries);
     AggregateResult[] aggregateResultList = new AggregateResult[selectedSeries.size()];
@@ -107,14 +115,27 @@ public class AggregationExecutor {
     List<StorageGroupProcessor> list =
         StorageEngine.getInstance().mergeLock(new ArrayList<>(pathToAggrIndexesMap.keySet()));
     try {
-      for (Map.Entry<PartialPath, List<Integer>> entry : pathToAggrIndexesMap.entrySet()) {
-        aggregateOneSeries(
-            entry,
-            aggregateResultList,
-            aggregationPlan.getAllMeasurementsInDevice(entry.getKey().getDevice()),
-            timeFilter,
-            context);
+      // each series writes its own slots of aggregateResultList, so they can run in parallel
+      List<Map.Entry<PartialPath, List<Integer>>> entries =
+          new ArrayList<>(pathToAggrIndexesMap.entrySet());
+      if (entries.size() == 1) {
+        maxSplitNumPerSeries = QueryResourceManager.getInstance().getMaxSeriesParallelism();
       }
+      Filter finalTimeFilter = timeFilter;
+      QueryTaskPoolManager.getInstance()
+          .runSeriesTasks(
+              entries.size(),
+              QueryResourceManager.getInstance().getSeriesParallelism(entries.size()),
+              i -> {
+                QueryTimeManager.checkQueryAlive(context.getQueryId());
+                Map.Entry<PartialPath, List<Integer>> entry = entries.get(i);
+                aggregateOneSeries(
+                    entry,
+                    aggregateResultList,
+                    aggregationPlan.getAllMeasurementsInDevice(entry.getKey().getDevice()),
+                    finalTimeFilter,
+                    context);
+              });
     } finally {
       StorageEngine.getInstance().mergeUnLock(list);
     }
@@ -162,7 +183,8 @@ public class AggregationExecutor {
         tsDataType,
         ascAggregateResultList,
         descAggregateResultList,
-        null);
+        null,
+        maxSplitNumPerSeries);
 
     int ascIndex = 0;
     int descIndex = 0;
@@ -185,6 +207,36 @@ public class AggregationExecutor {
       List<AggregateResult> descAggregateResultList,
       TsFileFilter fileFilter)
       throws StorageEngineException, IOException, QueryProcessException {
+    aggregateOneSeries(
+        seriesPath,
+        measurements,
+        context,
+        timeFilter,
+        tsDataType,
+        ascAggregateResultList,
+        descAggregateResultList,
+        fileFilter,
+        1);
+  }
+
+  /**
+   * get aggregation result for one series. When maxSplitNum is greater than 1 and the ascending
+   * aggregations have to scan the whole series, the files of the series are split into disjoint
+   * time ranges, which are aggregated in parallel on the query thread pool and merged. As it waits
+   * for tasks on that pool, it must not be called from a query thread with maxSplitNum > 1.
+   */
+  @SuppressWarnings("squid:S107")
+  public static void aggregateOneSeries(
+      PartialPath seriesPath,
+      Set<String> measurements,
+      QueryContext context,
+      Filter timeFilter,
+      TSDataType tsDataType,
+      List<AggregateResult> ascAggregateResultList,
+      List<AggregateResult> descAggregateResultList,
+      TsFileFilter fileFilter,
+      int maxSplitNum)
+      throws StorageEngineException, IOException, QueryProcessException {
 
     // construct series reader without value filter
     QueryDataSource queryDataSource =
@@ -196,18 +248,34 @@ public class AggregationExecutor {
     timeFilter = queryDataSource.updateFilterUsingTTL(timeFilter);
 
     if (ascAggregateResultList != null && !ascAggregateResultList.isEmpty()) {
-      IAggregateReader seriesReader =
-          new SeriesAggregateReader(
-              seriesPath,
-              measurements,
-              tsDataType,
-              context,
-              queryDataSource,
-              timeFilter,
-              null,
-              null,
-              true);
-      aggregateFromReader(seriesReader, ascAggregateResultList);
+      List<QueryDataSource> splits =
+          maxSplitNum > 1 && needFullScan(ascAggregateResultList)
+              ? QueryUtils.splitQueryDataSource(
+                  queryDataSource, seriesPath.getDevice(), maxSplitNum)
+              : Collections.singletonList(queryDataSource);
+      if (splits.size() > 1) {
+        aggregateSplits(
+            seriesPath,
+            measurements,
+            context,
+            timeFilter,
+            tsDataType,
+            splits,
+            ascAggregateResultList);
+      } else {
+        IAggregateReader seriesReader =
+            new SeriesAggregateReader(
+                seriesPath,
+                measurements,
+                tsDataType,
+                context,
+                queryDataSource,
+                timeFilter,
+                null,
+                null,
+                true);
+        aggregateFromReader(seriesReader, ascAggregateResultList);
+      }
     }
     if (descAggregateResultList != null && !descAggregateResultList.isEmpty()) {
       IAggregateReader seriesReader =
@@ -225,6 +293,81 @@ public class AggregationExecutor {
     }
   }
 
+  /**
+   * Whether any of the aggregations has to read the whole series. The others, like first_value or
+   * min_time, stop at the first data they find, so splitting the series would only add reads.
+   */
+  private static boolean needFullScan(List<AggregateResult> aggregateResultList) {
+    for (AggregateResult aggregateResult : aggregateResultList) {
+      switch (aggregateResult.getAggregationType()) {
+        case FIRST_VALUE:
+        case LAST_VALUE:
+        case MIN_TIME:
+        case MAX_TIME:
+          break;
+        default:
+          return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Aggregate each split of a series into its own partial results on the query thread pool, and
+   * merge them into aggregateResultList. The splits have disjoint time ranges, so a point is never
+   * seen by two of them.
+   */
+  @SuppressWarnings("squid:S107")
+  private static void aggregateSplits(
+      PartialPath seriesPath,
+      Set<String> measurements,
+      QueryContext context,
+      Filter timeFilter,
+      TSDataType tsDataType,
+      List<QueryDataSource> splits,
+      List<AggregateResult> aggregateResultList)
+      throws StorageEngineException, IOException, QueryProcessException {
+    List<List<AggregateResult>> partialResultLists = new ArrayList<>(splits.size());
+    for (int i = 0; i < splits.size(); i++) {
+      List<AggregateResult> partialResults = new ArrayList<>(aggregateResultList.size());
+      for (AggregateResult aggregateResult : aggregateResultList) {
+        partialResults.add(
+            AggregateResultFactory.getAggrResultByType(
+                aggregateResult.getAggregationType(), tsDataType, true));
+      }
+      partialResultLists.add(partialResults);
+    }
+
+    QueryTaskPoolManager.getInstance()
+        .runSeriesTasks(
+            splits.size(),
+            QueryResourceManager.getInstance().getSeriesParallelism(splits.size()),
+            i -> {
+              QueryTimeManager.checkQueryAlive(context.getQueryId());
+              IAggregateReader seriesReader =
+                  new SeriesAggregateReader(
+                      seriesPath,
+                      measurements,
+                      tsDataType,
+                      context,
+                      splits.get(i),
+                      timeFilter,
+                      null,
+                      null,
+                      true);
+              aggregateFromReader(seriesReader, partialResultLists.get(i));
+            });
+
+    for (List<AggregateResult> partialResults : partialResultLists) {
+      for (int i = 0; i < aggregateResultList.size(); i++) {
+        // a split without any point must not turn an empty result into a zero
+        if (partialResults.get(i).hasCandidateResult()) {
+          aggregateResultList.get(i).merge(partialResults.get(i));
+        }
+      }
+    }
+  }
+
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   private static void aggregateFromReader(
       IAggregateReader seriesReader, List<AggregateResult> aggregateResultList)
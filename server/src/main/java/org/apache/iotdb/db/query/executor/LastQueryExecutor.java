@@ -24,7 +24,6 @@ import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
 import org.apache.iotdb.db.exception.StorageEngineException;
-import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.metadata.VectorPartialPath;
@@ -33,18 +32,15 @@ import org.apache.iotdb.db.qp.physical.crud.LastQueryPlan;
 import org.apache.iotdb.db.qp.physical.crud.RawDataQueryPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
-import org.apache.iotdb.db.query.dataset.ListDataSet;
+import org.apache.iotdb.db.query.dataset.LastQueryDataSet;
 import org.apache.iotdb.db.query.executor.fill.LastPointReader;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
-import org.apache.iotdb.tsfile.read.common.Field;
-import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
-import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.Pair;
 
 import org.slf4j.Logger;
@@ -52,16 +48,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES;
-import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES_DATATYPE;
-import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_VALUE;
-
 public class LastQueryExecutor {
 
   private List<PartialPath> selectedSeries;
@@ -91,36 +82,16 @@ public class LastQueryExecutor {
   public QueryDataSet execute(QueryContext context, LastQueryPlan lastQueryPlan)
       throws StorageEngineException, IOException, QueryProcessException {
 
-    ListDataSet dataSet =
-        new ListDataSet(
-            Arrays.asList(
-                new PartialPath(COLUMN_TIMESERIES, false),
-                new PartialPath(COLUMN_VALUE, false),
-                new PartialPath(COLUMN_TIMESERIES_DATATYPE, false)),
-            Arrays.asList(TSDataType.TEXT, TSDataType.TEXT, TSDataType.TEXT));
+    LastQueryDataSet dataSet = new LastQueryDataSet();
 
     List<Pair<Boolean, TimeValuePair>> lastPairList =
         calculateLastPairForSeries(selectedSeries, dataTypes, context, expression, lastQueryPlan);
 
     for (int i = 0; i < lastPairList.size(); i++) {
       if (lastPairList.get(i).right != null && lastPairList.get(i).right.getValue() != null) {
-        TimeValuePair lastTimeValuePair = lastPairList.get(i).right;
-        RowRecord resultRecord = new RowRecord(lastTimeValuePair.getTimestamp());
-
-        Field pathField = new Field(TSDataType.TEXT);
-        pathField.setBinaryV(
-            new Binary(lastQueryPlan.getResultColumns().get(i).getResultColumnName()));
-        resultRecord.addField(pathField);
-
-        Field valueField = new Field(TSDataType.TEXT);
-        valueField.setBinaryV(new Binary(lastTimeValuePair.getValue().getStringValue()));
-        resultRecord.addField(valueField);
-
-        Field typeField = new Field(TSDataType.TEXT);
-        typeField.setBinaryV(new Binary(lastTimeValuePair.getValue().getDataType().name()));
-        resultRecord.addField(typeField);
-
-        dataSet.putRecord(resultRecord);
+        dataSet.putLastPoint(
+            lastQueryPlan.getResultColumns().get(i).getResultColumnName(),
+            lastPairList.get(i).right);
       }
     }
 
@@ -222,8 +193,10 @@ public class LastQueryExecutor {
       boolean debugOn) {
     List<Pair<Boolean, TimeValuePair>> resultContainer = new ArrayList<>();
     if (CACHE_ENABLED) {
-      for (PartialPath path : seriesPaths) {
-        cacheAccessors.add(new LastCacheAccessor(path));
+      // resolve all the nodes at once so that the paths of one device share the traversal
+      IMeasurementMNode[] nodes = IoTDB.metaManager.getMeasurementMNodes(seriesPaths);
+      for (int i = 0; i < seriesPaths.size(); i++) {
+        cacheAccessors.add(new LastCacheAccessor(seriesPaths.get(i), nodes[i]));
       }
     } else {
       restPaths.addAll(seriesPaths);
@@ -263,33 +236,23 @@ public class LastQueryExecutor {
     private PartialPath path;
     private IMeasurementMNode node;
 
-    LastCacheAccessor(PartialPath seriesPath) {
+    LastCacheAccessor(PartialPath seriesPath, IMeasurementMNode node) {
       this.path = seriesPath;
+      this.node = node;
     }
 
     public TimeValuePair read() {
-      try {
-        node = (IMeasurementMNode) IoTDB.metaManager.getNodeByPath(path);
-      } catch (MetadataException e) {
-        TimeValuePair timeValuePair;
+      if (node == null) {
         // cluster mode may not get remote node
         if (path instanceof VectorPartialPath) {
           // the seriesPath has been transformed to vector path
           // here needs subSensor path
-          timeValuePair =
-              IoTDB.metaManager.getLastCache(((VectorPartialPath) path).getPathWithSubSensor(0));
+          return IoTDB.metaManager.getLastCache(((VectorPartialPath) path).getPathWithSubSensor(0));
         } else {
-          timeValuePair = IoTDB.metaManager.getLastCache(path);
-        }
-        if (timeValuePair != null) {
-          return timeValuePair;
+          return IoTDB.metaManager.getLastCache(path);
         }
       }
 
-      if (node == null) {
-        return null;
-      }
-
       if (path instanceof VectorPartialPath) {
         // the seriesPath has been transformed to vector path
         // here needs subSensor path
@@ -23,10 +23,19 @@ import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.flush.pool.AbstractPoolManager;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class QueryTaskPoolManager extends AbstractPoolManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(QueryTaskPoolManager.class);
@@ -40,6 +49,75 @@ public class QueryTaskPoolManager extends AbstractPoolManager {
     return QueryTaskPoolManager.InstanceHolder.instance;
   }
 
+  /**
+   * Run task(0) ... task(taskNum - 1) with at most parallelism of them running at the same time,
+   * and wait for all of them. The tasks are spread over parallelism workers on this pool and each
+   * worker runs its share one after another. When a task fails, the workers stop before their next
+   * task and the first failure is rethrown once all of them have returned, so no task outlives the
+   * call. With a parallelism of 1 the tasks run on the calling thread.
+   */
+  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
+  public void runSeriesTasks(int taskNum, int parallelism, SeriesTask task)
+      throws IOException, QueryProcessException, StorageEngineException {
+    if (parallelism <= 1 || taskNum <= 1) {
+      for (int i = 0; i < taskNum; i++) {
+        task.run(i);
+      }
+      return;
+    }
+
+    int workerNum = Math.min(parallelism, taskNum);
+    AtomicBoolean failed = new AtomicBoolean(false);
+    List<Future<Void>> futures = new ArrayList<>(workerNum);
+    for (int worker = 0; worker < workerNum; worker++) {
+      int firstTask = worker;
+      futures.add(
+          submit(
+              () -> {
+                for (int i = firstTask; i < taskNum && !failed.get(); i += workerNum) {
+                  try {
+                    task.run(i);
+                  } catch (Exception e) {
+                    failed.set(true);
+                    throw e;
+                  }
+                }
+                return null;
+              }));
+    }
+
+    Throwable failure = null;
+    boolean interrupted = false;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        // stop the workers but still wait for them, they may be using resources of the query
+        failed.set(true);
+        interrupted = true;
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+      throw new QueryProcessException("Interrupted while waiting for series tasks");
+    }
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof QueryProcessException) {
+      throw (QueryProcessException) failure;
+    } else if (failure instanceof StorageEngineException) {
+      throw (StorageEngineException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
   @Override
   public Logger getLogger() {
     return LOGGER;
@@ -75,4 +153,11 @@ public class QueryTaskPoolManager extends AbstractPoolManager {
 
     private static QueryTaskPoolManager instance = new QueryTaskPoolManager();
   }
+
+  /** A task on one series, identified by its index. */
+  @FunctionalInterface
+  public interface SeriesTask {
+
+    void run(int index) throws IOException, QueryProcessException, StorageEngineException;
+  }
 }
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.MmapUtil;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.iotdb.db.rescon.PrimitiveArrayManager.ARRAY_SIZE;
+
+/**
+ * Manage the off-heap counterparts of the primitive arrays of {@link PrimitiveArrayManager}. Each
+ * array is a block of {@link PrimitiveArrayManager#ARRAY_SIZE} fixed-width elements carved out of a
+ * large direct slab, so that the number of direct buffers (and their cleaners) stays small.
+ *
+ * <p>Released blocks go back to their slab. Once more than {@link
+ * org.apache.iotdb.db.conf.IoTDBConfig#getOffHeapMemTablePoolSize()} bytes are idle, a slab whose
+ * blocks are all released is freed immediately. The idle bytes are reported to {@link SystemInfo}
+ * so that they are not handed out as write memory, while the blocks in use are accounted by the
+ * memtables holding them. Blocks that are never released (e.g. a TVList still referenced by a query
+ * when its memtable is released) keep their slab alive.
+ */
+public class OffHeapArrayManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapArrayManager.class);
+
+  /** size of one direct allocation, blocks are sliced from it */
+  private static final int SLAB_SIZE = 1024 * 1024;
+
+  /** element width in bytes (1, 4 or 8) -> slabs having free blocks, the oldest first */
+  private static final LinkedHashSet[] AVAILABLE_SLABS = new LinkedHashSet[Long.BYTES + 1];
+
+  /** start address -> slab, to find the slab of a released block */
+  private static final ConcurrentSkipListMap<Long, Slab> SLABS = new ConcurrentSkipListMap<>();
+
+  private static final AtomicLong ALLOCATED_BYTES = new AtomicLong(0);
+
+  private static final AtomicLong IDLE_BYTES = new AtomicLong(0);
+
+  /** idle bytes changed but not reported to SystemInfo yet, reported once it reaches a slab */
+  private static final AtomicLong UNREPORTED_IDLE_BYTES = new AtomicLong(0);
+
+  static {
+    for (int width : new int[] {Byte.BYTES, Integer.BYTES, Long.BYTES}) {
+      AVAILABLE_SLABS[width] = new LinkedHashSet<Slab>();
+    }
+  }
+
+  private OffHeapArrayManager() {}
+
+  /**
+   * Get or allocate an off-heap block for ARRAY_SIZE elements of the given type. Values are
+   * accessed by absolute index, so the position of the returned buffer is meaningless.
+   */
+  @SuppressWarnings("unchecked")
+  public static ByteBuffer allocate(TSDataType dataType) {
+    int width = getElementWidth(dataType);
+    LinkedHashSet<Slab> slabs = AVAILABLE_SLABS[width];
+    ByteBuffer block;
+    long idleDelta = 0;
+    synchronized (slabs) {
+      Iterator<Slab> iterator = slabs.iterator();
+      Slab slab;
+      if (iterator.hasNext()) {
+        slab = iterator.next();
+      } else {
+        slab = allocateSlab(width);
+        slabs.add(slab);
+        idleDelta += slab.buffer.capacity();
+      }
+      block = slab.freeBlocks.poll();
+      if (slab.freeBlocks.isEmpty()) {
+        slabs.remove(slab);
+      }
+    }
+    updateIdleBytes(idleDelta - block.capacity());
+    return block;
+  }
+
+  /** This method is called when bringing back an off-heap block. */
+  @SuppressWarnings("unchecked")
+  public static void release(ByteBuffer block) {
+    Map.Entry<Long, Slab> entry = SLABS.floorEntry(PlatformDependent.directBufferAddress(block));
+    Slab slab = entry.getValue();
+    LinkedHashSet<Slab> slabs = AVAILABLE_SLABS[slab.width];
+    long idleDelta = block.capacity();
+    synchronized (slabs) {
+      slab.freeBlocks.add(block);
+      if (slab.freeBlocks.size() == slab.blockNum
+          && IDLE_BYTES.get() + idleDelta
+              > IoTDBDescriptor.getInstance().getConfig().getOffHeapMemTablePoolSize()) {
+        slabs.remove(slab);
+        SLABS.remove(entry.getKey());
+        slab.free();
+        idleDelta -= slab.buffer.capacity();
+      } else if (slab.freeBlocks.size() == 1) {
+        slabs.add(slab);
+      }
+    }
+    updateIdleBytes(idleDelta);
+  }
+
+  /** @return direct memory allocated for memtables, pooled blocks included */
+  public static long getAllocatedBytes() {
+    return ALLOCATED_BYTES.get();
+  }
+
+  /** @return direct memory allocated for memtables but not used by any of them */
+  public static long getIdleBytes() {
+    return IDLE_BYTES.get();
+  }
+
+  public static int getElementWidth(TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        return Byte.BYTES;
+      case INT32:
+      case FLOAT:
+        return Integer.BYTES;
+      case INT64:
+      case DOUBLE:
+        return Long.BYTES;
+      default:
+        throw new UnSupportedDataTypeException(dataType.name());
+    }
+  }
+
+  private static Slab allocateSlab(int width) {
+    Slab slab = new Slab(width);
+    SLABS.put(PlatformDependent.directBufferAddress(slab.buffer), slab);
+    ALLOCATED_BYTES.addAndGet(slab.buffer.capacity());
+    LOGGER.debug(
+        "allocate a {} bytes off-heap slab for {} byte elements, total {} bytes",
+        slab.buffer.capacity(),
+        width,
+        ALLOCATED_BYTES.get());
+    return slab;
+  }
+
+  private static void updateIdleBytes(long delta) {
+    if (delta == 0) {
+      return;
+    }
+    IDLE_BYTES.addAndGet(delta);
+    long unreported = UNREPORTED_IDLE_BYTES.addAndGet(delta);
+    if (Math.abs(unreported) >= SLAB_SIZE
+        && UNREPORTED_IDLE_BYTES.compareAndSet(unreported, 0)) {
+      SystemInfo.getInstance().updateOffHeapPoolCost(unreported);
+    }
+  }
+
+  private static class Slab {
+
+    private final ByteBuffer buffer;
+    private final int width;
+    private final int blockNum;
+    private final ArrayDeque<ByteBuffer> freeBlocks = new ArrayDeque<>();
+
+    private Slab(int width) {
+      int blockSize = ARRAY_SIZE * width;
+      this.width = width;
+      this.blockNum = Math.max(1, SLAB_SIZE / blockSize);
+      this.buffer = ByteBuffer.allocateDirect(blockNum * blockSize);
+      for (int i = 0; i < blockNum; i++) {
+        buffer.limit((i + 1) * blockSize);
+        buffer.position(i * blockSize);
+        // slices do not inherit the byte order of the slab
+        freeBlocks.add(buffer.slice().order(ByteOrder.nativeOrder()));
+      }
+    }
+
+    private void free() {
+      freeBlocks.clear();
+      MmapUtil.clean((MappedByteBuffer) buffer);
+      ALLOCATED_BYTES.addAndGet(-buffer.capacity());
+      LOGGER.debug(
+          "free a {} bytes off-heap slab for {} byte elements, total {} bytes",
+          buffer.capacity(),
+          width,
+          ALLOCATED_BYTES.get());
+    }
+  }
+}
@@ -48,6 +48,9 @@ public class SystemInfo {
 
   private long flushingMemTablesCost = 0L;
 
+  /** direct memory pooled by OffHeapArrayManager but not used by any memtable */
+  private long offHeapPoolCost = 0L;
+
   private ExecutorService flushTaskSubmitThreadPool =
       IoTDBThreadPoolFactory.newSingleThreadExecutor("FlushTask-Submit-Pool");
   private static double FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
@@ -254,6 +257,21 @@ public class SystemInfo {
     REJECT_THERSHOLD = memorySizeForWrite * config.getRejectProportion();
   }
 
+  /**
+   * Idle arrays pooled by {@link OffHeapArrayManager} occupy direct memory without belonging to any
+   * memtable, so they are deducted from the write memory.
+   */
+  public synchronized void updateOffHeapPoolCost(long delta) {
+    offHeapPoolCost += delta;
+    memorySizeForWrite -= delta;
+    FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
+    REJECT_THERSHOLD = memorySizeForWrite * config.getRejectProportion();
+  }
+
+  public long getOffHeapPoolCost() {
+    return offHeapPoolCost;
+  }
+
   public long getTotalMemTableSize() {
     return totalStorageGroupMemCost;
   }
@@ -74,6 +74,7 @@ import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetSystemModePlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowQueryProcesslistPlan;
+import org.apache.iotdb.db.qp.strategy.PreparedStatementTemplate;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryTimeManager;
@@ -120,6 +121,8 @@ import org.apache.iotdb.service.rpc.thrift.TSInsertTabletsReq;
 import org.apache.iotdb.service.rpc.thrift.TSLastDataQueryReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSQueryNonAlignDataSet;
@@ -148,6 +151,7 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -596,6 +600,8 @@ public class TSServiceImpl implements TSIService.Iface {
         return RpcUtils.getTSExecuteStatementResp(getNotLoggedInStatus());
       }
 
+      statement = getStatement(req);
+
       PhysicalPlan physicalPlan =
           processor.parseSQLToPhysicalPlan(statement, sessionManager.getZoneId(req.getSessionId()));
 
@@ -634,7 +640,7 @@ public class TSServiceImpl implements TSIService.Iface {
         return RpcUtils.getTSExecuteStatementResp(getNotLoggedInStatus());
       }
 
-      String statement = req.getStatement();
+      String statement = getStatement(req);
       PhysicalPlan physicalPlan =
           processor.parseSQLToPhysicalPlan(statement, sessionManager.getZoneId(req.sessionId));
 
@@ -1225,13 +1231,14 @@ public class TSServiceImpl implements TSIService.Iface {
     }
 
     try {
+      String statement = getStatement(req);
       PhysicalPlan physicalPlan =
-          processor.parseSQLToPhysicalPlan(req.statement, sessionManager.getZoneId(req.sessionId));
+          processor.parseSQLToPhysicalPlan(statement, sessionManager.getZoneId(req.sessionId));
       return physicalPlan.isQuery()
           ? RpcUtils.getTSExecuteStatementResp(
               TSStatusCode.EXECUTE_STATEMENT_ERROR, "Statement is a query statement.")
           : executeUpdateStatement(
-              req.statement,
+              statement,
               req.statementId,
               physicalPlan,
               req.fetchSize,
@@ -1250,6 +1257,20 @@ public class TSServiceImpl implements TSIService.Iface {
     }
   }
 
+  /** @return the statement of the request, bound with the parameters if it is prepared */
+  private String getStatement(TSExecuteStatementReq req) throws QueryProcessException {
+    if (!req.isSetPreparedStatementId()) {
+      return req.getStatement();
+    }
+    PreparedStatementTemplate template =
+        sessionManager.getPreparedStatement(req.getSessionId(), req.getPreparedStatementId());
+    if (template == null) {
+      // the statement was prepared in another session, e.g., before the client reconnected
+      template = new PreparedStatementTemplate(req.getStatement());
+    }
+    return template.bind(req.isSetParameters() ? req.getParameters() : Collections.emptyList());
+  }
+
   /** update statement can be: 1. select-into statement 2. non-query statement */
   private TSExecuteStatementResp executeUpdateStatement(
       String statement,
@@ -2010,6 +2031,30 @@ public class TSServiceImpl implements TSIService.Iface {
     return sessionManager.requestStatementId(sessionId);
   }
 
+  @Override
+  public TSPrepareStatementResp prepareStatement(TSPrepareStatementReq req) {
+    TSPrepareStatementResp resp = new TSPrepareStatementResp();
+    if (!checkLogin(req.getSessionId())) {
+      return resp.setStatus(getNotLoggedInStatus());
+    }
+
+    PreparedStatementTemplate template = new PreparedStatementTemplate(req.getStatement());
+    resp.setPreparedStatementId(
+        sessionManager.registerPreparedStatement(req.getSessionId(), template));
+    resp.setParameterCount(template.getParameterCount());
+    return resp.setStatus(RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS));
+  }
+
+  @Override
+  public TSStatus closePreparedStatement(long sessionId, long preparedStatementId) {
+    if (!checkLogin(sessionId)) {
+      return getNotLoggedInStatus();
+    }
+
+    sessionManager.closePreparedStatement(sessionId, preparedStatementId);
+    return RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS);
+  }
+
   @Override
   public TSStatus createSchemaTemplate(TSCreateSchemaTemplateReq req) throws TException {
     try {
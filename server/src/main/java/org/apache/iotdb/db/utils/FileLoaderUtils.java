@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.utils;
 
+import org.apache.iotdb.db.engine.cache.BloomFilterCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -112,6 +113,11 @@ public class FileLoaderUtils {
       if (!resource.getTsFile().exists()) {
         return null;
       }
+      // skip the file before reading any of its metadata if it does not have the series
+      if (!BloomFilterCache.getInstance()
+          .mayContain(resource, seriesPath.getDevice(), seriesPath.getMeasurement())) {
+        return null;
+      }
       timeSeriesMetadata =
           TimeSeriesMetadataCache.getInstance()
               .get(
@@ -169,7 +175,9 @@ public class FileLoaderUtils {
     VectorTimeSeriesMetadata vectorTimeSeriesMetadata = null;
     // If the tsfile is closed, we need to load from tsfile
     if (resource.isClosed()) {
-      if (!resource.getTsFile().exists()) {
+      if (!resource.getTsFile().exists()
+          || !BloomFilterCache.getInstance()
+              .mayContain(resource, vectorPath.getDevice(), vectorPath.getMeasurement())) {
         return null;
       }
       // load all the TimeseriesMetadata of vector, the first one is for time column and the
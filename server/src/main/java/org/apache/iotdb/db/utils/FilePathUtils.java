@@ -83,6 +83,16 @@ public class FilePathUtils {
     return pathSegments[pathSegments.length - 4];
   }
 
+  /**
+   * @param tsFileAbsolutePath the path of a TsFile in the data directory, which looks like
+   *     ".../sequence/{storage group}/{virtual storage group id}/{time partition}/{file name}"
+   * @return the logical storage group name, or null if the path is not in that layout
+   */
+  public static String getLogicalStorageGroupName(String tsFileAbsolutePath) {
+    String[] pathSegments = splitTsFilePath(tsFileAbsolutePath);
+    return pathSegments.length < 4 ? null : pathSegments[pathSegments.length - 4];
+  }
+
   public static String getVirtualStorageGroupId(TsFileResource resource) {
     String[] pathSegments = splitTsFilePath(resource);
     return pathSegments[pathSegments.length - 3];
@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.utils;
 
+import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
@@ -27,6 +28,9 @@ import org.apache.iotdb.db.query.filter.TsFileFilter;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class QueryUtils {
@@ -105,4 +109,116 @@ public class QueryUtils {
     seqResources.removeIf(fileFilter::fileNotSatisfy);
     unseqResources.removeIf(fileFilter::fileNotSatisfy);
   }
+
+  /**
+   * Split the files of a QueryDataSource into at most splitNum data sources covering disjoint time
+   * ranges of the device. Files whose time ranges overlap, such as an unsequence file and the
+   * sequence files it covers, always end up in the same split. So each split can be read on its
+   * own and the partial results merged. Sequence files of different time partitions never
+   * overlap, so the partition boundaries are always possible split points.
+   *
+   * @return the splits in time order, or a list holding only the given data source if it cannot be
+   *     split
+   */
+  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
+  public static List<QueryDataSource> splitQueryDataSource(
+      QueryDataSource queryDataSource, String deviceId, int splitNum) {
+    List<TsFileResource> seqResources = queryDataSource.getSeqResources();
+    List<TsFileResource> unseqResources = queryDataSource.getUnseqResources();
+    int fileNum = seqResources.size() + unseqResources.size();
+    if (splitNum <= 1 || fileNum <= 1) {
+      return Collections.singletonList(queryDataSource);
+    }
+
+    // the time range of each file in the device, sequence files first
+    long[] startTimes = new long[fileNum];
+    long[] endTimes = new long[fileNum];
+    for (int i = 0; i < fileNum; i++) {
+      boolean isSeq = i < seqResources.size();
+      TsFileResource resource =
+          isSeq ? seqResources.get(i) : unseqResources.get(i - seqResources.size());
+      startTimes[i] = resource.getStartTime(deviceId);
+      if (resource.isClosed() || !isSeq) {
+        endTimes[i] = resource.getEndTime(deviceId);
+      } else {
+        // the end time of an unsealed sequence file is not maintained until it is closed, but its
+        // data cannot go beyond its time partition
+        endTimes[i] = getTimePartitionEnd(startTimes[i]);
+      }
+      if (endTimes[i] < startTimes[i]) {
+        endTimes[i] = Long.MAX_VALUE;
+      }
+    }
+
+    // sweep the files by start time and group overlapping ones into components
+    Integer[] order = new Integer[fileNum];
+    for (int i = 0; i < fileNum; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(startTimes[a], startTimes[b]));
+    int[] componentOfFile = new int[fileNum];
+    int componentNum = 0;
+    long componentEnd = Long.MIN_VALUE;
+    for (int i = 0; i < fileNum; i++) {
+      int file = order[i];
+      if (i == 0 || startTimes[file] > componentEnd) {
+        componentNum++;
+        componentEnd = endTimes[file];
+      } else {
+        componentEnd = Math.max(componentEnd, endTimes[file]);
+      }
+      componentOfFile[file] = componentNum - 1;
+    }
+    if (componentNum == 1) {
+      return Collections.singletonList(queryDataSource);
+    }
+
+    // assign consecutive components to splits with about the same number of files
+    int[] fileNumOfComponent = new int[componentNum];
+    for (int file = 0; file < fileNum; file++) {
+      fileNumOfComponent[componentOfFile[file]]++;
+    }
+    int filesPerSplit = (fileNum + splitNum - 1) / splitNum;
+    int[] splitOfComponent = new int[componentNum];
+    int currentSplit = 0;
+    int filesInCurrentSplit = 0;
+    for (int component = 0; component < componentNum; component++) {
+      if (filesInCurrentSplit >= filesPerSplit && currentSplit < splitNum - 1) {
+        currentSplit++;
+        filesInCurrentSplit = 0;
+      }
+      splitOfComponent[component] = currentSplit;
+      filesInCurrentSplit += fileNumOfComponent[component];
+    }
+
+    List<QueryDataSource> splits = new ArrayList<>(currentSplit + 1);
+    for (int i = 0; i <= currentSplit; i++) {
+      QueryDataSource split = new QueryDataSource(new ArrayList<>(), new ArrayList<>());
+      split.setDataTTL(queryDataSource.getDataTTL());
+      splits.add(split);
+    }
+    // keep the original order of the files inside each split
+    for (int i = 0; i < fileNum; i++) {
+      QueryDataSource split = splits.get(splitOfComponent[componentOfFile[i]]);
+      if (i < seqResources.size()) {
+        split.getSeqResources().add(seqResources.get(i));
+      } else {
+        split.getUnseqResources().add(unseqResources.get(i - seqResources.size()));
+      }
+    }
+    return splits;
+  }
+
+  /** @return the last time of the time partition holding the given time */
+  private static long getTimePartitionEnd(long time) {
+    if (!StorageEngine.isEnablePartition() || time < 0) {
+      return Long.MAX_VALUE;
+    }
+    long interval = StorageEngine.getTimePartitionInterval();
+    long partition = StorageEngine.getTimePartition(time);
+    if (partition >= Long.MAX_VALUE / interval - 1) {
+      return Long.MAX_VALUE;
+    }
+    return (partition + 1) * interval - 1;
+  }
 }
@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * CompressedBitmap is a set of non-negative ints in the layout of roaring bitmaps. The ints are
+ * grouped by their high 16 bits into chunks, a chunk keeps its low 16 bits in a sorted array while
+ * it is sparse and in a 2^16 bits bitset once it is dense, so a posting list of dense ids costs
+ * about one bit per id. It is not thread-safe.
+ */
+public class CompressedBitmap {
+
+  /** a chunk with more values than this is stored as a bitset */
+  private static final int ARRAY_MAX_SIZE = 4096;
+
+  private static final int BITSET_WORDS = 1 << 10;
+
+  private char[] keys = new char[4];
+  private Chunk[] chunks = new Chunk[4];
+  private int size;
+
+  public boolean add(int value) {
+    char key = highBits(value);
+    int pos = indexOf(key);
+    if (pos < 0) {
+      pos = -pos - 1;
+      insertChunk(pos, key, new Chunk());
+    }
+    return chunks[pos].add(lowBits(value));
+  }
+
+  public boolean remove(int value) {
+    int pos = indexOf(highBits(value));
+    if (pos < 0) {
+      return false;
+    }
+    Chunk chunk = chunks[pos];
+    boolean removed = chunk.remove(lowBits(value));
+    if (chunk.cardinality == 0) {
+      removeChunk(pos);
+    }
+    return removed;
+  }
+
+  public boolean contains(int value) {
+    int pos = indexOf(highBits(value));
+    return pos >= 0 && chunks[pos].contains(lowBits(value));
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int getCardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < size; i++) {
+      cardinality += chunks[i].cardinality;
+    }
+    return cardinality;
+  }
+
+  /** visit the values in ascending order */
+  public void forEach(IntConsumer consumer) {
+    for (int i = 0; i < size; i++) {
+      chunks[i].forEach(keys[i] << 16, consumer);
+    }
+  }
+
+  public int[] toArray() {
+    int[] values = new int[getCardinality()];
+    int[] index = new int[1];
+    forEach(v -> values[index[0]++] = v);
+    return values;
+  }
+
+  public CompressedBitmap copy() {
+    CompressedBitmap copy = new CompressedBitmap();
+    copy.keys = Arrays.copyOf(keys, Math.max(size, 1));
+    copy.chunks = new Chunk[Math.max(size, 1)];
+    for (int i = 0; i < size; i++) {
+      copy.chunks[i] = chunks[i].copy();
+    }
+    copy.size = size;
+    return copy;
+  }
+
+  /** @return a new bitmap with the values in both a and b */
+  public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+    CompressedBitmap result = new CompressedBitmap();
+    int i = 0;
+    int j = 0;
+    while (i < a.size && j < b.size) {
+      if (a.keys[i] < b.keys[j]) {
+        i++;
+      } else if (a.keys[i] > b.keys[j]) {
+        j++;
+      } else {
+        Chunk chunk = a.chunks[i].and(b.chunks[j]);
+        if (chunk.cardinality > 0) {
+          result.insertChunk(result.size, a.keys[i], chunk);
+        }
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /** @return a new bitmap with the values in a or b */
+  public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+    CompressedBitmap result = new CompressedBitmap();
+    int i = 0;
+    int j = 0;
+    while (i < a.size || j < b.size) {
+      if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+        result.insertChunk(result.size, a.keys[i], a.chunks[i].copy());
+        i++;
+      } else if (i == a.size || a.keys[i] > b.keys[j]) {
+        result.insertChunk(result.size, b.keys[j], b.chunks[j].copy());
+        j++;
+      } else {
+        result.insertChunk(result.size, a.keys[i], a.chunks[i].or(b.chunks[j]));
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  public void serialize(DataOutputStream outputStream) throws IOException {
+    outputStream.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      outputStream.writeChar(keys[i]);
+      chunks[i].serialize(outputStream);
+    }
+  }
+
+  public static CompressedBitmap deserialize(DataInputStream inputStream) throws IOException {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    int chunkNum = inputStream.readInt();
+    for (int i = 0; i < chunkNum; i++) {
+      char key = inputStream.readChar();
+      bitmap.insertChunk(bitmap.size, key, Chunk.deserialize(inputStream));
+    }
+    return bitmap;
+  }
+
+  private static char highBits(int value) {
+    return (char) (value >>> 16);
+  }
+
+  private static char lowBits(int value) {
+    return (char) value;
+  }
+
+  private int indexOf(char key) {
+    // most updates go to the last chunk as ids are allocated in ascending order
+    if (size > 0 && keys[size - 1] == key) {
+      return size - 1;
+    }
+    return Arrays.binarySearch(keys, 0, size, key);
+  }
+
+  private void insertChunk(int pos, char key, Chunk chunk) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      chunks = Arrays.copyOf(chunks, size * 2);
+    }
+    System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+    System.arraycopy(chunks, pos, chunks, pos + 1, size - pos);
+    keys[pos] = key;
+    chunks[pos] = chunk;
+    size++;
+  }
+
+  private void removeChunk(int pos) {
+    System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+    System.arraycopy(chunks, pos + 1, chunks, pos, size - pos - 1);
+    size--;
+    chunks[size] = null;
+  }
+
+  /** the low 16 bits of the values sharing the same high 16 bits */
+  private static class Chunk {
+
+    // sorted values when the chunk is sparse, null once it becomes a bitset
+    private char[] values;
+    private long[] words;
+    private int cardinality;
+
+    private Chunk() {
+      values = new char[4];
+    }
+
+    private Chunk(char[] values, long[] words, int cardinality) {
+      this.values = values;
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    private boolean contains(char value) {
+      if (words != null) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+      }
+      return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+    }
+
+    private boolean add(char value) {
+      if (words != null) {
+        long before = words[value >>> 6];
+        words[value >>> 6] = before | (1L << value);
+        if (before == words[value >>> 6]) {
+          return false;
+        }
+        cardinality++;
+        return true;
+      }
+      int pos = Arrays.binarySearch(values, 0, cardinality, value);
+      if (pos >= 0) {
+        return false;
+      }
+      if (cardinality == ARRAY_MAX_SIZE) {
+        toBitset();
+        return add(value);
+      }
+      pos = -pos - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, Math.max(4, cardinality * 2)));
+      }
+      System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+      values[pos] = value;
+      cardinality++;
+      return true;
+    }
+
+    private boolean remove(char value) {
+      if (words != null) {
+        long before = words[value >>> 6];
+        words[value >>> 6] = before & ~(1L << value);
+        if (before == words[value >>> 6]) {
+          return false;
+        }
+        cardinality--;
+        if (cardinality <= ARRAY_MAX_SIZE) {
+          toArray();
+        }
+        return true;
+      }
+      int pos = Arrays.binarySearch(values, 0, cardinality, value);
+      if (pos < 0) {
+        return false;
+      }
+      System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+      cardinality--;
+      return true;
+    }
+
+    private void toBitset() {
+      words = new long[BITSET_WORDS];
+      for (int i = 0; i < cardinality; i++) {
+        words[values[i] >>> 6] |= 1L << values[i];
+      }
+      values = null;
+    }
+
+    private void toArray() {
+      char[] array = new char[cardinality];
+      int index = 0;
+      for (int i = 0; i < BITSET_WORDS; i++) {
+        long word = words[i];
+        while (word != 0) {
+          array[index++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      values = array;
+      words = null;
+    }
+
+    private void forEach(int high, IntConsumer consumer) {
+      if (words == null) {
+        for (int i = 0; i < cardinality; i++) {
+          consumer.accept(high | values[i]);
+        }
+        return;
+      }
+      for (int i = 0; i < BITSET_WORDS; i++) {
+        long word = words[i];
+        while (word != 0) {
+          consumer.accept(high | ((i << 6) + Long.numberOfTrailingZeros(word)));
+          word &= word - 1;
+        }
+      }
+    }
+
+    private Chunk and(Chunk other) {
+      if (words != null && other.words != null) {
+        long[] result = new long[BITSET_WORDS];
+        for (int i = 0; i < BITSET_WORDS; i++) {
+          result[i] = words[i] & other.words[i];
+        }
+        return fromWords(result);
+      }
+      Chunk sparse = words == null ? this : other;
+      Chunk another = sparse == this ? other : this;
+      char[] result = new char[Math.min(cardinality, other.cardinality)];
+      int count = 0;
+      for (int i = 0; i < sparse.cardinality; i++) {
+        if (another.contains(sparse.values[i])) {
+          result[count++] = sparse.values[i];
+        }
+      }
+      return new Chunk(result, null, count);
+    }
+
+    private Chunk or(Chunk other) {
+      if (words == null && other.words == null) {
+        char[] result = new char[cardinality + other.cardinality];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < cardinality || j < other.cardinality) {
+          if (j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+            result[count++] = values[i++];
+          } else if (i == cardinality || values[i] > other.values[j]) {
+            result[count++] = other.values[j++];
+          } else {
+            result[count++] = values[i++];
+            j++;
+          }
+        }
+        Chunk chunk = new Chunk(result, null, count);
+        if (count > ARRAY_MAX_SIZE) {
+          chunk.toBitset();
+        }
+        return chunk;
+      }
+      Chunk result = (words != null ? this : other).copy();
+      Chunk another = words != null ? other : this;
+      if (another.words != null) {
+        for (int i = 0; i < BITSET_WORDS; i++) {
+          result.words[i] |= another.words[i];
+        }
+        result.cardinality = bitCount(result.words);
+      } else {
+        for (int i = 0; i < another.cardinality; i++) {
+          result.add(another.values[i]);
+        }
+      }
+      return result;
+    }
+
+    private Chunk copy() {
+      return new Chunk(
+          values == null ? null : Arrays.copyOf(values, Math.max(cardinality, 1)),
+          words == null ? null : Arrays.copyOf(words, BITSET_WORDS),
+          cardinality);
+    }
+
+    private static Chunk fromWords(long[] words) {
+      Chunk chunk = new Chunk(null, words, bitCount(words));
+      if (chunk.cardinality <= ARRAY_MAX_SIZE) {
+        chunk.toArray();
+      }
+      return chunk;
+    }
+
+    private static int bitCount(long[] words) {
+      int count = 0;
+      for (long word : words) {
+        count += Long.bitCount(word);
+      }
+      return count;
+    }
+
+    private void serialize(DataOutputStream outputStream) throws IOException {
+      outputStream.writeInt(cardinality);
+      if (words == null) {
+        for (int i = 0; i < cardinality; i++) {
+          outputStream.writeChar(values[i]);
+        }
+      } else {
+        for (long word : words) {
+          outputStream.writeLong(word);
+        }
+      }
+    }
+
+    private static Chunk deserialize(DataInputStream inputStream) throws IOException {
+      int cardinality = inputStream.readInt();
+      if (cardinality > ARRAY_MAX_SIZE) {
+        long[] words = new long[BITSET_WORDS];
+        for (int i = 0; i < BITSET_WORDS; i++) {
+          words[i] = inputStream.readLong();
+        }
+        return new Chunk(null, words, cardinality);
+      }
+      char[] values = new char[Math.max(cardinality, 1)];
+      for (int i = 0; i < cardinality; i++) {
+        values[i] = inputStream.readChar();
+      }
+      return new Chunk(values, null, cardinality);
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * IntervalTree keeps closed intervals [start, end] with values, and finds the intervals that
+ * overlap a given range in O(log(n) + k). It is a treap ordered by the start of the intervals,
+ * each node records the max end of its subtree to prune the search. It is not thread-safe.
+ */
+public class IntervalTree<T> {
+
+  private Interval<T> root;
+  private long nextId;
+  private int size;
+
+  /**
+   * Insert an interval.
+   *
+   * @return the inserted interval, which is used to remove it
+   */
+  public Interval<T> insert(long start, long end, T value) {
+    Interval<T> interval =
+        new Interval<>(start, end, value, nextId++, ThreadLocalRandom.current().nextInt());
+    root = insert(root, interval);
+    size++;
+    return interval;
+  }
+
+  private Interval<T> insert(Interval<T> node, Interval<T> interval) {
+    if (node == null) {
+      return interval;
+    }
+    if (interval.compareTo(node) < 0) {
+      node.left = insert(node.left, interval);
+      if (node.left.priority > node.priority) {
+        node = rotateRight(node);
+      }
+    } else {
+      node.right = insert(node.right, interval);
+      if (node.right.priority > node.priority) {
+        node = rotateLeft(node);
+      }
+    }
+    node.update();
+    return node;
+  }
+
+  /** Remove an interval returned by {@link #insert(long, long, Object)}. */
+  public void remove(Interval<T> interval) {
+    int oldSize = size;
+    root = remove(root, interval);
+    if (oldSize == size) {
+      throw new IllegalArgumentException("The interval is not in the tree: " + interval);
+    }
+  }
+
+  private Interval<T> remove(Interval<T> node, Interval<T> interval) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = interval.compareTo(node);
+    if (cmp < 0) {
+      node.left = remove(node.left, interval);
+    } else if (cmp > 0) {
+      node.right = remove(node.right, interval);
+    } else {
+      size--;
+      return merge(node.left, node.right);
+    }
+    node.update();
+    return node;
+  }
+
+  /** merge two treaps whose intervals in the left are all before those in the right */
+  private Interval<T> merge(Interval<T> left, Interval<T> right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      left.update();
+      return left;
+    } else {
+      right.left = merge(left, right.left);
+      right.update();
+      return right;
+    }
+  }
+
+  private Interval<T> rotateRight(Interval<T> node) {
+    Interval<T> left = node.left;
+    node.left = left.right;
+    left.right = node;
+    node.update();
+    left.update();
+    return left;
+  }
+
+  private Interval<T> rotateLeft(Interval<T> node) {
+    Interval<T> right = node.right;
+    node.right = right.left;
+    right.left = node;
+    node.update();
+    right.update();
+    return right;
+  }
+
+  /** Collect the values of the intervals overlapping [start, end] in the order of their starts. */
+  public void query(long start, long end, List<T> results) {
+    query(root, start, end, results);
+  }
+
+  private void query(Interval<T> node, long start, long end, List<T> results) {
+    if (node == null || node.maxEnd < start) {
+      return;
+    }
+    query(node.left, start, end, results);
+    if (node.start > end) {
+      // the intervals in the right subtree start even later
+      return;
+    }
+    if (node.end >= start) {
+      results.add(node.value);
+    }
+    query(node.right, start, end, results);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public static class Interval<T> implements Comparable<Interval<T>> {
+
+    private final long start;
+    private final long end;
+    private final T value;
+    /** distinguishes the intervals with the same start */
+    private final long id;
+
+    private final int priority;
+    private long maxEnd;
+    private Interval<T> left;
+    private Interval<T> right;
+
+    private Interval(long start, long end, T value, long id, int priority) {
+      this.start = start;
+      this.end = end;
+      this.value = value;
+      this.id = id;
+      this.priority = priority;
+      this.maxEnd = end;
+    }
+
+    private void update() {
+      maxEnd = end;
+      if (left != null && left.maxEnd > maxEnd) {
+        maxEnd = left.maxEnd;
+      }
+      if (right != null && right.maxEnd > maxEnd) {
+        maxEnd = right.maxEnd;
+      }
+    }
+
+    public long getStart() {
+      return start;
+    }
+
+    public long getEnd() {
+      return end;
+    }
+
+    public T getValue() {
+      return value;
+    }
+
+    @Override
+    public int compareTo(Interval<T> o) {
+      int cmp = Long.compare(start, o.start);
+      return cmp != 0 ? cmp : Long.compare(id, o.id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+      return "[" + start + ", " + end + "]: " + value;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import org.apache.iotdb.db.rescon.OffHeapArrayManager;
+import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.iotdb.db.rescon.PrimitiveArrayManager.ARRAY_SIZE;
+
+/**
+ * A TVList of a fixed-width data type whose time and value arrays are off-heap blocks managed by
+ * {@link OffHeapArrayManager}. Values are kept as their raw bits (sign extended to a long), the
+ * subclasses only convert them from and to their own type. Flush and query read the blocks through
+ * the usual getters, no heap copy of the list is made. The arrays used for sorting are temporary
+ * and stay on the heap, as in the on-heap lists.
+ */
+public abstract class OffHeapTVList extends TVList {
+
+  protected List<ByteBuffer> timeBlocks;
+
+  protected List<ByteBuffer> valueBlocks;
+
+  /** width of a value in bytes, 1, 4 or 8 */
+  private final int valueWidth;
+
+  private long[][] sortedValues;
+
+  private long pivotValue;
+
+  OffHeapTVList() {
+    super();
+    timeBlocks = new ArrayList<>();
+    valueBlocks = new ArrayList<>();
+    valueWidth = OffHeapArrayManager.getElementWidth(getDataType());
+  }
+
+  @Override
+  public long getTime(int index) {
+    if (index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return timeBlocks.get(index / ARRAY_SIZE).getLong((index % ARRAY_SIZE) * Long.BYTES);
+  }
+
+  protected long getRawValue(int index) {
+    if (index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    ByteBuffer block = valueBlocks.get(index / ARRAY_SIZE);
+    int offset = (index % ARRAY_SIZE) * valueWidth;
+    switch (valueWidth) {
+      case Long.BYTES:
+        return block.getLong(offset);
+      case Integer.BYTES:
+        return block.getInt(offset);
+      default:
+        return block.get(offset);
+    }
+  }
+
+  /** append a point, the raw bits of the value are truncated to the width of the type */
+  protected void putRaw(long timestamp, long rawValue) {
+    checkExpansion();
+    minTime = Math.min(minTime, timestamp);
+    writeRaw(size, timestamp, rawValue);
+    size++;
+    if (sorted && size > 1 && timestamp < getTime(size - 2)) {
+      sorted = false;
+    }
+  }
+
+  /**
+   * append points whose min time and order have already been merged by {@link
+   * #updateMinTimeAndSorted(long[], int, int)}.
+   */
+  protected void appendRaw(long timestamp, long rawValue) {
+    checkExpansion();
+    writeRaw(size, timestamp, rawValue);
+    size++;
+  }
+
+  protected void set(int index, long timestamp, long rawValue) {
+    if (index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    writeRaw(index, timestamp, rawValue);
+  }
+
+  private void writeRaw(int index, long timestamp, long rawValue) {
+    int arrayIndex = index / ARRAY_SIZE;
+    int elementIndex = index % ARRAY_SIZE;
+    timeBlocks.get(arrayIndex).putLong(elementIndex * Long.BYTES, timestamp);
+    ByteBuffer block = valueBlocks.get(arrayIndex);
+    switch (valueWidth) {
+      case Long.BYTES:
+        block.putLong(elementIndex * Long.BYTES, rawValue);
+        break;
+      case Integer.BYTES:
+        block.putInt(elementIndex * Integer.BYTES, (int) rawValue);
+        break;
+      default:
+        block.put(elementIndex, (byte) rawValue);
+    }
+  }
+
+  @Override
+  public TVList clone() {
+    OffHeapTVList cloneList = (OffHeapTVList) TVList.newOffHeapList(getDataType());
+    cloneAs(cloneList);
+    for (ByteBuffer timeBlock : timeBlocks) {
+      cloneList.timeBlocks.add(cloneBlock(timeBlock, TSDataType.INT64));
+    }
+    for (ByteBuffer valueBlock : valueBlocks) {
+      cloneList.valueBlocks.add(cloneBlock(valueBlock, getDataType()));
+    }
+    return cloneList;
+  }
+
+  private ByteBuffer cloneBlock(ByteBuffer block, TSDataType dataType) {
+    ByteBuffer cloneBlock = OffHeapArrayManager.allocate(dataType);
+    cloneBlock.clear();
+    cloneBlock.put(block.duplicate());
+    cloneBlock.clear();
+    return cloneBlock;
+  }
+
+  @Override
+  public void sort() {
+    if (sortedTimestamps == null || sortedTimestamps.length < size) {
+      sortedTimestamps =
+          (long[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.INT64, size);
+    }
+    if (sortedValues == null || sortedValues.length < size) {
+      sortedValues = (long[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.INT64, size);
+    }
+    sort(0, size);
+    clearSortedValue();
+    clearSortedTime();
+    sorted = true;
+  }
+
+  @Override
+  protected void checkExpansion() {
+    if ((size % ARRAY_SIZE) == 0) {
+      expandValues();
+      timeBlocks.add(OffHeapArrayManager.allocate(TSDataType.INT64));
+    }
+  }
+
+  @Override
+  protected void expandValues() {
+    valueBlocks.add(OffHeapArrayManager.allocate(getDataType()));
+  }
+
+  @Override
+  protected int getTimeArrayNum() {
+    return timeBlocks.size();
+  }
+
+  @Override
+  protected void releaseLastTimeArray() {
+    OffHeapArrayManager.release(timeBlocks.remove(timeBlocks.size() - 1));
+  }
+
+  @Override
+  protected void releaseLastValueArray() {
+    OffHeapArrayManager.release(valueBlocks.remove(valueBlocks.size() - 1));
+  }
+
+  @Override
+  protected void clearTime() {
+    for (ByteBuffer timeBlock : timeBlocks) {
+      OffHeapArrayManager.release(timeBlock);
+    }
+    timeBlocks.clear();
+  }
+
+  @Override
+  void clearValue() {
+    for (ByteBuffer valueBlock : valueBlocks) {
+      OffHeapArrayManager.release(valueBlock);
+    }
+    valueBlocks.clear();
+  }
+
+  @Override
+  void clearSortedValue() {
+    if (sortedValues != null) {
+      sortedValues = null;
+    }
+  }
+
+  @Override
+  protected void setFromSorted(int src, int dest) {
+    set(
+        dest,
+        sortedTimestamps[src / ARRAY_SIZE][src % ARRAY_SIZE],
+        sortedValues[src / ARRAY_SIZE][src % ARRAY_SIZE]);
+  }
+
+  @Override
+  protected void set(int src, int dest) {
+    set(dest, getTime(src), getRawValue(src));
+  }
+
+  @Override
+  protected void setToSorted(int src, int dest) {
+    sortedTimestamps[dest / ARRAY_SIZE][dest % ARRAY_SIZE] = getTime(src);
+    sortedValues[dest / ARRAY_SIZE][dest % ARRAY_SIZE] = getRawValue(src);
+  }
+
+  @Override
+  protected void reverseRange(int lo, int hi) {
+    hi--;
+    while (lo < hi) {
+      long loT = getTime(lo);
+      long loV = getRawValue(lo);
+      long hiT = getTime(hi);
+      long hiV = getRawValue(hi);
+      set(lo++, hiT, hiV);
+      set(hi--, loT, loV);
+    }
+  }
+
+  @Override
+  protected void saveAsPivot(int pos) {
+    pivotTime = getTime(pos);
+    pivotValue = getRawValue(pos);
+  }
+
+  @Override
+  protected void setPivotTo(int pos) {
+    set(pos, pivotTime, pivotValue);
+  }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.utils.datastructure;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -61,6 +62,12 @@ public abstract class TVList {
   }
 
   public static TVList newList(TSDataType dataType) {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableOffHeapMemTable()) {
+      TVList offHeapList = newOffHeapList(dataType);
+      if (offHeapList != null) {
+        return offHeapList;
+      }
+    }
     switch (dataType) {
       case TEXT:
         return new BinaryTVList();
@@ -80,6 +87,25 @@ public abstract class TVList {
     return null;
   }
 
+  /** @return an off-heap TVList, or null for the types that have no fixed width */
+  public static TVList newOffHeapList(TSDataType dataType) {
+    switch (dataType) {
+      case FLOAT:
+        return new OffHeapFloatTVList();
+      case INT32:
+        return new OffHeapIntTVList();
+      case INT64:
+        return new OffHeapLongTVList();
+      case DOUBLE:
+        return new OffHeapDoubleTVList();
+      case BOOLEAN:
+        return new OffHeapBooleanTVList();
+      default:
+        break;
+    }
+    return null;
+  }
+
   public static TVList newVectorList(List<TSDataType> datatypes) {
     return new VectorTVList(datatypes);
   }
@@ -263,6 +289,10 @@ public abstract class TVList {
     PrimitiveArrayManager.release(timestamps.remove(timestamps.size() - 1));
   }
 
+  protected int getTimeArrayNum() {
+    return timestamps.size();
+  }
+
   public int delete(long lowerBound, long upperBound) {
     int newSize = 0;
     minTime = Long.MAX_VALUE;
@@ -280,7 +310,7 @@ public abstract class TVList {
     if (newSize % ARRAY_SIZE != 0) {
       newArrayNum++;
     }
-    for (int releaseIdx = newArrayNum; releaseIdx < timestamps.size(); releaseIdx++) {
+    for (int releaseIdx = newArrayNum; releaseIdx < getTimeArrayNum(); releaseIdx++) {
       releaseLastTimeArray();
       releaseLastValueArray();
     }
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.io;
+
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GroupCommitLogFlusher is the single flusher shared by all WAL nodes when
+ * enable_wal_group_commit is set. Nodes hand over their full log buffers together with their log
+ * writer, the flusher writes every buffer collected within wal_group_commit_max_wait_micros (or up
+ * to wal_group_commit_max_batch_bytes) and then forces each touched file once. Each node still
+ * writes its own files in the LogWriter format, so recovery is unchanged, and there is one force
+ * per file in a batch. The forces of a batch run in parallel, so N storage groups syncing at the
+ * same moment wait for about the slowest force instead of N forces one after another.
+ */
+public class GroupCommitLogFlusher {
+
+  private static final Logger logger = LoggerFactory.getLogger(GroupCommitLogFlusher.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private final BlockingQueue<FlushRequest> requestQueue = new LinkedBlockingQueue<>();
+  private ExecutorService flushThread;
+  /** forces the files touched by a batch in parallel */
+  private ExecutorService forcePool;
+  private volatile boolean running = false;
+
+  private final AtomicLong batchNum = new AtomicLong();
+  private final AtomicLong requestNum = new AtomicLong();
+  private final AtomicLong flushedBytes = new AtomicLong();
+
+  private GroupCommitLogFlusher() {}
+
+  public static GroupCommitLogFlusher getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * Queue a log buffer to be written by the given writer.
+   *
+   * @return a future completed after the buffer is written, and forced when
+   *     force_wal_period_in_ms is 0
+   */
+  public CompletableFuture<Void> submit(ILogWriter writer, ByteBuffer logBuffer) {
+    if (!running) {
+      start();
+    }
+    FlushRequest request = new FlushRequest(writer, logBuffer);
+    requestQueue.add(request);
+    return request.future;
+  }
+
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    flushThread =
+        IoTDBThreadPoolFactory.newSingleThreadExecutor(ThreadName.WAL_GROUP_COMMIT.getName());
+    forcePool =
+        IoTDBThreadPoolFactory.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            ThreadName.WAL_GROUP_COMMIT_FORCE.getName());
+    flushThread.submit(this::flushLoop);
+    logger.info("WAL group commit flusher started");
+  }
+
+  /** Stop the flusher after the queued buffers are written. */
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    flushThread.shutdown();
+    try {
+      if (!flushThread.awaitTermination(30, TimeUnit.SECONDS)) {
+        logger.warn("WAL group commit flusher still doesn't exit after 30s");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.warn("Waiting for the WAL group commit flusher to exit interrupted");
+    }
+    forcePool.shutdownNow();
+    logger.info(
+        "WAL group commit flusher stopped, {} buffers ({} bytes) written in {} batches",
+        requestNum.get(),
+        flushedBytes.get(),
+        batchNum.get());
+  }
+
+  public long getBatchNum() {
+    return batchNum.get();
+  }
+
+  public long getRequestNum() {
+    return requestNum.get();
+  }
+
+  private void flushLoop() {
+    List<FlushRequest> batch = new ArrayList<>();
+    while (running || !requestQueue.isEmpty()) {
+      try {
+        FlushRequest first = requestQueue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        collectBatch(batch, first.size);
+        flushBatch(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("WAL group commit flusher interrupted");
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void collectBatch(List<FlushRequest> batch, long batchBytes) throws InterruptedException {
+    long deadline =
+        System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(config.getWalGroupCommitMaxWaitMicros());
+    while (batchBytes < config.getWalGroupCommitMaxBatchBytes()) {
+      long remaining = deadline - System.nanoTime();
+      FlushRequest request;
+      if (remaining > 0) {
+        request = requestQueue.poll(remaining, TimeUnit.NANOSECONDS);
+      } else {
+        request = requestQueue.poll();
+      }
+      if (request == null) {
+        return;
+      }
+      batch.add(request);
+      batchBytes += request.size;
+    }
+  }
+
+  private void flushBatch(List<FlushRequest> batch) {
+    Set<ILogWriter> written = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (FlushRequest request : batch) {
+      try {
+        request.writer.write(request.logBuffer);
+        written.add(request.writer);
+        flushedBytes.addAndGet(request.size);
+      } catch (IOException e) {
+        request.failure = e;
+      }
+    }
+
+    if (config.getForceWalPeriodInMs() == 0 && !written.isEmpty()) {
+      // otherwise the periodical WAL force task takes care of it
+      forceAll(new ArrayList<>(written), batch);
+    }
+
+    batchNum.incrementAndGet();
+    requestNum.addAndGet(batch.size());
+    for (FlushRequest request : batch) {
+      if (request.failure == null) {
+        request.future.complete(null);
+      } else {
+        request.future.completeExceptionally(request.failure);
+      }
+    }
+  }
+
+  /** force the files in parallel, the flusher thread forces the last one itself */
+  private void forceAll(List<ILogWriter> writers, List<FlushRequest> batch) {
+    List<Future<IOException>> forceFutures = new ArrayList<>(writers.size() - 1);
+    for (int i = 0; i < writers.size() - 1; i++) {
+      ILogWriter writer = writers.get(i);
+      forceFutures.add(forcePool.submit(() -> force(writer)));
+    }
+    IOException lastFailure = force(writers.get(writers.size() - 1));
+    if (lastFailure != null) {
+      setFailure(batch, writers.get(writers.size() - 1), lastFailure);
+    }
+
+    for (int i = 0; i < forceFutures.size(); i++) {
+      IOException failure;
+      try {
+        failure = forceFutures.get(i).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = new IOException("Waiting for the WAL force interrupted", e);
+      } catch (ExecutionException e) {
+        failure = new IOException(e.getCause());
+      }
+      if (failure != null) {
+        setFailure(batch, writers.get(i), failure);
+      }
+    }
+  }
+
+  private static IOException force(ILogWriter writer) {
+    try {
+      writer.force();
+      return null;
+    } catch (IOException e) {
+      return e;
+    }
+  }
+
+  private static void setFailure(List<FlushRequest> batch, ILogWriter writer, IOException e) {
+    for (FlushRequest request : batch) {
+      if (request.writer == writer && request.failure == null) {
+        request.failure = e;
+      }
+    }
+  }
+
+  private static class FlushRequest {
+
+    private final ILogWriter writer;
+    private final ByteBuffer logBuffer;
+    private final int size;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private IOException failure;
+
+    private FlushRequest(ILogWriter writer, ByteBuffer logBuffer) {
+      this.writer = writer;
+      this.logBuffer = logBuffer;
+      // the buffer is flipped by the writer, position is the size of the logs
+      this.size = logBuffer.position();
+    }
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {}
+
+    private static final GroupCommitLogFlusher INSTANCE = new GroupCommitLogFlusher();
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.io;
+
+import org.apache.iotdb.db.utils.MmapUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.zip.CRC32;
+
+/**
+ * MmapLogWriter writes the binary logs in the same format as {@link LogWriter} (size, logs, check
+ * sum), but into memory mapped segments of the log file that are preallocated segment by segment.
+ * A write is then a memory copy instead of three channel writes, and persistence is a force() of
+ * the current segment. The unwritten part of a segment is kept zero, which readers treat as the end
+ * of the logs, and the file is truncated to its real length on close.
+ */
+public class MmapLogWriter implements ILogWriter {
+  private static final Logger logger = LoggerFactory.getLogger(MmapLogWriter.class);
+
+  private final File logFile;
+  private final int segmentSize;
+  private final boolean forceEachWrite;
+
+  private RandomAccessFile randomAccessFile;
+  private FileChannel channel;
+  private MappedByteBuffer segment;
+  /** offset of the current segment in the file */
+  private long segmentStart;
+
+  private final CRC32 checkSummer = new CRC32();
+  private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+  private final ByteBuffer checkSumBuffer = ByteBuffer.allocate(Long.BYTES);
+
+  public MmapLogWriter(File logFile, int segmentSize, boolean forceEachWrite) {
+    this.logFile = logFile;
+    this.segmentSize = segmentSize;
+    this.forceEachWrite = forceEachWrite;
+  }
+
+  @Override
+  public void write(ByteBuffer logBuffer) throws IOException {
+    if (segment == null) {
+      open();
+    }
+    logBuffer.flip();
+    int logSize = logBuffer.limit();
+
+    // the check sum is computed on the log buffer itself, no intermediate copy is made
+    checkSummer.reset();
+    checkSummer.update(logBuffer);
+    long checkSum = checkSummer.getValue();
+
+    logBuffer.flip();
+
+    lengthBuffer.clear();
+    checkSumBuffer.clear();
+    lengthBuffer.putInt(logSize);
+    checkSumBuffer.putLong(checkSum);
+    lengthBuffer.flip();
+    checkSumBuffer.flip();
+
+    put(lengthBuffer);
+    put(logBuffer);
+    put(checkSumBuffer);
+    markEnd();
+
+    if (forceEachWrite) {
+      segment.force();
+    }
+  }
+
+  /** copy the buffer into the mapped segments, mapping the next segment when one is full */
+  private void put(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (!segment.hasRemaining()) {
+        nextSegment();
+      }
+      int length = Math.min(buffer.remaining(), segment.remaining());
+      ByteBuffer part = buffer.duplicate();
+      part.limit(part.position() + length);
+      segment.put(part);
+      buffer.position(buffer.position() + length);
+    }
+  }
+
+  /** a zero size after the last log tells readers where the logs end */
+  private void markEnd() {
+    if (segment.remaining() >= Integer.BYTES) {
+      segment.putInt(segment.position(), 0);
+    }
+  }
+
+  private void open() throws IOException {
+    randomAccessFile = new RandomAccessFile(logFile, "rw");
+    channel = randomAccessFile.getChannel();
+    mapSegment(findEndOfLogs());
+  }
+
+  /** @return the offset after the last complete log already in the file, 0 for a new file */
+  private long findEndOfLogs() throws IOException {
+    long fileSize = channel.size();
+    long position = 0;
+    ByteBuffer sizeBuffer = ByteBuffer.allocate(Integer.BYTES);
+    while (position + SingleFileLogReader.LEAST_LOG_SIZE <= fileSize) {
+      sizeBuffer.clear();
+      channel.read(sizeBuffer, position);
+      sizeBuffer.flip();
+      int logSize = sizeBuffer.getInt();
+      long next = position + SingleFileLogReader.LEAST_LOG_SIZE + logSize;
+      if (logSize <= 0 || next > fileSize) {
+        break;
+      }
+      position = next;
+    }
+    return position;
+  }
+
+  private void mapSegment(long start) throws IOException {
+    segmentStart = start;
+    // mapping beyond the end of the file extends the file
+    segment = channel.map(MapMode.READ_WRITE, start, segmentSize);
+    markEnd();
+    logger.debug("WAL file {} mapped a new segment at {}", logFile, start);
+  }
+
+  private void nextSegment() throws IOException {
+    // the logs in the old segment would not be covered by force() any more
+    segment.force();
+    MmapUtil.clean(segment);
+    mapSegment(segmentStart + segmentSize);
+  }
+
+  @Override
+  public void force() throws IOException {
+    if (segment != null) {
+      segment.force();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (segment != null) {
+      segment.force();
+      long endOfLogs = segmentStart + segment.position();
+      MmapUtil.clean(segment);
+      segment = null;
+      // drop the preallocated but unused tail
+      channel.truncate(endOfLogs);
+      channel.close();
+      randomAccessFile.close();
+      channel = null;
+      randomAccessFile = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "MmapLogWriter{" + "logFile=" + logFile + '}';
+  }
+}
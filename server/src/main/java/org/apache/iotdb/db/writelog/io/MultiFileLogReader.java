@@ -34,9 +34,15 @@ public class MultiFileLogReader implements ILogReader {
   private SingleFileLogReader currentReader;
   private File[] files;
   private int fileIdx = 0;
+  private boolean useMmap;
 
   public MultiFileLogReader(File[] files) {
+    this(files, false);
+  }
+
+  public MultiFileLogReader(File[] files, boolean useMmap) {
     this.files = files;
+    this.useMmap = useMmap;
   }
 
   @Override
@@ -52,7 +58,7 @@ public class MultiFileLogReader implements ILogReader {
       return false;
     }
     if (currentReader == null) {
-      currentReader = new SingleFileLogReader(files[fileIdx++]);
+      currentReader = new SingleFileLogReader(files[fileIdx++], useMmap);
     }
     if (currentReader.hasNext()) {
       return true;
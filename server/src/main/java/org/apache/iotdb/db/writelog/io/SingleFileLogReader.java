@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.writelog.io;
 
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.utils.MmapUtil;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,13 +30,18 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.NoSuchElementException;
 import java.util.zip.CRC32;
 
 /**
  * SingleFileLogReader reads binarized WAL logs from a file through a DataInputStream by scanning
- * the file from head to tail.
+ * the file from head to tail. If useMmap is set, the file is memory mapped instead and each log
+ * batch is checked and parsed in place, without being copied out of the mapping.
  */
 public class SingleFileLogReader implements ILogReader {
 
@@ -45,6 +51,9 @@ public class SingleFileLogReader implements ILogReader {
   private DataInputStream logStream;
   private String filepath;
 
+  private final boolean useMmap;
+  private MappedByteBuffer mappedLogs;
+
   private byte[] buffer;
   private CRC32 checkSummer = new CRC32();
 
@@ -56,6 +65,11 @@ public class SingleFileLogReader implements ILogReader {
   private boolean fileCorrupted = false;
 
   public SingleFileLogReader(File logFile) throws FileNotFoundException {
+    this(logFile, false);
+  }
+
+  public SingleFileLogReader(File logFile, boolean useMmap) throws FileNotFoundException {
+    this.useMmap = useMmap;
     open(logFile);
   }
 
@@ -66,6 +80,10 @@ public class SingleFileLogReader implements ILogReader {
         return true;
       }
 
+      if (mappedLogs != null) {
+        return readMappedBatch();
+      }
+
       if (logStream.available() < LEAST_LOG_SIZE) {
         return false;
       }
@@ -107,6 +125,40 @@ public class SingleFileLogReader implements ILogReader {
     return true;
   }
 
+  private boolean readMappedBatch() throws IOException {
+    if (mappedLogs.remaining() < LEAST_LOG_SIZE) {
+      return false;
+    }
+    int logSize = mappedLogs.getInt();
+    if (logSize <= 0) {
+      return false;
+    }
+    if (mappedLogs.remaining() < logSize + Long.BYTES) {
+      throw new IOException("Reach eof");
+    }
+
+    ByteBuffer batch = mappedLogs.slice();
+    batch.limit(logSize);
+    mappedLogs.position(mappedLogs.position() + logSize);
+
+    final long checkSum = mappedLogs.getLong();
+    checkSummer.reset();
+    checkSummer.update(batch.duplicate());
+    if (checkSummer.getValue() != checkSum) {
+      throw new IOException(
+          String.format(
+              "The check sum of the No.%d log batch is incorrect! In "
+                  + "file: "
+                  + "%d Calculated: %d.",
+              idx, checkSum, checkSummer.getValue()));
+    }
+
+    // the plans are deserialized eagerly, so no slice of the mapping outlives this call
+    batchLogReader = new BatchLogReader(batch);
+    fileCorrupted = fileCorrupted || batchLogReader.isFileCorrupted();
+    return true;
+  }
+
   @Override
   public PhysicalPlan next() {
     if (!hasNext()) {
@@ -125,17 +177,43 @@ public class SingleFileLogReader implements ILogReader {
       } catch (IOException e) {
         logger.error("Cannot close log file {}", filepath, e);
       }
+      logStream = null;
+    }
+    if (mappedLogs != null) {
+      MmapUtil.clean(mappedLogs);
+      mappedLogs = null;
     }
   }
 
   public void open(File logFile) throws FileNotFoundException {
     close();
-    logStream = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+    batchLogReader = null;
+    if (!useMmap || !openMapped(logFile)) {
+      logStream = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+    }
     logger.info("open WAL file: {} size is {}", logFile.getName(), logFile.length());
     this.filepath = logFile.getPath();
     idx = 0;
   }
 
+  /** @return false if the file cannot be mapped and should be read as a stream */
+  private boolean openMapped(File logFile) throws FileNotFoundException {
+    if (logFile.length() > Integer.MAX_VALUE) {
+      return false;
+    }
+    try (RandomAccessFile file = new RandomAccessFile(logFile, "r");
+        FileChannel channel = file.getChannel()) {
+      // the mapping stays valid after the channel is closed
+      mappedLogs = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      return true;
+    } catch (FileNotFoundException e) {
+      throw e;
+    } catch (IOException e) {
+      logger.warn("Cannot map WAL file {}, read it as a stream", logFile, e);
+      return false;
+    }
+  }
+
   public boolean isFileCorrupted() {
     return fileCorrupted;
   }
@@ -23,6 +23,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.db.writelog.io.GroupCommitLogFlusher;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
 
@@ -156,6 +157,8 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
       }
     }
     close();
+    // after the nodes are closed, so that their last buffers are written
+    GroupCommitLogFlusher.getInstance().stop();
   }
 
   @Override
@@ -24,9 +24,11 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.writelog.io.GroupCommitLogFlusher;
 import org.apache.iotdb.db.writelog.io.ILogReader;
 import org.apache.iotdb.db.writelog.io.ILogWriter;
 import org.apache.iotdb.db.writelog.io.LogWriter;
+import org.apache.iotdb.db.writelog.io.MmapLogWriter;
 import org.apache.iotdb.db.writelog.io.MultiFileLogReader;
 
 import org.apache.commons.io.FileUtils;
@@ -41,6 +43,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
@@ -59,6 +63,15 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
+  /** buffers are written by the shared GroupCommitLogFlusher instead of an own flush thread */
+  private final boolean groupCommit = config.isEnableWalGroupCommit();
+
+  /**
+   * the group commit of the last synced buffer, the earlier buffers are written before it is
+   * submitted
+   */
+  private volatile CompletableFuture<Void> lastCommitFuture;
+
   private volatile ByteBuffer logBufferWorking;
   private volatile ByteBuffer logBufferIdle;
   private volatile ByteBuffer logBufferFlushing;
@@ -91,7 +104,9 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     }
     // this.identifier contains the storage group name + tsfile name.
     FLUSH_BUFFER_THREAD_POOL =
-        IoTDBThreadPoolFactory.newSingleThreadExecutor("Flush-WAL-Thread-" + this.identifier);
+        groupCommit
+            ? null
+            : IoTDBThreadPoolFactory.newSingleThreadExecutor("Flush-WAL-Thread-" + this.identifier);
   }
 
   @Override
@@ -106,11 +121,12 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     if (deleted.get()) {
       throw new IOException("WAL node deleted");
     }
+    CompletableFuture<Void> commitFuture = null;
     lock.lock();
     try {
       putLog(plan);
       if (bufferedLogNum >= config.getFlushWalThreshold()) {
-        sync();
+        commitFuture = sync();
       }
     } catch (BufferOverflowException e) {
       // if the size of a single plan bigger than logBufferWorking
@@ -120,6 +136,25 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     } finally {
       lock.unlock();
     }
+    waitForGroupCommit(commitFuture);
+  }
+
+  /**
+   * In group commit mode with force_wal_period_in_ms = 0, the writer that triggered a sync waits
+   * until the batch containing its buffer is forced, outside of the node lock.
+   */
+  private void waitForGroupCommit(CompletableFuture<Void> commitFuture) throws IOException {
+    if (commitFuture == null || config.getForceWalPeriodInMs() != 0) {
+      return;
+    }
+    try {
+      commitFuture.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Waiting for WAL group commit interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("WAL group commit failed", e.getCause());
+    }
   }
 
   private void putLog(PhysicalPlan plan) {
@@ -138,6 +173,7 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
   @Override
   public void close() {
     sync();
+    waitForPendingGroupCommit();
     forceWal();
     lock.lock();
     try {
@@ -170,9 +206,29 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
       return;
     }
     sync();
+    waitForPendingGroupCommit();
     forceWal();
   }
 
+  /**
+   * Wait until the buffers handed to the GroupCommitLogFlusher are written, otherwise the file may
+   * be forced or closed before they are written.
+   */
+  private void waitForPendingGroupCommit() {
+    CompletableFuture<Void> commitFuture = lastCommitFuture;
+    if (commitFuture == null) {
+      return;
+    }
+    try {
+      commitFuture.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.warn("Waiting for the group commit of log node {} interrupted", identifier);
+    } catch (ExecutionException e) {
+      logger.warn("Group commit of log node {} failed", identifier, e.getCause());
+    }
+  }
+
   @Override
   public void notifyStartFlush() throws FileNotFoundException {
     lock.lock();
@@ -215,7 +271,9 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
       deleted.set(true);
       return this.bufferArray;
     } finally {
-      FLUSH_BUFFER_THREAD_POOL.shutdown();
+      if (FLUSH_BUFFER_THREAD_POOL != null) {
+        FLUSH_BUFFER_THREAD_POOL.shutdown();
+      }
       lock.unlock();
     }
   }
@@ -226,7 +284,7 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     Arrays.sort(
         logFiles,
         Comparator.comparingInt(f -> Integer.parseInt(f.getName().replace(WAL_FILE_NAME, ""))));
-    return new MultiFileLogReader(logFiles);
+    return new MultiFileLogReader(logFiles, config.isEnableMmapWal());
   }
 
   private void discard(File logFile) {
@@ -257,17 +315,28 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     }
   }
 
-  private void sync() {
+  /** @return the future of the group commit of the buffer, null if not in group commit mode */
+  private CompletableFuture<Void> sync() {
     lock.lock();
     try {
       if (bufferedLogNum == 0) {
-        return;
+        return null;
       }
       switchBufferWorkingToFlushing();
       ILogWriter currWriter = getCurrentFileWriter();
-      FLUSH_BUFFER_THREAD_POOL.submit(() -> flushBuffer(currWriter));
+      CompletableFuture<Void> commitFuture = null;
+      if (groupCommit) {
+        commitFuture =
+            GroupCommitLogFlusher.getInstance()
+                .submit(currWriter, logBufferFlushing)
+                .whenComplete((v, e) -> onBufferFlushed(e));
+        lastCommitFuture = commitFuture;
+      } else {
+        FLUSH_BUFFER_THREAD_POOL.submit(() -> flushBuffer(currWriter));
+      }
       bufferedLogNum = 0;
       logger.debug("Log node {} ends sync.", identifier);
+      return commitFuture;
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       logger.warn("Waiting for available buffer interrupted");
@@ -276,15 +345,22 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     } finally {
       lock.unlock();
     }
+    return null;
   }
 
   private void flushBuffer(ILogWriter writer) {
+    IOException failure = null;
     try {
       writer.write(logBufferFlushing);
-    } catch (ClosedChannelException e) {
-      // ignore
     } catch (IOException e) {
-      logger.warn("Log node {} sync failed, change system mode to read-only", identifier, e);
+      failure = e;
+    }
+    onBufferFlushed(failure);
+  }
+
+  private void onBufferFlushed(Throwable failure) {
+    if (failure != null && !(failure instanceof ClosedChannelException)) {
+      logger.warn("Log node {} sync failed, change system mode to read-only", identifier, failure);
       IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
       return;
     }
@@ -323,7 +399,13 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
       logger.info("create WAL parent folder {}.", newFile.getParent());
     }
     logger.debug("WAL file {} is opened", newFile);
-    currentFileWriter = new LogWriter(newFile, config.getForceWalPeriodInMs() == 0);
+    // in group commit mode the flusher forces once per batch
+    boolean forceEachWrite = !groupCommit && config.getForceWalPeriodInMs() == 0;
+    if (config.isEnableMmapWal()) {
+      currentFileWriter = new MmapLogWriter(newFile, config.getWalSegmentSize(), forceEachWrite);
+    } else {
+      currentFileWriter = new LogWriter(newFile, forceEachWrite);
+    }
   }
 
   @Override
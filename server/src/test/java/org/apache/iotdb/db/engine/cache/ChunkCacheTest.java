@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkCacheTest {
+
+  private static final String SG1 = "root.chunkCacheTest1";
+  private static final String SG2 = "root.chunkCacheTest2";
+  private static final String MEASUREMENT = "s0";
+
+  private final File dataDir = new File(TestConstant.BASE_OUTPUT_PATH.concat("chunkCacheTest"));
+  private ChunkCache chunkCache;
+  private ChunkMetadata sg1Chunk;
+  private ChunkMetadata sg2Chunk;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException {
+    chunkCache = ChunkCache.getInstance();
+    chunkCache.clear();
+    sg1Chunk = prepareChunk(SG1);
+    sg2Chunk = prepareChunk(SG2);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    chunkCache.clear();
+    CompressedChunkCache.getInstance().clear();
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    FileUtils.deleteDirectory(dataDir);
+  }
+
+  /** write a TsFile of one chunk in the layout of the data directory and return its metadata */
+  private ChunkMetadata prepareChunk(String storageGroup)
+      throws IOException, WriteProcessException {
+    File file =
+        new File(
+            dataDir,
+            "sequence"
+                + File.separator
+                + storageGroup
+                + File.separator
+                + "0"
+                + File.separator
+                + "0"
+                + File.separator
+                + "1-1-0-0.tsfile");
+    file.getParentFile().mkdirs();
+    String device = storageGroup + ".d0";
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      writer.registerTimeseries(
+          new Path(device, MEASUREMENT),
+          new MeasurementSchema(
+              MEASUREMENT, TSDataType.INT64, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED));
+      for (long time = 0; time < 100; time++) {
+        TSRecord record = new TSRecord(time, device);
+        record.addTuple(new LongDataPoint(MEASUREMENT, time));
+        writer.write(record);
+      }
+    }
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      ChunkMetadata chunkMetadata =
+          reader.getChunkMetadataList(new Path(device, MEASUREMENT)).get(0);
+      chunkMetadata.setFilePath(file.getPath());
+      return chunkMetadata;
+    }
+  }
+
+  @Test
+  public void testStorageGroupStats() throws IOException {
+    long sg1Hit = getCount(chunkCache.getHitCountPerStorageGroup(), SG1);
+    long sg1Miss = getCount(chunkCache.getMissCountPerStorageGroup(), SG1);
+    long sg2Hit = getCount(chunkCache.getHitCountPerStorageGroup(), SG2);
+    long sg2Miss = getCount(chunkCache.getMissCountPerStorageGroup(), SG2);
+
+    chunkCache.get(sg1Chunk);
+    chunkCache.get(sg1Chunk);
+    chunkCache.get(sg1Chunk);
+    chunkCache.get(sg2Chunk);
+
+    assertEquals(sg1Miss + 1, getCount(chunkCache.getMissCountPerStorageGroup(), SG1));
+    assertEquals(sg1Hit + 2, getCount(chunkCache.getHitCountPerStorageGroup(), SG1));
+    assertEquals(sg2Miss + 1, getCount(chunkCache.getMissCountPerStorageGroup(), SG2));
+    assertEquals(sg2Hit, getCount(chunkCache.getHitCountPerStorageGroup(), SG2));
+  }
+
+  @Test
+  public void testQueryAdmission() throws IOException {
+    // a query that has read more than its share of the cache does not fill the cache
+    QueryContext scan = new QueryContext(1);
+    scan.addReadChunkSize(chunkCache.getMaxMemory() + 1);
+    long dataSize = chunkCache.get(sg1Chunk, scan).getData().remaining();
+    assertTrue(chunkCache.isEmpty());
+    assertEquals(chunkCache.getMaxMemory() + 1 + dataSize, scan.getReadChunkSize());
+
+    // a query within its share fills the cache, and the scan is served by the cached chunk
+    QueryContext query = new QueryContext(2);
+    chunkCache.get(sg1Chunk, query);
+    assertFalse(chunkCache.isEmpty());
+    assertEquals(dataSize, query.getReadChunkSize());
+
+    long sg1Hit = getCount(chunkCache.getHitCountPerStorageGroup(), SG1);
+    chunkCache.get(sg1Chunk, scan);
+    assertEquals(sg1Hit + 1, getCount(chunkCache.getHitCountPerStorageGroup(), SG1));
+  }
+
+  @Test
+  public void testRemoveFile() throws IOException {
+    chunkCache.get(sg1Chunk);
+    chunkCache.get(sg2Chunk);
+
+    chunkCache.removeFile(sg1Chunk.getFilePath());
+    assertFalse(chunkCache.isEmpty());
+    long sg1Miss = getCount(chunkCache.getMissCountPerStorageGroup(), SG1);
+    long sg2Miss = getCount(chunkCache.getMissCountPerStorageGroup(), SG2);
+    // the chunk of the removed file is loaded again, the other one is still cached
+    chunkCache.get(sg1Chunk);
+    chunkCache.get(sg2Chunk);
+    assertEquals(sg1Miss + 1, getCount(chunkCache.getMissCountPerStorageGroup(), SG1));
+    assertEquals(sg2Miss, getCount(chunkCache.getMissCountPerStorageGroup(), SG2));
+
+    chunkCache.removeFile(sg1Chunk.getFilePath());
+    chunkCache.removeFile(sg2Chunk.getFilePath());
+    assertTrue(chunkCache.isEmpty());
+
+    // a chunk removed by itself and loaded again is still removed with its file
+    chunkCache.get(sg1Chunk);
+    chunkCache.remove(sg1Chunk);
+    chunkCache.get(sg1Chunk);
+    chunkCache.removeFile(sg1Chunk.getFilePath());
+    assertTrue(chunkCache.isEmpty());
+  }
+
+  private long getCount(Map<String, Long> counts, String storageGroup) {
+    return counts.getOrDefault(storageGroup, 0L);
+  }
+}
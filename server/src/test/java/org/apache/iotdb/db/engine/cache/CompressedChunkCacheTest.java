@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedChunkCacheTest {
+
+  private static final String DEVICE = "root.compressedChunkCacheTest.d0";
+  private static final String MEASUREMENT = "s0";
+
+  private final File dataDir =
+      new File(TestConstant.BASE_OUTPUT_PATH.concat("compressedChunkCacheTest"));
+  private ChunkMetadata chunk1;
+  private ChunkMetadata chunk2;
+  private int dataSize;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException {
+    chunk1 = prepareChunk("1-1-0-0.tsfile");
+    chunk2 = prepareChunk("2-2-0-0.tsfile");
+    // read the size of a chunk through a disabled cache, which does not copy anything
+    dataSize = new CompressedChunkCache(0).get(chunk1).getData().remaining();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    FileUtils.deleteDirectory(dataDir);
+  }
+
+  /** write a TsFile of one chunk and return its metadata */
+  private ChunkMetadata prepareChunk(String fileName) throws IOException, WriteProcessException {
+    File file = new File(dataDir, fileName);
+    file.getParentFile().mkdirs();
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      writer.registerTimeseries(
+          new Path(DEVICE, MEASUREMENT),
+          new MeasurementSchema(
+              MEASUREMENT, TSDataType.INT64, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED));
+      for (long time = 0; time < 100; time++) {
+        TSRecord record = new TSRecord(time, DEVICE);
+        record.addTuple(new LongDataPoint(MEASUREMENT, time));
+        writer.write(record);
+      }
+    }
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      ChunkMetadata chunkMetadata =
+          reader.getChunkMetadataList(new Path(DEVICE, MEASUREMENT)).get(0);
+      chunkMetadata.setFilePath(file.getPath());
+      return chunkMetadata;
+    }
+  }
+
+  @Test
+  public void testHitAndMiss() throws IOException {
+    CompressedChunkCache cache = new CompressedChunkCache(dataSize * 4L);
+
+    Chunk missed = cache.get(chunk1);
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0, cache.getHitCount());
+    assertEquals(dataSize, cache.getUsedMemory());
+
+    // the hit is a heap copy of the cached data
+    Chunk hit = cache.get(chunk1);
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(missed.getData(), hit.getData());
+    assertEquals(missed.getHeader().getDataSize(), hit.getHeader().getDataSize());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedMemory());
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    CompressedChunkCache cache = new CompressedChunkCache(dataSize * 3L / 2);
+
+    cache.get(chunk1);
+    cache.get(chunk2);
+    // only one of the chunks fits, the other one is evicted and its memory released
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(dataSize, cache.getUsedMemory());
+
+    cache.clear();
+    assertEquals(0, cache.getUsedMemory());
+  }
+
+  @Test
+  public void testRemoveFile() throws IOException {
+    CompressedChunkCache cache = new CompressedChunkCache(dataSize * 4L);
+    cache.get(chunk1);
+    cache.get(chunk2);
+    assertEquals(2, cache.size());
+    assertEquals(dataSize * 2L, cache.getUsedMemory());
+
+    cache.removeFile(chunk1.getFilePath());
+    assertEquals(1, cache.size());
+    assertEquals(dataSize, cache.getUsedMemory());
+    // the chunk of the removed file is read again, the other one is still cached
+    cache.get(chunk1);
+    cache.get(chunk2);
+    assertEquals(3, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+    // removal is not eviction
+    assertEquals(0, cache.getEvictionCount());
+
+    cache.removeFile(chunk1.getFilePath());
+    cache.removeFile(chunk2.getFilePath());
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedMemory());
+  }
+
+  @Test
+  public void testRemoveFileAfterEviction() throws IOException {
+    CompressedChunkCache cache = new CompressedChunkCache(dataSize);
+    // each chunk evicts the other one
+    cache.get(chunk1);
+    cache.get(chunk2);
+    cache.get(chunk1);
+    assertEquals(1, cache.size());
+    assertTrue(cache.getEvictionCount() > 0);
+
+    cache.removeFile(chunk1.getFilePath());
+    cache.removeFile(chunk2.getFilePath());
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedMemory());
+  }
+}
@@ -52,6 +52,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 public class LevelCompactionMergeTest extends LevelCompactionTest {
 
@@ -113,6 +114,83 @@ public class LevelCompactionMergeTest extends LevelCompactionTest {
     }
   }
 
+  /** compaction once with the devices merged by sub-tasks */
+  @Test
+  public void testCompactionMergeWithDeviceSubTasks() throws IllegalPathException, IOException {
+    compactWithDeviceSubTasks(
+        IoTDBDescriptor.getInstance().getConfig().getCompactionDeviceSubThreadMemoryBudget());
+  }
+
+  /** the devices do not fit in the memory budget of the sub-tasks and are merged directly */
+  @Test
+  public void testCompactionMergeWithDeviceSubTasksOverBudget()
+      throws IllegalPathException, IOException {
+    compactWithDeviceSubTasks(1);
+  }
+
+  private void compactWithDeviceSubTasks(long memoryBudget)
+      throws IllegalPathException, IOException {
+    int prevSubThreadNum =
+        IoTDBDescriptor.getInstance().getConfig().getCompactionDeviceSubThreadNum();
+    long prevMemoryBudget =
+        IoTDBDescriptor.getInstance().getConfig().getCompactionDeviceSubThreadMemoryBudget();
+    IoTDBDescriptor.getInstance().getConfig().setCompactionDeviceSubThreadNum(3);
+    IoTDBDescriptor.getInstance()
+        .getConfig()
+        .setCompactionDeviceSubThreadMemoryBudget(memoryBudget);
+    // the devices are merged by the sub-task pool of the manager
+    CompactionMergeTaskPoolManager.getInstance().start();
+    try {
+      assertNotNull(CompactionMergeTaskPoolManager.getInstance().submitSubTask(() -> null));
+      LevelCompactionTsFileManagement levelCompactionTsFileManagement =
+          new LevelCompactionTsFileManagement(COMPACTION_TEST_SG, tempSGDir.getPath());
+      levelCompactionTsFileManagement.addAll(seqResources, true);
+      levelCompactionTsFileManagement.addAll(unseqResources, false);
+      levelCompactionTsFileManagement.forkCurrentFileList(0);
+      CompactionMergeTask compactionMergeTask =
+          levelCompactionTsFileManagement
+          .new CompactionMergeTask(this::closeCompactionMergeCallBack, 0);
+      compactionMergeWorking = true;
+      compactionMergeTask.call();
+      while (compactionMergeWorking) {
+        // wait
+      }
+      QueryContext context = new QueryContext();
+      for (String deviceId : deviceIds) {
+        PartialPath path =
+            new PartialPath(
+                deviceId
+                    + TsFileConstant.PATH_SEPARATOR
+                    + measurementSchemas[0].getMeasurementId());
+        IBatchReader tsFilesReader =
+            new SeriesRawDataBatchReader(
+                path,
+                measurementSchemas[0].getType(),
+                context,
+                levelCompactionTsFileManagement.getTsFileList(true),
+                new ArrayList<>(),
+                null,
+                null,
+                true);
+        int count = 0;
+        while (tsFilesReader.hasNextBatch()) {
+          BatchData batchData = tsFilesReader.nextBatch();
+          for (int i = 0; i < batchData.length(); i++) {
+            assertEquals(batchData.getTimeByIndex(i), batchData.getDoubleByIndex(i), 0.001);
+            count++;
+          }
+        }
+        assertEquals(seqFileNum * ptNum, count);
+      }
+    } finally {
+      CompactionMergeTaskPoolManager.getInstance().stop();
+      IoTDBDescriptor.getInstance().getConfig().setCompactionDeviceSubThreadNum(prevSubThreadNum);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setCompactionDeviceSubThreadMemoryBudget(prevMemoryBudget);
+    }
+  }
+
   /** just compaction stable list */
   @Test
   public void testCompactionMergeStableList() throws IllegalPathException, IOException {
@@ -18,11 +18,15 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
 import org.apache.iotdb.db.engine.flush.MemTableFlushTask;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
@@ -33,10 +37,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class MemTableFlushTaskTest {
 
@@ -104,6 +111,81 @@ public class MemTableFlushTaskTest {
     assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
   }
 
+  @Test
+  public void testFlushMemTableWithParallelEncoding()
+      throws ExecutionException, InterruptedException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int defaultEncodingThreadNum = config.getEncodingThreadNumForFlushing();
+    config.setEncodingThreadNumForFlushing(4);
+    try {
+      int deviceNum = 3;
+      int measurementNum = 10;
+      for (int i = 0; i < deviceNum; i++) {
+        for (int j = 0; j < measurementNum; j++) {
+          MemTableTestUtils.produceData(
+              memTable, startTime, endTime + j, "d" + i, "s" + j, MemTableTestUtils.dataType0);
+        }
+      }
+      MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable, writer, storageGroup);
+      memTableFlushTask.syncFlushMemTable();
+      writer.makeMetadataVisible();
+
+      for (int i = 0; i < deviceNum; i++) {
+        for (int j = 0; j < measurementNum; j++) {
+          List<ChunkMetadata> chunkMetadataList =
+              writer.getVisibleMetadataList("d" + i, "s" + j, MemTableTestUtils.dataType0);
+          assertEquals(1, chunkMetadataList.size());
+          assertEquals(startTime, chunkMetadataList.get(0).getStartTime());
+          assertEquals(endTime + j, chunkMetadataList.get(0).getEndTime());
+          assertEquals(endTime + j - startTime + 1, chunkMetadataList.get(0).getNumOfPoints());
+        }
+      }
+    } finally {
+      config.setEncodingThreadNumForFlushing(defaultEncodingThreadNum);
+    }
+  }
+
+  @Test(timeout = 60_000)
+  public void testEncodingFailureWithMemControl() throws InterruptedException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean defaultEnableMemControl = config.isEnableMemControl();
+    int defaultIoTaskQueueSize = config.getIoTaskQueueSizeForFlushing();
+    config.setEnableMemControl(true);
+    // the io task queue is full after the first series
+    config.setIoTaskQueueSizeForFlushing(1);
+    SystemInfo.getInstance().setEncodingFasterThanIo(true);
+    try {
+      for (int i = 0; i < 3; i++) {
+        for (int j = 0; j < 10; j++) {
+          MemTableTestUtils.produceData(
+              memTable, startTime, endTime, "d" + i, "s" + j, MemTableTestUtils.dataType0);
+        }
+      }
+      // the values no longer match the schemas, so encoding any series fails
+      for (Map<String, IWritableMemChunk> memChunks : memTable.getMemTableMap().values()) {
+        for (Map.Entry<String, IWritableMemChunk> entry : memChunks.entrySet()) {
+          TVList booleans = TVList.newList(TSDataType.BOOLEAN);
+          IWritableMemChunk memChunk = new WritableMemChunk(entry.getValue().getSchema(), booleans);
+          for (long time = startTime; time <= endTime; time++) {
+            memChunk.putBoolean(time, true);
+          }
+          entry.setValue(memChunk);
+        }
+      }
+
+      MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable, writer, storageGroup);
+      try {
+        memTableFlushTask.syncFlushMemTable();
+        fail("The flush should fail");
+      } catch (ExecutionException e) {
+        // expected
+      }
+    } finally {
+      config.setEnableMemControl(defaultEnableMemControl);
+      config.setIoTaskQueueSizeForFlushing(defaultIoTaskQueueSize);
+    }
+  }
+
   @Test
   public void testFlushVectorMemTable()
       throws ExecutionException, InterruptedException, IllegalPathException, IOException {
@@ -19,6 +19,8 @@
 
 package org.apache.iotdb.db.engine.merge;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.task.MergeMultiChunkTask;
 import org.apache.iotdb.db.engine.merge.task.MergeTask;
@@ -43,6 +45,39 @@ public class MergeManagerTest extends MergeTest {
     assertTrue((System.currentTimeMillis() - startTime) >= 9000);
   }
 
+  @Test
+  public void testShareWriteThroughputWithFlush() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean prevShareWithFlush = config.isShareMergeWriteThroughputWithFlush();
+    config.setShareMergeWriteThroughputWithFlush(true);
+    try {
+      MergeManager mergeManager = MergeManager.getINSTANCE();
+      RateLimiter compactionRateLimiter = mergeManager.getMergeWriteRateLimiter();
+      long startTime = System.currentTimeMillis();
+      // a flush never waits, and owes at most one second of the throughput
+      mergeManager.recordFlushWrite(160 * 1024 * 1024L);
+      assertTrue((System.currentTimeMillis() - startTime) <= 1000);
+      mergeManager.acquireWriteThroughput(compactionRateLimiter, 1);
+      mergeManager.acquireWriteThroughput(compactionRateLimiter, 1);
+      long timeCost = System.currentTimeMillis() - startTime;
+      assertTrue(timeCost >= 900 && timeCost < 9000);
+    } finally {
+      config.setShareMergeWriteThroughputWithFlush(prevShareWithFlush);
+    }
+  }
+
+  @Test
+  public void testWriteAmplification() {
+    MergeManager mergeManager = MergeManager.getINSTANCE();
+    long flushWrittenBytes = mergeManager.getFlushWrittenBytes();
+    long mergeWrittenBytes = mergeManager.getMergeWrittenBytes();
+    mergeManager.recordFlushWrite(1024);
+    mergeManager.acquireWriteThroughput(RateLimiter.create(Double.MAX_VALUE), 2048);
+    assertEquals(flushWrittenBytes + 1024, mergeManager.getFlushWrittenBytes());
+    assertEquals(mergeWrittenBytes + 2048, mergeManager.getMergeWrittenBytes());
+    assertTrue(mergeManager.getWriteAmplification() > 1);
+  }
+
   @Test
   public void testGenMergeReport() {
     FakedMergeMultiChunkTask chunkTask = new FakedMergeMultiChunkTask();
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TsFileRollupTest {
+
+  private static final long[] INTERVALS = {10, 100};
+  private static final String DEVICE = "root.sg.d1";
+
+  private final File tsFile =
+      new File(TestConstant.BASE_OUTPUT_PATH.concat("rollup-test").concat(".tsfile"));
+
+  @Before
+  public void setUp() {
+    tsFile.getParentFile().mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    TsFileRollup.remove(tsFile);
+  }
+
+  private TVList longList(long startTime, long endTime) {
+    TVList tvList = TVList.newList(TSDataType.INT64);
+    for (long time = endTime - 1; time >= startTime; time--) {
+      tvList.putLong(time, time * 2);
+    }
+    tvList.sort();
+    return tvList;
+  }
+
+  private Statistics query(SeriesRollup rollup, long interval, long startTime, long endTime) {
+    Statistics statistics = Statistics.getStatsByType(rollup.getDataType());
+    assertTrue(rollup.mergeBucketsInto(interval, startTime, endTime, statistics));
+    return statistics;
+  }
+
+  @Test
+  public void testUpdate() {
+    TsFileRollup rollup = new TsFileRollup(INTERVALS);
+    rollup.update(DEVICE, "s1", longList(5, 250));
+    SeriesRollup seriesRollup = rollup.getSeriesRollup(DEVICE, "s1");
+
+    Statistics statistics = query(seriesRollup, 10, 10, 30);
+    assertEquals(20, statistics.getCount());
+    assertEquals(10, statistics.getStartTime());
+    assertEquals(29, statistics.getEndTime());
+    assertEquals(20L, statistics.getMinValue());
+    assertEquals(58L, statistics.getMaxValue());
+    assertEquals(20L, statistics.getFirstValue());
+    assertEquals(58L, statistics.getLastValue());
+    assertEquals((20 + 58) * 10, statistics.getSumDoubleValue(), 0);
+
+    // the first bucket only has part of its points
+    statistics = query(seriesRollup, 100, 0, 100);
+    assertEquals(95, statistics.getCount());
+    assertEquals(10L, statistics.getFirstValue());
+
+    Statistics empty = Statistics.getStatsByType(TSDataType.INT64);
+    assertFalse(seriesRollup.mergeBucketsInto(10, 300, 400, empty));
+    assertFalse(seriesRollup.mergeBucketsInto(50, 0, 100, empty));
+    assertNull(rollup.getSeriesRollup(DEVICE, "s2"));
+  }
+
+  @Test
+  public void testDuplicatedTime() {
+    TVList tvList = TVList.newList(TSDataType.DOUBLE);
+    tvList.putDouble(1, 1.0);
+    tvList.putDouble(2, 2.0);
+    tvList.putDouble(1, 3.0);
+    tvList.sort();
+    SeriesRollup rollup = new SeriesRollup(TSDataType.DOUBLE, INTERVALS);
+    rollup.update(tvList);
+
+    Statistics statistics = query(rollup, 10, 0, 10);
+    assertEquals(2, statistics.getCount());
+    assertEquals(3.0, (double) statistics.getFirstValue(), 0);
+    assertEquals(5.0, statistics.getSumDoubleValue(), 0);
+  }
+
+  @Test
+  public void testMerge() {
+    // two memtables of a sequence file sharing the bucket [100, 200)
+    TsFileRollup rollup = new TsFileRollup(INTERVALS);
+    rollup.update(DEVICE, "s1", longList(0, 150));
+    TsFileRollup other = new TsFileRollup(INTERVALS);
+    other.update(DEVICE, "s1", longList(150, 300));
+    other.update(DEVICE, "s2", longList(0, 10));
+    rollup.merge(other);
+
+    Statistics statistics = query(rollup.getSeriesRollup(DEVICE, "s1"), 100, 100, 200);
+    assertEquals(100, statistics.getCount());
+    assertEquals(200L, statistics.getFirstValue());
+    assertEquals(398L, statistics.getLastValue());
+    assertEquals(10, query(rollup.getSeriesRollup(DEVICE, "s2"), 10, 0, 10).getCount());
+
+    // an interval missing in one of the rollups is dropped
+    TsFileRollup coarse = new TsFileRollup(new long[] {100});
+    coarse.update(DEVICE, "s1", longList(300, 400));
+    rollup.merge(coarse);
+    SeriesRollup seriesRollup = rollup.getSeriesRollup(DEVICE, "s1");
+    assertFalse(seriesRollup.hasInterval(10));
+    assertEquals(400, query(seriesRollup, 100, 0, 400).getCount());
+  }
+
+  @Test
+  public void testSerialize() throws IOException {
+    TsFileRollup rollup = new TsFileRollup(INTERVALS);
+    rollup.update(DEVICE, "s1", longList(0, 1000));
+    rollup.update(DEVICE, "s2", longList(0, 10));
+    rollup.update("root.sg.d2", "s1", longList(50, 60));
+    rollup.serialize(tsFile);
+    assertTrue(TsFileRollup.exists(tsFile));
+
+    TsFileResource resource = new TsFileResource(tsFile);
+    SeriesRollup seriesRollup = TsFileRollup.readSeriesRollup(resource, "root.sg.d2", "s1");
+    Statistics statistics = query(seriesRollup, 10, 50, 60);
+    assertEquals(10, statistics.getCount());
+    assertEquals(118L, statistics.getMaxValue());
+    assertNull(TsFileRollup.readSeriesRollup(resource, "root.sg.d2", "s2"));
+    assertNull(TsFileRollup.readSeriesRollup(resource, "root.sg.d3", "s1"));
+    // the index is loaded once and reused for the other series
+    RollupIndex index = resource.getRollupIndex();
+    assertNotNull(index);
+    statistics = query(TsFileRollup.readSeriesRollup(resource, DEVICE, "s2"), 10, 0, 10);
+    assertEquals(10, statistics.getCount());
+    assertSame(index, resource.getRollupIndex());
+
+    TsFileRollup deserialized = TsFileRollup.deserialize(tsFile, INTERVALS);
+    statistics = query(deserialized.getSeriesRollup(DEVICE, "s1"), 100, 0, 1000);
+    assertEquals(1000, statistics.getCount());
+    assertEquals(1998L, statistics.getLastValue());
+
+    TsFileRollup.remove(resource);
+    assertFalse(TsFileRollup.exists(tsFile));
+    assertNull(resource.getRollupIndex());
+  }
+}
@@ -64,6 +64,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class StorageGroupProcessorTest {
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
@@ -155,6 +158,68 @@ public class StorageGroupProcessorTest {
     }
   }
 
+  @Test
+  public void testConcurrentInsert() throws Exception {
+    boolean defaultValue = config.isEnableConcurrentInsert();
+    config.setEnableConcurrentInsert(true);
+    StorageGroupProcessor concurrentProcessor = new DummySGP(systemDir, "root.vehicle.d1");
+    int deviceNum = 4;
+    int rowNum = 1000;
+    ExecutorService pool = Executors.newFixedThreadPool(deviceNum);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < deviceNum; i++) {
+        String device = "root.vehicle.d1.c" + i;
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int j = 1; j <= rowNum; j++) {
+                    TSRecord record = new TSRecord(j, device);
+                    record.addTuple(
+                        DataPoint.getDataPoint(
+                            TSDataType.INT32, measurementId, String.valueOf(j)));
+                    concurrentProcessor.insert(new InsertRowPlan(record));
+                  }
+                  return null;
+                }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+
+      for (int i = 0; i < deviceNum; i++) {
+        String device = "root.vehicle.d1.c" + i;
+        List<TsFileResource> tsfileResourcesForQuery = new ArrayList<>();
+        for (TsFileProcessor tsfileProcessor :
+            concurrentProcessor.getWorkSequenceTsFileProcessors()) {
+          tsfileProcessor.query(
+              device,
+              measurementId,
+              new MeasurementSchema(
+                  measurementId,
+                  TSDataType.INT32,
+                  TSEncoding.RLE,
+                  CompressionType.UNCOMPRESSED,
+                  Collections.emptyMap()),
+              new QueryContext(),
+              tsfileResourcesForQuery);
+        }
+        long time = 1;
+        for (ReadOnlyMemChunk memChunk : tsfileResourcesForQuery.get(0).getReadOnlyMemChunk()) {
+          IPointReader iterator = memChunk.getPointReader();
+          while (iterator.hasNextTimeValuePair()) {
+            Assert.assertEquals(time++, iterator.nextTimeValuePair().getTimestamp());
+          }
+        }
+        Assert.assertEquals(rowNum + 1, time);
+      }
+    } finally {
+      pool.shutdownNow();
+      concurrentProcessor.syncDeleteDataFiles();
+      config.setEnableConcurrentInsert(defaultValue);
+    }
+  }
+
   @Test
   public void testSequenceSyncClose()
       throws WriteProcessException, QueryProcessException, IllegalPathException,
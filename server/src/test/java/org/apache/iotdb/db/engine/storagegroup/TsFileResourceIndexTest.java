@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TsFileResourceIndexTest {
+
+  private static final String DEVICE = "root.sg.d1";
+  private static final String OTHER_DEVICE = "root.sg.d2";
+
+  private final TsFileResourceIndex index = new TsFileResourceIndex();
+
+  private TsFileResource newResource(int version, long startTime, long endTime, boolean closed) {
+    String fileName = version + "-" + version + "-0-0" + TsFileConstant.TSFILE_SUFFIX;
+    TsFileResource resource = new TsFileResource(new File(fileName));
+    resource.updateStartTime(DEVICE, startTime);
+    if (closed) {
+      resource.updateEndTime(DEVICE, endTime);
+    }
+    resource.setClosed(closed);
+    return resource;
+  }
+
+  @Test
+  public void testAddAndRemove() {
+    TsFileResource file1 = newResource(1, 0, 99, true);
+    TsFileResource file2 = newResource(2, 100, 199, true);
+    TsFileResource file3 = newResource(3, 200, 299, true);
+    // added out of order, returned in the order of the start time
+    index.add(file3);
+    index.add(file1);
+    index.add(file2);
+
+    assertEquals(Arrays.asList(file2, file3), index.query(DEVICE, 150, 250));
+    assertEquals(Collections.singletonList(file1), index.query(DEVICE, 99, 99));
+    assertTrue(index.query(DEVICE, 300, 400).isEmpty());
+    assertTrue(index.query(OTHER_DEVICE, 0, 400).isEmpty());
+
+    // adding a file again does not duplicate it
+    index.add(file2);
+    assertEquals(Arrays.asList(file1, file2, file3), index.query(DEVICE, 0, 400));
+
+    index.remove(file2);
+    assertEquals(Collections.singletonList(file3), index.query(DEVICE, 150, 250));
+    index.removeAll(Arrays.asList(file1, file3));
+    assertTrue(index.query(DEVICE, 0, 400).isEmpty());
+
+    // removing a file that is not indexed is harmless
+    index.remove(file2);
+    assertTrue(index.query(DEVICE, 0, 400).isEmpty());
+  }
+
+  @Test
+  public void testQueryWithUnsealedFiles() {
+    TsFileResource file1 = newResource(1, 0, 99, true);
+    TsFileResource file2 = newResource(2, 100, 199, true);
+    // the end time of an unsealed file is not decided yet
+    TsFileResource unsealed = newResource(3, 200, 299, false);
+    index.add(unsealed);
+    index.add(file2);
+    index.add(file1);
+
+    // the unsealed file is returned whatever the range is, after the sealed files before it
+    assertEquals(Arrays.asList(file1, unsealed), index.query(DEVICE, 0, 50));
+    assertEquals(Collections.singletonList(unsealed), index.query(OTHER_DEVICE, 0, 50));
+    assertEquals(Arrays.asList(file2, unsealed), index.query(DEVICE, 150, 1000));
+
+    // once sealed, the file is indexed by its final time range
+    unsealed.updateEndTime(DEVICE, 299);
+    unsealed.setClosed(true);
+    assertEquals(Collections.singletonList(unsealed), index.query(DEVICE, 250, 260));
+    assertEquals(Collections.singletonList(file1), index.query(DEVICE, 0, 50));
+    assertTrue(index.query(OTHER_DEVICE, 0, 50).isEmpty());
+  }
+
+  @Test
+  public void testTimeRangeChangedAfterIndexed() {
+    TsFileResource file1 = newResource(1, 0, 99, true);
+    TsFileResource file2 = newResource(2, 100, 199, true);
+    index.add(file1);
+    index.add(file2);
+
+    // like a merge, the time ranges of the file are replaced and the file is added again
+    file1.putStartTime(DEVICE, 300);
+    file1.putEndTime(DEVICE, 399);
+    file1.updateStartTime(OTHER_DEVICE, 300);
+    file1.updateEndTime(OTHER_DEVICE, 350);
+    index.add(file1);
+
+    assertTrue(index.query(DEVICE, 0, 99).isEmpty());
+    assertEquals(Collections.singletonList(file1), index.query(DEVICE, 350, 360));
+    assertEquals(Arrays.asList(file2, file1), index.query(DEVICE, 0, 400));
+    assertEquals(Collections.singletonList(file1), index.query(OTHER_DEVICE, 0, 400));
+
+    // a file is also re-indexed when it is unsealed and added again
+    file2.setClosed(false);
+    index.add(file2);
+    assertEquals(Collections.singletonList(file2), index.query(OTHER_DEVICE, 0, 50));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.storagegroup.timeindex;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DeviceTimeIndexTest {
+
+  @Test
+  public void testReadWhileEnlarging() throws InterruptedException {
+    DeviceTimeIndex timeIndex = new DeviceTimeIndex();
+    int deviceNum = DeviceTimeIndex.INIT_ARRAY_SIZE * 16;
+    AtomicBoolean finished = new AtomicBoolean(false);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+
+    // readers query the registered devices while the arrays are enlarged by the writer
+    Thread reader =
+        new Thread(
+            () -> {
+              try {
+                while (!finished.get()) {
+                  for (String device : timeIndex.getDevices(null)) {
+                    timeIndex.getStartTime(device);
+                    timeIndex.getEndTime(device);
+                  }
+                }
+              } catch (Throwable e) {
+                error.set(e);
+              }
+            });
+    reader.start();
+    for (int i = 0; i < deviceNum; i++) {
+      timeIndex.updateStartTime("root.sg.d" + i, i);
+      timeIndex.updateEndTime("root.sg.d" + i, i + 1);
+    }
+    finished.set(true);
+    reader.join();
+
+    assertNull(error.get());
+    for (int i = 0; i < deviceNum; i++) {
+      assertEquals(i, timeIndex.getStartTime("root.sg.d" + i));
+      assertEquals(i + 1, timeIndex.getEndTime("root.sg.d" + i));
+    }
+    assertEquals(Long.MAX_VALUE, timeIndex.getStartTime("root.sg.unknown"));
+    assertEquals(Long.MIN_VALUE, timeIndex.getEndTime("root.sg.unknown"));
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.integration;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.jdbc.Config;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.apache.iotdb.db.constant.TestConstant.TIMESTAMP_STR;
+import static org.apache.iotdb.db.constant.TestConstant.count;
+import static org.apache.iotdb.db.constant.TestConstant.first_value;
+import static org.apache.iotdb.db.constant.TestConstant.last_value;
+import static org.apache.iotdb.db.constant.TestConstant.max_value;
+import static org.apache.iotdb.db.constant.TestConstant.min_value;
+import static org.apache.iotdb.db.constant.TestConstant.sum;
+import static org.junit.Assert.fail;
+
+/** Group by queries answered from rollups must return the same results as from raw data. */
+public class IoTDBRollupIT {
+
+  private static final String SERIES = "root.sg1.d1.s1";
+  private static final String AGGREGATIONS =
+      "select count(s1), sum(s1), min_value(s1), max_value(s1), first_value(s1), last_value(s1) "
+          + "from root.sg1.d1 ";
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private boolean enableRollup;
+  private long[] rollupIntervals;
+  private boolean enableUnseqCompaction;
+
+  /** the expected points of the series */
+  private final NavigableMap<Long, Long> points = new TreeMap<>();
+
+  @Before
+  public void setUp() throws Exception {
+    Class.forName(Config.JDBC_DRIVER_NAME);
+    EnvironmentUtils.closeStatMonitor();
+    enableRollup = config.isEnableRollup();
+    rollupIntervals = config.getRollupIntervals();
+    enableUnseqCompaction = config.isEnableUnseqCompaction();
+    config.setEnableRollup(true);
+    config.setRollupIntervals(new long[] {10, 100});
+    config.setEnableUnseqCompaction(false);
+    EnvironmentUtils.envSetUp();
+    prepareData();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setEnableRollup(enableRollup);
+    config.setRollupIntervals(rollupIntervals);
+    config.setEnableUnseqCompaction(enableUnseqCompaction);
+  }
+
+  /** two sequence files, [0, 150) and [150, 300), so the bucket [100, 200) spans both */
+  private void prepareData() throws Exception {
+    try (Connection connection =
+            DriverManager.getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      statement.execute("SET STORAGE GROUP TO root.sg1");
+      statement.execute("CREATE TIMESERIES root.sg1.d1.s1 WITH DATATYPE=INT64, ENCODING=RLE");
+      for (long time = 0; time < 300; time++) {
+        insert(statement, time, time * 3 - 100);
+        if (time == 149) {
+          statement.execute("flush");
+        }
+      }
+      statement.execute("flush");
+    }
+  }
+
+  private void insert(Statement statement, long time, long value) throws Exception {
+    statement.execute(
+        String.format("INSERT INTO root.sg1.d1(time,s1) values(%d, %d)", time, value));
+    points.put(time, value);
+  }
+
+  @Test
+  public void testAlignedWindows() throws Exception {
+    for (TsFileResource resource :
+        StorageEngine.getInstance()
+            .getProcessor(new PartialPath("root.sg1"))
+            .getSequenceFileTreeSet()) {
+      Assert.assertTrue(TsFileRollup.exists(resource.getTsFile()));
+    }
+    checkGroupBy(0, 300, 100, 100);
+    checkGroupBy(0, 300, 10, 10);
+    checkGroupBy(0, 600, 200, 200);
+  }
+
+  @Test
+  public void testUnalignedWindows() {
+    checkGroupBy(5, 295, 30, 30);
+    checkGroupBy(0, 300, 10, 20);
+    checkGroupBy(0, 290, 100, 100);
+  }
+
+  @Test
+  public void testDeletionAndUnsequenceData() throws Exception {
+    try (Connection connection =
+            DriverManager.getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      statement.execute("DELETE FROM root.sg1.d1.s1 WHERE time >= 50 and time < 60");
+      points.subMap(50L, 60L).clear();
+      // overwrite a point of the first file and add one to the second file
+      insert(statement, 120, -1000);
+      insert(statement, 250, 100000);
+      statement.execute("flush");
+    }
+    checkGroupBy(0, 300, 100, 100);
+    checkGroupBy(0, 300, 10, 10);
+  }
+
+  @Test
+  public void testDescendingWindows() throws Exception {
+    try (Connection connection =
+            DriverManager.getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      // an unsequence point in the last window, so the others are calculated from rollups
+      insert(statement, 295, 100000);
+      statement.execute("flush");
+    }
+    checkDescendingGroupBy(0, 300, 100, 100);
+    checkDescendingGroupBy(0, 300, 10, 10);
+    checkDescendingGroupBy(0, 300, 10, 20);
+    checkDescendingGroupBy(5, 295, 30, 30);
+  }
+
+  /** check a group by in descending order against both the expected and the no-rollup results */
+  private void checkDescendingGroupBy(
+      long startTime, long endTime, long interval, long slidingStep) {
+    String sql =
+        String.format(
+            "%sgroup by ([%d, %d), %dms, %dms) order by time desc",
+            AGGREGATIONS, startTime, endTime, interval, slidingStep);
+    List<String> expected = expectedWindows(startTime, endTime, interval, slidingStep);
+    Collections.reverse(expected);
+
+    List<String> withRollup = query(sql);
+    config.setEnableRollup(false);
+    List<String> withoutRollup;
+    try {
+      withoutRollup = query(sql);
+    } finally {
+      config.setEnableRollup(true);
+    }
+    Assert.assertEquals(sql, expected, withRollup);
+    Assert.assertEquals(sql, withoutRollup, withRollup);
+  }
+
+  private void checkGroupBy(long startTime, long endTime, long interval, long slidingStep) {
+    String sql =
+        String.format(
+            "%sgroup by ([%d, %d), %dms, %dms)",
+            AGGREGATIONS, startTime, endTime, interval, slidingStep);
+    Assert.assertEquals(
+        sql, expectedWindows(startTime, endTime, interval, slidingStep), query(sql));
+  }
+
+  private List<String> expectedWindows(
+      long startTime, long endTime, long interval, long slidingStep) {
+    List<String> expected = new ArrayList<>();
+    for (long windowStart = startTime; windowStart < endTime; windowStart += slidingStep) {
+      expected.add(expectedWindow(windowStart, Math.min(windowStart + interval, endTime)));
+    }
+    return expected;
+  }
+
+  private List<String> query(String sql) {
+    List<String> actual = new ArrayList<>();
+    try (Connection connection =
+            DriverManager.getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      Assert.assertTrue(statement.execute(sql));
+      try (ResultSet resultSet = statement.getResultSet()) {
+        while (resultSet.next()) {
+          String sumString = resultSet.getString(sum(SERIES));
+          actual.add(
+              String.join(
+                  ",",
+                  resultSet.getString(TIMESTAMP_STR),
+                  resultSet.getString(count(SERIES)),
+                  sumString == null ? null : Long.toString((long) Double.parseDouble(sumString)),
+                  resultSet.getString(min_value(SERIES)),
+                  resultSet.getString(max_value(SERIES)),
+                  resultSet.getString(first_value(SERIES)),
+                  resultSet.getString(last_value(SERIES))));
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail(e.getMessage());
+    }
+    return actual;
+  }
+
+  private String expectedWindow(long startTime, long endTime) {
+    NavigableMap<Long, Long> window = points.subMap(startTime, true, endTime, false);
+    if (window.isEmpty()) {
+      return String.join(",", Long.toString(startTime), "0", null, null, null, null, null);
+    }
+    long sum = 0;
+    for (long value : window.values()) {
+      sum += value;
+    }
+    return String.join(
+        ",",
+        Long.toString(startTime),
+        Integer.toString(window.size()),
+        Long.toString(sum),
+        Long.toString(window.values().stream().mapToLong(Long::longValue).min().getAsLong()),
+        Long.toString(window.values().stream().mapToLong(Long::longValue).max().getAsLong()),
+        Long.toString(window.firstEntry().getValue()),
+        Long.toString(window.lastEntry().getValue()));
+  }
+}
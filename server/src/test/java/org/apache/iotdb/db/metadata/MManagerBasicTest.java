@@ -1313,6 +1313,43 @@ public class MManagerBasicTest {
     }
   }
 
+  @Test
+  public void testShowTimeseriesWithTagAndLimit() throws MetadataException {
+    MManager manager = IoTDB.metaManager;
+    for (int i = 0; i < 10; i++) {
+      manager.createTimeseries(
+          new CreateTimeSeriesPlan(
+              new PartialPath("root.laptop.d1.s" + i),
+              TSDataType.INT32,
+              TSEncoding.RLE,
+              compressionType,
+              null,
+              Collections.singletonMap("room", i % 2 == 0 ? "even" : "odd"),
+              null,
+              null));
+    }
+
+    // s0, s2, s4, s6, s8 match, and the page is taken from them in alphabetical order
+    ShowTimeSeriesPlan showTimeSeriesPlan =
+        new ShowTimeSeriesPlan(new PartialPath("root.laptop"), false, "room", "even", 2, 1, false);
+    List<ShowTimeSeriesResult> result =
+        manager.showTimeseries(showTimeSeriesPlan, new QueryContext());
+    assertEquals(2, result.size());
+    assertEquals("root.laptop.d1.s2", result.get(0).getName());
+    assertEquals("root.laptop.d1.s4", result.get(1).getName());
+
+    showTimeSeriesPlan =
+        new ShowTimeSeriesPlan(new PartialPath("root.laptop"), false, "room", "even", 0, 0, false);
+    result = manager.showTimeseries(showTimeSeriesPlan, new QueryContext());
+    assertEquals(5, result.size());
+
+    // ordered by heat, the page is taken after sorting all the matched timeseries
+    showTimeSeriesPlan =
+        new ShowTimeSeriesPlan(new PartialPath("root.laptop"), false, "room", "odd", 3, 3, true);
+    result = manager.showTimeseries(showTimeSeriesPlan, new QueryContext());
+    assertEquals(2, result.size());
+  }
+
   @Test
   public void testCountTimeseriesWithTemplate() {
     List<List<String>> measurementList = new ArrayList<>();
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.metadata.lastCache.container;
+
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LastCacheContainerTest {
+
+  @Test
+  public void testUpdatePriority() {
+    LastCacheContainer container = new LastCacheContainer();
+    Assert.assertTrue(container.isEmpty());
+
+    // a seq insertion older than the flushed data can not fill an empty cache
+    container.updateCachedLast(pair(5, 5), true, 10L);
+    Assert.assertNull(container.getCachedLast());
+
+    container.updateCachedLast(pair(10, 10), true, 10L);
+    Assert.assertEquals(10, container.getCachedLast().getValue().getLong());
+
+    // a last query with the same timestamp does not overwrite an insertion
+    container.updateCachedLast(pair(10, 11), false, Long.MIN_VALUE);
+    Assert.assertEquals(10, container.getCachedLast().getValue().getLong());
+    container.updateCachedLast(pair(10, 12), true, 10L);
+    Assert.assertEquals(12, container.getCachedLast().getValue().getLong());
+
+    container.updateCachedLast(pair(8, 8), true, 10L);
+    Assert.assertEquals(10, container.getCachedLast().getTimestamp());
+    container.updateCachedLast(pair(20, 20), false, Long.MIN_VALUE);
+    Assert.assertEquals(20, container.getCachedLast().getTimestamp());
+
+    container.resetLastCache();
+    Assert.assertTrue(container.isEmpty());
+    Assert.assertNull(container.getCachedLast());
+  }
+
+  @Test
+  public void testVector() {
+    LastCacheContainer container = new LastCacheContainer();
+    container.init(3);
+    Assert.assertFalse(container.isEmpty());
+
+    container.updateCachedLast(1, pair(10, 10), true, Long.MIN_VALUE);
+    container.updateCachedLast(2, pair(20, 20), true, Long.MIN_VALUE);
+    Assert.assertNull(container.getCachedLast(0));
+    Assert.assertEquals(10, container.getCachedLast(1).getTimestamp());
+    Assert.assertEquals(20, container.getCachedLast(2).getTimestamp());
+
+    // init again keeps the cached points
+    container.init(3);
+    Assert.assertEquals(10, container.getCachedLast(1).getTimestamp());
+
+    container.resetLastCache(1);
+    Assert.assertNull(container.getCachedLast(1));
+    Assert.assertEquals(20, container.getCachedLast(2).getTimestamp());
+
+    container.resetLastCache();
+    Assert.assertNull(container.getCachedLast(2));
+  }
+
+  @Test
+  public void testConcurrentUpdate() throws InterruptedException {
+    LastCacheContainer container = new LastCacheContainer();
+    container.init(2);
+    int threadNum = 4;
+    int pointNum = 10000;
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadNum; t++) {
+      int offset = t;
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int i = 0; i < pointNum; i++) {
+                  long time = (long) i * threadNum + offset;
+                  container.updateCachedLast(pair(time, time), true, Long.MIN_VALUE);
+                  container.updateCachedLast(1, pair(time, time), false, Long.MIN_VALUE);
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    long expected = (long) pointNum * threadNum - 1;
+    Assert.assertEquals(expected, container.getCachedLast().getTimestamp());
+    Assert.assertEquals(expected, container.getCachedLast().getValue().getLong());
+    Assert.assertEquals(expected, container.getCachedLast(1).getTimestamp());
+    Assert.assertNull(container.getCachedLast(0));
+  }
+
+  private static TimeValuePair pair(long time, long value) {
+    return new TimeValuePair(time, new TsPrimitiveType.TsLong(value));
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.schemafile;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.mnode.EntityMNode;
+import org.apache.iotdb.db.metadata.mnode.IMNode;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaFileCacheTest {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final int DEVICE_NUM = 10;
+  private static final int TIMESERIES_NUM = 10;
+
+  private boolean enableSchemaFile;
+  private long schemaFileCacheSize;
+  private MManager mManager;
+
+  @Before
+  public void setUp() throws Exception {
+    enableSchemaFile = config.isEnableSchemaFile();
+    schemaFileCacheSize = config.getSchemaFileCacheSize();
+    config.setEnableSchemaFile(true);
+    // only two devices fit in the cache
+    config.setSchemaFileCacheSize(2 * TIMESERIES_NUM);
+    EnvironmentUtils.envSetUp();
+    mManager = IoTDB.metaManager;
+
+    mManager.setStorageGroup(new PartialPath("root.sg"));
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      for (int j = 0; j < TIMESERIES_NUM; j++) {
+        mManager.createTimeseries(
+            new CreateTimeSeriesPlan(
+                new PartialPath("root.sg.d" + i + ".s" + j),
+                TSDataType.INT64,
+                TSEncoding.RLE,
+                CompressionType.SNAPPY,
+                null,
+                j == 0 ? Collections.singletonMap("tag", "v" + i) : null,
+                null,
+                j == 0 ? "alias" : null));
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setEnableSchemaFile(enableSchemaFile);
+    config.setSchemaFileCacheSize(schemaFileCacheSize);
+  }
+
+  @Test
+  public void testAccessEvictedMeasurements() throws MetadataException {
+    assertTrue(SchemaFileCache.getInstance().isEnabled());
+    checkAllTimeseries();
+
+    mManager.deleteTimeseries(new PartialPath("root.sg.d0.s1"));
+    // evict d0 again
+    checkMeasurements(1, DEVICE_NUM);
+    assertFalse(mManager.isPathExist(new PartialPath("root.sg.d0.s1")));
+    assertTrue(mManager.isPathExist(new PartialPath("root.sg.d0.s2")));
+    assertEquals(
+        DEVICE_NUM * TIMESERIES_NUM - 1,
+        mManager.getAllTimeseriesCount(new PartialPath("root.sg")));
+  }
+
+  @Test
+  public void testModifyEvictedMeasurement() throws MetadataException {
+    IMeasurementMNode measurement =
+        (IMeasurementMNode) mManager.getNodeByPath(new PartialPath("root.sg.d0.s1"));
+    // evict d0, the measurement held here is detached from the MTree
+    checkMeasurements(1, DEVICE_NUM);
+    measurement.setOffset(100);
+    checkMeasurements(1, DEVICE_NUM);
+
+    measurement = (IMeasurementMNode) mManager.getNodeByPath(new PartialPath("root.sg.d0.s1"));
+    assertEquals(100, measurement.getOffset());
+  }
+
+  @Test
+  public void testRecoverFromSnapshot() throws MetadataException {
+    mManager.createMTreeSnapshot();
+    mManager.clear();
+    mManager.init();
+    assertTrue(SchemaFileCache.getInstance().isEnabled());
+    checkAllTimeseries();
+  }
+
+  @Test
+  public void testHotDeviceStaysCached() throws MetadataException {
+    PartialPath hotPath = new PartialPath("root.sg.d0.s0");
+    IMNode hotMeasurement = mManager.getNodeByPath(hotPath);
+    // the read that loads d0 is not counted as an access
+    assertSame(hotMeasurement, mManager.getNodeByPath(hotPath));
+    for (int i = 1; i < DEVICE_NUM; i++) {
+      // each of the other devices is read once, and evicted before d0
+      IMNode measurement = mManager.getNodeByPath(new PartialPath("root.sg.d" + i + ".s0"));
+      assertEquals("s0", measurement.getName());
+      assertSame(hotMeasurement, mManager.getNodeByPath(hotPath));
+    }
+  }
+
+  @Test
+  public void testSnapshotNotLoadingEvicted() throws MetadataException {
+    // evict d0
+    checkMeasurements(1, DEVICE_NUM);
+    EntityMNode entity = (EntityMNode) mManager.getNodeByPath(new PartialPath("root.sg.d0"));
+    assertEquals(0, entity.countLoadedMeasurements());
+
+    mManager.createMTreeSnapshot();
+    assertEquals(0, entity.countLoadedMeasurements());
+    checkAllTimeseries();
+  }
+
+  @Test
+  public void testRecoverWithoutRewrite() throws MetadataException {
+    // write the measurements of all devices into the schema file
+    checkMeasurements(0, DEVICE_NUM);
+    checkMeasurements(0, DEVICE_NUM);
+    mManager.createMTreeSnapshot();
+    File schemaFile =
+        SystemFileFactory.INSTANCE.getFile(
+            config.getSchemaDir() + File.separator + MetadataConstant.SCHEMA_FILE);
+    long schemaFileLength = schemaFile.length();
+    mManager.clear();
+    mManager.init();
+
+    // the evicted measurements are neither loaded nor written again
+    EntityMNode entity = (EntityMNode) mManager.getNodeByPath(new PartialPath("root.sg.d0"));
+    assertEquals(0, entity.countLoadedMeasurements());
+    assertEquals(schemaFileLength, schemaFile.length());
+    checkAllTimeseries();
+    assertEquals(schemaFileLength, schemaFile.length());
+  }
+
+  private void checkAllTimeseries() throws MetadataException {
+    checkMeasurements(0, DEVICE_NUM);
+    assertEquals(
+        DEVICE_NUM * TIMESERIES_NUM, mManager.getAllTimeseriesCount(new PartialPath("root.sg")));
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      PartialPath path = new PartialPath("root.sg.d" + i + ".alias");
+      assertTrue(mManager.isPathExist(path));
+      IMeasurementMNode measurement = (IMeasurementMNode) mManager.getNodeByPath(path);
+      assertEquals("s0", measurement.getName());
+      assertTrue(measurement.getOffset() >= 0);
+    }
+  }
+
+  private void checkMeasurements(int startDevice, int endDevice) throws MetadataException {
+    for (int i = startDevice; i < endDevice; i++) {
+      for (int j = 0; j < TIMESERIES_NUM; j++) {
+        PartialPath path = new PartialPath("root.sg.d" + i + ".s" + j);
+        assertTrue(mManager.isPathExist(path));
+        assertEquals(TSDataType.INT64, mManager.getSeriesType(path));
+      }
+    }
+  }
+}
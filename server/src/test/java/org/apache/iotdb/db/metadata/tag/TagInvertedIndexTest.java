@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TagInvertedIndexTest {
+
+  private File testFolder;
+  private TagInvertedIndex index;
+
+  @Before
+  public void setUp() throws IOException {
+    testFolder = new File(TestConstant.BASE_OUTPUT_PATH.concat("tagIndexTest"));
+    testFolder.mkdirs();
+    index = new TagInvertedIndex(testFolder.getPath());
+    assertFalse(index.recover());
+    for (int i = 0; i < 100; i++) {
+      String path = "root.sg.d" + i + ".s";
+      index.add(path, "unit", i % 2 == 0 ? "celsius" : "kelvin");
+      index.add(path, "room", "room" + (i % 10));
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    index.clear();
+    FileUtils.deleteDirectory(testFolder);
+  }
+
+  @Test
+  public void testQuery() {
+    // unit = celsius and room = room2
+    List<String> paths = query(and(eq("unit", "celsius"), eq("room", "room2")));
+    assertEquals(10, paths.size());
+    // unit = kelvin and room = room2 matches nothing
+    assertTrue(query(and(eq("unit", "kelvin"), eq("room", "room2"))).isEmpty());
+    // room = room1 or room = room2
+    assertEquals(20, query(and(eq("room", "room1")), and(eq("room", "room2"))).size());
+    // room contains 1 or unit = celsius and room = room2
+    assertEquals(
+        20,
+        query(
+                and(new TagPredicate("room", "1", true)),
+                and(eq("unit", "celsius"), eq("room", "room2")))
+            .size());
+    // unknown keys and values match nothing
+    assertTrue(query(and(eq("owner", "a"))).isEmpty());
+    assertTrue(query(and(eq("unit", "fahrenheit"))).isEmpty());
+    assertFalse(index.containsKey("owner"));
+    assertTrue(index.containsKey("unit"));
+  }
+
+  @Test
+  public void testRemove() {
+    String path = "root.sg.d2.s";
+    assertTrue(index.contains(path, "room", "room2"));
+    index.remove(path, "room", "room2");
+    assertFalse(index.contains(path, "room", "room2"));
+    assertEquals(9, query(and(eq("room", "room2"))).size());
+
+    // the id is released with the last tag and reused by a new timeseries
+    index.remove(path, "unit", "celsius");
+    assertEquals(99, index.size());
+    index.add("root.sg.new.s", "unit", "celsius");
+    assertEquals(100, index.size());
+    assertEquals(50, query(and(eq("unit", "celsius"))).size());
+    assertTrue(query(and(eq("unit", "celsius"))).contains("root.sg.new.s"));
+    assertFalse(query(and(eq("unit", "celsius"))).contains(path));
+
+    // removing the last posting of a key drops the key
+    for (int i = 0; i < 100; i++) {
+      index.remove("root.sg.d" + i + ".s", "room", "room" + (i % 10));
+    }
+    assertFalse(index.containsKey("room"));
+  }
+
+  @Test
+  public void testRecoverFromLog() throws IOException {
+    index.remove("root.sg.d0.s", "room", "room0");
+    index.clear();
+
+    index = new TagInvertedIndex(testFolder.getPath());
+    assertTrue(index.recover());
+    assertEquals(100, index.size());
+    assertEquals(9, query(and(eq("room", "room0"))).size());
+    assertEquals(50, query(and(eq("unit", "kelvin"))).size());
+  }
+
+  @Test
+  public void testRecoverFromCheckpoint() throws IOException {
+    index.checkpoint();
+    // the changes after the checkpoint are in the log
+    index.add("root.sg.new.s", "room", "room0");
+    index.remove("root.sg.d0.s", "unit", "celsius");
+    index.clear();
+
+    index = new TagInvertedIndex(testFolder.getPath());
+    assertTrue(index.recover());
+    assertEquals(101, index.size());
+    assertEquals(11, query(and(eq("room", "room0"))).size());
+    assertEquals(49, query(and(eq("unit", "celsius"))).size());
+
+    // a new timeseries gets an id that is not in use
+    index.add("root.sg.another.s", "room", "room0");
+    assertEquals(12, query(and(eq("room", "room0"))).size());
+  }
+
+  @Test
+  public void testRecoverFromIncompleteLog() throws IOException {
+    index.clear();
+    File logFile = new File(testFolder, MetadataConstant.TAG_INDEX_LOG);
+    long length = logFile.length();
+    // the last record, which adds room9 to root.sg.d99.s, is partially written
+    try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+      file.setLength(length - 3);
+    }
+
+    index = new TagInvertedIndex(testFolder.getPath());
+    assertTrue(index.recover());
+    assertEquals(100, index.size());
+    assertEquals(9, query(and(eq("room", "room9"))).size());
+    index.add("root.sg.d99.s", "room", "room9");
+    index.clear();
+
+    index = new TagInvertedIndex(testFolder.getPath());
+    index.recover();
+    assertEquals(100, index.size());
+    assertEquals(10, query(and(eq("room", "room9"))).size());
+  }
+
+  @Test
+  public void testRecoverAfterLogFailure() throws IOException {
+    index.checkpoint();
+    index.breakLog();
+    // the change cannot be logged, so neither the checkpoint nor the log can be recovered
+    index.add("root.sg.new.s", "room", "room0");
+    assertEquals(101, index.size());
+    assertTrue(index.contains("root.sg.new.s", "room", "room0"));
+    index.clear();
+
+    index = new TagInvertedIndex(testFolder.getPath());
+    // the index is to be rebuilt from the tag file
+    assertFalse(index.recover());
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void testCheckpointAfterLogFailure() throws IOException {
+    index.breakLog();
+    index.add("root.sg.new.s", "room", "room0");
+    // the index in memory is complete, and persisted again by a checkpoint
+    index.checkpoint();
+    index.remove("root.sg.d0.s", "room", "room0");
+    index.clear();
+
+    index = new TagInvertedIndex(testFolder.getPath());
+    assertTrue(index.recover());
+    assertEquals(101, index.size());
+    assertEquals(10, query(and(eq("room", "room0"))).size());
+    assertTrue(index.contains("root.sg.new.s", "room", "room0"));
+  }
+
+  private List<String> query(TagPredicate[]... conjunctions) {
+    List<List<TagPredicate>> predicates = new ArrayList<>();
+    for (TagPredicate[] conjunction : conjunctions) {
+      predicates.add(Arrays.asList(conjunction));
+    }
+    return index.getPaths(index.query(predicates));
+  }
+
+  private TagPredicate[] and(TagPredicate... predicates) {
+    return predicates;
+  }
+
+  private TagPredicate eq(String key, String value) {
+    return new TagPredicate(key, value, false);
+  }
+}
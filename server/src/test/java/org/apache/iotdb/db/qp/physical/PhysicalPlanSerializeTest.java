@@ -23,6 +23,7 @@ import org.apache.iotdb.db.auth.AuthException;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.tag.TagPredicate;
 import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
 import org.apache.iotdb.db.qp.logical.sys.AlterTimeSeriesOperator.AlterType;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator.AuthorType;
@@ -96,6 +97,19 @@ public class PhysicalPlanSerializeTest {
     Assert.assertEquals(0, ((ShowTimeSeriesPlan) result).getLimit());
     Assert.assertEquals(0, ((ShowTimeSeriesPlan) result).getOffset());
     Assert.assertEquals(false, ((ShowTimeSeriesPlan) result).isOrderByHeat());
+    Assert.assertEquals(
+        Collections.singletonList(Collections.singletonList(new TagPredicate("unit", "10", true))),
+        ((ShowTimeSeriesPlan) result).getTagPredicates());
+
+    // unit = 10 and room = 1 or unit contains 20
+    timeSeriesPlan.setTagPredicates(
+        Arrays.asList(
+            Arrays.asList(
+                new TagPredicate("unit", "10", false), new TagPredicate("room", "1", false)),
+            Collections.singletonList(new TagPredicate("unit", "20", true))));
+    result = Factory.create(serializePlan(timeSeriesPlan));
+    Assert.assertEquals(
+        timeSeriesPlan.getTagPredicates(), ((ShowTimeSeriesPlan) result).getTagPredicates());
   }
 
   @Test
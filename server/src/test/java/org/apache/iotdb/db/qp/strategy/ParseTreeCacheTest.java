@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.strategy;
+
+import org.apache.iotdb.db.qp.logical.crud.QueryOperator;
+
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ParseTreeCacheTest {
+
+  @Before
+  public void setUp() {
+    ParseTreeCache.getInstance().clear();
+  }
+
+  @After
+  public void tearDown() {
+    ParseTreeCache.getInstance().clear();
+  }
+
+  @Test
+  public void testSameShapeWithDifferentLiterals() {
+    QueryOperator operator = generate("select * from root.vehicle.d1 limit 10 offset 20");
+    Assert.assertEquals(10, operator.getSpecialClauseComponent().getRowLimit());
+    Assert.assertEquals(20, operator.getSpecialClauseComponent().getRowOffset());
+
+    operator = generate("select  *  from root.vehicle.d1 limit 5 offset 7");
+    Assert.assertEquals(5, operator.getSpecialClauseComponent().getRowLimit());
+    Assert.assertEquals(7, operator.getSpecialClauseComponent().getRowOffset());
+
+    operator = generate("select * from root.vehicle.d1 limit 10 offset 20");
+    Assert.assertEquals(10, operator.getSpecialClauseComponent().getRowLimit());
+    Assert.assertEquals(20, operator.getSpecialClauseComponent().getRowOffset());
+  }
+
+  @Test
+  public void testTimeAndStringLiterals() {
+    String sql1 =
+        "select s1 from root.vehicle.d1 where s1 = 'alpha?' and time > 2017-11-01T00:00:00+08:00";
+    String sql2 =
+        "select s1 from root.vehicle.d1 where s1 = 'beta' and time > 2018-01-01T00:00:00+08:00";
+    String filter1 = generate(sql1).getWhereComponent().getFilterOperator().toString();
+    String filter2 = generate(sql2).getWhereComponent().getFilterOperator().toString();
+
+    Assert.assertTrue(filter1.contains("alpha?"));
+    Assert.assertTrue(filter2.contains("beta"));
+    Assert.assertNotEquals(filter1, filter2);
+    Assert.assertEquals(filter1, generate(sql1).getWhereComponent().getFilterOperator().toString());
+  }
+
+  @Test(expected = ParseCancellationException.class)
+  public void testSyntaxError() {
+    generate("select * from root.vehicle.d1 limit 10 offset");
+  }
+
+  @Test
+  public void testConcurrentVisits() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        int limit = i + 1;
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int j = 0; j < 500; j++) {
+                    QueryOperator operator =
+                        generate("select * from root.vehicle.d1 limit " + limit + " offset " + j);
+                    if (operator.getSpecialClauseComponent().getRowLimit() != limit
+                        || operator.getSpecialClauseComponent().getRowOffset() != j) {
+                      return false;
+                    }
+                  }
+                  return true;
+                }));
+      }
+      for (Future<Boolean> future : futures) {
+        Assert.assertTrue(future.get());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private QueryOperator generate(String sql) {
+    return (QueryOperator) LogicalGenerator.generate(sql, ZoneId.systemDefault());
+  }
+}
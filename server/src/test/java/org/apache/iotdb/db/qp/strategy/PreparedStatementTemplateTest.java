@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.strategy;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class PreparedStatementTemplateTest {
+
+  @Test
+  public void testBind() throws QueryProcessException {
+    PreparedStatementTemplate template =
+        new PreparedStatementTemplate(
+            "select s1 from root.sg.d1 where s1 = '?\\'?' and s2 = \"?\" and time > ? and s3 < ?");
+    Assert.assertEquals(2, template.getParameterCount());
+    Assert.assertEquals(
+        "select s1 from root.sg.d1 where s1 = '?\\'?' and s2 = \"?\" and time > 10 and s3 < 'x'",
+        template.bind(Arrays.asList("10", "'x'")));
+  }
+
+  @Test(expected = QueryProcessException.class)
+  public void testWrongParameterCount() throws QueryProcessException {
+    PreparedStatementTemplate template =
+        new PreparedStatementTemplate("select s1 from root.sg.d1 where time > ?");
+    template.bind(Collections.emptyList());
+  }
+}
@@ -18,12 +18,31 @@
  */
 package org.apache.iotdb.db.query.control;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 public class QueryResourceManagerTest {
 
   @Test
-  public void test() {
-    // TODO
+  public void testSeriesParallelism() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevParallelism = config.getMaxSeriesParallelismPerQuery();
+    try {
+      QueryResourceManager manager = QueryResourceManager.getInstance();
+      config.setMaxSeriesParallelismPerQuery(1);
+      Assert.assertEquals(1, manager.getSeriesParallelism(100));
+
+      config.setMaxSeriesParallelismPerQuery(Integer.MAX_VALUE);
+      Assert.assertEquals(1, manager.getSeriesParallelism(0));
+      Assert.assertEquals(1, manager.getSeriesParallelism(1));
+      // capped by the query thread pool
+      Assert.assertEquals(
+          Math.min(100, config.getConcurrentQueryThread()), manager.getSeriesParallelism(100));
+    } finally {
+      config.setMaxSeriesParallelismPerQuery(prevParallelism);
+    }
   }
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class ColumnBufferTest {
+
+  @Test
+  public void testLayout() {
+    ColumnBuffer columnBuffer = new ColumnBuffer(4);
+    for (int round = 0; round < 2; round++) {
+      columnBuffer.reset();
+      for (int i = 0; i < 100; i++) {
+        columnBuffer.putInt(i - 50);
+        columnBuffer.putLong(Long.MIN_VALUE + i);
+        columnBuffer.putFloat(i / 3.0f);
+        columnBuffer.putDouble(-i / 7.0);
+        columnBuffer.putBoolean(i % 2 == 0);
+        columnBuffer.putBinary(new Binary("s" + i));
+        columnBuffer.putByte((byte) i);
+      }
+
+      ByteBuffer buffer = columnBuffer.toByteBuffer();
+      Assert.assertEquals(0, buffer.position());
+      Assert.assertEquals(columnBuffer.size(), buffer.limit());
+      for (int i = 0; i < 100; i++) {
+        Assert.assertEquals(i - 50, ReadWriteIOUtils.readInt(buffer));
+        Assert.assertEquals(Long.MIN_VALUE + i, ReadWriteIOUtils.readLong(buffer));
+        Assert.assertEquals(i / 3.0f, ReadWriteIOUtils.readFloat(buffer), 0);
+        Assert.assertEquals(-i / 7.0, ReadWriteIOUtils.readDouble(buffer), 0);
+        Assert.assertEquals(i % 2 == 0, ReadWriteIOUtils.readBool(buffer));
+        Assert.assertEquals(new Binary("s" + i), ReadWriteIOUtils.readBinary(buffer));
+        Assert.assertEquals((byte) i, buffer.get());
+      }
+      Assert.assertFalse(buffer.hasRemaining());
+    }
+  }
+}
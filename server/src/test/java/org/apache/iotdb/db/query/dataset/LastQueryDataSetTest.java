@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.dataset;
+
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class LastQueryDataSetTest {
+
+  private LastQueryDataSet createDataSet() {
+    LastQueryDataSet dataSet = new LastQueryDataSet();
+    for (int i = 0; i < 10; i++) {
+      dataSet.putLastPoint(
+          "root.sg.d" + i + ".s", new TimeValuePair(i, new TsPrimitiveType.TsInt(i * 10)));
+    }
+    return dataSet;
+  }
+
+  @Test
+  public void testIterate() throws IOException {
+    LastQueryDataSet dataSet = createDataSet();
+    dataSet.sortByTime();
+    int count = 0;
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      int expected = 9 - count;
+      Assert.assertEquals(expected, record.getTimestamp());
+      Assert.assertEquals(
+          "root.sg.d" + expected + ".s", record.getFields().get(0).getStringValue());
+      Assert.assertEquals(String.valueOf(expected * 10), record.getFields().get(1).toString());
+      Assert.assertEquals(TSDataType.INT32.name(), record.getFields().get(2).getStringValue());
+      count++;
+    }
+    Assert.assertEquals(10, count);
+  }
+
+  @Test
+  public void testFillBuffer() throws IOException {
+    LastQueryDataSet dataSet = createDataSet();
+    dataSet.setRowOffset(1);
+    dataSet.setRowLimit(7);
+
+    TSQueryDataSet tsQueryDataSet = dataSet.fillBuffer(5, null);
+    checkBuffer(tsQueryDataSet, 1, 5);
+    Assert.assertEquals((byte) 0xF8, tsQueryDataSet.getBitmapList().get(0).get(0));
+
+    tsQueryDataSet = dataSet.fillBuffer(5, null);
+    checkBuffer(tsQueryDataSet, 6, 2);
+    Assert.assertEquals((byte) 0xC0, tsQueryDataSet.getBitmapList().get(2).get(0));
+
+    tsQueryDataSet = dataSet.fillBuffer(5, null);
+    Assert.assertEquals(0, tsQueryDataSet.getTime().remaining());
+  }
+
+  private void checkBuffer(TSQueryDataSet tsQueryDataSet, int start, int rowCount) {
+    ByteBuffer time = tsQueryDataSet.getTime();
+    ByteBuffer timeseries = tsQueryDataSet.getValueList().get(0);
+    ByteBuffer value = tsQueryDataSet.getValueList().get(1);
+    ByteBuffer dataType = tsQueryDataSet.getValueList().get(2);
+    Assert.assertEquals(rowCount * Long.BYTES, time.remaining());
+    for (int i = start; i < start + rowCount; i++) {
+      Assert.assertEquals(i, time.getLong());
+      Assert.assertEquals(
+          "root.sg.d" + i + ".s", ReadWriteIOUtils.readBinary(timeseries).toString());
+      Assert.assertEquals(String.valueOf(i * 10), ReadWriteIOUtils.readBinary(value).toString());
+      Assert.assertEquals(
+          TSDataType.INT32.name(), ReadWriteIOUtils.readBinary(dataType).toString());
+    }
+    Assert.assertFalse(timeseries.hasRemaining());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.pool;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryTaskPoolManagerTest {
+
+  private final QueryTaskPoolManager poolManager = QueryTaskPoolManager.getInstance();
+
+  @Test
+  public void testRunSeriesTasks() throws Exception {
+    int taskNum = 1000;
+    long[] results = new long[taskNum];
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    poolManager.runSeriesTasks(
+        taskNum,
+        2,
+        i -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          threads.add(Thread.currentThread().getName());
+          results[i] = (long) i * i;
+          running.decrementAndGet();
+        });
+    for (int i = 0; i < taskNum; i++) {
+      Assert.assertEquals((long) i * i, results[i]);
+    }
+    Assert.assertTrue(maxRunning.get() <= 2);
+    Assert.assertFalse(threads.contains(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void testRunSeriesTasksSequentially() throws Exception {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    poolManager.runSeriesTasks(10, 1, i -> threads.add(Thread.currentThread().getName()));
+    Assert.assertEquals(1, threads.size());
+    Assert.assertTrue(threads.contains(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void testRunSeriesTasksWithFailure() {
+    AtomicInteger finished = new AtomicInteger();
+    try {
+      poolManager.runSeriesTasks(
+          1000,
+          4,
+          i -> {
+            if (i == 10) {
+              throw new QueryProcessException("series 10 failed");
+            }
+            if (i == 11) {
+              throw new IOException("series 11 failed");
+            }
+            finished.incrementAndGet();
+          });
+      Assert.fail("the failure of a task should be rethrown");
+    } catch (QueryProcessException | IOException e) {
+      Assert.assertTrue(e.getMessage().contains("failed"));
+    } catch (Exception e) {
+      Assert.fail(e.getMessage());
+    }
+    // the workers stop after the failure instead of running the remaining tasks
+    Assert.assertTrue(finished.get() < 998);
+  }
+}
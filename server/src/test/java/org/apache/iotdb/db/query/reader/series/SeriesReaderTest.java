@@ -19,6 +19,9 @@
 
 package org.apache.iotdb.db.query.reader.series;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.BloomFilterCache;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -43,6 +46,8 @@ import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class SeriesReaderTest {
@@ -185,4 +190,71 @@ public class SeriesReaderTest {
       fail();
     }
   }
+
+  @Test
+  public void bloomFilterTest() {
+    BloomFilterCache.getInstance().resetCounters();
+    try {
+      for (int i = 0; i < 2; i++) {
+        SeriesReader seriesReader =
+            new SeriesReader(
+                new PartialPath(SERIES_READER_TEST_SG + ".device0.sensorAbsent"),
+                new HashSet<>(),
+                TSDataType.INT32,
+                new QueryContext(),
+                seqResources,
+                unseqResources,
+                null,
+                null,
+                true);
+        assertFalse(new SeriesRawDataBatchReader(seriesReader).hasNextBatch());
+      }
+    } catch (IOException | IllegalPathException e) {
+      e.printStackTrace();
+      fail();
+    }
+
+    // the bloom filter of each file is read once and consulted by both queries
+    int fileNum = seqResources.size() + unseqResources.size();
+    assertEquals(fileNum, BloomFilterCache.getInstance().getLoadCount());
+    assertEquals(2L * fileNum, BloomFilterCache.getInstance().getLookupCount());
+    assertTrue(BloomFilterCache.getInstance().getNegativeLookupAvoidedCount() > 0);
+    assertTrue(BloomFilterCache.getInstance().getUsedMemory() > 0);
+  }
+
+  @Test
+  public void bloomFilterEvictionTest() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    long bloomFilterCacheCapacity = config.getBloomFilterCacheCapacity();
+    // no bloom filter fits in the cache
+    config.setBloomFilterCacheCapacity(1);
+    BloomFilterCache.getInstance().resetCounters();
+    try {
+      for (int i = 0; i < 2; i++) {
+        SeriesReader seriesReader =
+            new SeriesReader(
+                new PartialPath(SERIES_READER_TEST_SG + ".device0.sensorAbsent"),
+                new HashSet<>(),
+                TSDataType.INT32,
+                new QueryContext(),
+                seqResources,
+                unseqResources,
+                null,
+                null,
+                true);
+        assertFalse(new SeriesRawDataBatchReader(seriesReader).hasNextBatch());
+      }
+    } catch (IOException | IllegalPathException e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      config.setBloomFilterCacheCapacity(bloomFilterCacheCapacity);
+    }
+
+    // the bloom filters are dropped after each lookup and read again by the second query
+    int fileNum = seqResources.size() + unseqResources.size();
+    assertEquals(2L * fileNum, BloomFilterCache.getInstance().getLoadCount());
+    assertTrue(BloomFilterCache.getInstance().getEvictionCount() >= 2L * fileNum);
+    assertTrue(BloomFilterCache.getInstance().getUsedMemory() <= 1);
+  }
 }
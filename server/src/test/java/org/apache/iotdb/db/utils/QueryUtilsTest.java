@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils;
+
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class QueryUtilsTest {
+
+  private static final String DEVICE = "root.sg.d1";
+
+  private int fileVersion = 0;
+
+  private TsFileResource createResource(long startTime, long endTime, boolean closed) {
+    fileVersion++;
+    TsFileResource resource =
+        new TsFileResource(new File("target", fileVersion + "-" + fileVersion + "-0.tsfile"));
+    resource.updateStartTime(DEVICE, startTime);
+    resource.updateEndTime(DEVICE, endTime);
+    resource.setClosed(closed);
+    return resource;
+  }
+
+  @Test
+  public void testSplitQueryDataSource() {
+    List<TsFileResource> seqResources = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      seqResources.add(createResource(i * 100L, i * 100L + 99, true));
+    }
+    // the end time of the unsealed file is not known yet
+    seqResources.add(createResource(400, 400, false));
+    List<TsFileResource> unseqResources = new ArrayList<>();
+    // overlaps the 2nd and the 3rd sequence file
+    unseqResources.add(createResource(150, 250, true));
+    QueryDataSource dataSource = new QueryDataSource(seqResources, unseqResources);
+    dataSource.setDataTTL(1000);
+
+    Assert.assertEquals(
+        Collections.singletonList(dataSource),
+        QueryUtils.splitQueryDataSource(dataSource, DEVICE, 1));
+
+    // components: [0, 99], [100, 299] with the unsequence file, [300, 399], [400, ...)
+    List<QueryDataSource> splits = QueryUtils.splitQueryDataSource(dataSource, DEVICE, 10);
+    Assert.assertEquals(4, splits.size());
+    Assert.assertEquals(2, splits.get(1).getSeqResources().size());
+    Assert.assertEquals(unseqResources, splits.get(1).getUnseqResources());
+    checkSplits(dataSource, splits);
+
+    splits = QueryUtils.splitQueryDataSource(dataSource, DEVICE, 2);
+    Assert.assertEquals(2, splits.size());
+    checkSplits(dataSource, splits);
+  }
+
+  @Test
+  public void testSplitOverlappedQueryDataSource() {
+    List<TsFileResource> seqResources = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      seqResources.add(createResource(i * 100L, i * 100L + 99, true));
+    }
+    List<TsFileResource> unseqResources = new ArrayList<>();
+    unseqResources.add(createResource(50, 350, true));
+    QueryDataSource dataSource = new QueryDataSource(seqResources, unseqResources);
+
+    // the unsequence file covers all sequence files, so nothing can be split
+    Assert.assertEquals(
+        Collections.singletonList(dataSource),
+        QueryUtils.splitQueryDataSource(dataSource, DEVICE, 4));
+  }
+
+  /** every file is in exactly one split, in order, and the splits have disjoint time ranges */
+  private void checkSplits(QueryDataSource dataSource, List<QueryDataSource> splits) {
+    List<TsFileResource> seqResources = new ArrayList<>();
+    Set<TsFileResource> unseqResources = new HashSet<>();
+    long lastEndTime = Long.MIN_VALUE;
+    for (QueryDataSource split : splits) {
+      Assert.assertEquals(dataSource.getDataTTL(), split.getDataTTL());
+      long startTime = Long.MAX_VALUE;
+      long endTime = Long.MIN_VALUE;
+      List<TsFileResource> files = new ArrayList<>(split.getSeqResources());
+      files.addAll(split.getUnseqResources());
+      for (TsFileResource file : files) {
+        startTime = Math.min(startTime, file.getStartTime(DEVICE));
+        endTime = Math.max(endTime, file.getEndTime(DEVICE));
+      }
+      Assert.assertTrue(startTime > lastEndTime);
+      lastEndTime = endTime;
+      seqResources.addAll(split.getSeqResources());
+      unseqResources.addAll(split.getUnseqResources());
+    }
+    Assert.assertEquals(dataSource.getSeqResources(), seqResources);
+    Assert.assertEquals(new HashSet<>(dataSource.getUnseqResources()), unseqResources);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class CompressedBitmapTest {
+
+  private static final int DEFAULT_ITERATION_TIMES = 100000;
+
+  @Test
+  public void testAddAndRemove() {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    TreeSet<Integer> expected = new TreeSet<>();
+    Random random = new Random(0);
+    for (int i = 0; i < DEFAULT_ITERATION_TIMES; i++) {
+      // values crowd in a few chunks so that chunks switch between arrays and bitsets
+      int value = random.nextInt(3 << 16);
+      if (random.nextInt(3) == 0) {
+        Assert.assertEquals(expected.remove(value), bitmap.remove(value));
+      } else {
+        Assert.assertEquals(expected.add(value), bitmap.add(value));
+      }
+    }
+    assertBitmapEquals(expected, bitmap);
+    for (int i = 0; i < 1000; i++) {
+      int value = random.nextInt(3 << 16);
+      Assert.assertEquals(expected.contains(value), bitmap.contains(value));
+    }
+
+    for (int value : expected) {
+      Assert.assertTrue(bitmap.remove(value));
+    }
+    Assert.assertTrue(bitmap.isEmpty());
+    Assert.assertEquals(0, bitmap.getCardinality());
+  }
+
+  @Test
+  public void testAndOr() {
+    Random random = new Random(1);
+    for (int round = 0; round < 10; round++) {
+      CompressedBitmap a = new CompressedBitmap();
+      CompressedBitmap b = new CompressedBitmap();
+      TreeSet<Integer> setA = new TreeSet<>();
+      TreeSet<Integer> setB = new TreeSet<>();
+      // a dense bitmap against a sparse one, and two dense ones
+      int sizeA = 20000;
+      int sizeB = round % 2 == 0 ? 1000 : 20000;
+      for (int i = 0; i < sizeA; i++) {
+        int value = random.nextInt(1 << 17);
+        setA.add(value);
+        a.add(value);
+      }
+      for (int i = 0; i < sizeB; i++) {
+        int value = random.nextInt(1 << 18);
+        setB.add(value);
+        b.add(value);
+      }
+
+      TreeSet<Integer> intersection = new TreeSet<>(setA);
+      intersection.retainAll(setB);
+      TreeSet<Integer> union = new TreeSet<>(setA);
+      union.addAll(setB);
+      assertBitmapEquals(intersection, CompressedBitmap.and(a, b));
+      assertBitmapEquals(intersection, CompressedBitmap.and(b, a));
+      assertBitmapEquals(union, CompressedBitmap.or(a, b));
+      assertBitmapEquals(union, CompressedBitmap.or(b, a));
+      // the operands are not changed
+      assertBitmapEquals(setA, a);
+      assertBitmapEquals(setB, b);
+    }
+  }
+
+  @Test
+  public void testCopy() {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    for (int i = 0; i < 10000; i++) {
+      bitmap.add(i * 3);
+    }
+    CompressedBitmap copy = bitmap.copy();
+    copy.add(1);
+    copy.remove(0);
+    Assert.assertTrue(bitmap.contains(0));
+    Assert.assertFalse(bitmap.contains(1));
+    Assert.assertEquals(10000, bitmap.getCardinality());
+    Assert.assertEquals(10000, copy.getCardinality());
+  }
+
+  @Test
+  public void testSerialize() throws IOException {
+    CompressedBitmap bitmap = new CompressedBitmap();
+    TreeSet<Integer> expected = new TreeSet<>();
+    Random random = new Random(2);
+    for (int i = 0; i < 10000; i++) {
+      int value = random.nextInt(1 << 16);
+      expected.add(value);
+      bitmap.add(value);
+    }
+    for (int i = 0; i < 100; i++) {
+      int value = random.nextInt(Integer.MAX_VALUE);
+      expected.add(value);
+      bitmap.add(value);
+    }
+
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    bitmap.serialize(new DataOutputStream(byteArrayOutputStream));
+    CompressedBitmap deserialized =
+        CompressedBitmap.deserialize(
+            new DataInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray())));
+    assertBitmapEquals(expected, deserialized);
+  }
+
+  private void assertBitmapEquals(TreeSet<Integer> expected, CompressedBitmap bitmap) {
+    Assert.assertEquals(expected.size(), bitmap.getCardinality());
+    int[] actual = bitmap.toArray();
+    int i = 0;
+    for (int value : expected) {
+      Assert.assertEquals(value, actual[i++]);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import org.apache.iotdb.db.utils.datastructure.IntervalTree.Interval;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class IntervalTreeTest {
+
+  private static final int DEFAULT_ITERATION_TIMES = 10000;
+
+  @Test
+  public void testEmpty() {
+    IntervalTree<Integer> tree = new IntervalTree<>();
+    Assert.assertTrue(tree.isEmpty());
+    List<Integer> results = new ArrayList<>();
+    tree.query(Long.MIN_VALUE, Long.MAX_VALUE, results);
+    Assert.assertTrue(results.isEmpty());
+  }
+
+  @Test
+  public void testQuery() {
+    IntervalTree<Integer> tree = new IntervalTree<>();
+    tree.insert(10, 20, 0);
+    tree.insert(0, 5, 1);
+    tree.insert(15, Long.MAX_VALUE, 2);
+    tree.insert(21, 30, 3);
+    Assert.assertEquals(4, tree.size());
+
+    List<Integer> results = new ArrayList<>();
+    tree.query(5, 10, results);
+    assertListEquals(new int[] {1, 0}, results);
+
+    results.clear();
+    tree.query(18, 25, results);
+    assertListEquals(new int[] {0, 2, 3}, results);
+
+    results.clear();
+    tree.query(6, 9, results);
+    Assert.assertTrue(results.isEmpty());
+
+    results.clear();
+    tree.query(1000, 1000, results);
+    assertListEquals(new int[] {2}, results);
+  }
+
+  @Test
+  public void testRemove() {
+    IntervalTree<Integer> tree = new IntervalTree<>();
+    Interval<Integer> first = tree.insert(0, 10, 0);
+    Interval<Integer> second = tree.insert(0, 10, 1);
+    tree.remove(first);
+    Assert.assertEquals(1, tree.size());
+
+    List<Integer> results = new ArrayList<>();
+    tree.query(5, 5, results);
+    assertListEquals(new int[] {1}, results);
+
+    try {
+      tree.remove(first);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    tree.remove(second);
+    Assert.assertTrue(tree.isEmpty());
+  }
+
+  @Test
+  public void testRandom() {
+    Random random = new Random(0);
+    IntervalTree<Integer> tree = new IntervalTree<>();
+    List<Interval<Integer>> intervals = new ArrayList<>();
+    for (int i = 0; i < DEFAULT_ITERATION_TIMES; i++) {
+      if (!intervals.isEmpty() && random.nextInt(3) == 0) {
+        tree.remove(intervals.remove(random.nextInt(intervals.size())));
+      } else {
+        long start = random.nextInt(100000);
+        intervals.add(tree.insert(start, start + random.nextInt(1000), i));
+      }
+
+      long start = random.nextInt(100000);
+      long end = start + random.nextInt(2000);
+      List<Integer> expected = new ArrayList<>();
+      intervals.sort(Comparator.naturalOrder());
+      for (Interval<Integer> interval : intervals) {
+        if (interval.getStart() <= end && interval.getEnd() >= start) {
+          expected.add(interval.getValue());
+        }
+      }
+      List<Integer> results = new ArrayList<>();
+      tree.query(start, end, results);
+      Assert.assertEquals(expected, results);
+      Assert.assertEquals(intervals.size(), tree.size());
+    }
+  }
+
+  private void assertListEquals(int[] expected, List<Integer> actual) {
+    Assert.assertEquals(expected.length, actual.size());
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(expected[i], (int) actual.get(i));
+    }
+  }
+}
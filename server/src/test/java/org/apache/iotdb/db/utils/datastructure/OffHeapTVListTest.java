@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.rescon.OffHeapArrayManager;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapTVListTest {
+  public static double delta = 0.001d;
+
+  @Test
+  public void testOffHeapDoubleTVList() {
+    OffHeapDoubleTVList tvList = new OffHeapDoubleTVList();
+    for (int i = 1000; i >= 0; i--) {
+      tvList.putDouble(i, i + 0.5);
+    }
+    Assert.assertFalse(tvList.isSorted());
+    tvList.sort();
+    for (int i = 0; i < tvList.size; i++) {
+      Assert.assertEquals(i + 0.5, tvList.getDouble(i), delta);
+      Assert.assertEquals(i, tvList.getTime(i));
+    }
+  }
+
+  @Test
+  public void testOffHeapIntTVLists() {
+    OffHeapIntTVList tvList = new OffHeapIntTVList();
+    long[] times = new long[1000];
+    int[] values = new int[1000];
+    for (int i = 0; i < 1000; i++) {
+      times[i] = 999 - i;
+      values[i] = -(999 - i);
+    }
+    tvList.putInts(times, values, 0, 1000);
+    tvList.sort();
+    for (int i = 0; i < tvList.size; i++) {
+      Assert.assertEquals(-i, tvList.getInt(i));
+      Assert.assertEquals(i, tvList.getTime(i));
+    }
+  }
+
+  @Test
+  public void testOffHeapCloneAndDelete() {
+    OffHeapLongTVList tvList = new OffHeapLongTVList();
+    for (int i = 0; i < 1000; i++) {
+      tvList.putLong(i, Long.MAX_VALUE - i);
+    }
+    TVList cloneList = tvList.clone();
+    Assert.assertEquals(500, tvList.delete(0, 499));
+    Assert.assertEquals(500, tvList.size());
+    Assert.assertEquals(500, tvList.getTime(0));
+    Assert.assertEquals(Long.MAX_VALUE - 500, tvList.getLong(0));
+
+    Assert.assertEquals(1000, cloneList.size());
+    for (int i = 0; i < cloneList.size(); i++) {
+      Assert.assertEquals(Long.MAX_VALUE - i, cloneList.getLong(i));
+    }
+    tvList.clear();
+    cloneList.clear();
+  }
+
+  @Test
+  public void testOffHeapFloatAndBooleanTVList() {
+    OffHeapFloatTVList floatList = new OffHeapFloatTVList();
+    OffHeapBooleanTVList booleanList = new OffHeapBooleanTVList();
+    for (int i = 0; i < 100; i++) {
+      floatList.putFloat(i, -i / 4f);
+      booleanList.putBoolean(i, i % 3 == 0);
+    }
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(-i / 4f, floatList.getFloat(i), delta);
+      Assert.assertEquals(i % 3 == 0, booleanList.getBoolean(i));
+    }
+  }
+
+  @Test
+  public void testReleaseIdleSlabs() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    long prevPoolSize = config.getOffHeapMemTablePoolSize();
+    config.setOffHeapMemTablePoolSize(0);
+    try {
+      long allocatedBefore = OffHeapArrayManager.getAllocatedBytes();
+      OffHeapLongTVList tvList = new OffHeapLongTVList();
+      // several slabs of time and value blocks
+      for (int i = 0; i < 300000; i++) {
+        tvList.putLong(i, i);
+      }
+      Assert.assertTrue(
+          OffHeapArrayManager.getAllocatedBytes() > allocatedBefore + 2 * 1024 * 1024);
+      tvList.clear();
+      Assert.assertTrue(OffHeapArrayManager.getAllocatedBytes() <= allocatedBefore);
+    } finally {
+      config.setOffHeapMemTablePoolSize(prevPoolSize);
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.db.utils.MmapUtil;
+import org.apache.iotdb.db.writelog.io.GroupCommitLogFlusher;
 import org.apache.iotdb.db.writelog.io.ILogReader;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
@@ -347,4 +348,105 @@ public class WriteLogNodeTest {
       MmapUtil.clean((MappedByteBuffer) byteBuffer);
     }
   }
+
+  @Test
+  public void testGroupCommit() throws IOException, IllegalPathException {
+    // this test writes logs of two nodes through the shared group commit flusher, every write
+    // triggers a sync and waits for its batch to be forced, then reads the logs from file
+    boolean enableWalGroupCommit = config.isEnableWalGroupCommit();
+    int flushWalThreshold = config.getFlushWalThreshold();
+    long forceWalPeriodInMs = config.getForceWalPeriodInMs();
+    config.setEnableWalGroupCommit(true);
+    config.setFlushWalThreshold(1);
+    config.setForceWalPeriodInMs(0);
+
+    try {
+      String[] identifiers = new String[] {"root.logTestDevice1", "root.logTestDevice2"};
+      WriteLogNode[] logNodes = new WriteLogNode[identifiers.length];
+      for (int i = 0; i < identifiers.length; i++) {
+        ByteBuffer[] byteBuffers = new ByteBuffer[2];
+        byteBuffers[0] = ByteBuffer.allocateDirect(config.getWalBufferSize() / 2);
+        byteBuffers[1] = ByteBuffer.allocateDirect(config.getWalBufferSize() / 2);
+        logNodes[i] = new ExclusiveWriteLogNode(identifiers[i]);
+        logNodes[i].initBuffer(byteBuffers);
+      }
+
+      long batchNum = GroupCommitLogFlusher.getInstance().getBatchNum();
+      for (int time = 0; time < 10; time++) {
+        for (int i = 0; i < identifiers.length; i++) {
+          logNodes[i].write(
+              new InsertRowPlan(
+                  new PartialPath(identifiers[i]),
+                  time,
+                  new String[] {"s1"},
+                  new TSDataType[] {TSDataType.DOUBLE},
+                  new String[] {"1.0"}));
+        }
+      }
+      assertTrue(GroupCommitLogFlusher.getInstance().getBatchNum() > batchNum);
+
+      for (int i = 0; i < identifiers.length; i++) {
+        logNodes[i].close();
+        ILogReader reader = logNodes[i].getLogReader();
+        for (int time = 0; time < 10; time++) {
+          assertEquals(time, ((InsertRowPlan) reader.next()).getTime());
+        }
+        assertFalse(reader.hasNext());
+        reader.close();
+
+        ByteBuffer[] array = logNodes[i].delete();
+        for (ByteBuffer byteBuffer : array) {
+          MmapUtil.clean((MappedByteBuffer) byteBuffer);
+        }
+      }
+    } finally {
+      config.setEnableWalGroupCommit(enableWalGroupCommit);
+      config.setFlushWalThreshold(flushWalThreshold);
+      config.setForceWalPeriodInMs(forceWalPeriodInMs);
+    }
+  }
+
+  @Test
+  public void testGroupCommitForceSync() throws IOException, IllegalPathException {
+    // the writers do not wait for the group commit, forceSync returns after the buffer is written
+    boolean enableWalGroupCommit = config.isEnableWalGroupCommit();
+    long forceWalPeriodInMs = config.getForceWalPeriodInMs();
+    config.setEnableWalGroupCommit(true);
+    config.setForceWalPeriodInMs(100);
+
+    try {
+      String identifier = "root.logTestDevice";
+      ByteBuffer[] byteBuffers = new ByteBuffer[2];
+      byteBuffers[0] = ByteBuffer.allocateDirect(config.getWalBufferSize() / 2);
+      byteBuffers[1] = ByteBuffer.allocateDirect(config.getWalBufferSize() / 2);
+      WriteLogNode logNode = new ExclusiveWriteLogNode(identifier);
+      logNode.initBuffer(byteBuffers);
+
+      for (int time = 0; time < 10; time++) {
+        logNode.write(
+            new InsertRowPlan(
+                new PartialPath(identifier),
+                time,
+                new String[] {"s1"},
+                new TSDataType[] {TSDataType.DOUBLE},
+                new String[] {"1.0"}));
+      }
+      logNode.forceSync();
+
+      ILogReader reader = logNode.getLogReader();
+      for (int time = 0; time < 10; time++) {
+        assertEquals(time, ((InsertRowPlan) reader.next()).getTime());
+      }
+      assertFalse(reader.hasNext());
+      reader.close();
+
+      ByteBuffer[] array = logNode.delete();
+      for (ByteBuffer byteBuffer : array) {
+        MmapUtil.clean((MappedByteBuffer) byteBuffer);
+      }
+    } finally {
+      config.setEnableWalGroupCommit(enableWalGroupCommit);
+      config.setForceWalPeriodInMs(forceWalPeriodInMs);
+    }
+  }
 }
@@ -94,4 +94,34 @@ public class LogWriterReaderTest {
       new File(filePath).delete();
     }
   }
+
+  @Test
+  public void testMmapWriteAndRead() throws IOException {
+    // a tiny segment size makes the logs span several segments
+    MmapLogWriter writer = new MmapLogWriter(new File(filePath), 64, false);
+    try {
+      writer.write(logsBuffer);
+      writer.close();
+      // reopening appends after the existing logs
+      writer = new MmapLogWriter(new File(filePath), 64, false);
+      writer.write(logsBuffer);
+      writer.force();
+      writer.close();
+
+      for (boolean useMmap : new boolean[] {true, false}) {
+        SingleFileLogReader reader = new SingleFileLogReader(new File(filePath), useMmap);
+        List<PhysicalPlan> res = new ArrayList<>();
+        while (reader.hasNext()) {
+          res.add(reader.next());
+        }
+        reader.close();
+        assertEquals(plans.size() * 2, res.size());
+        for (int i = 0; i < res.size(); i++) {
+          assertEquals(plans.get(i % plans.size()), res.get(i));
+        }
+      }
+    } finally {
+      new File(filePath).delete();
+    }
+  }
 }
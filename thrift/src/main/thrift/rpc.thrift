@@ -123,6 +123,25 @@ struct TSExecuteStatementReq {
   6: optional bool enableRedirectQuery;
 
   7: optional bool jdbcQuery;
+
+  // If set, the statement is bound from the prepared statement with these parameters
+  8: optional i64 preparedStatementId
+
+  9: optional list<string> parameters
+}
+
+// PrepareStatement()
+// Prepare a statement whose parameters are marked by '?', it is executed by ExecuteStatement()
+// with the preparedStatementId and the parameters set.
+struct TSPrepareStatementReq {
+  1: required i64 sessionId
+  2: required string statement
+}
+
+struct TSPrepareStatementResp {
+  1: required TSStatus status
+  2: optional i64 preparedStatementId
+  3: optional i32 parameterCount
 }
 
 struct TSExecuteBatchStatementReq{
@@ -424,6 +443,10 @@ service TSIService {
 
   i64 requestStatementId(1:i64 sessionId);
 
+  TSPrepareStatementResp prepareStatement(1:TSPrepareStatementReq req);
+
+  TSStatus closePreparedStatement(1:i64 sessionId, 2:i64 preparedStatementId);
+
   TSStatus createSchemaTemplate(1:TSCreateSchemaTemplateReq req);
 
   TSStatus setSchemaTemplate(1:TSSetSchemaTemplateReq req);
@@ -149,6 +149,58 @@ public abstract class Decoder {
     throw new TsFileDecodingException("Method readBigDecimal is not supported by Decoder");
   }
 
+  /**
+   * Read at most {@code size} values into {@code values}, starting from index 0. The default
+   * implementation reads them one by one, decoders that keep decoded values in blocks override
+   * this to copy whole blocks.
+   *
+   * @return the number of values read, which is less than size only if the buffer has no more
+   *     values
+   */
+  public int readBooleans(ByteBuffer buffer, boolean[] values, int size) throws IOException {
+    int read = 0;
+    while (read < size && hasNext(buffer)) {
+      values[read++] = readBoolean(buffer);
+    }
+    return read;
+  }
+
+  /** @see #readBooleans(ByteBuffer, boolean[], int) */
+  public int readInts(ByteBuffer buffer, int[] values, int size) throws IOException {
+    int read = 0;
+    while (read < size && hasNext(buffer)) {
+      values[read++] = readInt(buffer);
+    }
+    return read;
+  }
+
+  /** @see #readBooleans(ByteBuffer, boolean[], int) */
+  public int readLongs(ByteBuffer buffer, long[] values, int size) throws IOException {
+    int read = 0;
+    while (read < size && hasNext(buffer)) {
+      values[read++] = readLong(buffer);
+    }
+    return read;
+  }
+
+  /** @see #readBooleans(ByteBuffer, boolean[], int) */
+  public int readFloats(ByteBuffer buffer, float[] values, int size) throws IOException {
+    int read = 0;
+    while (read < size && hasNext(buffer)) {
+      values[read++] = readFloat(buffer);
+    }
+    return read;
+  }
+
+  /** @see #readBooleans(ByteBuffer, boolean[], int) */
+  public int readDoubles(ByteBuffer buffer, double[] values, int size) throws IOException {
+    int read = 0;
+    while (read < size && hasNext(buffer)) {
+      values[read++] = readDouble(buffer);
+    }
+    return read;
+  }
+
   public abstract boolean hasNext(ByteBuffer buffer) throws IOException;
 
   public abstract void reset();
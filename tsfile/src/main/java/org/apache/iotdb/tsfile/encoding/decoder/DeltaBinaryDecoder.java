@@ -106,6 +106,25 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    @Override
+    public int readInts(ByteBuffer buffer, int[] values, int size) {
+      int read = 0;
+      while (read < size) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[read++] = loadIntBatch(buffer);
+        } else {
+          int num = Math.min(size - read, readIntTotalCount - nextReadIndex);
+          System.arraycopy(data, nextReadIndex, values, read, num);
+          nextReadIndex += num;
+          read += num;
+        }
+      }
+      return read;
+    }
+
     /**
      * if remaining data has been run out, load next pack from InputStream.
      *
@@ -222,6 +241,25 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    @Override
+    public int readLongs(ByteBuffer buffer, long[] values, int size) {
+      int read = 0;
+      while (read < size) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[read++] = loadIntBatch(buffer);
+        } else {
+          int num = Math.min(size - read, readIntTotalCount - nextReadIndex);
+          System.arraycopy(data, nextReadIndex, values, read, num);
+          nextReadIndex += num;
+          read += num;
+        }
+      }
+      return read;
+    }
+
     @Override
     protected void readHeader(ByteBuffer buffer) {
       minDeltaBase = ReadWriteIOUtils.readLong(buffer);
@@ -42,6 +42,15 @@ public class DoublePrecisionDecoderV2 extends LongGorillaDecoder {
     return Double.longBitsToDouble(readLong(in));
   }
 
+  @Override
+  public final int readDoubles(ByteBuffer in, double[] values, int size) {
+    int read = 0;
+    while (read < size && hasNext) {
+      values[read++] = readDouble(in);
+    }
+    return read;
+  }
+
   @Override
   protected long cacheNext(ByteBuffer in) {
     readNext(in);
@@ -47,6 +47,11 @@ public class FloatDecoder extends Decoder {
   /** flag that indicates whether we have read maxPointNumber and calculated maxPointValue. */
   private boolean isMaxPointNumberRead;
 
+  /** buffers of the bulk reads of the inner decoder */
+  private int[] intValues;
+
+  private long[] longValues;
+
   public FloatDecoder(TSEncoding encodingType, TSDataType dataType) {
     super(encodingType);
     if (encodingType == TSEncoding.RLE) {
@@ -93,6 +98,38 @@ public class FloatDecoder extends Decoder {
     return value / maxPointValue;
   }
 
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] values, int size) throws IOException {
+    if (!hasNext(buffer)) {
+      return 0;
+    }
+    readMaxPointValue(buffer);
+    if (intValues == null || intValues.length < size) {
+      intValues = new int[size];
+    }
+    int read = decoder.readInts(buffer, intValues, size);
+    for (int i = 0; i < read; i++) {
+      values[i] = (float) (intValues[i] / maxPointValue);
+    }
+    return read;
+  }
+
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] values, int size) throws IOException {
+    if (!hasNext(buffer)) {
+      return 0;
+    }
+    readMaxPointValue(buffer);
+    if (longValues == null || longValues.length < size) {
+      longValues = new long[size];
+    }
+    int read = decoder.readLongs(buffer, longValues, size);
+    for (int i = 0; i < read; i++) {
+      values[i] = longValues[i] / maxPointValue;
+    }
+    return read;
+  }
+
   private void readMaxPointValue(ByteBuffer buffer) {
     if (!isMaxPointNumberRead) {
       int maxPointNumber = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
@@ -58,6 +58,15 @@ public class IntGorillaDecoder extends GorillaDecoderV2 {
     return returnValue;
   }
 
+  @Override
+  public final int readInts(ByteBuffer in, int[] values, int size) {
+    int read = 0;
+    while (read < size && hasNext) {
+      values[read++] = readInt(in);
+    }
+    return read;
+  }
+
   protected int cacheNext(ByteBuffer in) {
     readNext(in);
     if (storedValue == GORILLA_ENCODING_ENDING_INTEGER) {
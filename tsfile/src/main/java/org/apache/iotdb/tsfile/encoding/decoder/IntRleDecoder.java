@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /** Decoder for int value using rle or bit-packing. */
 public class IntRleDecoder extends RleDecoder {
@@ -99,6 +100,39 @@ public class IntRleDecoder extends RleDecoder {
     return result;
   }
 
+  /** copy whole rle runs and bit-packed groups instead of decoding value by value. */
+  @Override
+  public int readInts(ByteBuffer buffer, int[] values, int size) throws IOException {
+    int read = 0;
+    while (read < size && hasNext(buffer)) {
+      if (!isLengthAndBitWidthReaded) {
+        // start to read a new rle+bit-packing pattern
+        readLengthAndBitWidth(buffer);
+      }
+      if (currentCount == 0) {
+        readNext();
+      }
+      int num = Math.min(size - read, currentCount);
+      switch (mode) {
+        case RLE:
+          Arrays.fill(values, read, read + num, currentValue);
+          break;
+        case BIT_PACKED:
+          System.arraycopy(currentBuffer, bitPackingNum - currentCount, values, read, num);
+          break;
+        default:
+          throw new TsFileDecodingException(
+              String.format("tsfile-encoding IntRleDecoder: not a valid mode %s", mode));
+      }
+      currentCount -= num;
+      read += num;
+      if (!hasNextPackage()) {
+        isLengthAndBitWidthReaded = false;
+      }
+    }
+    return read;
+  }
+
   @Override
   protected void initPacker() {
     packer = new IntPacker(bitWidth);
@@ -58,6 +58,15 @@ public class LongGorillaDecoder extends GorillaDecoderV2 {
     return returnValue;
   }
 
+  @Override
+  public final int readLongs(ByteBuffer in, long[] values, int size) {
+    int read = 0;
+    while (read < size && hasNext) {
+      values[read++] = readLong(in);
+    }
+    return read;
+  }
+
   protected long cacheNext(ByteBuffer in) {
     readNext(in);
     if (storedValue == GORILLA_ENCODING_ENDING_LONG) {
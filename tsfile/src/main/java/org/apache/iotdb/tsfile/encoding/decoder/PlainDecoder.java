@@ -63,6 +63,30 @@ public class PlainDecoder extends Decoder {
     return buffer.getDouble();
   }
 
+  @Override
+  public int readLongs(ByteBuffer buffer, long[] values, int size) {
+    int num = Math.min(size, buffer.remaining() / Long.BYTES);
+    buffer.asLongBuffer().get(values, 0, num);
+    buffer.position(buffer.position() + num * Long.BYTES);
+    return num;
+  }
+
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] values, int size) {
+    int num = Math.min(size, buffer.remaining() / Float.BYTES);
+    buffer.asFloatBuffer().get(values, 0, num);
+    buffer.position(buffer.position() + num * Float.BYTES);
+    return num;
+  }
+
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] values, int size) {
+    int num = Math.min(size, buffer.remaining() / Double.BYTES);
+    buffer.asDoubleBuffer().get(values, 0, num);
+    buffer.position(buffer.position() + num * Double.BYTES);
+    return num;
+  }
+
   @Override
   public Binary readBinary(ByteBuffer buffer) {
     int length = readInt(buffer);
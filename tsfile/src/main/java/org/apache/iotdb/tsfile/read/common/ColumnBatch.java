@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.common;
+
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * A batch of points of one series in columnar form: the times and the values are kept in
+ * primitive arrays, and a selection bitmap marks the rows that survive deletions and filters. It
+ * lets a page be decoded with the bulk methods of {@link Decoder} and filtered with {@link
+ * org.apache.iotdb.tsfile.read.filter.basic.Filter#selectSatisfied(ColumnBatch)}, without per-point
+ * type dispatch or boxing. TEXT and VECTOR series are not supported.
+ */
+public class ColumnBatch {
+
+  private final TSDataType dataType;
+
+  private final long[] times;
+  private boolean[] booleanValues;
+  private int[] intValues;
+  private long[] longValues;
+  private float[] floatValues;
+  private double[] doubleValues;
+
+  private int size;
+
+  /** bit i is set if row i is selected */
+  private BitSet selection;
+
+  public ColumnBatch(TSDataType dataType, int capacity) {
+    this.dataType = dataType;
+    this.times = new long[capacity];
+    switch (dataType) {
+      case BOOLEAN:
+        booleanValues = new boolean[capacity];
+        break;
+      case INT32:
+        intValues = new int[capacity];
+        break;
+      case INT64:
+        longValues = new long[capacity];
+        break;
+      case FLOAT:
+        floatValues = new float[capacity];
+        break;
+      case DOUBLE:
+        doubleValues = new double[capacity];
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+    this.selection = new BitSet(capacity);
+  }
+
+  /**
+   * Decode the next rows from the time and value columns of a page, and select all of them.
+   *
+   * @return the number of rows decoded, 0 if the page has no more points
+   */
+  public int decode(
+      Decoder timeDecoder, ByteBuffer timeBuffer, Decoder valueDecoder, ByteBuffer valueBuffer)
+      throws IOException {
+    size = timeDecoder.readLongs(timeBuffer, times, times.length);
+    int valueNum;
+    switch (dataType) {
+      case BOOLEAN:
+        valueNum = valueDecoder.readBooleans(valueBuffer, booleanValues, size);
+        break;
+      case INT32:
+        valueNum = valueDecoder.readInts(valueBuffer, intValues, size);
+        break;
+      case INT64:
+        valueNum = valueDecoder.readLongs(valueBuffer, longValues, size);
+        break;
+      case FLOAT:
+        valueNum = valueDecoder.readFloats(valueBuffer, floatValues, size);
+        break;
+      case DOUBLE:
+        valueNum = valueDecoder.readDoubles(valueBuffer, doubleValues, size);
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+    if (valueNum != size) {
+      throw new IOException(
+          String.format("%d timestamps are decoded but only %d values", size, valueNum));
+    }
+    selection.clear();
+    selection.set(0, size);
+    return size;
+  }
+
+  /** append the selected rows to the batch data. */
+  public void putSelectedInto(BatchData batchData) {
+    switch (dataType) {
+      case BOOLEAN:
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+          batchData.putBoolean(times[i], booleanValues[i]);
+        }
+        break;
+      case INT32:
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+          batchData.putInt(times[i], intValues[i]);
+        }
+        break;
+      case INT64:
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+          batchData.putLong(times[i], longValues[i]);
+        }
+        break;
+      case FLOAT:
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+          batchData.putFloat(times[i], floatValues[i]);
+        }
+        break;
+      case DOUBLE:
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+          batchData.putDouble(times[i], doubleValues[i]);
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  /** @return the index of the first selected row from fromIndex on, or -1 if there is none */
+  public int nextSelected(int fromIndex) {
+    int next = selection.nextSetBit(fromIndex);
+    return next < size ? next : -1;
+  }
+
+  /** @return the boxed value of row i, for the filters that cannot evaluate a whole column */
+  public Object getValue(int i) {
+    switch (dataType) {
+      case BOOLEAN:
+        return booleanValues[i];
+      case INT32:
+        return intValues[i];
+      case INT64:
+        return longValues[i];
+      case FLOAT:
+        return floatValues[i];
+      case DOUBLE:
+        return doubleValues[i];
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long[] getTimes() {
+    return times;
+  }
+
+  public boolean[] getBooleanValues() {
+    return booleanValues;
+  }
+
+  public int[] getIntValues() {
+    return intValues;
+  }
+
+  public long[] getLongValues() {
+    return longValues;
+  }
+
+  public float[] getFloatValues() {
+    return floatValues;
+  }
+
+  public double[] getDoubleValues() {
+    return doubleValues;
+  }
+
+  public BitSet getSelection() {
+    return selection;
+  }
+
+  public void setSelection(BitSet selection) {
+    this.selection = selection;
+  }
+}
@@ -19,10 +19,12 @@
 package org.apache.iotdb.tsfile.read.filter.basic;
 
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.ColumnBatch;
 import org.apache.iotdb.tsfile.read.filter.factory.FilterSerializeId;
 
 import java.io.DataOutputStream;
 import java.nio.ByteBuffer;
+import java.util.BitSet;
 
 /** Filter is a top level filter abstraction. */
 public interface Filter {
@@ -42,6 +44,20 @@ public interface Filter {
    */
   boolean satisfy(long time, Object value);
 
+  /**
+   * Unselect the rows of the batch that do not satisfy this filter. The default implementation
+   * evaluates the selected rows one by one with {@link #satisfy(long, Object)}.
+   */
+  default void selectSatisfied(ColumnBatch batch) {
+    BitSet selection = batch.getSelection();
+    long[] times = batch.getTimes();
+    for (int i = batch.nextSelected(0); i >= 0; i = batch.nextSelected(i + 1)) {
+      if (!satisfy(times[i], batch.getValue(i))) {
+        selection.clear(i);
+      }
+    }
+  }
+
   /**
    * To examine whether the min time and max time are satisfied with the filter.
    *
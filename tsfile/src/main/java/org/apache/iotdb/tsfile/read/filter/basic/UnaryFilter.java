@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.tsfile.read.filter.basic;
 
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.ColumnBatch;
 import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
@@ -25,6 +27,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.util.BitSet;
 import java.util.Objects;
 
 /**
@@ -58,6 +61,67 @@ public abstract class UnaryFilter<T extends Comparable<T>> implements Filter, Se
     return filterType;
   }
 
+  /**
+   * @param comparison the result of comparing the time or value of a point with {@link #value}
+   * @return whether the point satisfies this filter
+   */
+  protected abstract boolean accept(int comparison);
+
+  /**
+   * Compare the time or value column of the batch with {@link #value} as primitives, which gives
+   * the same result as {@link #satisfy(long, Object)} without boxing every point.
+   */
+  @Override
+  public void selectSatisfied(ColumnBatch batch) {
+    BitSet selection = batch.getSelection();
+    if (filterType == FilterType.TIME_FILTER) {
+      long[] times = batch.getTimes();
+      long constant = (Long) value;
+      for (int i = batch.nextSelected(0); i >= 0; i = batch.nextSelected(i + 1)) {
+        if (!accept(Long.compare(times[i], constant))) {
+          selection.clear(i);
+        }
+      }
+      return;
+    }
+
+    if (batch.getDataType() == TSDataType.INT32 && value instanceof Integer) {
+      int[] values = batch.getIntValues();
+      int constant = (Integer) value;
+      for (int i = batch.nextSelected(0); i >= 0; i = batch.nextSelected(i + 1)) {
+        if (!accept(Integer.compare(values[i], constant))) {
+          selection.clear(i);
+        }
+      }
+    } else if (batch.getDataType() == TSDataType.INT64 && value instanceof Long) {
+      long[] values = batch.getLongValues();
+      long constant = (Long) value;
+      for (int i = batch.nextSelected(0); i >= 0; i = batch.nextSelected(i + 1)) {
+        if (!accept(Long.compare(values[i], constant))) {
+          selection.clear(i);
+        }
+      }
+    } else if (batch.getDataType() == TSDataType.FLOAT && value instanceof Float) {
+      float[] values = batch.getFloatValues();
+      float constant = (Float) value;
+      for (int i = batch.nextSelected(0); i >= 0; i = batch.nextSelected(i + 1)) {
+        if (!accept(Float.compare(values[i], constant))) {
+          selection.clear(i);
+        }
+      }
+    } else if (batch.getDataType() == TSDataType.DOUBLE && value instanceof Double) {
+      double[] values = batch.getDoubleValues();
+      double constant = (Double) value;
+      for (int i = batch.nextSelected(0); i >= 0; i = batch.nextSelected(i + 1)) {
+        if (!accept(Double.compare(values[i], constant))) {
+          selection.clear(i);
+        }
+      }
+    } else {
+      Filter.super.selectSatisfied(batch);
+    }
+  }
+
   @Override
   public abstract String toString();
 
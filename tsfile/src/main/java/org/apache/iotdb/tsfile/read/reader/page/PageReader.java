@@ -19,12 +19,12 @@
 package org.apache.iotdb.tsfile.read.reader.page;
 
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
-import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.BatchDataFactory;
+import org.apache.iotdb.tsfile.read.common.ColumnBatch;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
@@ -38,6 +38,9 @@ import java.util.List;
 
 public class PageReader implements IPageReader {
 
+  /** the max number of points decoded at a time */
+  private static final int COLUMN_BATCH_SIZE = 1024;
+
   private PageHeader pageHeader;
 
   protected TSDataType dataType;
@@ -101,58 +104,51 @@ public class PageReader implements IPageReader {
   }
 
   /** @return the returned BatchData may be empty, but never be null */
-  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   @Override
   public BatchData getAllSatisfiedPageData(boolean ascending) throws IOException {
 
     BatchData pageData = BatchDataFactory.createBatchData(dataType, ascending, false);
 
-    while (timeDecoder.hasNext(timeBuffer)) {
-      long timestamp = timeDecoder.readLong(timeBuffer);
-      switch (dataType) {
-        case BOOLEAN:
-          boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBoolean))) {
-            pageData.putBoolean(timestamp, aBoolean);
-          }
-          break;
-        case INT32:
-          int anInt = valueDecoder.readInt(valueBuffer);
-          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, anInt))) {
-            pageData.putInt(timestamp, anInt);
-          }
-          break;
-        case INT64:
-          long aLong = valueDecoder.readLong(valueBuffer);
-          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aLong))) {
-            pageData.putLong(timestamp, aLong);
-          }
-          break;
-        case FLOAT:
-          float aFloat = valueDecoder.readFloat(valueBuffer);
-          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aFloat))) {
-            pageData.putFloat(timestamp, aFloat);
-          }
-          break;
-        case DOUBLE:
-          double aDouble = valueDecoder.readDouble(valueBuffer);
-          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aDouble))) {
-            pageData.putDouble(timestamp, aDouble);
-          }
-          break;
-        case TEXT:
-          Binary aBinary = valueDecoder.readBinary(valueBuffer);
-          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBinary))) {
-            pageData.putBinary(timestamp, aBinary);
-          }
-          break;
-        default:
-          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    if (dataType == TSDataType.TEXT) {
+      while (timeDecoder.hasNext(timeBuffer)) {
+        long timestamp = timeDecoder.readLong(timeBuffer);
+        Binary aBinary = valueDecoder.readBinary(valueBuffer);
+        if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBinary))) {
+          pageData.putBinary(timestamp, aBinary);
+        }
       }
+    } else {
+      readPageDataInColumns(pageData);
     }
     return pageData.flip();
   }
 
+  /**
+   * Decode the page in column batches with the bulk methods of the decoders, and apply deletions
+   * and the filter on whole batches before appending the selected points.
+   */
+  private void readPageDataInColumns(BatchData pageData) throws IOException {
+    int batchSize = COLUMN_BATCH_SIZE;
+    if (pageHeader != null && pageHeader.getStatistics() != null) {
+      batchSize = (int) Math.max(1, Math.min(batchSize, pageHeader.getNumOfValues()));
+    }
+    ColumnBatch columnBatch = new ColumnBatch(dataType, batchSize);
+    while (columnBatch.decode(timeDecoder, timeBuffer, valueDecoder, valueBuffer) > 0) {
+      if (deleteIntervalList != null) {
+        long[] times = columnBatch.getTimes();
+        for (int i = 0; i < columnBatch.size(); i++) {
+          if (isDeleted(times[i])) {
+            columnBatch.getSelection().clear(i);
+          }
+        }
+      }
+      if (filter != null) {
+        filter.selectSatisfied(columnBatch);
+      }
+      columnBatch.putSelectedInto(pageData);
+    }
+  }
+
   @Override
   public Statistics getStatistics() {
     return pageHeader.getStatistics();
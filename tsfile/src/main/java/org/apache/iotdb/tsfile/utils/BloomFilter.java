@@ -20,6 +20,7 @@ package org.apache.iotdb.tsfile.utils;
 
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 
+import java.nio.ByteBuffer;
 import java.util.BitSet;
 
 public class BloomFilter {
@@ -114,6 +115,31 @@ public class BloomFilter {
     return ret;
   }
 
+  /**
+   * check a value against the serialized bits of a bloom filter without deserializing them, e.g.
+   * when the bits are kept in a direct buffer
+   *
+   * @param bits bytes of bits, as returned by {@link #serialize()}
+   * @param size size of the bloom filter
+   * @param hashFunctionSize number of hash functions of the bloom filter
+   * @return false if the value is definitely not in the bloom filter
+   */
+  public static boolean contains(ByteBuffer bits, int size, int hashFunctionSize, String value) {
+    if (value == null) {
+      return false;
+    }
+    int functionSize = Math.min(MAXIMAL_HASH_FUNCTION_SIZE, hashFunctionSize);
+    for (int i = 0; i < functionSize; i++) {
+      int index = Math.abs(Murmur128Hash.hash(value, SEEDS[i])) % size;
+      // the trailing zero bytes of the bits are not serialized
+      int byteIndex = index >>> 3;
+      if (byteIndex >= bits.limit() || (bits.get(byteIndex) & (1 << (index & 7))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public int getBitCount() {
     int res = 0;
     for (int i = 0; i < size; i++) {
@@ -479,4 +479,9 @@ public class ChunkWriterImpl implements IChunkWriter {
   public void setLastPoint(boolean isLastPoint) {
     this.isLastPoint = isLastPoint;
   }
+
+  /** whether SDT drops some of the points written to this chunk writer */
+  public boolean isSdtEncoding() {
+    return isSdtEncoding;
+  }
 }
@@ -161,6 +161,31 @@ public class LongRleDecoderTest {
     }
   }
 
+  @Test
+  public void testBulkReadLong() throws IOException {
+    List<Long> list = new ArrayList<>(hybridList);
+    list.addAll(rleList);
+    list.addAll(bpList);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    RleEncoder<Long> encoder = new LongRleEncoder();
+    for (long value : list) {
+      encoder.encode(value, baos);
+    }
+    encoder.flush(baos);
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    Decoder decoder = new LongRleDecoder();
+    long[] values = new long[97];
+    int index = 0;
+    int read;
+    while ((read = decoder.readLongs(buffer, values, values.length)) > 0) {
+      for (int i = 0; i < read; i++) {
+        assertEquals((long) list.get(index++), values[i]);
+      }
+    }
+    assertEquals(list.size(), index);
+  }
+
   @Test
   public void testBitPackingReadHeader() throws IOException {
     for (int i = 1; i < 505; i++) {
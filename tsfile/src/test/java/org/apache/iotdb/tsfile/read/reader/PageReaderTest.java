@@ -35,6 +35,10 @@ import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionEncoderV1;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.page.PageWriter;
@@ -231,6 +235,43 @@ public class PageReaderTest {
       }
     }
 
+    public void testFilter(TSDataType dataType, Filter filter) {
+      try {
+        pageWriter = new PageWriter();
+        pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+        pageWriter.setValueEncoder(this.encoder);
+        pageWriter.initStatistics(dataType);
+        writeData();
+
+        ByteBuffer page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+
+        PageReader pageReader =
+            new PageReader(
+                page, dataType, decoder, new DeltaBinaryDecoder.LongDeltaDecoder(), filter);
+
+        BatchData data = pageReader.getAllSatisfiedPageData();
+        Assert.assertNotNull(data);
+
+        int index = 0;
+        while (data.hasCurrent()) {
+          while (!filter.satisfy(index, generateValueByIndex(index))) {
+            index++;
+          }
+          Assert.assertEquals(Long.valueOf(index), (Long) data.currentTime());
+          Assert.assertEquals(generateValueByIndex(index), data.currentValue());
+          data.next();
+          index++;
+        }
+        while (index < count) {
+          Assert.assertFalse(filter.satisfy(index, generateValueByIndex(index)));
+          index++;
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+        Assert.fail("Fail when executing test: [" + name + "]");
+      }
+    }
+
     public void testDelete(TSDataType dataType) {
       try {
         pageWriter = new PageWriter();
@@ -312,4 +353,26 @@ public class PageReaderTest {
         };
     test.testDelete(TSDataType.INT64);
   }
+
+  @Test
+  public void testPageFilter() {
+    LoopWriteReadTest test =
+        new LoopWriteReadTest(
+            "Test INT64",
+            new LongRleEncoder(),
+            new LongRleDecoder(),
+            TSDataType.INT64,
+            POINTS_COUNT_IN_ONE_PAGE) {
+          @Override
+          public Object generateValueByIndex(int i) {
+            return Long.valueOf(i % 100);
+          }
+        };
+    test.testFilter(TSDataType.INT64, ValueFilter.gtEq(50L));
+    test.testFilter(
+        TSDataType.INT64,
+        FilterFactory.or(
+            ValueFilter.lt(10L), FilterFactory.and(TimeFilter.gt(500L), ValueFilter.eq(77L))));
+    test.testFilter(TSDataType.INT64, ValueFilter.notEq(3L));
+  }
 }
@@ -20,6 +20,9 @@ package org.apache.iotdb.tsfile.utils;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class BloomFilterTest {
@@ -63,4 +66,27 @@ public class BloomFilterTest {
     assertTrue(filter1.contains(value2));
     assertTrue(filter1.contains(value3));
   }
+
+  @Test
+  public void testContainsInBuffer() {
+    BloomFilter filter = BloomFilter.getEmptyBloomFilter(0.05, 100);
+    for (int i = 0; i < 100; i++) {
+      filter.add("device" + i + ".s" + i);
+    }
+    ByteBuffer bits = ByteBuffer.allocateDirect(filter.serialize().length);
+    bits.put(filter.serialize());
+    bits.flip();
+
+    for (int i = 0; i < 1000; i++) {
+      String value = "device" + i + ".s" + (i % 10 == 0 ? i : i + 1);
+      assertEquals(
+          filter.contains(value),
+          BloomFilter.contains(bits, filter.getSize(), filter.getHashFunctionSize(), value));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertTrue(
+          BloomFilter.contains(
+              bits, filter.getSize(), filter.getHashFunctionSize(), "device" + i + ".s" + i));
+    }
+  }
 }